@@ -0,0 +1,15 @@
+// Generated by codegen.CodecGenerator from messages.schema. Do not edit.
+
+package controller.net.protocol.codec;
+
+/**
+ * The values of the fields of struct <code>CoachMessageData2</code>, as declared in messages.schema.
+ * <p>
+ * Unsigned fields hold the bits of their values, as in the message. Fields with constant
+ * values are not held, as they are written by the encoder.
+ */
+public class CoachMessageData2
+{
+    public byte team;
+    public final byte[] message = new byte[40];
+}
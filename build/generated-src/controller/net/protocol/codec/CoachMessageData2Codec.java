@@ -0,0 +1,93 @@
+// Generated by codegen.CodecGenerator from messages.schema. Do not edit.
+
+package controller.net.protocol.codec;
+
+import common.annotations.NotNull;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encodes and decodes messages laid out as struct <code>CoachMessageData2</code>, as declared in messages.schema.
+ * <p>
+ * The constants give the offset of each field within its struct, and the length of each array.
+ * The offsets within nested structs are held by the nested classes of the same names.
+ */
+public final class CoachMessageData2Codec
+{
+    /** The size of a message, in bytes. */
+    public static final int SIZE = 46;
+
+    public static final int HEADER = 0;
+    public static final int HEADER_LENGTH = 4;
+    public static final int VERSION = 4;
+    public static final int TEAM = 5;
+    public static final int MESSAGE = 6;
+    public static final int MESSAGE_LENGTH = 40;
+
+    /**
+     * The number of fields with variable values. Each byte array counts as a single field, and each element
+     * of another array or an array of structs counts as a field of its own.
+     */
+    public static final int FIELD_COUNT = 2;
+
+    private static final int[] FIELD_OFFSETS = {
+        5, 6
+    };
+    private static final int[] FIELD_SIZES = {
+        1, 40
+    };
+
+    private CoachMessageData2Codec() {}
+
+    /** Gets the offset of a field within the message, as numbered from 0 to {@link #FIELD_COUNT} - 1. */
+    public static int getFieldOffset(int field)
+    {
+        return FIELD_OFFSETS[field];
+    }
+
+    /** Gets the size in bytes of a field, as numbered from 0 to {@link #FIELD_COUNT} - 1. */
+    public static int getFieldSize(int field)
+    {
+        return FIELD_SIZES[field];
+    }
+
+    /**
+     * Writes a message into a buffer, in little-endian byte order. The buffer's position is not changed.
+     *
+     * @param data the values of the message's fields.
+     * @param buffer the buffer to write into, having at least {@link #SIZE} bytes from the offset.
+     * @param offset the index in the buffer at which the message begins.
+     */
+    public static void encode(@NotNull CoachMessageData2 data, @NotNull ByteBuffer buffer, int offset)
+    {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int position = buffer.position();
+        buffer.put(offset, (byte)'S');
+        buffer.put(offset + 1, (byte)'P');
+        buffer.put(offset + 2, (byte)'L');
+        buffer.put(offset + 3, (byte)'C');
+        buffer.put(offset + 4, (byte)2);
+        buffer.put(offset + 5, data.team);
+        buffer.position(offset + 6);
+        buffer.put(data.message);
+        buffer.position(position);
+    }
+
+    /**
+     * Reads a message from a buffer, in little-endian byte order. The buffer's position is not changed.
+     * Fields with constant values, such as the header, are not checked.
+     *
+     * @param buffer the buffer to read from, having at least {@link #SIZE} bytes from the offset.
+     * @param offset the index in the buffer at which the message begins.
+     * @param data receives the values of the message's fields.
+     */
+    public static void decode(@NotNull ByteBuffer buffer, int offset, @NotNull CoachMessageData2 data)
+    {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int position = buffer.position();
+        data.team = buffer.get(offset + 5);
+        buffer.position(offset + 6);
+        buffer.get(data.message);
+        buffer.position(position);
+    }
+}
@@ -0,0 +1,344 @@
+// Generated by codegen.CodecGenerator from messages.schema. Do not edit.
+
+package controller.net.protocol.codec;
+
+import common.annotations.NotNull;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encodes and decodes messages laid out as struct <code>GameControlData11</code> with COACH, as declared in messages.schema.
+ * <p>
+ * The constants give the offset of each field within its struct, and the length of each array.
+ * The offsets within nested structs are held by the nested classes of the same names.
+ */
+public final class GameControlData11Codec
+{
+    /** The size of a message, in bytes. */
+    public static final int SIZE = 172;
+
+    public static final int HEADER = 0;
+    public static final int HEADER_LENGTH = 4;
+    public static final int VERSION = 4;
+    public static final int LEAGUE_NUMBER = 5;
+    public static final int PACKET_NUMBER = 6;
+    public static final int PLAYERS_PER_TEAM = 7;
+    public static final int GAME_ID = 8;
+    public static final int TIMESTAMP = 12;
+    public static final int PLAY_MODE = 16;
+    public static final int FIRST_HALF = 17;
+    public static final int KICK_OFF_TEAM = 18;
+    public static final int PERIOD = 19;
+    public static final int DROP_IN_TEAM = 20;
+    public static final int IS_KNOCK_OUT_GAME = 21;
+    public static final int DROP_IN_TIME = 22;
+    public static final int MILLIS_REMAINING = 24;
+    public static final int SECONDARY_TIME_MILLIS = 28;
+    public static final int TEAMS = 32;
+    public static final int TEAMS_LENGTH = 2;
+
+    /** The layout of struct <code>TeamInfo9</code> with COACH. */
+    public static final class TeamInfo9
+    {
+        /** The size of the struct, in bytes. */
+        public static final int SIZE = 70;
+
+        public static final int TEAM_NUMBER = 0;
+        public static final int TEAM_COLOUR = 1;
+        public static final int SCORE = 2;
+        public static final int PENALTY_SHOT = 3;
+        public static final int SINGLE_SHOTS = 4;
+        public static final int COACH_MESSAGE = 6;
+        public static final int COACH_MESSAGE_LENGTH = 40;
+        public static final int COACH = 46;
+        public static final int PLAYERS = 48;
+        public static final int PLAYERS_LENGTH = 11;
+
+        private TeamInfo9() {}
+    }
+
+    /** The layout of struct <code>RobotInfo9</code> with COACH. */
+    public static final class RobotInfo9
+    {
+        /** The size of the struct, in bytes. */
+        public static final int SIZE = 2;
+
+        public static final int PENALTY = 0;
+        public static final int SECS_TILL_UNPENALISED = 1;
+
+        private RobotInfo9() {}
+    }
+
+    /**
+     * The number of fields with variable values. Each byte array counts as a single field, and each element
+     * of another array or an array of structs counts as a field of its own.
+     */
+    public static final int FIELD_COUNT = 74;
+
+    private static final int[] FIELD_OFFSETS = {
+        5, 6, 7, 8, 12, 16, 17, 18, 19, 20, 21, 22, 24, 28, 32, 33,
+        34, 35, 36, 38, 78, 79, 80, 81, 82, 83, 84, 85, 86, 87, 88, 89,
+        90, 91, 92, 93, 94, 95, 96, 97, 98, 99, 100, 101, 102, 103, 104, 105,
+        106, 108, 148, 149, 150, 151, 152, 153, 154, 155, 156, 157, 158, 159, 160, 161,
+        162, 163, 164, 165, 166, 167, 168, 169, 170, 171
+    };
+    private static final int[] FIELD_SIZES = {
+        1, 1, 1, 4, 4, 1, 1, 1, 1, 1, 1, 2, 4, 4, 1, 1,
+        1, 1, 2, 40, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+        1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+        2, 40, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+        1, 1, 1, 1, 1, 1, 1, 1, 1, 1
+    };
+
+    private GameControlData11Codec() {}
+
+    /** Gets the offset of a field within the message, as numbered from 0 to {@link #FIELD_COUNT} - 1. */
+    public static int getFieldOffset(int field)
+    {
+        return FIELD_OFFSETS[field];
+    }
+
+    /** Gets the size in bytes of a field, as numbered from 0 to {@link #FIELD_COUNT} - 1. */
+    public static int getFieldSize(int field)
+    {
+        return FIELD_SIZES[field];
+    }
+
+    /**
+     * Writes a message into a buffer, in little-endian byte order. The buffer's position is not changed.
+     *
+     * @param data the values of the message's fields.
+     * @param buffer the buffer to write into, having at least {@link #SIZE} bytes from the offset.
+     * @param offset the index in the buffer at which the message begins.
+     */
+    public static void encode(@NotNull GameControlData11 data, @NotNull ByteBuffer buffer, int offset)
+    {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int position = buffer.position();
+        buffer.put(offset, (byte)'R');
+        buffer.put(offset + 1, (byte)'G');
+        buffer.put(offset + 2, (byte)'m');
+        buffer.put(offset + 3, (byte)'e');
+        buffer.put(offset + 4, (byte)11);
+        buffer.put(offset + 5, data.leagueNumber);
+        buffer.put(offset + 6, data.packetNumber);
+        buffer.put(offset + 7, data.playersPerTeam);
+        buffer.putInt(offset + 8, data.gameId);
+        buffer.putInt(offset + 12, data.timestamp);
+        buffer.put(offset + 16, data.playMode);
+        buffer.put(offset + 17, data.firstHalf);
+        buffer.put(offset + 18, data.kickOffTeam);
+        buffer.put(offset + 19, data.period);
+        buffer.put(offset + 20, data.dropInTeam);
+        buffer.put(offset + 21, data.isKnockOutGame);
+        buffer.putShort(offset + 22, data.dropInTime);
+        buffer.putInt(offset + 24, data.millisRemaining);
+        buffer.putInt(offset + 28, data.secondaryTimeMillis);
+        controller.net.protocol.codec.TeamInfo9 teams0 = data.teams[0];
+        buffer.put(offset + 32, teams0.teamNumber);
+        buffer.put(offset + 33, teams0.teamColour);
+        buffer.put(offset + 34, teams0.score);
+        buffer.put(offset + 35, teams0.penaltyShot);
+        buffer.putShort(offset + 36, teams0.singleShots);
+        buffer.position(offset + 38);
+        buffer.put(teams0.coachMessage);
+        controller.net.protocol.codec.RobotInfo9 teams0Coach = teams0.coach;
+        buffer.put(offset + 78, teams0Coach.penalty);
+        buffer.put(offset + 79, teams0Coach.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players0 = teams0.players[0];
+        buffer.put(offset + 80, teams0Players0.penalty);
+        buffer.put(offset + 81, teams0Players0.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players1 = teams0.players[1];
+        buffer.put(offset + 82, teams0Players1.penalty);
+        buffer.put(offset + 83, teams0Players1.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players2 = teams0.players[2];
+        buffer.put(offset + 84, teams0Players2.penalty);
+        buffer.put(offset + 85, teams0Players2.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players3 = teams0.players[3];
+        buffer.put(offset + 86, teams0Players3.penalty);
+        buffer.put(offset + 87, teams0Players3.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players4 = teams0.players[4];
+        buffer.put(offset + 88, teams0Players4.penalty);
+        buffer.put(offset + 89, teams0Players4.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players5 = teams0.players[5];
+        buffer.put(offset + 90, teams0Players5.penalty);
+        buffer.put(offset + 91, teams0Players5.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players6 = teams0.players[6];
+        buffer.put(offset + 92, teams0Players6.penalty);
+        buffer.put(offset + 93, teams0Players6.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players7 = teams0.players[7];
+        buffer.put(offset + 94, teams0Players7.penalty);
+        buffer.put(offset + 95, teams0Players7.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players8 = teams0.players[8];
+        buffer.put(offset + 96, teams0Players8.penalty);
+        buffer.put(offset + 97, teams0Players8.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players9 = teams0.players[9];
+        buffer.put(offset + 98, teams0Players9.penalty);
+        buffer.put(offset + 99, teams0Players9.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players10 = teams0.players[10];
+        buffer.put(offset + 100, teams0Players10.penalty);
+        buffer.put(offset + 101, teams0Players10.secsTillUnpenalised);
+        controller.net.protocol.codec.TeamInfo9 teams1 = data.teams[1];
+        buffer.put(offset + 102, teams1.teamNumber);
+        buffer.put(offset + 103, teams1.teamColour);
+        buffer.put(offset + 104, teams1.score);
+        buffer.put(offset + 105, teams1.penaltyShot);
+        buffer.putShort(offset + 106, teams1.singleShots);
+        buffer.position(offset + 108);
+        buffer.put(teams1.coachMessage);
+        controller.net.protocol.codec.RobotInfo9 teams1Coach = teams1.coach;
+        buffer.put(offset + 148, teams1Coach.penalty);
+        buffer.put(offset + 149, teams1Coach.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players0 = teams1.players[0];
+        buffer.put(offset + 150, teams1Players0.penalty);
+        buffer.put(offset + 151, teams1Players0.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players1 = teams1.players[1];
+        buffer.put(offset + 152, teams1Players1.penalty);
+        buffer.put(offset + 153, teams1Players1.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players2 = teams1.players[2];
+        buffer.put(offset + 154, teams1Players2.penalty);
+        buffer.put(offset + 155, teams1Players2.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players3 = teams1.players[3];
+        buffer.put(offset + 156, teams1Players3.penalty);
+        buffer.put(offset + 157, teams1Players3.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players4 = teams1.players[4];
+        buffer.put(offset + 158, teams1Players4.penalty);
+        buffer.put(offset + 159, teams1Players4.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players5 = teams1.players[5];
+        buffer.put(offset + 160, teams1Players5.penalty);
+        buffer.put(offset + 161, teams1Players5.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players6 = teams1.players[6];
+        buffer.put(offset + 162, teams1Players6.penalty);
+        buffer.put(offset + 163, teams1Players6.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players7 = teams1.players[7];
+        buffer.put(offset + 164, teams1Players7.penalty);
+        buffer.put(offset + 165, teams1Players7.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players8 = teams1.players[8];
+        buffer.put(offset + 166, teams1Players8.penalty);
+        buffer.put(offset + 167, teams1Players8.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players9 = teams1.players[9];
+        buffer.put(offset + 168, teams1Players9.penalty);
+        buffer.put(offset + 169, teams1Players9.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players10 = teams1.players[10];
+        buffer.put(offset + 170, teams1Players10.penalty);
+        buffer.put(offset + 171, teams1Players10.secsTillUnpenalised);
+        buffer.position(position);
+    }
+
+    /**
+     * Reads a message from a buffer, in little-endian byte order. The buffer's position is not changed.
+     * Fields with constant values, such as the header, are not checked.
+     *
+     * @param buffer the buffer to read from, having at least {@link #SIZE} bytes from the offset.
+     * @param offset the index in the buffer at which the message begins.
+     * @param data receives the values of the message's fields.
+     */
+    public static void decode(@NotNull ByteBuffer buffer, int offset, @NotNull GameControlData11 data)
+    {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int position = buffer.position();
+        data.leagueNumber = buffer.get(offset + 5);
+        data.packetNumber = buffer.get(offset + 6);
+        data.playersPerTeam = buffer.get(offset + 7);
+        data.gameId = buffer.getInt(offset + 8);
+        data.timestamp = buffer.getInt(offset + 12);
+        data.playMode = buffer.get(offset + 16);
+        data.firstHalf = buffer.get(offset + 17);
+        data.kickOffTeam = buffer.get(offset + 18);
+        data.period = buffer.get(offset + 19);
+        data.dropInTeam = buffer.get(offset + 20);
+        data.isKnockOutGame = buffer.get(offset + 21);
+        data.dropInTime = buffer.getShort(offset + 22);
+        data.millisRemaining = buffer.getInt(offset + 24);
+        data.secondaryTimeMillis = buffer.getInt(offset + 28);
+        controller.net.protocol.codec.TeamInfo9 teams0 = data.teams[0];
+        teams0.teamNumber = buffer.get(offset + 32);
+        teams0.teamColour = buffer.get(offset + 33);
+        teams0.score = buffer.get(offset + 34);
+        teams0.penaltyShot = buffer.get(offset + 35);
+        teams0.singleShots = buffer.getShort(offset + 36);
+        buffer.position(offset + 38);
+        buffer.get(teams0.coachMessage);
+        controller.net.protocol.codec.RobotInfo9 teams0Coach = teams0.coach;
+        teams0Coach.penalty = buffer.get(offset + 78);
+        teams0Coach.secsTillUnpenalised = buffer.get(offset + 79);
+        controller.net.protocol.codec.RobotInfo9 teams0Players0 = teams0.players[0];
+        teams0Players0.penalty = buffer.get(offset + 80);
+        teams0Players0.secsTillUnpenalised = buffer.get(offset + 81);
+        controller.net.protocol.codec.RobotInfo9 teams0Players1 = teams0.players[1];
+        teams0Players1.penalty = buffer.get(offset + 82);
+        teams0Players1.secsTillUnpenalised = buffer.get(offset + 83);
+        controller.net.protocol.codec.RobotInfo9 teams0Players2 = teams0.players[2];
+        teams0Players2.penalty = buffer.get(offset + 84);
+        teams0Players2.secsTillUnpenalised = buffer.get(offset + 85);
+        controller.net.protocol.codec.RobotInfo9 teams0Players3 = teams0.players[3];
+        teams0Players3.penalty = buffer.get(offset + 86);
+        teams0Players3.secsTillUnpenalised = buffer.get(offset + 87);
+        controller.net.protocol.codec.RobotInfo9 teams0Players4 = teams0.players[4];
+        teams0Players4.penalty = buffer.get(offset + 88);
+        teams0Players4.secsTillUnpenalised = buffer.get(offset + 89);
+        controller.net.protocol.codec.RobotInfo9 teams0Players5 = teams0.players[5];
+        teams0Players5.penalty = buffer.get(offset + 90);
+        teams0Players5.secsTillUnpenalised = buffer.get(offset + 91);
+        controller.net.protocol.codec.RobotInfo9 teams0Players6 = teams0.players[6];
+        teams0Players6.penalty = buffer.get(offset + 92);
+        teams0Players6.secsTillUnpenalised = buffer.get(offset + 93);
+        controller.net.protocol.codec.RobotInfo9 teams0Players7 = teams0.players[7];
+        teams0Players7.penalty = buffer.get(offset + 94);
+        teams0Players7.secsTillUnpenalised = buffer.get(offset + 95);
+        controller.net.protocol.codec.RobotInfo9 teams0Players8 = teams0.players[8];
+        teams0Players8.penalty = buffer.get(offset + 96);
+        teams0Players8.secsTillUnpenalised = buffer.get(offset + 97);
+        controller.net.protocol.codec.RobotInfo9 teams0Players9 = teams0.players[9];
+        teams0Players9.penalty = buffer.get(offset + 98);
+        teams0Players9.secsTillUnpenalised = buffer.get(offset + 99);
+        controller.net.protocol.codec.RobotInfo9 teams0Players10 = teams0.players[10];
+        teams0Players10.penalty = buffer.get(offset + 100);
+        teams0Players10.secsTillUnpenalised = buffer.get(offset + 101);
+        controller.net.protocol.codec.TeamInfo9 teams1 = data.teams[1];
+        teams1.teamNumber = buffer.get(offset + 102);
+        teams1.teamColour = buffer.get(offset + 103);
+        teams1.score = buffer.get(offset + 104);
+        teams1.penaltyShot = buffer.get(offset + 105);
+        teams1.singleShots = buffer.getShort(offset + 106);
+        buffer.position(offset + 108);
+        buffer.get(teams1.coachMessage);
+        controller.net.protocol.codec.RobotInfo9 teams1Coach = teams1.coach;
+        teams1Coach.penalty = buffer.get(offset + 148);
+        teams1Coach.secsTillUnpenalised = buffer.get(offset + 149);
+        controller.net.protocol.codec.RobotInfo9 teams1Players0 = teams1.players[0];
+        teams1Players0.penalty = buffer.get(offset + 150);
+        teams1Players0.secsTillUnpenalised = buffer.get(offset + 151);
+        controller.net.protocol.codec.RobotInfo9 teams1Players1 = teams1.players[1];
+        teams1Players1.penalty = buffer.get(offset + 152);
+        teams1Players1.secsTillUnpenalised = buffer.get(offset + 153);
+        controller.net.protocol.codec.RobotInfo9 teams1Players2 = teams1.players[2];
+        teams1Players2.penalty = buffer.get(offset + 154);
+        teams1Players2.secsTillUnpenalised = buffer.get(offset + 155);
+        controller.net.protocol.codec.RobotInfo9 teams1Players3 = teams1.players[3];
+        teams1Players3.penalty = buffer.get(offset + 156);
+        teams1Players3.secsTillUnpenalised = buffer.get(offset + 157);
+        controller.net.protocol.codec.RobotInfo9 teams1Players4 = teams1.players[4];
+        teams1Players4.penalty = buffer.get(offset + 158);
+        teams1Players4.secsTillUnpenalised = buffer.get(offset + 159);
+        controller.net.protocol.codec.RobotInfo9 teams1Players5 = teams1.players[5];
+        teams1Players5.penalty = buffer.get(offset + 160);
+        teams1Players5.secsTillUnpenalised = buffer.get(offset + 161);
+        controller.net.protocol.codec.RobotInfo9 teams1Players6 = teams1.players[6];
+        teams1Players6.penalty = buffer.get(offset + 162);
+        teams1Players6.secsTillUnpenalised = buffer.get(offset + 163);
+        controller.net.protocol.codec.RobotInfo9 teams1Players7 = teams1.players[7];
+        teams1Players7.penalty = buffer.get(offset + 164);
+        teams1Players7.secsTillUnpenalised = buffer.get(offset + 165);
+        controller.net.protocol.codec.RobotInfo9 teams1Players8 = teams1.players[8];
+        teams1Players8.penalty = buffer.get(offset + 166);
+        teams1Players8.secsTillUnpenalised = buffer.get(offset + 167);
+        controller.net.protocol.codec.RobotInfo9 teams1Players9 = teams1.players[9];
+        teams1Players9.penalty = buffer.get(offset + 168);
+        teams1Players9.secsTillUnpenalised = buffer.get(offset + 169);
+        controller.net.protocol.codec.RobotInfo9 teams1Players10 = teams1.players[10];
+        teams1Players10.penalty = buffer.get(offset + 170);
+        teams1Players10.secsTillUnpenalised = buffer.get(offset + 171);
+        buffer.position(position);
+    }
+}
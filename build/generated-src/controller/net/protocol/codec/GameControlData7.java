@@ -0,0 +1,28 @@
+// Generated by codegen.CodecGenerator from messages.schema. Do not edit.
+
+package controller.net.protocol.codec;
+
+/**
+ * The values of the fields of struct <code>GameControlData7</code>, as declared in messages.schema.
+ * <p>
+ * Unsigned fields hold the bits of their values, as in the message. Fields with constant
+ * values are not held, as they are written by the encoder.
+ */
+public class GameControlData7
+{
+    public byte playersPerTeam;
+    public byte playMode;
+    public byte firstHalf;
+    public byte kickOffTeam;
+    public byte period;
+    public byte dropInTeam;
+    public short dropInTime;
+    public int secsRemaining;
+    public final TeamInfo7[] teams = new TeamInfo7[2];
+
+    public GameControlData7()
+    {
+        for (int i = 0; i < teams.length; i++)
+            teams[i] = new TeamInfo7();
+    }
+}
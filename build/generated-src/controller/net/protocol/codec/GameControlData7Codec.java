@@ -0,0 +1,290 @@
+// Generated by codegen.CodecGenerator from messages.schema. Do not edit.
+
+package controller.net.protocol.codec;
+
+import common.annotations.NotNull;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encodes and decodes messages laid out as struct <code>GameControlData7</code>, as declared in messages.schema.
+ * <p>
+ * The constants give the offset of each field within its struct, and the length of each array.
+ * The offsets within nested structs are held by the nested classes of the same names.
+ */
+public final class GameControlData7Codec
+{
+    /** The size of a message, in bytes. */
+    public static final int SIZE = 116;
+
+    public static final int HEADER = 0;
+    public static final int HEADER_LENGTH = 4;
+    public static final int VERSION = 4;
+    public static final int PLAYERS_PER_TEAM = 8;
+    public static final int PLAY_MODE = 9;
+    public static final int FIRST_HALF = 10;
+    public static final int KICK_OFF_TEAM = 11;
+    public static final int PERIOD = 12;
+    public static final int DROP_IN_TEAM = 13;
+    public static final int DROP_IN_TIME = 14;
+    public static final int SECS_REMAINING = 16;
+    public static final int TEAMS = 20;
+    public static final int TEAMS_LENGTH = 2;
+
+    /** The layout of struct <code>TeamInfo7</code>. */
+    public static final class TeamInfo7
+    {
+        /** The size of the struct, in bytes. */
+        public static final int SIZE = 48;
+
+        public static final int TEAM_NUMBER = 0;
+        public static final int TEAM_COLOUR = 1;
+        public static final int GOAL_COLOUR = 2;
+        public static final int SCORE = 3;
+        public static final int PLAYERS = 4;
+        public static final int PLAYERS_LENGTH = 11;
+
+        private TeamInfo7() {}
+    }
+
+    /** The layout of struct <code>RobotInfo7</code>. */
+    public static final class RobotInfo7
+    {
+        /** The size of the struct, in bytes. */
+        public static final int SIZE = 4;
+
+        public static final int PENALTY = 0;
+        public static final int SECS_TILL_UNPENALISED = 2;
+
+        private RobotInfo7() {}
+    }
+
+    /**
+     * The number of fields with variable values. Each byte array counts as a single field, and each element
+     * of another array or an array of structs counts as a field of its own.
+     */
+    public static final int FIELD_COUNT = 58;
+
+    private static final int[] FIELD_OFFSETS = {
+        8, 9, 10, 11, 12, 13, 14, 16, 20, 21, 23, 24, 26, 28, 30, 32,
+        34, 36, 38, 40, 42, 44, 46, 48, 50, 52, 54, 56, 58, 60, 62, 64,
+        66, 68, 69, 71, 72, 74, 76, 78, 80, 82, 84, 86, 88, 90, 92, 94,
+        96, 98, 100, 102, 104, 106, 108, 110, 112, 114
+    };
+    private static final int[] FIELD_SIZES = {
+        1, 1, 1, 1, 1, 1, 2, 4, 1, 1, 1, 2, 2, 2, 2, 2,
+        2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,
+        2, 1, 1, 1, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,
+        2, 2, 2, 2, 2, 2, 2, 2, 2, 2
+    };
+
+    private GameControlData7Codec() {}
+
+    /** Gets the offset of a field within the message, as numbered from 0 to {@link #FIELD_COUNT} - 1. */
+    public static int getFieldOffset(int field)
+    {
+        return FIELD_OFFSETS[field];
+    }
+
+    /** Gets the size in bytes of a field, as numbered from 0 to {@link #FIELD_COUNT} - 1. */
+    public static int getFieldSize(int field)
+    {
+        return FIELD_SIZES[field];
+    }
+
+    /**
+     * Writes a message into a buffer, in little-endian byte order. The buffer's position is not changed.
+     *
+     * @param data the values of the message's fields.
+     * @param buffer the buffer to write into, having at least {@link #SIZE} bytes from the offset.
+     * @param offset the index in the buffer at which the message begins.
+     */
+    public static void encode(@NotNull GameControlData7 data, @NotNull ByteBuffer buffer, int offset)
+    {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(offset, (byte)'R');
+        buffer.put(offset + 1, (byte)'G');
+        buffer.put(offset + 2, (byte)'m');
+        buffer.put(offset + 3, (byte)'e');
+        buffer.putInt(offset + 4, 7);
+        buffer.put(offset + 8, data.playersPerTeam);
+        buffer.put(offset + 9, data.playMode);
+        buffer.put(offset + 10, data.firstHalf);
+        buffer.put(offset + 11, data.kickOffTeam);
+        buffer.put(offset + 12, data.period);
+        buffer.put(offset + 13, data.dropInTeam);
+        buffer.putShort(offset + 14, data.dropInTime);
+        buffer.putInt(offset + 16, data.secsRemaining);
+        controller.net.protocol.codec.TeamInfo7 teams0 = data.teams[0];
+        buffer.put(offset + 20, teams0.teamNumber);
+        buffer.put(offset + 21, teams0.teamColour);
+        buffer.put(offset + 22, (byte)1);
+        buffer.put(offset + 23, teams0.score);
+        controller.net.protocol.codec.RobotInfo7 teams0Players0 = teams0.players[0];
+        buffer.putShort(offset + 24, teams0Players0.penalty);
+        buffer.putShort(offset + 26, teams0Players0.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams0Players1 = teams0.players[1];
+        buffer.putShort(offset + 28, teams0Players1.penalty);
+        buffer.putShort(offset + 30, teams0Players1.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams0Players2 = teams0.players[2];
+        buffer.putShort(offset + 32, teams0Players2.penalty);
+        buffer.putShort(offset + 34, teams0Players2.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams0Players3 = teams0.players[3];
+        buffer.putShort(offset + 36, teams0Players3.penalty);
+        buffer.putShort(offset + 38, teams0Players3.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams0Players4 = teams0.players[4];
+        buffer.putShort(offset + 40, teams0Players4.penalty);
+        buffer.putShort(offset + 42, teams0Players4.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams0Players5 = teams0.players[5];
+        buffer.putShort(offset + 44, teams0Players5.penalty);
+        buffer.putShort(offset + 46, teams0Players5.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams0Players6 = teams0.players[6];
+        buffer.putShort(offset + 48, teams0Players6.penalty);
+        buffer.putShort(offset + 50, teams0Players6.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams0Players7 = teams0.players[7];
+        buffer.putShort(offset + 52, teams0Players7.penalty);
+        buffer.putShort(offset + 54, teams0Players7.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams0Players8 = teams0.players[8];
+        buffer.putShort(offset + 56, teams0Players8.penalty);
+        buffer.putShort(offset + 58, teams0Players8.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams0Players9 = teams0.players[9];
+        buffer.putShort(offset + 60, teams0Players9.penalty);
+        buffer.putShort(offset + 62, teams0Players9.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams0Players10 = teams0.players[10];
+        buffer.putShort(offset + 64, teams0Players10.penalty);
+        buffer.putShort(offset + 66, teams0Players10.secsTillUnpenalised);
+        controller.net.protocol.codec.TeamInfo7 teams1 = data.teams[1];
+        buffer.put(offset + 68, teams1.teamNumber);
+        buffer.put(offset + 69, teams1.teamColour);
+        buffer.put(offset + 70, (byte)1);
+        buffer.put(offset + 71, teams1.score);
+        controller.net.protocol.codec.RobotInfo7 teams1Players0 = teams1.players[0];
+        buffer.putShort(offset + 72, teams1Players0.penalty);
+        buffer.putShort(offset + 74, teams1Players0.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams1Players1 = teams1.players[1];
+        buffer.putShort(offset + 76, teams1Players1.penalty);
+        buffer.putShort(offset + 78, teams1Players1.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams1Players2 = teams1.players[2];
+        buffer.putShort(offset + 80, teams1Players2.penalty);
+        buffer.putShort(offset + 82, teams1Players2.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams1Players3 = teams1.players[3];
+        buffer.putShort(offset + 84, teams1Players3.penalty);
+        buffer.putShort(offset + 86, teams1Players3.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams1Players4 = teams1.players[4];
+        buffer.putShort(offset + 88, teams1Players4.penalty);
+        buffer.putShort(offset + 90, teams1Players4.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams1Players5 = teams1.players[5];
+        buffer.putShort(offset + 92, teams1Players5.penalty);
+        buffer.putShort(offset + 94, teams1Players5.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams1Players6 = teams1.players[6];
+        buffer.putShort(offset + 96, teams1Players6.penalty);
+        buffer.putShort(offset + 98, teams1Players6.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams1Players7 = teams1.players[7];
+        buffer.putShort(offset + 100, teams1Players7.penalty);
+        buffer.putShort(offset + 102, teams1Players7.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams1Players8 = teams1.players[8];
+        buffer.putShort(offset + 104, teams1Players8.penalty);
+        buffer.putShort(offset + 106, teams1Players8.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams1Players9 = teams1.players[9];
+        buffer.putShort(offset + 108, teams1Players9.penalty);
+        buffer.putShort(offset + 110, teams1Players9.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo7 teams1Players10 = teams1.players[10];
+        buffer.putShort(offset + 112, teams1Players10.penalty);
+        buffer.putShort(offset + 114, teams1Players10.secsTillUnpenalised);
+    }
+
+    /**
+     * Reads a message from a buffer, in little-endian byte order. The buffer's position is not changed.
+     * Fields with constant values, such as the header, are not checked.
+     *
+     * @param buffer the buffer to read from, having at least {@link #SIZE} bytes from the offset.
+     * @param offset the index in the buffer at which the message begins.
+     * @param data receives the values of the message's fields.
+     */
+    public static void decode(@NotNull ByteBuffer buffer, int offset, @NotNull GameControlData7 data)
+    {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        data.playersPerTeam = buffer.get(offset + 8);
+        data.playMode = buffer.get(offset + 9);
+        data.firstHalf = buffer.get(offset + 10);
+        data.kickOffTeam = buffer.get(offset + 11);
+        data.period = buffer.get(offset + 12);
+        data.dropInTeam = buffer.get(offset + 13);
+        data.dropInTime = buffer.getShort(offset + 14);
+        data.secsRemaining = buffer.getInt(offset + 16);
+        controller.net.protocol.codec.TeamInfo7 teams0 = data.teams[0];
+        teams0.teamNumber = buffer.get(offset + 20);
+        teams0.teamColour = buffer.get(offset + 21);
+        teams0.score = buffer.get(offset + 23);
+        controller.net.protocol.codec.RobotInfo7 teams0Players0 = teams0.players[0];
+        teams0Players0.penalty = buffer.getShort(offset + 24);
+        teams0Players0.secsTillUnpenalised = buffer.getShort(offset + 26);
+        controller.net.protocol.codec.RobotInfo7 teams0Players1 = teams0.players[1];
+        teams0Players1.penalty = buffer.getShort(offset + 28);
+        teams0Players1.secsTillUnpenalised = buffer.getShort(offset + 30);
+        controller.net.protocol.codec.RobotInfo7 teams0Players2 = teams0.players[2];
+        teams0Players2.penalty = buffer.getShort(offset + 32);
+        teams0Players2.secsTillUnpenalised = buffer.getShort(offset + 34);
+        controller.net.protocol.codec.RobotInfo7 teams0Players3 = teams0.players[3];
+        teams0Players3.penalty = buffer.getShort(offset + 36);
+        teams0Players3.secsTillUnpenalised = buffer.getShort(offset + 38);
+        controller.net.protocol.codec.RobotInfo7 teams0Players4 = teams0.players[4];
+        teams0Players4.penalty = buffer.getShort(offset + 40);
+        teams0Players4.secsTillUnpenalised = buffer.getShort(offset + 42);
+        controller.net.protocol.codec.RobotInfo7 teams0Players5 = teams0.players[5];
+        teams0Players5.penalty = buffer.getShort(offset + 44);
+        teams0Players5.secsTillUnpenalised = buffer.getShort(offset + 46);
+        controller.net.protocol.codec.RobotInfo7 teams0Players6 = teams0.players[6];
+        teams0Players6.penalty = buffer.getShort(offset + 48);
+        teams0Players6.secsTillUnpenalised = buffer.getShort(offset + 50);
+        controller.net.protocol.codec.RobotInfo7 teams0Players7 = teams0.players[7];
+        teams0Players7.penalty = buffer.getShort(offset + 52);
+        teams0Players7.secsTillUnpenalised = buffer.getShort(offset + 54);
+        controller.net.protocol.codec.RobotInfo7 teams0Players8 = teams0.players[8];
+        teams0Players8.penalty = buffer.getShort(offset + 56);
+        teams0Players8.secsTillUnpenalised = buffer.getShort(offset + 58);
+        controller.net.protocol.codec.RobotInfo7 teams0Players9 = teams0.players[9];
+        teams0Players9.penalty = buffer.getShort(offset + 60);
+        teams0Players9.secsTillUnpenalised = buffer.getShort(offset + 62);
+        controller.net.protocol.codec.RobotInfo7 teams0Players10 = teams0.players[10];
+        teams0Players10.penalty = buffer.getShort(offset + 64);
+        teams0Players10.secsTillUnpenalised = buffer.getShort(offset + 66);
+        controller.net.protocol.codec.TeamInfo7 teams1 = data.teams[1];
+        teams1.teamNumber = buffer.get(offset + 68);
+        teams1.teamColour = buffer.get(offset + 69);
+        teams1.score = buffer.get(offset + 71);
+        controller.net.protocol.codec.RobotInfo7 teams1Players0 = teams1.players[0];
+        teams1Players0.penalty = buffer.getShort(offset + 72);
+        teams1Players0.secsTillUnpenalised = buffer.getShort(offset + 74);
+        controller.net.protocol.codec.RobotInfo7 teams1Players1 = teams1.players[1];
+        teams1Players1.penalty = buffer.getShort(offset + 76);
+        teams1Players1.secsTillUnpenalised = buffer.getShort(offset + 78);
+        controller.net.protocol.codec.RobotInfo7 teams1Players2 = teams1.players[2];
+        teams1Players2.penalty = buffer.getShort(offset + 80);
+        teams1Players2.secsTillUnpenalised = buffer.getShort(offset + 82);
+        controller.net.protocol.codec.RobotInfo7 teams1Players3 = teams1.players[3];
+        teams1Players3.penalty = buffer.getShort(offset + 84);
+        teams1Players3.secsTillUnpenalised = buffer.getShort(offset + 86);
+        controller.net.protocol.codec.RobotInfo7 teams1Players4 = teams1.players[4];
+        teams1Players4.penalty = buffer.getShort(offset + 88);
+        teams1Players4.secsTillUnpenalised = buffer.getShort(offset + 90);
+        controller.net.protocol.codec.RobotInfo7 teams1Players5 = teams1.players[5];
+        teams1Players5.penalty = buffer.getShort(offset + 92);
+        teams1Players5.secsTillUnpenalised = buffer.getShort(offset + 94);
+        controller.net.protocol.codec.RobotInfo7 teams1Players6 = teams1.players[6];
+        teams1Players6.penalty = buffer.getShort(offset + 96);
+        teams1Players6.secsTillUnpenalised = buffer.getShort(offset + 98);
+        controller.net.protocol.codec.RobotInfo7 teams1Players7 = teams1.players[7];
+        teams1Players7.penalty = buffer.getShort(offset + 100);
+        teams1Players7.secsTillUnpenalised = buffer.getShort(offset + 102);
+        controller.net.protocol.codec.RobotInfo7 teams1Players8 = teams1.players[8];
+        teams1Players8.penalty = buffer.getShort(offset + 104);
+        teams1Players8.secsTillUnpenalised = buffer.getShort(offset + 106);
+        controller.net.protocol.codec.RobotInfo7 teams1Players9 = teams1.players[9];
+        teams1Players9.penalty = buffer.getShort(offset + 108);
+        teams1Players9.secsTillUnpenalised = buffer.getShort(offset + 110);
+        controller.net.protocol.codec.RobotInfo7 teams1Players10 = teams1.players[10];
+        teams1Players10.penalty = buffer.getShort(offset + 112);
+        teams1Players10.secsTillUnpenalised = buffer.getShort(offset + 114);
+    }
+}
@@ -0,0 +1,30 @@
+// Generated by codegen.CodecGenerator from messages.schema. Do not edit.
+
+package controller.net.protocol.codec;
+
+/**
+ * The values of the fields of struct <code>GameControlData8</code>, as declared in messages.schema.
+ * <p>
+ * Unsigned fields hold the bits of their values, as in the message. Fields with constant
+ * values are not held, as they are written by the encoder.
+ */
+public class GameControlData8
+{
+    public byte packetNumber;
+    public byte playersPerTeam;
+    public byte playMode;
+    public byte firstHalf;
+    public byte kickOffTeam;
+    public byte period;
+    public byte dropInTeam;
+    public short dropInTime;
+    public short secsRemaining;
+    public short secondaryTime;
+    public final TeamInfo8[] teams = new TeamInfo8[2];
+
+    public GameControlData8()
+    {
+        for (int i = 0; i < teams.length; i++)
+            teams[i] = new TeamInfo8();
+    }
+}
@@ -0,0 +1,332 @@
+// Generated by codegen.CodecGenerator from messages.schema. Do not edit.
+
+package controller.net.protocol.codec;
+
+import common.annotations.NotNull;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encodes and decodes messages laid out as struct <code>GameControlData8</code>, as declared in messages.schema.
+ * <p>
+ * The constants give the offset of each field within its struct, and the length of each array.
+ * The offsets within nested structs are held by the nested classes of the same names.
+ */
+public final class GameControlData8Codec
+{
+    /** The size of a message, in bytes. */
+    public static final int SIZE = 158;
+
+    public static final int HEADER = 0;
+    public static final int HEADER_LENGTH = 4;
+    public static final int VERSION = 4;
+    public static final int PACKET_NUMBER = 5;
+    public static final int PLAYERS_PER_TEAM = 6;
+    public static final int PLAY_MODE = 7;
+    public static final int FIRST_HALF = 8;
+    public static final int KICK_OFF_TEAM = 9;
+    public static final int PERIOD = 10;
+    public static final int DROP_IN_TEAM = 11;
+    public static final int DROP_IN_TIME = 12;
+    public static final int SECS_REMAINING = 14;
+    public static final int SECONDARY_TIME = 16;
+    public static final int TEAMS = 18;
+    public static final int TEAMS_LENGTH = 2;
+
+    /** The layout of struct <code>TeamInfo8</code>. */
+    public static final class TeamInfo8
+    {
+        /** The size of the struct, in bytes. */
+        public static final int SIZE = 70;
+
+        public static final int TEAM_NUMBER = 0;
+        public static final int TEAM_COLOUR = 1;
+        public static final int SCORE = 2;
+        public static final int PENALTY_SHOT = 3;
+        public static final int SINGLE_SHOTS = 4;
+        public static final int COACH_MESSAGE = 6;
+        public static final int COACH_MESSAGE_LENGTH = 40;
+        public static final int COACH = 46;
+        public static final int PLAYERS = 48;
+        public static final int PLAYERS_LENGTH = 11;
+
+        private TeamInfo8() {}
+    }
+
+    /** The layout of struct <code>RobotInfo8</code>. */
+    public static final class RobotInfo8
+    {
+        /** The size of the struct, in bytes. */
+        public static final int SIZE = 2;
+
+        public static final int PENALTY = 0;
+        public static final int SECS_TILL_UNPENALISED = 1;
+
+        private RobotInfo8() {}
+    }
+
+    /**
+     * The number of fields with variable values. Each byte array counts as a single field, and each element
+     * of another array or an array of structs counts as a field of its own.
+     */
+    public static final int FIELD_COUNT = 70;
+
+    private static final int[] FIELD_OFFSETS = {
+        5, 6, 7, 8, 9, 10, 11, 12, 14, 16, 18, 19, 20, 21, 22, 24,
+        64, 65, 66, 67, 68, 69, 70, 71, 72, 73, 74, 75, 76, 77, 78, 79,
+        80, 81, 82, 83, 84, 85, 86, 87, 88, 89, 90, 91, 92, 94, 134, 135,
+        136, 137, 138, 139, 140, 141, 142, 143, 144, 145, 146, 147, 148, 149, 150, 151,
+        152, 153, 154, 155, 156, 157
+    };
+    private static final int[] FIELD_SIZES = {
+        1, 1, 1, 1, 1, 1, 1, 2, 2, 2, 1, 1, 1, 1, 2, 40,
+        1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+        1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 2, 40, 1, 1,
+        1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+        1, 1, 1, 1, 1, 1
+    };
+
+    private GameControlData8Codec() {}
+
+    /** Gets the offset of a field within the message, as numbered from 0 to {@link #FIELD_COUNT} - 1. */
+    public static int getFieldOffset(int field)
+    {
+        return FIELD_OFFSETS[field];
+    }
+
+    /** Gets the size in bytes of a field, as numbered from 0 to {@link #FIELD_COUNT} - 1. */
+    public static int getFieldSize(int field)
+    {
+        return FIELD_SIZES[field];
+    }
+
+    /**
+     * Writes a message into a buffer, in little-endian byte order. The buffer's position is not changed.
+     *
+     * @param data the values of the message's fields.
+     * @param buffer the buffer to write into, having at least {@link #SIZE} bytes from the offset.
+     * @param offset the index in the buffer at which the message begins.
+     */
+    public static void encode(@NotNull GameControlData8 data, @NotNull ByteBuffer buffer, int offset)
+    {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int position = buffer.position();
+        buffer.put(offset, (byte)'R');
+        buffer.put(offset + 1, (byte)'G');
+        buffer.put(offset + 2, (byte)'m');
+        buffer.put(offset + 3, (byte)'e');
+        buffer.put(offset + 4, (byte)8);
+        buffer.put(offset + 5, data.packetNumber);
+        buffer.put(offset + 6, data.playersPerTeam);
+        buffer.put(offset + 7, data.playMode);
+        buffer.put(offset + 8, data.firstHalf);
+        buffer.put(offset + 9, data.kickOffTeam);
+        buffer.put(offset + 10, data.period);
+        buffer.put(offset + 11, data.dropInTeam);
+        buffer.putShort(offset + 12, data.dropInTime);
+        buffer.putShort(offset + 14, data.secsRemaining);
+        buffer.putShort(offset + 16, data.secondaryTime);
+        controller.net.protocol.codec.TeamInfo8 teams0 = data.teams[0];
+        buffer.put(offset + 18, teams0.teamNumber);
+        buffer.put(offset + 19, teams0.teamColour);
+        buffer.put(offset + 20, teams0.score);
+        buffer.put(offset + 21, teams0.penaltyShot);
+        buffer.putShort(offset + 22, teams0.singleShots);
+        buffer.position(offset + 24);
+        buffer.put(teams0.coachMessage);
+        controller.net.protocol.codec.RobotInfo8 teams0Coach = teams0.coach;
+        buffer.put(offset + 64, teams0Coach.penalty);
+        buffer.put(offset + 65, teams0Coach.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams0Players0 = teams0.players[0];
+        buffer.put(offset + 66, teams0Players0.penalty);
+        buffer.put(offset + 67, teams0Players0.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams0Players1 = teams0.players[1];
+        buffer.put(offset + 68, teams0Players1.penalty);
+        buffer.put(offset + 69, teams0Players1.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams0Players2 = teams0.players[2];
+        buffer.put(offset + 70, teams0Players2.penalty);
+        buffer.put(offset + 71, teams0Players2.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams0Players3 = teams0.players[3];
+        buffer.put(offset + 72, teams0Players3.penalty);
+        buffer.put(offset + 73, teams0Players3.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams0Players4 = teams0.players[4];
+        buffer.put(offset + 74, teams0Players4.penalty);
+        buffer.put(offset + 75, teams0Players4.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams0Players5 = teams0.players[5];
+        buffer.put(offset + 76, teams0Players5.penalty);
+        buffer.put(offset + 77, teams0Players5.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams0Players6 = teams0.players[6];
+        buffer.put(offset + 78, teams0Players6.penalty);
+        buffer.put(offset + 79, teams0Players6.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams0Players7 = teams0.players[7];
+        buffer.put(offset + 80, teams0Players7.penalty);
+        buffer.put(offset + 81, teams0Players7.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams0Players8 = teams0.players[8];
+        buffer.put(offset + 82, teams0Players8.penalty);
+        buffer.put(offset + 83, teams0Players8.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams0Players9 = teams0.players[9];
+        buffer.put(offset + 84, teams0Players9.penalty);
+        buffer.put(offset + 85, teams0Players9.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams0Players10 = teams0.players[10];
+        buffer.put(offset + 86, teams0Players10.penalty);
+        buffer.put(offset + 87, teams0Players10.secsTillUnpenalised);
+        controller.net.protocol.codec.TeamInfo8 teams1 = data.teams[1];
+        buffer.put(offset + 88, teams1.teamNumber);
+        buffer.put(offset + 89, teams1.teamColour);
+        buffer.put(offset + 90, teams1.score);
+        buffer.put(offset + 91, teams1.penaltyShot);
+        buffer.putShort(offset + 92, teams1.singleShots);
+        buffer.position(offset + 94);
+        buffer.put(teams1.coachMessage);
+        controller.net.protocol.codec.RobotInfo8 teams1Coach = teams1.coach;
+        buffer.put(offset + 134, teams1Coach.penalty);
+        buffer.put(offset + 135, teams1Coach.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams1Players0 = teams1.players[0];
+        buffer.put(offset + 136, teams1Players0.penalty);
+        buffer.put(offset + 137, teams1Players0.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams1Players1 = teams1.players[1];
+        buffer.put(offset + 138, teams1Players1.penalty);
+        buffer.put(offset + 139, teams1Players1.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams1Players2 = teams1.players[2];
+        buffer.put(offset + 140, teams1Players2.penalty);
+        buffer.put(offset + 141, teams1Players2.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams1Players3 = teams1.players[3];
+        buffer.put(offset + 142, teams1Players3.penalty);
+        buffer.put(offset + 143, teams1Players3.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams1Players4 = teams1.players[4];
+        buffer.put(offset + 144, teams1Players4.penalty);
+        buffer.put(offset + 145, teams1Players4.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams1Players5 = teams1.players[5];
+        buffer.put(offset + 146, teams1Players5.penalty);
+        buffer.put(offset + 147, teams1Players5.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams1Players6 = teams1.players[6];
+        buffer.put(offset + 148, teams1Players6.penalty);
+        buffer.put(offset + 149, teams1Players6.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams1Players7 = teams1.players[7];
+        buffer.put(offset + 150, teams1Players7.penalty);
+        buffer.put(offset + 151, teams1Players7.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams1Players8 = teams1.players[8];
+        buffer.put(offset + 152, teams1Players8.penalty);
+        buffer.put(offset + 153, teams1Players8.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams1Players9 = teams1.players[9];
+        buffer.put(offset + 154, teams1Players9.penalty);
+        buffer.put(offset + 155, teams1Players9.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo8 teams1Players10 = teams1.players[10];
+        buffer.put(offset + 156, teams1Players10.penalty);
+        buffer.put(offset + 157, teams1Players10.secsTillUnpenalised);
+        buffer.position(position);
+    }
+
+    /**
+     * Reads a message from a buffer, in little-endian byte order. The buffer's position is not changed.
+     * Fields with constant values, such as the header, are not checked.
+     *
+     * @param buffer the buffer to read from, having at least {@link #SIZE} bytes from the offset.
+     * @param offset the index in the buffer at which the message begins.
+     * @param data receives the values of the message's fields.
+     */
+    public static void decode(@NotNull ByteBuffer buffer, int offset, @NotNull GameControlData8 data)
+    {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int position = buffer.position();
+        data.packetNumber = buffer.get(offset + 5);
+        data.playersPerTeam = buffer.get(offset + 6);
+        data.playMode = buffer.get(offset + 7);
+        data.firstHalf = buffer.get(offset + 8);
+        data.kickOffTeam = buffer.get(offset + 9);
+        data.period = buffer.get(offset + 10);
+        data.dropInTeam = buffer.get(offset + 11);
+        data.dropInTime = buffer.getShort(offset + 12);
+        data.secsRemaining = buffer.getShort(offset + 14);
+        data.secondaryTime = buffer.getShort(offset + 16);
+        controller.net.protocol.codec.TeamInfo8 teams0 = data.teams[0];
+        teams0.teamNumber = buffer.get(offset + 18);
+        teams0.teamColour = buffer.get(offset + 19);
+        teams0.score = buffer.get(offset + 20);
+        teams0.penaltyShot = buffer.get(offset + 21);
+        teams0.singleShots = buffer.getShort(offset + 22);
+        buffer.position(offset + 24);
+        buffer.get(teams0.coachMessage);
+        controller.net.protocol.codec.RobotInfo8 teams0Coach = teams0.coach;
+        teams0Coach.penalty = buffer.get(offset + 64);
+        teams0Coach.secsTillUnpenalised = buffer.get(offset + 65);
+        controller.net.protocol.codec.RobotInfo8 teams0Players0 = teams0.players[0];
+        teams0Players0.penalty = buffer.get(offset + 66);
+        teams0Players0.secsTillUnpenalised = buffer.get(offset + 67);
+        controller.net.protocol.codec.RobotInfo8 teams0Players1 = teams0.players[1];
+        teams0Players1.penalty = buffer.get(offset + 68);
+        teams0Players1.secsTillUnpenalised = buffer.get(offset + 69);
+        controller.net.protocol.codec.RobotInfo8 teams0Players2 = teams0.players[2];
+        teams0Players2.penalty = buffer.get(offset + 70);
+        teams0Players2.secsTillUnpenalised = buffer.get(offset + 71);
+        controller.net.protocol.codec.RobotInfo8 teams0Players3 = teams0.players[3];
+        teams0Players3.penalty = buffer.get(offset + 72);
+        teams0Players3.secsTillUnpenalised = buffer.get(offset + 73);
+        controller.net.protocol.codec.RobotInfo8 teams0Players4 = teams0.players[4];
+        teams0Players4.penalty = buffer.get(offset + 74);
+        teams0Players4.secsTillUnpenalised = buffer.get(offset + 75);
+        controller.net.protocol.codec.RobotInfo8 teams0Players5 = teams0.players[5];
+        teams0Players5.penalty = buffer.get(offset + 76);
+        teams0Players5.secsTillUnpenalised = buffer.get(offset + 77);
+        controller.net.protocol.codec.RobotInfo8 teams0Players6 = teams0.players[6];
+        teams0Players6.penalty = buffer.get(offset + 78);
+        teams0Players6.secsTillUnpenalised = buffer.get(offset + 79);
+        controller.net.protocol.codec.RobotInfo8 teams0Players7 = teams0.players[7];
+        teams0Players7.penalty = buffer.get(offset + 80);
+        teams0Players7.secsTillUnpenalised = buffer.get(offset + 81);
+        controller.net.protocol.codec.RobotInfo8 teams0Players8 = teams0.players[8];
+        teams0Players8.penalty = buffer.get(offset + 82);
+        teams0Players8.secsTillUnpenalised = buffer.get(offset + 83);
+        controller.net.protocol.codec.RobotInfo8 teams0Players9 = teams0.players[9];
+        teams0Players9.penalty = buffer.get(offset + 84);
+        teams0Players9.secsTillUnpenalised = buffer.get(offset + 85);
+        controller.net.protocol.codec.RobotInfo8 teams0Players10 = teams0.players[10];
+        teams0Players10.penalty = buffer.get(offset + 86);
+        teams0Players10.secsTillUnpenalised = buffer.get(offset + 87);
+        controller.net.protocol.codec.TeamInfo8 teams1 = data.teams[1];
+        teams1.teamNumber = buffer.get(offset + 88);
+        teams1.teamColour = buffer.get(offset + 89);
+        teams1.score = buffer.get(offset + 90);
+        teams1.penaltyShot = buffer.get(offset + 91);
+        teams1.singleShots = buffer.getShort(offset + 92);
+        buffer.position(offset + 94);
+        buffer.get(teams1.coachMessage);
+        controller.net.protocol.codec.RobotInfo8 teams1Coach = teams1.coach;
+        teams1Coach.penalty = buffer.get(offset + 134);
+        teams1Coach.secsTillUnpenalised = buffer.get(offset + 135);
+        controller.net.protocol.codec.RobotInfo8 teams1Players0 = teams1.players[0];
+        teams1Players0.penalty = buffer.get(offset + 136);
+        teams1Players0.secsTillUnpenalised = buffer.get(offset + 137);
+        controller.net.protocol.codec.RobotInfo8 teams1Players1 = teams1.players[1];
+        teams1Players1.penalty = buffer.get(offset + 138);
+        teams1Players1.secsTillUnpenalised = buffer.get(offset + 139);
+        controller.net.protocol.codec.RobotInfo8 teams1Players2 = teams1.players[2];
+        teams1Players2.penalty = buffer.get(offset + 140);
+        teams1Players2.secsTillUnpenalised = buffer.get(offset + 141);
+        controller.net.protocol.codec.RobotInfo8 teams1Players3 = teams1.players[3];
+        teams1Players3.penalty = buffer.get(offset + 142);
+        teams1Players3.secsTillUnpenalised = buffer.get(offset + 143);
+        controller.net.protocol.codec.RobotInfo8 teams1Players4 = teams1.players[4];
+        teams1Players4.penalty = buffer.get(offset + 144);
+        teams1Players4.secsTillUnpenalised = buffer.get(offset + 145);
+        controller.net.protocol.codec.RobotInfo8 teams1Players5 = teams1.players[5];
+        teams1Players5.penalty = buffer.get(offset + 146);
+        teams1Players5.secsTillUnpenalised = buffer.get(offset + 147);
+        controller.net.protocol.codec.RobotInfo8 teams1Players6 = teams1.players[6];
+        teams1Players6.penalty = buffer.get(offset + 148);
+        teams1Players6.secsTillUnpenalised = buffer.get(offset + 149);
+        controller.net.protocol.codec.RobotInfo8 teams1Players7 = teams1.players[7];
+        teams1Players7.penalty = buffer.get(offset + 150);
+        teams1Players7.secsTillUnpenalised = buffer.get(offset + 151);
+        controller.net.protocol.codec.RobotInfo8 teams1Players8 = teams1.players[8];
+        teams1Players8.penalty = buffer.get(offset + 152);
+        teams1Players8.secsTillUnpenalised = buffer.get(offset + 153);
+        controller.net.protocol.codec.RobotInfo8 teams1Players9 = teams1.players[9];
+        teams1Players9.penalty = buffer.get(offset + 154);
+        teams1Players9.secsTillUnpenalised = buffer.get(offset + 155);
+        controller.net.protocol.codec.RobotInfo8 teams1Players10 = teams1.players[10];
+        teams1Players10.penalty = buffer.get(offset + 156);
+        teams1Players10.secsTillUnpenalised = buffer.get(offset + 157);
+        buffer.position(position);
+    }
+}
@@ -0,0 +1,33 @@
+// Generated by codegen.CodecGenerator from messages.schema. Do not edit.
+
+package controller.net.protocol.codec;
+
+/**
+ * The values of the fields of struct <code>GameControlData9</code>, as declared in messages.schema.
+ * <p>
+ * Unsigned fields hold the bits of their values, as in the message. Fields with constant
+ * values are not held, as they are written by the encoder.
+ */
+public class GameControlData9
+{
+    public byte leagueNumber;
+    public byte packetNumber;
+    public byte playersPerTeam;
+    public int gameId;
+    public byte playMode;
+    public byte firstHalf;
+    public byte kickOffTeam;
+    public byte period;
+    public byte dropInTeam;
+    public byte isKnockOutGame;
+    public short dropInTime;
+    public short secsRemaining;
+    public short secondaryTime;
+    public final TeamInfo9[] teams = new TeamInfo9[2];
+
+    public GameControlData9()
+    {
+        for (int i = 0; i < teams.length; i++)
+            teams[i] = new TeamInfo9();
+    }
+}
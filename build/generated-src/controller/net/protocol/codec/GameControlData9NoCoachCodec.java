@@ -0,0 +1,314 @@
+// Generated by codegen.CodecGenerator from messages.schema. Do not edit.
+
+package controller.net.protocol.codec;
+
+import common.annotations.NotNull;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encodes and decodes messages laid out as struct <code>GameControlData9</code>, as declared in messages.schema.
+ * <p>
+ * The constants give the offset of each field within its struct, and the length of each array.
+ * The offsets within nested structs are held by the nested classes of the same names.
+ */
+public final class GameControlData9NoCoachCodec
+{
+    /** The size of a message, in bytes. */
+    public static final int SIZE = 80;
+
+    public static final int HEADER = 0;
+    public static final int HEADER_LENGTH = 4;
+    public static final int VERSION = 4;
+    public static final int LEAGUE_NUMBER = 5;
+    public static final int PACKET_NUMBER = 6;
+    public static final int PLAYERS_PER_TEAM = 7;
+    public static final int GAME_ID = 8;
+    public static final int PLAY_MODE = 12;
+    public static final int FIRST_HALF = 13;
+    public static final int KICK_OFF_TEAM = 14;
+    public static final int PERIOD = 15;
+    public static final int DROP_IN_TEAM = 16;
+    public static final int IS_KNOCK_OUT_GAME = 17;
+    public static final int DROP_IN_TIME = 18;
+    public static final int SECS_REMAINING = 20;
+    public static final int SECONDARY_TIME = 22;
+    public static final int TEAMS = 24;
+    public static final int TEAMS_LENGTH = 2;
+
+    /** The layout of struct <code>TeamInfo9</code>. */
+    public static final class TeamInfo9
+    {
+        /** The size of the struct, in bytes. */
+        public static final int SIZE = 28;
+
+        public static final int TEAM_NUMBER = 0;
+        public static final int TEAM_COLOUR = 1;
+        public static final int SCORE = 2;
+        public static final int PENALTY_SHOT = 3;
+        public static final int SINGLE_SHOTS = 4;
+        public static final int PLAYERS = 6;
+        public static final int PLAYERS_LENGTH = 11;
+
+        private TeamInfo9() {}
+    }
+
+    /** The layout of struct <code>RobotInfo9</code>. */
+    public static final class RobotInfo9
+    {
+        /** The size of the struct, in bytes. */
+        public static final int SIZE = 2;
+
+        public static final int PENALTY = 0;
+        public static final int SECS_TILL_UNPENALISED = 1;
+
+        private RobotInfo9() {}
+    }
+
+    /**
+     * The number of fields with variable values. Each byte array counts as a single field, and each element
+     * of another array or an array of structs counts as a field of its own.
+     */
+    public static final int FIELD_COUNT = 67;
+
+    private static final int[] FIELD_OFFSETS = {
+        5, 6, 7, 8, 12, 13, 14, 15, 16, 17, 18, 20, 22, 24, 25, 26,
+        27, 28, 30, 31, 32, 33, 34, 35, 36, 37, 38, 39, 40, 41, 42, 43,
+        44, 45, 46, 47, 48, 49, 50, 51, 52, 53, 54, 55, 56, 58, 59, 60,
+        61, 62, 63, 64, 65, 66, 67, 68, 69, 70, 71, 72, 73, 74, 75, 76,
+        77, 78, 79
+    };
+    private static final int[] FIELD_SIZES = {
+        1, 1, 1, 4, 1, 1, 1, 1, 1, 1, 2, 2, 2, 1, 1, 1,
+        1, 2, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+        1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 2, 1, 1, 1,
+        1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+        1, 1, 1
+    };
+
+    private GameControlData9NoCoachCodec() {}
+
+    /** Gets the offset of a field within the message, as numbered from 0 to {@link #FIELD_COUNT} - 1. */
+    public static int getFieldOffset(int field)
+    {
+        return FIELD_OFFSETS[field];
+    }
+
+    /** Gets the size in bytes of a field, as numbered from 0 to {@link #FIELD_COUNT} - 1. */
+    public static int getFieldSize(int field)
+    {
+        return FIELD_SIZES[field];
+    }
+
+    /**
+     * Writes a message into a buffer, in little-endian byte order. The buffer's position is not changed.
+     *
+     * @param data the values of the message's fields.
+     * @param buffer the buffer to write into, having at least {@link #SIZE} bytes from the offset.
+     * @param offset the index in the buffer at which the message begins.
+     */
+    public static void encode(@NotNull GameControlData9 data, @NotNull ByteBuffer buffer, int offset)
+    {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(offset, (byte)'R');
+        buffer.put(offset + 1, (byte)'G');
+        buffer.put(offset + 2, (byte)'m');
+        buffer.put(offset + 3, (byte)'e');
+        buffer.put(offset + 4, (byte)9);
+        buffer.put(offset + 5, data.leagueNumber);
+        buffer.put(offset + 6, data.packetNumber);
+        buffer.put(offset + 7, data.playersPerTeam);
+        buffer.putInt(offset + 8, data.gameId);
+        buffer.put(offset + 12, data.playMode);
+        buffer.put(offset + 13, data.firstHalf);
+        buffer.put(offset + 14, data.kickOffTeam);
+        buffer.put(offset + 15, data.period);
+        buffer.put(offset + 16, data.dropInTeam);
+        buffer.put(offset + 17, data.isKnockOutGame);
+        buffer.putShort(offset + 18, data.dropInTime);
+        buffer.putShort(offset + 20, data.secsRemaining);
+        buffer.putShort(offset + 22, data.secondaryTime);
+        controller.net.protocol.codec.TeamInfo9 teams0 = data.teams[0];
+        buffer.put(offset + 24, teams0.teamNumber);
+        buffer.put(offset + 25, teams0.teamColour);
+        buffer.put(offset + 26, teams0.score);
+        buffer.put(offset + 27, teams0.penaltyShot);
+        buffer.putShort(offset + 28, teams0.singleShots);
+        controller.net.protocol.codec.RobotInfo9 teams0Players0 = teams0.players[0];
+        buffer.put(offset + 30, teams0Players0.penalty);
+        buffer.put(offset + 31, teams0Players0.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players1 = teams0.players[1];
+        buffer.put(offset + 32, teams0Players1.penalty);
+        buffer.put(offset + 33, teams0Players1.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players2 = teams0.players[2];
+        buffer.put(offset + 34, teams0Players2.penalty);
+        buffer.put(offset + 35, teams0Players2.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players3 = teams0.players[3];
+        buffer.put(offset + 36, teams0Players3.penalty);
+        buffer.put(offset + 37, teams0Players3.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players4 = teams0.players[4];
+        buffer.put(offset + 38, teams0Players4.penalty);
+        buffer.put(offset + 39, teams0Players4.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players5 = teams0.players[5];
+        buffer.put(offset + 40, teams0Players5.penalty);
+        buffer.put(offset + 41, teams0Players5.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players6 = teams0.players[6];
+        buffer.put(offset + 42, teams0Players6.penalty);
+        buffer.put(offset + 43, teams0Players6.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players7 = teams0.players[7];
+        buffer.put(offset + 44, teams0Players7.penalty);
+        buffer.put(offset + 45, teams0Players7.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players8 = teams0.players[8];
+        buffer.put(offset + 46, teams0Players8.penalty);
+        buffer.put(offset + 47, teams0Players8.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players9 = teams0.players[9];
+        buffer.put(offset + 48, teams0Players9.penalty);
+        buffer.put(offset + 49, teams0Players9.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams0Players10 = teams0.players[10];
+        buffer.put(offset + 50, teams0Players10.penalty);
+        buffer.put(offset + 51, teams0Players10.secsTillUnpenalised);
+        controller.net.protocol.codec.TeamInfo9 teams1 = data.teams[1];
+        buffer.put(offset + 52, teams1.teamNumber);
+        buffer.put(offset + 53, teams1.teamColour);
+        buffer.put(offset + 54, teams1.score);
+        buffer.put(offset + 55, teams1.penaltyShot);
+        buffer.putShort(offset + 56, teams1.singleShots);
+        controller.net.protocol.codec.RobotInfo9 teams1Players0 = teams1.players[0];
+        buffer.put(offset + 58, teams1Players0.penalty);
+        buffer.put(offset + 59, teams1Players0.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players1 = teams1.players[1];
+        buffer.put(offset + 60, teams1Players1.penalty);
+        buffer.put(offset + 61, teams1Players1.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players2 = teams1.players[2];
+        buffer.put(offset + 62, teams1Players2.penalty);
+        buffer.put(offset + 63, teams1Players2.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players3 = teams1.players[3];
+        buffer.put(offset + 64, teams1Players3.penalty);
+        buffer.put(offset + 65, teams1Players3.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players4 = teams1.players[4];
+        buffer.put(offset + 66, teams1Players4.penalty);
+        buffer.put(offset + 67, teams1Players4.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players5 = teams1.players[5];
+        buffer.put(offset + 68, teams1Players5.penalty);
+        buffer.put(offset + 69, teams1Players5.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players6 = teams1.players[6];
+        buffer.put(offset + 70, teams1Players6.penalty);
+        buffer.put(offset + 71, teams1Players6.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players7 = teams1.players[7];
+        buffer.put(offset + 72, teams1Players7.penalty);
+        buffer.put(offset + 73, teams1Players7.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players8 = teams1.players[8];
+        buffer.put(offset + 74, teams1Players8.penalty);
+        buffer.put(offset + 75, teams1Players8.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players9 = teams1.players[9];
+        buffer.put(offset + 76, teams1Players9.penalty);
+        buffer.put(offset + 77, teams1Players9.secsTillUnpenalised);
+        controller.net.protocol.codec.RobotInfo9 teams1Players10 = teams1.players[10];
+        buffer.put(offset + 78, teams1Players10.penalty);
+        buffer.put(offset + 79, teams1Players10.secsTillUnpenalised);
+    }
+
+    /**
+     * Reads a message from a buffer, in little-endian byte order. The buffer's position is not changed.
+     * Fields with constant values, such as the header, are not checked.
+     *
+     * @param buffer the buffer to read from, having at least {@link #SIZE} bytes from the offset.
+     * @param offset the index in the buffer at which the message begins.
+     * @param data receives the values of the message's fields.
+     */
+    public static void decode(@NotNull ByteBuffer buffer, int offset, @NotNull GameControlData9 data)
+    {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        data.leagueNumber = buffer.get(offset + 5);
+        data.packetNumber = buffer.get(offset + 6);
+        data.playersPerTeam = buffer.get(offset + 7);
+        data.gameId = buffer.getInt(offset + 8);
+        data.playMode = buffer.get(offset + 12);
+        data.firstHalf = buffer.get(offset + 13);
+        data.kickOffTeam = buffer.get(offset + 14);
+        data.period = buffer.get(offset + 15);
+        data.dropInTeam = buffer.get(offset + 16);
+        data.isKnockOutGame = buffer.get(offset + 17);
+        data.dropInTime = buffer.getShort(offset + 18);
+        data.secsRemaining = buffer.getShort(offset + 20);
+        data.secondaryTime = buffer.getShort(offset + 22);
+        controller.net.protocol.codec.TeamInfo9 teams0 = data.teams[0];
+        teams0.teamNumber = buffer.get(offset + 24);
+        teams0.teamColour = buffer.get(offset + 25);
+        teams0.score = buffer.get(offset + 26);
+        teams0.penaltyShot = buffer.get(offset + 27);
+        teams0.singleShots = buffer.getShort(offset + 28);
+        controller.net.protocol.codec.RobotInfo9 teams0Players0 = teams0.players[0];
+        teams0Players0.penalty = buffer.get(offset + 30);
+        teams0Players0.secsTillUnpenalised = buffer.get(offset + 31);
+        controller.net.protocol.codec.RobotInfo9 teams0Players1 = teams0.players[1];
+        teams0Players1.penalty = buffer.get(offset + 32);
+        teams0Players1.secsTillUnpenalised = buffer.get(offset + 33);
+        controller.net.protocol.codec.RobotInfo9 teams0Players2 = teams0.players[2];
+        teams0Players2.penalty = buffer.get(offset + 34);
+        teams0Players2.secsTillUnpenalised = buffer.get(offset + 35);
+        controller.net.protocol.codec.RobotInfo9 teams0Players3 = teams0.players[3];
+        teams0Players3.penalty = buffer.get(offset + 36);
+        teams0Players3.secsTillUnpenalised = buffer.get(offset + 37);
+        controller.net.protocol.codec.RobotInfo9 teams0Players4 = teams0.players[4];
+        teams0Players4.penalty = buffer.get(offset + 38);
+        teams0Players4.secsTillUnpenalised = buffer.get(offset + 39);
+        controller.net.protocol.codec.RobotInfo9 teams0Players5 = teams0.players[5];
+        teams0Players5.penalty = buffer.get(offset + 40);
+        teams0Players5.secsTillUnpenalised = buffer.get(offset + 41);
+        controller.net.protocol.codec.RobotInfo9 teams0Players6 = teams0.players[6];
+        teams0Players6.penalty = buffer.get(offset + 42);
+        teams0Players6.secsTillUnpenalised = buffer.get(offset + 43);
+        controller.net.protocol.codec.RobotInfo9 teams0Players7 = teams0.players[7];
+        teams0Players7.penalty = buffer.get(offset + 44);
+        teams0Players7.secsTillUnpenalised = buffer.get(offset + 45);
+        controller.net.protocol.codec.RobotInfo9 teams0Players8 = teams0.players[8];
+        teams0Players8.penalty = buffer.get(offset + 46);
+        teams0Players8.secsTillUnpenalised = buffer.get(offset + 47);
+        controller.net.protocol.codec.RobotInfo9 teams0Players9 = teams0.players[9];
+        teams0Players9.penalty = buffer.get(offset + 48);
+        teams0Players9.secsTillUnpenalised = buffer.get(offset + 49);
+        controller.net.protocol.codec.RobotInfo9 teams0Players10 = teams0.players[10];
+        teams0Players10.penalty = buffer.get(offset + 50);
+        teams0Players10.secsTillUnpenalised = buffer.get(offset + 51);
+        controller.net.protocol.codec.TeamInfo9 teams1 = data.teams[1];
+        teams1.teamNumber = buffer.get(offset + 52);
+        teams1.teamColour = buffer.get(offset + 53);
+        teams1.score = buffer.get(offset + 54);
+        teams1.penaltyShot = buffer.get(offset + 55);
+        teams1.singleShots = buffer.getShort(offset + 56);
+        controller.net.protocol.codec.RobotInfo9 teams1Players0 = teams1.players[0];
+        teams1Players0.penalty = buffer.get(offset + 58);
+        teams1Players0.secsTillUnpenalised = buffer.get(offset + 59);
+        controller.net.protocol.codec.RobotInfo9 teams1Players1 = teams1.players[1];
+        teams1Players1.penalty = buffer.get(offset + 60);
+        teams1Players1.secsTillUnpenalised = buffer.get(offset + 61);
+        controller.net.protocol.codec.RobotInfo9 teams1Players2 = teams1.players[2];
+        teams1Players2.penalty = buffer.get(offset + 62);
+        teams1Players2.secsTillUnpenalised = buffer.get(offset + 63);
+        controller.net.protocol.codec.RobotInfo9 teams1Players3 = teams1.players[3];
+        teams1Players3.penalty = buffer.get(offset + 64);
+        teams1Players3.secsTillUnpenalised = buffer.get(offset + 65);
+        controller.net.protocol.codec.RobotInfo9 teams1Players4 = teams1.players[4];
+        teams1Players4.penalty = buffer.get(offset + 66);
+        teams1Players4.secsTillUnpenalised = buffer.get(offset + 67);
+        controller.net.protocol.codec.RobotInfo9 teams1Players5 = teams1.players[5];
+        teams1Players5.penalty = buffer.get(offset + 68);
+        teams1Players5.secsTillUnpenalised = buffer.get(offset + 69);
+        controller.net.protocol.codec.RobotInfo9 teams1Players6 = teams1.players[6];
+        teams1Players6.penalty = buffer.get(offset + 70);
+        teams1Players6.secsTillUnpenalised = buffer.get(offset + 71);
+        controller.net.protocol.codec.RobotInfo9 teams1Players7 = teams1.players[7];
+        teams1Players7.penalty = buffer.get(offset + 72);
+        teams1Players7.secsTillUnpenalised = buffer.get(offset + 73);
+        controller.net.protocol.codec.RobotInfo9 teams1Players8 = teams1.players[8];
+        teams1Players8.penalty = buffer.get(offset + 74);
+        teams1Players8.secsTillUnpenalised = buffer.get(offset + 75);
+        controller.net.protocol.codec.RobotInfo9 teams1Players9 = teams1.players[9];
+        teams1Players9.penalty = buffer.get(offset + 76);
+        teams1Players9.secsTillUnpenalised = buffer.get(offset + 77);
+        controller.net.protocol.codec.RobotInfo9 teams1Players10 = teams1.players[10];
+        teams1Players10.penalty = buffer.get(offset + 78);
+        teams1Players10.secsTillUnpenalised = buffer.get(offset + 79);
+    }
+}
@@ -0,0 +1,18 @@
+// Generated by codegen.CodecGenerator from messages.schema. Do not edit.
+
+package controller.net.protocol.codec;
+
+/**
+ * The values of the fields of struct <code>GameControlReturnData3</code>, as declared in messages.schema.
+ * <p>
+ * Unsigned fields hold the bits of their values, as in the message. Fields with constant
+ * values are not held, as they are written by the encoder.
+ */
+public class GameControlReturnData3
+{
+    public byte team;
+    public byte player;
+    public byte message;
+    public byte gameStateVersion;
+    public byte gameStatePacketNumber;
+}
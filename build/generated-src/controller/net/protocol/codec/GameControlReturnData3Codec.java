@@ -0,0 +1,95 @@
+// Generated by codegen.CodecGenerator from messages.schema. Do not edit.
+
+package controller.net.protocol.codec;
+
+import common.annotations.NotNull;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encodes and decodes messages laid out as struct <code>GameControlReturnData3</code>, as declared in messages.schema.
+ * <p>
+ * The constants give the offset of each field within its struct, and the length of each array.
+ * The offsets within nested structs are held by the nested classes of the same names.
+ */
+public final class GameControlReturnData3Codec
+{
+    /** The size of a message, in bytes. */
+    public static final int SIZE = 10;
+
+    public static final int HEADER = 0;
+    public static final int HEADER_LENGTH = 4;
+    public static final int VERSION = 4;
+    public static final int TEAM = 5;
+    public static final int PLAYER = 6;
+    public static final int MESSAGE = 7;
+    public static final int GAME_STATE_VERSION = 8;
+    public static final int GAME_STATE_PACKET_NUMBER = 9;
+
+    /**
+     * The number of fields with variable values. Each byte array counts as a single field, and each element
+     * of another array or an array of structs counts as a field of its own.
+     */
+    public static final int FIELD_COUNT = 5;
+
+    private static final int[] FIELD_OFFSETS = {
+        5, 6, 7, 8, 9
+    };
+    private static final int[] FIELD_SIZES = {
+        1, 1, 1, 1, 1
+    };
+
+    private GameControlReturnData3Codec() {}
+
+    /** Gets the offset of a field within the message, as numbered from 0 to {@link #FIELD_COUNT} - 1. */
+    public static int getFieldOffset(int field)
+    {
+        return FIELD_OFFSETS[field];
+    }
+
+    /** Gets the size in bytes of a field, as numbered from 0 to {@link #FIELD_COUNT} - 1. */
+    public static int getFieldSize(int field)
+    {
+        return FIELD_SIZES[field];
+    }
+
+    /**
+     * Writes a message into a buffer, in little-endian byte order. The buffer's position is not changed.
+     *
+     * @param data the values of the message's fields.
+     * @param buffer the buffer to write into, having at least {@link #SIZE} bytes from the offset.
+     * @param offset the index in the buffer at which the message begins.
+     */
+    public static void encode(@NotNull GameControlReturnData3 data, @NotNull ByteBuffer buffer, int offset)
+    {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(offset, (byte)'R');
+        buffer.put(offset + 1, (byte)'G');
+        buffer.put(offset + 2, (byte)'r');
+        buffer.put(offset + 3, (byte)'t');
+        buffer.put(offset + 4, (byte)3);
+        buffer.put(offset + 5, data.team);
+        buffer.put(offset + 6, data.player);
+        buffer.put(offset + 7, data.message);
+        buffer.put(offset + 8, data.gameStateVersion);
+        buffer.put(offset + 9, data.gameStatePacketNumber);
+    }
+
+    /**
+     * Reads a message from a buffer, in little-endian byte order. The buffer's position is not changed.
+     * Fields with constant values, such as the header, are not checked.
+     *
+     * @param buffer the buffer to read from, having at least {@link #SIZE} bytes from the offset.
+     * @param offset the index in the buffer at which the message begins.
+     * @param data receives the values of the message's fields.
+     */
+    public static void decode(@NotNull ByteBuffer buffer, int offset, @NotNull GameControlReturnData3 data)
+    {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        data.team = buffer.get(offset + 5);
+        data.player = buffer.get(offset + 6);
+        data.message = buffer.get(offset + 7);
+        data.gameStateVersion = buffer.get(offset + 8);
+        data.gameStatePacketNumber = buffer.get(offset + 9);
+    }
+}
@@ -0,0 +1,23 @@
+// Generated by codegen.CodecGenerator from messages.schema. Do not edit.
+
+package controller.net.protocol.codec;
+
+/**
+ * The values of the fields of struct <code>TeamInfo7</code>, as declared in messages.schema.
+ * <p>
+ * Unsigned fields hold the bits of their values, as in the message. Fields with constant
+ * values are not held, as they are written by the encoder.
+ */
+public class TeamInfo7
+{
+    public byte teamNumber;
+    public byte teamColour;
+    public byte score;
+    public final RobotInfo7[] players = new RobotInfo7[11];
+
+    public TeamInfo7()
+    {
+        for (int i = 0; i < players.length; i++)
+            players[i] = new RobotInfo7();
+    }
+}
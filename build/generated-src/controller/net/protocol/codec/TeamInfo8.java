@@ -0,0 +1,27 @@
+// Generated by codegen.CodecGenerator from messages.schema. Do not edit.
+
+package controller.net.protocol.codec;
+
+/**
+ * The values of the fields of struct <code>TeamInfo8</code>, as declared in messages.schema.
+ * <p>
+ * Unsigned fields hold the bits of their values, as in the message. Fields with constant
+ * values are not held, as they are written by the encoder.
+ */
+public class TeamInfo8
+{
+    public byte teamNumber;
+    public byte teamColour;
+    public byte score;
+    public byte penaltyShot;
+    public short singleShots;
+    public final byte[] coachMessage = new byte[40];
+    public final RobotInfo8 coach = new RobotInfo8();
+    public final RobotInfo8[] players = new RobotInfo8[11];
+
+    public TeamInfo8()
+    {
+        for (int i = 0; i < players.length; i++)
+            players[i] = new RobotInfo8();
+    }
+}
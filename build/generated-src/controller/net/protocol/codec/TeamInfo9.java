@@ -0,0 +1,29 @@
+// Generated by codegen.CodecGenerator from messages.schema. Do not edit.
+
+package controller.net.protocol.codec;
+
+/**
+ * The values of the fields of struct <code>TeamInfo9</code>, as declared in messages.schema.
+ * <p>
+ * Unsigned fields hold the bits of their values, as in the message. Fields with constant
+ * values are not held, as they are written by the encoder.
+ */
+public class TeamInfo9
+{
+    public byte teamNumber;
+    public byte teamColour;
+    public byte score;
+    public byte penaltyShot;
+    public short singleShots;
+    /** Only encoded by codecs with COACH. */
+    public final byte[] coachMessage = new byte[40];
+    /** Only encoded by codecs with COACH. */
+    public final RobotInfo9 coach = new RobotInfo9();
+    public final RobotInfo9[] players = new RobotInfo9[11];
+
+    public TeamInfo9()
+    {
+        for (int i = 0; i < players.length; i++)
+            players[i] = new RobotInfo9();
+    }
+}
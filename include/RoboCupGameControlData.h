@@ -111,6 +111,68 @@ struct RoboCupGameControlData
   TeamInfo teams[2];
 };
 
+// Version 10 carries the fields of version 9, either all of them in a keyframe, or just those that changed
+// since the previous message in a delta. Every GAMECONTROLLER_DELTA_KEYFRAME_INTERVAL-th message is a keyframe,
+// as is any message whose delta would be no smaller.
+#define GAMECONTROLLER_DELTA_STRUCT_VERSION      10
+#define GAMECONTROLLER_DELTA_KEYFRAME_INTERVAL   5
+
+#define GAMECONTROLLER_DELTA_KIND_KEYFRAME       0
+#define GAMECONTROLLER_DELTA_KIND_DELTA          1
+
+// A receiver that misses a message, as seen by a gap in packet numbers, must discard deltas until the next
+// keyframe. Packet numbers repeat every 256 messages, so it must also do so if this many milliseconds have
+// passed since it applied a message.
+#define GAMECONTROLLER_DELTA_RECEIVE_TIMEOUT_MS  2560
+
+// The fields of a version 9 message, as numbered by the bits of a delta's field mask, are each of its values
+// after 'version', in the order sent: leagueNumber, packetNumber, playersPerTeam, gameId, playMode, and so on
+// to the last player's secsTillUnpenalised. The coach message is a single field. There are 73 fields when
+// SPL_LEAGUE is defined, and 67 otherwise.
+#ifdef SPL_LEAGUE
+#define GAMECONTROLLER_DELTA_FIELD_COUNT         73
+#else
+#define GAMECONTROLLER_DELTA_FIELD_COUNT         67
+#endif
+#define GAMECONTROLLER_DELTA_MASK_SIZE           ((GAMECONTROLLER_DELTA_FIELD_COUNT + 7) / 8)
+
+struct RoboCupGameControlDeltaHeader
+{
+  char header[4];               // Header to identify the structure, GAMECONTROLLER_STRUCT_HEADER
+  uint8_t version;              // Version of the data structure, GAMECONTROLLER_DELTA_STRUCT_VERSION
+  uint8_t kind;                 // GAMECONTROLLER_DELTA_KIND_KEYFRAME or GAMECONTROLLER_DELTA_KIND_DELTA
+  uint8_t packetNumber;         // Number incremented with each packet sent (with wraparound)
+  // Followed, in a keyframe, by the bytes of a version 9 message from leagueNumber to its end.
+  // Followed, in a delta, by a mask of GAMECONTROLLER_DELTA_MASK_SIZE bytes, in which field i is set by bit
+  // (i % 8) of byte (i / 8), and then by the bytes of each field whose bit is set, in order.
+};
+
+// Version 11 is as version 9, with the clocks in milliseconds, and the time at which the message was sent.
+#define GAMECONTROLLER_MILLIS_STRUCT_VERSION     11
+
+struct RoboCupGameControlData11
+{
+  char header[4];               // Header to identify the structure, GAMECONTROLLER_STRUCT_HEADER
+  uint8_t version;              // Version of the data structure, GAMECONTROLLER_MILLIS_STRUCT_VERSION
+  uint8_t leagueNumber;         // Identifies the league being played in (LEAGUE_SPL, LEAGUE_HL_KID, etc)
+  uint8_t packetNumber;         // Number incremented with each packet sent (with wraparound)
+  uint8_t playersPerTeam;       // The maximum number of players on each team, including substitutes
+  uint32_t gameId;              // A randomly chosen number that is consistent throughout the lifespan of a game
+  uint32_t timestamp;           // When the message was sent, in milliseconds modulo 2^32 since an unspecified
+                                // origin. Wraps around, and is not wall-clock time, so only compare differences
+                                // between messages from the same game controller
+  uint8_t playMode;             // The play mode of the game (PLAY_MODE_READY, PLAY_MODE_PLAYING, etc)
+  uint8_t firstHalf;            // '1' if game in first half, '0' otherwise
+  uint8_t kickOffTeam;          // The next team to kick off (0=TEAM_BLUE, 1=TEAM_RED, 2=DROP_BALL)
+  uint8_t period;               // Extra state information (PERIOD_NORMAL, PERIOD_PENALTYSHOOT, etc)
+  uint8_t dropInTeam;           // Team that caused last drop in (0=TEAM_BLUE, 1=TEAM_RED, 2=NONE)
+  uint8_t isKnockOutGame;       // Whether the game is a knockout/playoff (1) or not (0)
+  uint16_t dropInTime;          // Number of seconds passed since the last drop in (-1 before first drop in)
+  int32_t millisRemaining;      // An estimate of the number of milliseconds remaining in the half
+  int32_t secondaryTimeMillis;  // Number of milliseconds shown as secondary time (remaining ready, until free ball, etc)
+  TeamInfo teams[2];
+};
+
 // data structure header
 #define GAMECONTROLLER_RETURN_STRUCT_HEADER      "RGrt"
 #define GAMECONTROLLER_RETURN_STRUCT_VERSION     2
@@ -137,4 +199,30 @@ struct RoboCupGameControlReturnData
 #endif
 };
 
+// Version 3 is as version 2, acknowledging the last game state message the robot applied, so that the game
+// controller may show how far behind each robot is.
+#define GAMECONTROLLER_RETURN_ACK_STRUCT_VERSION 3
+
+struct RoboCupGameControlReturnData3
+{
+  char header[4];
+  uint8_t version;              // Version of the data structure, GAMECONTROLLER_RETURN_ACK_STRUCT_VERSION
+  uint8_t team;                 // Team number
+  uint8_t player;               // Player number (starts with 1)
+  uint8_t message;              // One of the three message types (GAMECONTROLLER_RETURN_MSG_ALIVE, etc)
+  uint8_t gameStateVersion;     // Version of the last game state message applied, or 0 if none has been applied
+  uint8_t gameStatePacketNumber; // Packet number of the last game state message applied
+
+#ifdef __cplusplus
+  // constructor
+  RoboCupGameControlReturnData3()
+  {
+    *(uint32_t*) header = *(const uint32_t*) GAMECONTROLLER_RETURN_STRUCT_HEADER;
+    version = GAMECONTROLLER_RETURN_ACK_STRUCT_VERSION;
+    gameStateVersion = 0;
+    gameStatePacketNumber = 0;
+  }
+#endif
+};
+
 #endif // ROBOCUPGAMECONTROLDATA_H
@@ -0,0 +1,92 @@
+package analyzer;
+
+/**
+ * Finds which of a fixed set of actions a log entry starts with.
+ * The actions are held in a trie, built once, so that an entry is matched
+ * in a single pass over its first characters, however many actions there
+ * are. Instances are immutable and may be shared between threads.
+ */
+class ActionMatcher
+{
+    /* The root of the trie. */
+    private final Node root = new Node();
+
+    /**
+     * Creates a new ActionMatcher.
+     *
+     * @param actions   The actions to match. Where one action is a prefix
+     *                  of another, the longer action is matched.
+     */
+    ActionMatcher(String[] actions)
+    {
+        for (String action : actions) {
+            Node node = root;
+            for (int i = 0; i < action.length(); i++) {
+                node = node.getOrAddChild(action.charAt(i));
+            }
+            node.action = action;
+        }
+    }
+
+    /**
+     * Finds the longest action an entry starts with.
+     *
+     * @param entry     The text to match.
+     * @param offset    Where within the text the entry starts.
+     * @return  The action, or null if the entry starts with none of them.
+     */
+    String match(String entry, int offset)
+    {
+        String match = null;
+        Node node = root;
+        for (int i = offset; i < entry.length(); i++) {
+            node = node.getChild(entry.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.action != null) {
+                match = node.action;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * A node of the trie. The number of children is small, so they are
+     * kept in plain arrays and searched linearly.
+     */
+    private static class Node
+    {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        /* The action ending at this node, if any. */
+        private String action;
+
+        Node getChild(char key)
+        {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node getOrAddChild(char key)
+        {
+            Node child = getChild(key);
+            if (child == null) {
+                child = new Node();
+                char[] newKeys = new char[keys.length + 1];
+                Node[] newChildren = new Node[children.length + 1];
+                System.arraycopy(keys, 0, newKeys, 0, keys.length);
+                System.arraycopy(children, 0, newChildren, 0, children.length);
+                newKeys[keys.length] = key;
+                newChildren[children.length] = child;
+                keys = newKeys;
+                children = newChildren;
+            }
+            return child;
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package analyzer;
+
+import common.Log;
+import common.annotations.NotNull;
+import common.annotations.Nullable;
+import data.League;
+import data.Period;
+import data.PlayMode;
+import data.TeamColor;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.text.ParseException;
+import java.util.Date;
+
+/**
+ * Reads the event file written alongside a log file, in the format described by <code>controller.EventLog</code>.
+ * <p>
+ * Only flat objects whose values are strings, integers or booleans are understood, which is all the format uses.
+ * Each line is scanned once, without regular expressions or intermediate objects, so that reading
+ * an event file is much cheaper than parsing the equivalent text log.
+ */
+public class EventLogReader
+{
+    /* An event file should be written in this charset. */
+    private final static String CHARSET = "UTF-8";
+    /* The extension of the text log files. */
+    private final static String LOG_FILE_EXTENSION = ".txt";
+
+    /* The LogInfo to fill, if any. */
+    @Nullable private final LogInfo log;
+    /* Receives the actions that were not undone, if any. */
+    @Nullable private final ActionHandler handler;
+
+    /* The line being scanned, and the position within it. */
+    private String line;
+    private int pos;
+
+    /* The values of the current record. */
+    private String type;
+    private long time;
+    private String version;
+    private String league;
+    private int left;
+    private String leftName;
+    private int right;
+    private String rightName;
+    private boolean colourChange;
+    private String action;
+    private int team;
+    private String colour;
+    private int player;
+    private String period;
+    private String playMode;
+    private int blue;
+    private String title;
+    private int count;
+
+    private EventLogReader(@Nullable LogInfo log, @Nullable ActionHandler handler)
+    {
+        this.log = log;
+        this.handler = handler;
+    }
+
+    /**
+     * Gets the event file written alongside a log file. It might not exist, if the log was written by an older version.
+     *
+     * @param log   The text log file.
+     * @return      The event file.
+     */
+    @NotNull
+    public static File getEventFile(@NotNull File log)
+    {
+        String name = log.getName();
+        if (name.endsWith(LOG_FILE_EXTENSION)) {
+            name = name.substring(0, name.length() - LOG_FILE_EXTENSION.length());
+        }
+        return new File(log.getParentFile(), name + Log.EVENT_FILE_EXTENSION);
+    }
+
+    /**
+     * Receives the actions of an event file that were not undone, in order.
+     */
+    interface ActionHandler
+    {
+        void handle(@NotNull GameEvent event);
+    }
+
+    /**
+     * Reads an event file, writing the basic information it holds into the LogInfo instance.
+     * The actions are only counted, and are not kept in memory.
+     *
+     * @param log   The LogInfo to fill.
+     * @param file  The event file to read.
+     */
+    public static void read(@NotNull LogInfo log, @NotNull File file)
+    {
+        new EventLogReader(log, null).read(file);
+    }
+
+    /**
+     * Reads the actions of an event file that were not undone, passing each to a handler as soon as no later
+     * undo could reach it. Only the actions an undo could still revert are held in memory.
+     *
+     * @param file      The event file to read.
+     * @param handler   Receives the actions, in order.
+     */
+    static void readActions(@NotNull File file, @NotNull ActionHandler handler)
+    {
+        new EventLogReader(null, handler).read(file);
+    }
+
+    private void read(@NotNull File file)
+    {
+        BufferedReader br = null;
+        try {
+            br = new BufferedReader(new InputStreamReader(new FileInputStream(file), CHARSET));
+            read(br);
+        } catch (IOException e) {
+            Log.error("cannot load "+file);
+        } finally {
+            if (br != null) {
+                try {
+                    br.close();
+                } catch (Exception ignored) {}
+            }
+        }
+    }
+
+    private void read(@NotNull BufferedReader br) throws IOException
+    {
+        UndoWindow<GameEvent> window = new UndoWindow<GameEvent>();
+        Date kickoffTime = null;
+        Date endTime = null;
+        int numActions = 0;
+        int numActionsInEffect = 0;
+        int i = 0;
+        while ((line = br.readLine()) != null) {
+            i++;
+            try {
+                scan();
+            } catch (ParseException e) {
+                error(i, e.getMessage());
+                continue;
+            }
+
+            if ("game".equals(type)) {
+                if (log != null) {
+                    log.version = version;
+                    log.league = league != null ? League.findByDirectoryName(league) : null;
+                    log.keepColors = !colourChange;
+                    log.team[0] = leftName;
+                    log.team[1] = rightName;
+                    log.teamNumber[0] = left;
+                    log.teamNumber[1] = right;
+                }
+            } else if ("action".equals(type)) {
+                GameEvent event = toEvent();
+                if (event == null) {
+                    error(i, "incomplete action");
+                    continue;
+                }
+                numActions++;
+                numActionsInEffect++;
+                if (kickoffTime == null && event.getAction().equals("Ready")) {
+                    kickoffTime = new Date(time);
+                } else if (event.getAction().equals("Finished")) {
+                    endTime = new Date(time);
+                }
+                if (window.isFull()) {
+                    handle(window.getOldest());
+                    window.removeOldest();
+                }
+                window.add(event, i);
+            } else if ("undo".equals(type)) {
+                // Undone actions are dropped, so that an undo reaches back over the actions still in effect.
+                // Successive undos may reach back further than the window, to actions already handled.
+                if (count > numActionsInEffect) {
+                    error(i, "cannot undo "+count+" actions");
+                }
+                window.removeNewest(count);
+                numActionsInEffect = Math.max(numActionsInEffect - count, 0);
+            }
+        }
+        for (; !window.isEmpty(); window.removeOldest()) {
+            handle(window.getOldest());
+        }
+
+        if (log != null) {
+            log.numActions = numActions;
+            log.start = kickoffTime;
+            if ((kickoffTime != null) && (endTime != null)) {
+                log.duration = (int)((endTime.getTime()-kickoffTime.getTime())/1000);
+            }
+        }
+    }
+
+    private void handle(@NotNull GameEvent event)
+    {
+        if (handler != null) {
+            handler.handle(event);
+        }
+    }
+
+    private void error(int i, String message)
+    {
+        if (log != null) {
+            log.parseErrors += "error in line "+i+" of event file: "+message + GUI.HTML_LF;
+        }
+    }
+
+    /**
+     * Creates an event from the current record's values.
+     *
+     * @return  The event, or null if a required value is missing or not understood.
+     */
+    @Nullable
+    private GameEvent toEvent()
+    {
+        if (action == null || period == null || playMode == null || title == null) {
+            return null;
+        }
+        try {
+            return new GameEvent(time, action, team,
+                    colour != null ? TeamColor.valueOf(colour) : null,
+                    player, Period.valueOf(period), PlayMode.valueOf(playMode), blue, title);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** Scans the current line into the values of the current record. */
+    private void scan() throws ParseException
+    {
+        type = null;
+        time = 0;
+        version = null;
+        league = null;
+        left = GameEvent.NO_TEAM;
+        leftName = null;
+        right = GameEvent.NO_TEAM;
+        rightName = null;
+        colourChange = false;
+        action = null;
+        team = GameEvent.NO_TEAM;
+        colour = null;
+        player = GameEvent.NO_PLAYER;
+        period = null;
+        playMode = null;
+        blue = GameEvent.NO_TEAM;
+        title = null;
+        count = 0;
+
+        pos = 0;
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            return;
+        }
+        while (true) {
+            skipWhitespace();
+            String key = readString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+
+            if (key.equals("type")) {
+                type = readString();
+            } else if (key.equals("t")) {
+                time = readLong();
+            } else if (key.equals("version")) {
+                version = readString();
+            } else if (key.equals("league")) {
+                league = readString();
+            } else if (key.equals("left")) {
+                left = (int)readLong();
+            } else if (key.equals("leftName")) {
+                leftName = readString();
+            } else if (key.equals("right")) {
+                right = (int)readLong();
+            } else if (key.equals("rightName")) {
+                rightName = readString();
+            } else if (key.equals("colourChange")) {
+                colourChange = readBoolean();
+            } else if (key.equals("action")) {
+                action = readString();
+            } else if (key.equals("team")) {
+                team = (int)readLong();
+            } else if (key.equals("colour")) {
+                colour = readString();
+            } else if (key.equals("player")) {
+                player = (int)readLong();
+            } else if (key.equals("period")) {
+                period = readString();
+            } else if (key.equals("playMode")) {
+                playMode = readString();
+            } else if (key.equals("blue")) {
+                blue = (int)readLong();
+            } else if (key.equals("title")) {
+                title = readString();
+            } else if (key.equals("count")) {
+                count = (int)readLong();
+            } else {
+                skipValue();
+            }
+
+            skipWhitespace();
+            char c = next();
+            if (c == '}') {
+                return;
+            } else if (c != ',') {
+                throw new ParseException("expected , or } at "+(pos-1), pos-1);
+            }
+        }
+    }
+
+    private char peek() throws ParseException
+    {
+        if (pos >= line.length()) {
+            throw new ParseException("unexpected end of line", pos);
+        }
+        return line.charAt(pos);
+    }
+
+    private char next() throws ParseException
+    {
+        char c = peek();
+        pos++;
+        return c;
+    }
+
+    private void expect(char expected) throws ParseException
+    {
+        if (next() != expected) {
+            throw new ParseException("expected "+expected+" at "+(pos-1), pos-1);
+        }
+    }
+
+    private void skipWhitespace()
+    {
+        while (pos < line.length() && Character.isWhitespace(line.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    @NotNull
+    private String readString() throws ParseException
+    {
+        expect('"');
+        int start = pos;
+
+        // Most strings have no escapes, and can be taken straight from the line
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return line.substring(start, pos - 1);
+            } else if (c == '\\') {
+                break;
+            }
+        }
+
+        StringBuilder value = new StringBuilder(line.substring(start, pos - 1));
+        pos--;
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return value.toString();
+            } else if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            c = next();
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/': value.append(c); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'n': value.append('\n'); break;
+                case 'r': value.append('\r'); break;
+                case 't': value.append('\t'); break;
+                case 'u':
+                    if (pos + 4 > line.length()) {
+                        throw new ParseException("unexpected end of line", pos);
+                    }
+                    try {
+                        value.append((char)Integer.parseInt(line.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw new ParseException("invalid escape at "+pos, pos);
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    throw new ParseException("invalid escape at "+(pos-1), pos-1);
+            }
+        }
+    }
+
+    private long readLong() throws ParseException
+    {
+        boolean isNegative = false;
+        if (peek() == '-') {
+            isNegative = true;
+            pos++;
+        }
+        int start = pos;
+        long value = 0;
+        while (pos < line.length()) {
+            char c = line.charAt(pos);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = value * 10 + (c - '0');
+            pos++;
+        }
+        if (pos == start) {
+            throw new ParseException("expected number at "+start, start);
+        }
+        return isNegative ? -value : value;
+    }
+
+    private boolean readBoolean() throws ParseException
+    {
+        if (line.startsWith("true", pos)) {
+            pos += 4;
+            return true;
+        } else if (line.startsWith("false", pos)) {
+            pos += 5;
+            return false;
+        }
+        throw new ParseException("expected boolean at "+pos, pos);
+    }
+
+    private void skipValue() throws ParseException
+    {
+        char c = peek();
+        if (c == '"') {
+            readString();
+        } else if (c == 't' || c == 'f') {
+            readBoolean();
+        } else if (line.startsWith("null", pos)) {
+            pos += 4;
+        } else {
+            // A number, possibly with a fraction or exponent
+            int start = pos;
+            while (pos < line.length() && "+-.0123456789eE".indexOf(line.charAt(pos)) >= 0) {
+                pos++;
+            }
+            if (pos == start) {
+                throw new ParseException("unexpected value at "+start, start);
+            }
+        }
+    }
+}
@@ -13,6 +13,8 @@ import java.awt.event.MouseEvent;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import javax.swing.*;
 import javax.swing.border.Border;
 import javax.swing.event.ListSelectionEvent;
@@ -152,6 +154,10 @@ public class GUI
         for (LogInfo log : Main.logs) {
             if (!list.getElementAt(i++).selected) {
                 log.file.renameTo(new File(Main.PATH_DROPPED+"/"+log.file.getName()));
+                File eventFile = EventLogReader.getEventFile(log.file);
+                if (eventFile.isFile()) {
+                    eventFile.renameTo(new File(Main.PATH_DROPPED+"/"+eventFile.getName()));
+                }
             }
         }
         Main.load();
@@ -177,17 +183,21 @@ public class GUI
             Log.error("Cannot create and open/write to file "+Main.stats);
             return;
         }
+        List<LogInfo> selected = new ArrayList<LogInfo>();
         int i = 0;
         for (LogInfo log : Main.logs) {
             if (list.getElementAt(i++).selected) {
-                Parser.statistic(log);
+                selected.add(log);
             }
         }
         try{
+            for (String rows : Main.statistics(selected)) {
+                Main.writer.write(rows);
+            }
             Main.writer.flush();
             Main.writer.close();
         } catch (IOException e) {
-            Log.error("cannot close file "+Main.stats);
+            Log.error("cannot write to file "+Main.stats);
         }
         JOptionPane.showMessageDialog(null, "Done");
     }
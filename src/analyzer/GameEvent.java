@@ -0,0 +1,107 @@
+package analyzer;
+
+import common.annotations.NotNull;
+import common.annotations.Nullable;
+import data.Period;
+import data.PlayMode;
+import data.TeamColor;
+
+/**
+ * An action recorded in a game's event file, as read by {@link EventLogReader}.
+ */
+public class GameEvent
+{
+    /** The value of {@link #getTeamNumber()} for actions which do not concern a team. */
+    public static final int NO_TEAM = -1;
+    /** The value of {@link #getUniformNumber()} for actions which do not concern a player. */
+    public static final int NO_PLAYER = -1;
+
+    private final long time;
+    @NotNull private final String action;
+    private final int teamNumber;
+    @Nullable private final TeamColor teamColor;
+    private final int uniformNumber;
+    @NotNull private final Period period;
+    @NotNull private final PlayMode playMode;
+    private final int blueTeamNumber;
+    @NotNull private final String title;
+
+    GameEvent(long time, @NotNull String action, int teamNumber, @Nullable TeamColor teamColor, int uniformNumber,
+              @NotNull Period period, @NotNull PlayMode playMode, int blueTeamNumber, @NotNull String title)
+    {
+        this.time = time;
+        this.action = action;
+        this.teamNumber = teamNumber;
+        this.teamColor = teamColor;
+        this.uniformNumber = uniformNumber;
+        this.period = period;
+        this.playMode = playMode;
+        this.blueTeamNumber = blueTeamNumber;
+        this.title = title;
+    }
+
+    /** Gets the time of the action, as per {@link System#currentTimeMillis()}. */
+    public long getTime()
+    {
+        return time;
+    }
+
+    /** Gets the name of the action, without any team colour or uniform number, e.g. "Player Pushing". */
+    @NotNull
+    public String getAction()
+    {
+        return action;
+    }
+
+    /** Gets the number of the team the action concerns, or {@link #NO_TEAM}. */
+    public int getTeamNumber()
+    {
+        return teamNumber;
+    }
+
+    /** Gets the colour of the team the action concerns at the time, or <code>null</code> if it concerns no team. */
+    @Nullable
+    public TeamColor getTeamColor()
+    {
+        return teamColor;
+    }
+
+    /** Gets the uniform number of the player the action concerns, or {@link #NO_PLAYER}. */
+    public int getUniformNumber()
+    {
+        return uniformNumber;
+    }
+
+    /** Gets the period after the action. */
+    @NotNull
+    public Period getPeriod()
+    {
+        return period;
+    }
+
+    /** Gets the play mode after the action. */
+    @NotNull
+    public PlayMode getPlayMode()
+    {
+        return playMode;
+    }
+
+    /** Gets the number of the team playing as blue after the action. */
+    public int getBlueTeamNumber()
+    {
+        return blueTeamNumber;
+    }
+
+    /** Gets the title of the action, as written to the text log. */
+    @NotNull
+    public String getTitle()
+    {
+        return title;
+    }
+
+    @Override
+    public String toString()
+    {
+        return title;
+    }
+}
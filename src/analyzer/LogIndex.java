@@ -0,0 +1,177 @@
+package analyzer;
+
+import common.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The basic information of all logs in a directory, kept in a file so that
+ * logs need not be parsed again each time the analyzer starts.
+ * <p>
+ * Entries are keyed by the log's path, and hold the sizes and modification
+ * times its files had when parsed. An entry whose files have since changed
+ * is ignored, so that the log is parsed again.
+ */
+class LogIndex
+{
+    /* The name of the index file, within the directory of the logs. */
+    private final static String FILE_NAME = "analyzer.idx";
+    /* Identifies an index file, and the version of its format. */
+    private final static int MAGIC = 0x474C4958;
+    private final static int VERSION = 1;
+    /* The charset of strings in the index. */
+    private final static String CHARSET = "UTF-8";
+    /* The longest string expected in the index, to detect a corrupt index. */
+    private final static int MAX_STRING_LENGTH = 16*1024*1024;
+
+    /* The index file. */
+    private final File file;
+    /* The entries read from the index file, by path. */
+    private final Map<String, LogInfo> entries = new HashMap<String, LogInfo>();
+
+    /**
+     * Reads the index of a directory of logs. If there is no index yet, or
+     * it cannot be read, the index is empty and all logs will be parsed.
+     *
+     * @param dir   The directory of the logs.
+     */
+    LogIndex(File dir)
+    {
+        file = new File(dir, FILE_NAME);
+        if (!file.isFile()) {
+            return;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = readString(in);
+                entries.put(path, new LogInfo(new File(path), in));
+            }
+        } catch (IOException e) {
+            // A truncated or corrupt index only costs parsing the logs again
+            entries.clear();
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (Exception ignored) {}
+            }
+        }
+    }
+
+    /**
+     * Gets the information of a log, if the index holds it and the log's
+     * files have not changed since.
+     *
+     * @param log   The log file.
+     * @return  The information, or null if the log must be parsed.
+     */
+    LogInfo get(File log)
+    {
+        LogInfo info = entries.get(log.getPath());
+        return info != null && info.isUpToDate() ? info : null;
+    }
+
+    /**
+     * Gets the number of entries read from the index file, including any
+     * which are out of date.
+     *
+     * @return  The number of entries.
+     */
+    int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Replaces the index file with the information of the given logs. The
+     * file is written under another name first, so that an interrupted
+     * write leaves the previous index intact.
+     *
+     * @param logs  All logs of the directory.
+     */
+    void write(List<LogInfo> logs)
+    {
+        File temp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(logs.size());
+            for (LogInfo log : logs) {
+                writeString(out, log.file.getPath());
+                log.writeTo(out);
+            }
+            out.close();
+            out = null;
+            file.delete();
+            if (!temp.renameTo(file)) {
+                Log.error("cannot replace log index "+file);
+            }
+        } catch (IOException e) {
+            Log.error("cannot write log index "+file);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (Exception ignored) {}
+            }
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}.
+     *
+     * @param in    The stream to read from.
+     * @return  The string, which may be null.
+     * @throws IOException  If the string cannot be read.
+     */
+    static String readString(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        } else if (length > MAX_STRING_LENGTH) {
+            throw new IOException("string too long: "+length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, CHARSET);
+    }
+
+    /**
+     * Writes a string, which unlike DataOutputStream.writeUTF may be null
+     * or of any length.
+     *
+     * @param out   The stream to write to.
+     * @param s     The string, or null.
+     * @throws IOException  If the string cannot be written.
+     */
+    static void writeString(DataOutputStream out, String s) throws IOException
+    {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = s.getBytes(CHARSET);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
@@ -1,16 +1,15 @@
 package analyzer;
 
-import common.Log;
 import data.League;
 
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.Date;
-import java.util.LinkedList;
 
 /**
  * Instances of this class represent a log file. It can analyze some basic
@@ -29,10 +28,12 @@ public class LogInfo
     private final static int MIN_DURATION = 18*60;
     /* Number of log entries with general information at the beginning of
      * every log, used to count the number of real actions. */
-    private final static int NUM_OF_INFO_ENTRIES = 6;
+    final static int NUM_OF_INFO_ENTRIES = 6;
     
     /* The log file this instance belongs to. */
     public final File file;
+    /* The event file written alongside the log, or null if there is none. */
+    public final File eventFile;
     /* The version information found in the log. */
     public String version;
     /* The league this log´s game was played in. */
@@ -41,46 +42,135 @@ public class LogInfo
     public boolean keepColors = false;
     /* The teams' names. */
     public final String[] team = new String[2];
+    /* The teams' numbers, if known from the event file. */
+    public final int[] teamNumber = new int[2];
     /* Time of the first ready. */
     public Date start;
     /* Duration of the game in seconds (first ready to last finish) */
     public int duration;
-    /* All lines from the log file. */
-    public final LinkedList<String> lines = new LinkedList<String>();
+    /* Number of actions in the log. */
+    public int numActions;
     /* If something odd happens while parsing this log, it will be written
      * into this string. */
     public String parseErrors = "";
+    /* The sizes and modification times of the files when they were parsed,
+     * used to tell whether an index entry is still up to date. */
+    private final long fileLength;
+    private final long fileModified;
+    private final long eventFileLength;
+    private final long eventFileModified;
     
     
     /**
      * Creates a new LogInfo.
-     * It will read the whole log into a list of strings and launch a parsing
-     * method to collect some basic information.
+     * If the log has an event file, its actions are read from that.
+     * Otherwise it will launch a parsing method to collect some basic
+     * information from the log.
      * 
      * @param log   The log file to read and represent.
      */
     public LogInfo(File log)
     {
         file = log;
-        BufferedReader br = null;
-        try {
-            InputStream inStream = new FileInputStream(log);
-            br = new BufferedReader(new InputStreamReader(inStream, CHARSET));
-            String currentLine;
-            while ((currentLine = br.readLine()) != null) {
-                lines.add(currentLine);
-            }
-        } catch (IOException e) {
-            Log.error("cannot load "+log);
+        File events = EventLogReader.getEventFile(log);
+        eventFile = events.isFile() ? events : null;
+        fileLength = file.length();
+        fileModified = file.lastModified();
+        eventFileLength = eventFile != null ? eventFile.length() : 0;
+        eventFileModified = eventFile != null ? eventFile.lastModified() : 0;
+        if (eventFile != null) {
+            EventLogReader.read(this, eventFile);
+        } else {
+            Parser.info(this);
         }
-        finally {
-            if (br != null) {
-                try {
-                    br.close();
-                } catch (Exception ignored) {}
-            }
+    }
+    
+    /**
+     * Creates a LogInfo from an entry of the log index, without parsing
+     * the log.
+     * 
+     * @param log   The log file the entry belongs to.
+     * @param in    The stream, positioned after the entry's path.
+     * @throws IOException  If the entry cannot be read.
+     */
+    LogInfo(File log, DataInputStream in) throws IOException
+    {
+        file = log;
+        fileLength = in.readLong();
+        fileModified = in.readLong();
+        boolean hasEventFile = in.readBoolean();
+        eventFile = hasEventFile ? EventLogReader.getEventFile(log) : null;
+        eventFileLength = in.readLong();
+        eventFileModified = in.readLong();
+        version = LogIndex.readString(in);
+        String leagueDirectory = LogIndex.readString(in);
+        league = leagueDirectory != null ? League.findByDirectoryName(leagueDirectory) : null;
+        keepColors = in.readBoolean();
+        for (int i = 0; i < 2; i++) {
+            team[i] = LogIndex.readString(in);
+            teamNumber[i] = in.readInt();
+        }
+        long startTime = in.readLong();
+        start = startTime != Long.MIN_VALUE ? new Date(startTime) : null;
+        duration = in.readInt();
+        numActions = in.readInt();
+        String errors = LogIndex.readString(in);
+        parseErrors = errors != null ? errors : "";
+    }
+    
+    /**
+     * Writes this log's basic information as an entry of the log index,
+     * following its path. See LogInfo(File, DataInputStream).
+     * 
+     * @param out   The stream to write to.
+     * @throws IOException  If the entry cannot be written.
+     */
+    void writeTo(DataOutputStream out) throws IOException
+    {
+        out.writeLong(fileLength);
+        out.writeLong(fileModified);
+        out.writeBoolean(eventFile != null);
+        out.writeLong(eventFileLength);
+        out.writeLong(eventFileModified);
+        LogIndex.writeString(out, version);
+        LogIndex.writeString(out, league != null ? league.getDirectoryName() : null);
+        out.writeBoolean(keepColors);
+        for (int i = 0; i < 2; i++) {
+            LogIndex.writeString(out, team[i]);
+            out.writeInt(teamNumber[i]);
         }
-        Parser.info(this);
+        out.writeLong(start != null ? start.getTime() : Long.MIN_VALUE);
+        out.writeInt(duration);
+        out.writeInt(numActions);
+        LogIndex.writeString(out, parseErrors);
+    }
+    
+    /**
+     * Tells whether the log's files have changed since it was parsed, in
+     * which case this information may be out of date.
+     * 
+     * @return  True, if the files have the same sizes and modification
+     *          times as when they were parsed.
+     */
+    boolean isUpToDate()
+    {
+        File events = EventLogReader.getEventFile(file);
+        return file.length() == fileLength
+                && file.lastModified() == fileModified
+                && events.isFile() == (eventFile != null)
+                && (eventFile == null
+                    || (events.length() == eventFileLength && events.lastModified() == eventFileModified));
+    }
+    
+    /**
+     * Opens the log file for reading.
+     * 
+     * @return  A reader of the log file's lines.
+     * @throws IOException  If the file cannot be opened.
+     */
+    BufferedReader open() throws IOException
+    {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), CHARSET));
     }
     
     /**
@@ -147,7 +237,7 @@ public class LogInfo
                 + (keepColors ? "No Color Change" : "Color Change") + GUI.HTML_LF
                 + (start != null ? start : GUI.HTML_RED + "(unknown)" + GUI.HTML_END) + " starting" + GUI.HTML_LF
                 + (isRealDuration() ? duration : GUI.HTML_RED + duration + GUI.HTML_END) + " seconds" + GUI.HTML_LF
-                + (lines.size()-NUM_OF_INFO_ENTRIES) + " actions" + GUI.HTML_LF
+                + numActions + " actions" + GUI.HTML_LF
                 + GUI.HTML_RED + parseErrors;
     }
     
@@ -2,7 +2,15 @@ package analyzer;
 
 import java.io.File;
 import java.io.FileWriter;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * The log-analyzer-program starts in this class.
@@ -17,12 +25,27 @@ public class Main
     /* Path where dropped logs will be moved to by the clean feature. */
     public final static String PATH_DROPPED = "logs/dropped";
     
-    /* List of all logs */
-    public static LinkedList<LogInfo> logs;
+    /* List of all logs, ordered by file name. */
+    public static List<LogInfo> logs;
     /* The output file to write the statistics into.*/
     public static File stats;
     /* Use this to write into the output file. */
     public static FileWriter writer;
+    /* Loads and parses logs using all cores. Its threads are daemons, so that closing the GUI ends the program. */
+    private final static ExecutorService pool = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactory()
+            {
+                private final ThreadFactory threads = Executors.defaultThreadFactory();
+
+                @Override
+                public Thread newThread(Runnable task)
+                {
+                    Thread thread = threads.newThread(task);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
 
     private Main() {}
 
@@ -39,20 +62,135 @@ public class Main
     
     /**
      * Loads all the logs, can be used at the beginning and to update
-     * the list as well.
+     * the list as well. Logs which are new or have changed since they were
+     * last loaded are read and parsed in parallel. The information of all
+     * others is taken from the log index.
      */
     public static void load()
     {
-        logs = new LinkedList<LogInfo>();
+        List<File> logFiles = new ArrayList<File>();
         File dir = new File(PATH);
         File[] files = dir.listFiles();
 
         if (files != null) {
+            Arrays.sort(files);
             for (File file : files) {
-                if (file.isFile() && file.getName().startsWith("log_")) {
-                    logs.add(new LogInfo(file));
+                if (file.isFile() && file.getName().startsWith("log_") && file.getName().endsWith(".txt")) {
+                    logFiles.add(file);
                 }
             }
         }
+
+        LogIndex index = new LogIndex(dir);
+        LogInfo[] loaded = new LogInfo[logFiles.size()];
+        boolean isIndexUpToDate = true;
+        for (int i = 0; i < loaded.length; i++) {
+            loaded[i] = index.get(logFiles.get(i));
+            isIndexUpToDate &= loaded[i] != null;
+        }
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < loaded.length; i++) {
+            if (loaded[i] == null) {
+                tasks.add(new LoadTask(logFiles, loaded, i));
+            }
+        }
+        runAll(tasks);
+        logs = new ArrayList<LogInfo>(Arrays.asList(loaded));
+        if (!isIndexUpToDate || index.size() != logs.size()) {
+            index.write(logs);
+        }
+    }
+
+    /**
+     * Parses logs for statistics in parallel.
+     *
+     * @param selected  The logs to parse.
+     * @return  Each log´s rows, in the same order as the logs, so that they
+     *          can be written out as if the logs had been parsed in turn.
+     */
+    public static String[] statistics(List<LogInfo> selected)
+    {
+        String[] rows = new String[selected.size()];
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < rows.length; i++) {
+            tasks.add(new StatisticTask(selected, rows, i));
+        }
+        runAll(tasks);
+        return rows;
+    }
+
+    /**
+     * Runs tasks on all cores, and waits until all have finished.
+     * An exception thrown by any task is thrown again from here.
+     */
+    private static void runAll(List<Callable<Void>> tasks)
+    {
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while processing logs", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Loads a single log file which is not already loaded.
+     */
+    private static class LoadTask implements Callable<Void>
+    {
+        private final List<File> files;
+        private final LogInfo[] results;
+        private final int index;
+
+        LoadTask(List<File> files, LogInfo[] results, int index)
+        {
+            this.files = files;
+            this.results = results;
+            this.index = index;
+        }
+
+        @Override
+        public Void call()
+        {
+            results[index] = new LogInfo(files.get(index));
+            return null;
+        }
+    }
+
+    /**
+     * Parses a single log for statistics.
+     */
+    private static class StatisticTask implements Callable<Void>
+    {
+        private final List<LogInfo> logs;
+        private final String[] results;
+        private final int index;
+
+        StatisticTask(List<LogInfo> logs, String[] results, int index)
+        {
+            this.logs = logs;
+            this.results = results;
+            this.index = index;
+        }
+
+        @Override
+        public Void call()
+        {
+            StringBuilder rows = new StringBuilder();
+            Parser.statistic(logs.get(index), rows);
+            results[index] = rows.toString();
+            return null;
+        }
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package analyzer;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -18,13 +19,12 @@ import data.TeamColor;
  */
 public class Parser
 {
-    /* This prefix will be placed at the beginning of every logInfo´s log line,
-     which was made undone by an undo*/
-    private static final String UNDONE_PREFIX = "<undone>";
     /* The separator used for the output within a row. */
     private static final String OUT_SEP = ",";
-    /* The output´s date format (date-time) */
-    private static final SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd kk:mm:ss");
+    /* The output´s date format (date-time), when formatting times from
+     * event files. SimpleDateFormat is not thread-safe, so each parse
+     * creates its own. */
+    private static final String TIME_PATTERN = "yyyy-MM-dd kk:mm:ss";
     
     /* All the actions that would cause the teams to change colors */
     private static final String[] colorChangeActions = {
@@ -37,8 +37,8 @@ public class Parser
     /*
      * All the actions to extract from the logs into statistics.
      * If there are actions which are not prefix-free, the longer
-     * action´s string must be first. For example "Playing with Hands"
-     * for "Playing".
+     * action is matched. For example "Playing with Hands" rather than
+     * "Playing".
      */
     private static final String[] actions = {
         "Manually Penalised",
@@ -77,12 +77,19 @@ public class Parser
         "Coach Message"
     };
 
+    /* Matches the actions above, and the actions causing colour changes. */
+    private static final ActionMatcher actionMatcher = new ActionMatcher(actions);
+    private static final ActionMatcher colorChangeMatcher = new ActionMatcher(colorChangeActions);
+    /* Finds the uniform number after a team colour at the end of a log entry. */
+    private static final Pattern playerPattern = Pattern.compile(
+            "("+TeamColor.Blue.toString()+"|"+TeamColor.Red.toString()+")\\s*(\\d+)\\s*$");
+
     private Parser() {}
 
     /**
-     * Parsing a log to get some information and place the undone-prefix,
-     * so this is needed before parsing for statistics. The information
-     * will be written into the LogInfo instance.
+     * Parsing a log to get some information. The information will be
+     * written into the LogInfo instance. The log is read once, line by
+     * line, without being kept in memory. Logs may be parsed concurrently.
      * 
      * @param log   The log to parse.
      */
@@ -91,53 +98,60 @@ public class Parser
         Date kickoffTime = null;
         Date endTime = null;
         int i = 0;
-        for (String line : log.lines) {
-            i++;
-            int divPos = line.indexOf(": ");
+        BufferedReader br = null;
+        try {
+            br = log.open();
+            String line;
+            while ((line = br.readLine()) != null) {
+                i++;
+                int divPos = line.indexOf(": ");
 
-            if (divPos < 0) {
-                log.parseErrors += "error in line "+i+": colon missing" + GUI.HTML_LF;
-                continue;
-            }
+                if (divPos < 0) {
+                    log.parseErrors += "error in line "+i+": colon missing" + GUI.HTML_LF;
+                    continue;
+                }
 
-            Date time = null;
-            try{
-                time = Log.timestampFormat.parse(line.substring(0, divPos));
-            } catch (ParseException e) {
-                log.parseErrors += "error in line "+i+": Cannot parse timestamp" + GUI.HTML_LF;
-            }
-            String action = line.substring(divPos+2);
-            
-            if (i == 1) {
-                log.version = action;
-            } else if (action.startsWith("League = ")) {
-                log.league = League.findByName(action.substring(9));
-            } else if (action.startsWith("Auto color change = false")) {
-                log.keepColors = true;
-            } else if (action.startsWith("Undo")) {
-                String[] splitted = action.split(" ");
-                if (splitted.length < 2) {
-                    log.parseErrors += "error in line "+i+": cannot parse undo";
-                } else {
-                    int undos = Integer.valueOf(splitted[1]);
-                    for (int j=0; j<undos; j++) {
-                        log.lines.set(i-2-j, UNDONE_PREFIX+log.lines.get(i-2-j));
-                    }
+                Date time = null;
+                try{
+                    time = new Date(TimestampParser.parse(line, divPos));
+                } catch (ParseException e) {
+                    log.parseErrors += "error in line "+i+": Cannot parse timestamp" + GUI.HTML_LF;
                 }
-            } else if (action.contains(" vs ")) {
-                String[] teams = action.split(" vs ");
-                if (teams.length == 2) {
-                    log.team[0] = teams[0];
-                    log.team[1] = teams[1];
-                } else {
-                    log.parseErrors += "error in line "+i+": Found vs but not 2 teams" + GUI.HTML_LF;
+                String action = line.substring(divPos+2);
+
+                if (i == 1) {
+                    log.version = action;
+                } else if (action.startsWith("League = ")) {
+                    log.league = League.findByName(action.substring(9));
+                } else if (action.startsWith("Auto color change = false")) {
+                    log.keepColors = true;
+                } else if (action.startsWith("Undo")) {
+                    int undos = parseUndo(action);
+                    if (undos < 0) {
+                        log.parseErrors += "error in line "+i+": cannot parse undo" + GUI.HTML_LF;
+                    } else if (undos > Math.min(i-1, UndoWindow.SIZE)) {
+                        log.parseErrors += "error in line "+i+": cannot undo "+undos+" lines" + GUI.HTML_LF;
+                    }
+                } else if (action.contains(" vs ")) {
+                    String[] teams = action.split(" vs ");
+                    if (teams.length == 2) {
+                        log.team[0] = teams[0];
+                        log.team[1] = teams[1];
+                    } else {
+                        log.parseErrors += "error in line "+i+": Found vs but not 2 teams" + GUI.HTML_LF;
+                    }
+                } else if ((kickoffTime == null) && (action.startsWith("Ready"))) {
+                    kickoffTime = time;
+                } else if (action.startsWith("Finished")) {
+                    endTime = time;
                 }
-            } else if ((kickoffTime == null) && (action.startsWith("Ready"))) {
-                kickoffTime = time;
-            } else if (action.startsWith("Finished")) {
-                endTime = time;
             }
+        } catch (IOException e) {
+            Log.error("cannot load "+log.file);
+        } finally {
+            close(br);
         }
+        log.numActions = i - LogInfo.NUM_OF_INFO_ENTRIES;
         log.start = kickoffTime;
         if ((kickoffTime != null) && (endTime != null)) {
             log.duration = (int)((endTime.getTime()-kickoffTime.getTime())/1000);
@@ -145,64 +159,143 @@ public class Parser
     }
     
     /**
-     * Parsing a log to write all statistics from it into a file. The file
-     * is set in the main class.
+     * Parsing a log to append all statistics from it to a buffer, one row
+     * per line. Logs may be parsed concurrently, each into its own buffer.
+     * The log is read once, and a line is only kept in memory until no
+     * later undo could reach it.
      * 
-     * @param log   The log to parse.
+     * @param log   The log to parse, which must have been parsed for info.
+     * @param out   The buffer to append the rows to.
      */
-    public static void statistic(LogInfo log)
+    public static void statistic(LogInfo log, StringBuilder out)
+    {
+        if (log.eventFile != null) {
+            statisticFromEvents(log, out);
+            return;
+        }
+
+        TextStatistic statistic = new TextStatistic(log, out);
+        UndoWindow<String> window = new UndoWindow<String>();
+        int i = 0;
+        BufferedReader br = null;
+        try {
+            br = log.open();
+            String line;
+            while ((line = br.readLine()) != null) {
+                i++;
+                int divPos = line.indexOf(": ");
+                if (divPos >= 0 && line.startsWith("Undo", divPos+2)) {
+                    int undos = parseUndo(line.substring(divPos+2));
+                    if (undos > 0) {
+                        window.undo(undos);
+                    }
+                }
+                if (window.isFull()) {
+                    if (!window.isOldestUndone() && !statistic.write(window.getOldest(), window.getOldestNumber())) {
+                        return;
+                    }
+                    window.removeOldest();
+                }
+                window.add(line, i);
+            }
+            for (; !window.isEmpty(); window.removeOldest()) {
+                if (!window.isOldestUndone() && !statistic.write(window.getOldest(), window.getOldestNumber())) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            Log.error("cannot load "+log.file);
+        } finally {
+            close(br);
+        }
+    }
+
+    /**
+     * Parses the number of lines an undo reverts.
+     * 
+     * @param action    The undo line, without timestamp.
+     * @return  The number of lines, or -1 if it cannot be parsed.
+     */
+    private static int parseUndo(String action)
+    {
+        String[] splitted = action.split(" ");
+        if (splitted.length < 2) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(splitted[1]);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void close(BufferedReader br)
     {
-        Date rawTime;
-        String time;
-        String raw, action = "";
-        String team;
-        String player;
-        String[] teams = new String[2];
-        if (log.team.length >= 2) {
-            teams[0] = log.team[0];
-            teams[1] = log.team[1];
-        } else {
-            teams[0] = "unknown";
-            teams[1] = "unknown";
+        if (br != null) {
+            try {
+                br.close();
+            } catch (Exception ignored) {}
         }
-        int i=0;
-        for (String line : log.lines) {
-            i++;
-            if (line.startsWith(UNDONE_PREFIX)) {
-                continue;
+    }
+
+    /**
+     * Writes statistics rows for a log's lines, one at a time and in order,
+     * tracking the teams' colours as they change.
+     */
+    private static class TextStatistic
+    {
+        private final LogInfo log;
+        private final StringBuilder out;
+        private final String[] teams = new String[2];
+
+        TextStatistic(LogInfo log, StringBuilder out)
+        {
+            this.log = log;
+            this.out = out;
+            if (log.team.length >= 2) {
+                teams[0] = log.team[0];
+                teams[1] = log.team[1];
+            } else {
+                teams[0] = "unknown";
+                teams[1] = "unknown";
             }
+        }
+
+        /**
+         * Writes the row for a line, if it holds an action.
+         * 
+         * @param line  The line, which was not undone.
+         * @param i     The line's number.
+         * @return  False if the line cannot be parsed, and parsing should stop.
+         */
+        boolean write(String line, int i)
+        {
+            String time;
+            String raw, action;
+            String team;
+            String player;
+
             int divPos = line.indexOf(": ")+2;
             try{
-                rawTime = Log.timestampFormat.parse(line.substring(0, divPos-2));
+                if (divPos < 2) {
+                    throw new ParseException("colon missing", 0);
+                }
+                time = TimestampParser.format(line, divPos-2);
             } catch (ParseException e) {
                 Log.error("Cannot parse time in line "+i+" of "+log.file);
-                return;
+                return false;
             }
             raw = line.substring(divPos);
             
-            time = timeFormat.format(rawTime);
-            
-            if (!log.keepColors) {
-                for (String ca : colorChangeActions) {
-                    if (raw.startsWith(ca)) {
-                        String tmp = teams[0];
-                        teams[0] = teams[1];
-                        teams[1] = tmp;
-                        break;
-                    }
-                }
+            if (!log.keepColors && colorChangeMatcher.match(raw, 0) != null) {
+                String tmp = teams[0];
+                teams[0] = teams[1];
+                teams[1] = tmp;
             }
             
-            boolean actionMatch = false;
-            for (String a : actions) {
-                if (raw.startsWith(a)) {
-                    action = a;
-                    actionMatch = true;
-                    break;
-                }
-            }
-            if (!actionMatch) {
-                continue;
+            action = actionMatcher.match(raw, 0);
+            if (action == null) {
+                return true;
             }
             
             if (raw.contains(TeamColor.Blue.toString())) {
@@ -214,18 +307,64 @@ public class Parser
             }
             
             player = "";
-            String pattern = "("+TeamColor.Blue.toString()+"|"+TeamColor.Red.toString()+")\\s*(\\d+)\\s*$";
-            Matcher matcher = Pattern.compile(pattern).matcher(raw);
+            Matcher matcher = playerPattern.matcher(raw);
             if (matcher.find()) {
                 if (matcher.groupCount() == 2) {
                     player = matcher.group(2);
                 }
             }
-            try{
-                Main.writer.write(time+OUT_SEP+action+OUT_SEP+team+OUT_SEP+player+OUT_SEP+teams[0]+OUT_SEP+teams[1]+"\n");
-            } catch (IOException e) {
-                Log.error("cannot write to file "+Main.stats);
+            out.append(time+OUT_SEP+action+OUT_SEP+team+OUT_SEP+player+OUT_SEP+teams[0]+OUT_SEP+teams[1]+"\n");
+            return true;
+        }
+    }
+
+    /**
+     * Appends all statistics from a log's event file to a buffer.
+     * Teams are identified by the numbers recorded with each action, so
+     * unlike the text log no colour changes need to be inferred. As for
+     * the text log, an action is only kept in memory until no later undo
+     * could reach it.
+     * 
+     * @param log           The log to write, read from an event file.
+     * @param out           The buffer to append the rows to.
+     */
+    private static void statisticFromEvents(final LogInfo log, final StringBuilder out)
+    {
+        final SimpleDateFormat timeFormat = new SimpleDateFormat(TIME_PATTERN);
+        EventLogReader.readActions(log.eventFile, new EventLogReader.ActionHandler()
+        {
+            @Override
+            public void handle(GameEvent event)
+            {
+                String action = actionMatcher.match(event.getTitle(), 0);
+                if (action == null) {
+                    return;
+                }
+                
+                String blue = teamName(log, event.getBlueTeamNumber());
+                String red = teamName(log, event.getBlueTeamNumber() == log.teamNumber[0] ? log.teamNumber[1] : log.teamNumber[0]);
+                String team = event.getTeamNumber() != GameEvent.NO_TEAM ? teamName(log, event.getTeamNumber()) : "";
+                String player = event.getUniformNumber() != GameEvent.NO_PLAYER ? String.valueOf(event.getUniformNumber()) : "";
+                
+                out.append(timeFormat.format(new Date(event.getTime()))+OUT_SEP+action+OUT_SEP+team+OUT_SEP+player+OUT_SEP+blue+OUT_SEP+red+"\n");
+            }
+        });
+    }
+    
+    /**
+     * Gets the name of one of a log's teams.
+     * 
+     * @param log           The log.
+     * @param teamNumber    The team's number.
+     * @return  The team's name, or "unknown" if it is not one of the log's teams.
+     */
+    private static String teamName(LogInfo log, int teamNumber)
+    {
+        for (int i = 0; i < 2; i++) {
+            if (log.teamNumber[i] == teamNumber && log.team[i] != null) {
+                return log.team[i];
             }
         }
+        return "unknown";
     }
-}
\ No newline at end of file
+}
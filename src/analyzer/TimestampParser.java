@@ -0,0 +1,153 @@
+package analyzer;
+
+import common.Log;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Parses the timestamps at the start of log lines, as written in the
+ * pattern {@link Log#TIMESTAMP_PATTERN}, with the same results as a
+ * SimpleDateFormat of that pattern in the default time zone.
+ * <p>
+ * The digits are read directly. The calendar computations needed to turn
+ * them into a time are only done once for each hour, and their results
+ * cached. All methods are thread-safe.
+ */
+final class TimestampParser
+{
+    /* The output´s date format, without minutes and seconds. */
+    private final static String HOUR_PATTERN = "yyyy-MM-dd kk:";
+    /* The number of hours cached. Must be a power of two. */
+    private final static int CACHE_SIZE = 64;
+
+    /* Recently parsed hours, indexed by their key. Entries are immutable,
+     * so they can be replaced by any thread without further locking. */
+    private final static AtomicReferenceArray<Hour> cache = new AtomicReferenceArray<Hour>(CACHE_SIZE);
+
+    private TimestampParser() {}
+
+    /**
+     * Parses a timestamp.
+     *
+     * @param line  The text holding the timestamp.
+     * @param end   The position at which the timestamp ends.
+     * @return  The time, in milliseconds since the epoch.
+     * @throws ParseException   If the text is not a timestamp.
+     */
+    static long parse(String line, int end) throws ParseException
+    {
+        Fields fields = new Fields(line, end);
+        return getHour(fields).time + fields.minute * 60000L + fields.second * 1000L;
+    }
+
+    /**
+     * Parses a timestamp and formats it in the pattern "yyyy-MM-dd kk:mm:ss".
+     *
+     * @param line  The text holding the timestamp.
+     * @param end   The position at which the timestamp ends.
+     * @return  The formatted time.
+     * @throws ParseException   If the text is not a timestamp.
+     */
+    static String format(String line, int end) throws ParseException
+    {
+        Fields fields = new Fields(line, end);
+        StringBuilder formatted = new StringBuilder(19).append(getHour(fields).formatted);
+        appendTwoDigits(formatted, fields.minute).append(':');
+        return appendTwoDigits(formatted, fields.second).toString();
+    }
+
+    private static Hour getHour(Fields fields)
+    {
+        int key = ((fields.year*13 + fields.month)*32 + fields.day)*25 + fields.hour;
+        int index = (key ^ (key >>> 16)) & (CACHE_SIZE - 1);
+        Hour hour = cache.get(index);
+        if (hour == null || hour.key != key) {
+            hour = new Hour(key, fields);
+            cache.set(index, hour);
+        }
+        return hour;
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder sb, int value)
+    {
+        return sb.append((char)('0' + value / 10)).append((char)('0' + value % 10));
+    }
+
+    /**
+     * The start of an hour in local time, as computed by a calendar.
+     */
+    private static class Hour
+    {
+        final int key;
+        /* The time at which the hour starts. */
+        final long time;
+        /* The hour in the pattern {@link #HOUR_PATTERN}. */
+        final String formatted;
+
+        Hour(int key, Fields fields)
+        {
+            this.key = key;
+            // The pattern's hours run from 1 to 24, and 24 means midnight of the same day
+            GregorianCalendar calendar = new GregorianCalendar(
+                    fields.year, fields.month - 1, fields.day, fields.hour % 24, 0, 0);
+            time = calendar.getTimeInMillis();
+            formatted = new SimpleDateFormat(HOUR_PATTERN).format(new Date(time));
+        }
+    }
+
+    /**
+     * The numbers of a timestamp, in the pattern "yyyy.M.dd-kk.mm.ss".
+     */
+    private static class Fields
+    {
+        private final String line;
+        private final int end;
+        private int pos;
+
+        final int year;
+        final int month;
+        final int day;
+        final int hour;
+        final int minute;
+        final int second;
+
+        Fields(String line, int end) throws ParseException
+        {
+            this.line = line;
+            this.end = end;
+            year = next('.', 1, 9999);
+            month = next('.', 1, 12);
+            day = next('-', 1, 31);
+            hour = next('.', 0, 24);
+            minute = next('.', 0, 59);
+            second = next((char)0, 0, 59);
+            if (pos != end) {
+                throw new ParseException("Unparseable timestamp: \""+line.substring(0, end)+"\"", pos);
+            }
+        }
+
+        /* Reads a number and the separator following it. */
+        private int next(char separator, int min, int max) throws ParseException
+        {
+            int start = pos;
+            int value = 0;
+            while (pos < end && pos - start < 4) {
+                char c = line.charAt(pos);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                value = value*10 + (c - '0');
+                pos++;
+            }
+            if (pos == start || value < min || value > max
+                    || (separator != 0 && (pos >= end || line.charAt(pos++) != separator))) {
+                throw new ParseException("Unparseable timestamp: \""+line.substring(0, end)+"\"", pos);
+            }
+            return value;
+        }
+    }
+}
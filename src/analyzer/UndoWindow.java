@@ -0,0 +1,84 @@
+package analyzer;
+
+import controller.action.ActionBoard;
+
+/**
+ * The most recent entries of a log, held back from the statistics until
+ * no later undo could reach them. An undo reverts at most
+ * {@link ActionBoard#MAX_NUM_UNDOS_AT_ONCE} entries, so only that many
+ * need to be held.
+ *
+ * @param <T>   The type of the entries, such as the lines of a text log.
+ */
+class UndoWindow<T>
+{
+    static final int SIZE = ActionBoard.MAX_NUM_UNDOS_AT_ONCE;
+
+    /* The entries, their line numbers, and whether they were undone, in a
+     * ring starting at the oldest. */
+    private final Object[] entries = new Object[SIZE];
+    private final int[] numbers = new int[SIZE];
+    private final boolean[] undone = new boolean[SIZE];
+    private int oldest = 0;
+    private int size = 0;
+
+    boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    boolean isFull()
+    {
+        return size == SIZE;
+    }
+
+    void add(T entry, int number)
+    {
+        int index = (oldest + size) % SIZE;
+        entries[index] = entry;
+        numbers[index] = number;
+        undone[index] = false;
+        size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    T getOldest()
+    {
+        return (T)entries[oldest];
+    }
+
+    int getOldestNumber()
+    {
+        return numbers[oldest];
+    }
+
+    boolean isOldestUndone()
+    {
+        return undone[oldest];
+    }
+
+    void removeOldest()
+    {
+        entries[oldest] = null;
+        oldest = (oldest + 1) % SIZE;
+        size--;
+    }
+
+    /* Marks the given number of the most recent entries as undone. */
+    void undo(int count)
+    {
+        for (int j = 1; j <= Math.min(count, size); j++) {
+            undone[(oldest + size - j) % SIZE] = true;
+        }
+    }
+
+    /* Removes the given number of the most recent entries, or all of them
+     * if there are fewer. */
+    void removeNewest(int count)
+    {
+        for (int j = Math.min(count, size); j > 0; j--) {
+            size--;
+            entries[(oldest + size) % SIZE] = null;
+        }
+    }
+}
@@ -1,24 +1,97 @@
 package common;
 
+import common.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
 /**
  * When used in a loop, causes a series of events to occur at a regular interval.
+ * <p>
+ * Timing is based upon {@link System#nanoTime()}, so is unaffected by changes to the wall clock.
+ * If the loop falls behind (for example due to a garbage collection pause) the {@link CatchUpPolicy}
+ * determines how missed occurrences are handled.
+ * <p>
+ * The period may be changed while running via {@link Interval#setPeriodMillis}.
  *
  * @author Drew Noakes https://drewnoakes.com
  */
 public class Interval
 {
-    private final long periodMillis;
-    private long nextAtMillis;
+    /** Specifies how an interval behaves when one or more occurrences were missed. */
+    public enum CatchUpPolicy
+    {
+        /**
+         * Missed occurrences are dropped. The next occurrence is the first one that lies in
+         * the future, keeping the original phase.
+         */
+        Skip,
+
+        /** Missed occurrences happen back-to-back, without sleeping, until the interval has caught up. */
+        Burst,
+
+        /** Missed occurrences are dropped, and the schedule restarts one period from now. */
+        Rephase
+    }
+
+    @NotNull private final CatchUpPolicy policy;
+    private long periodNanos;
+    private long nextAtNanos;
 
     /**
      * Initialises this interval with the specified number of millis, and starts it from now.
+     * Missed occurrences are skipped.
+     *
      * @param periodMillis the period in between occurrences
      */
     public Interval(long periodMillis)
     {
-        this.periodMillis = periodMillis;
+        this(periodMillis, CatchUpPolicy.Skip);
+    }
+
+    /**
+     * Initialises this interval with the specified number of millis, and starts it from now.
+     *
+     * @param periodMillis the period in between occurrences
+     * @param policy how to behave when occurrences are missed
+     */
+    public Interval(long periodMillis, @NotNull CatchUpPolicy policy)
+    {
+        if (periodMillis <= 0)
+            throw new IllegalArgumentException("Period must be positive.");
+
+        this.policy = policy;
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMillis);
+        this.nextAtNanos = System.nanoTime() + this.periodNanos;
+    }
+
+    /**
+     * Changes the period of this interval.
+     * <p>
+     * If the next occurrence was due later than one new period from now, it is brought forward, so that
+     * increasing the rate takes effect immediately.
+     *
+     * @param periodMillis the new period in between occurrences
+     */
+    public void setPeriodMillis(long periodMillis)
+    {
+        if (periodMillis <= 0)
+            throw new IllegalArgumentException("Period must be positive.");
+
+        long newPeriodNanos = TimeUnit.MILLISECONDS.toNanos(periodMillis);
+        if (newPeriodNanos == periodNanos)
+            return;
 
-        this.nextAtMillis = System.currentTimeMillis() + this.periodMillis;
+        periodNanos = newPeriodNanos;
+
+        long latest = System.nanoTime() + periodNanos;
+        if (nextAtNanos - latest > 0)
+            nextAtNanos = latest;
+    }
+
+    /** Gets the number of nanoseconds until the next occurrence is due. Zero or negative if already due. */
+    public long getNanosUntilNext()
+    {
+        return nextAtNanos - System.nanoTime();
     }
 
     /**
@@ -27,11 +100,45 @@ public class Interval
      */
     public void sleep() throws InterruptedException
     {
-        long sleep = this.nextAtMillis - System.currentTimeMillis();
+        long sleep = getNanosUntilNext();
 
         if (sleep > 0)
-            Thread.sleep(sleep);
+            TimeUnit.NANOSECONDS.sleep(sleep);
+
+        advance();
+    }
+
+    /** Restarts the schedule, such that the next occurrence is due one period from now. */
+    public void restart()
+    {
+        nextAtNanos = System.nanoTime() + periodNanos;
+    }
+
+    /**
+     * Moves the schedule on to the next occurrence, applying the {@link CatchUpPolicy} if the
+     * schedule has fallen behind.
+     * <p>
+     * Use this instead of {@link Interval#sleep} when waiting by some other means, such as on a monitor.
+     */
+    public void advance()
+    {
+        nextAtNanos += periodNanos;
+
+        long now = System.nanoTime();
+        long behind = now - nextAtNanos;
+
+        if (behind <= 0)
+            return;
 
-        this.nextAtMillis += this.periodMillis;
+        switch (policy) {
+            case Skip:
+                nextAtNanos += (behind / periodNanos + 1) * periodNanos;
+                break;
+            case Rephase:
+                nextAtNanos = now + periodNanos;
+                break;
+            case Burst:
+                break;
+        }
     }
 }
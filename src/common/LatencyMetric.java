@@ -0,0 +1,71 @@
+package common;
+
+/**
+ * Accumulates simple statistics about a series of measured latencies.
+ * <p>
+ * Samples are recorded in nanoseconds, and reported in milliseconds. Recording does not allocate.
+ */
+public class LatencyMetric
+{
+    private final String name;
+
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+    private long lastNanos;
+
+    /**
+     * Initialises a new, empty metric.
+     *
+     * @param name a short description of what is being measured, used when logging.
+     */
+    public LatencyMetric(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Records a single latency sample.
+     *
+     * @param nanos the measured latency, in nanoseconds.
+     */
+    public synchronized void record(long nanos)
+    {
+        count++;
+        totalNanos += nanos;
+        lastNanos = nanos;
+        if (nanos > maxNanos)
+            maxNanos = nanos;
+    }
+
+    /** Gets the number of samples recorded so far. */
+    public synchronized long getCount()
+    {
+        return count;
+    }
+
+    /** Gets the most recently recorded latency in milliseconds, or zero if none has been recorded. */
+    public synchronized double getLastMillis()
+    {
+        return lastNanos / 1e6;
+    }
+
+    /** Gets the mean of all recorded latencies in milliseconds, or zero if none have been recorded. */
+    public synchronized double getMeanMillis()
+    {
+        return count == 0 ? 0 : totalNanos / (double)count / 1e6;
+    }
+
+    /** Gets the largest recorded latency in milliseconds, or zero if none has been recorded. */
+    public synchronized double getMaxMillis()
+    {
+        return maxNanos / 1e6;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return String.format("%s: count=%d mean=%.2fms max=%.2fms last=%.2fms",
+                name, count, getMeanMillis(), getMaxMillis(), getLastMillis());
+    }
+}
@@ -5,11 +5,16 @@ import common.annotations.Nullable;
 import controller.Config;
 import controller.Main;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Logs to files and stderr.
@@ -17,22 +22,41 @@ import java.util.Date;
  * Users must call {@link Log#initialise} before calling {@link Log#toFile} in order to create
  * a new log file.
  *
- * When done, call {@link Log#close} to release the log file.
+ * Messages passed to {@link Log#toFile} are placed in a bounded buffer without blocking, and written
+ * to the file in batches by a background thread, at most {@link Config#LOG_FLUSH_PERIOD_MILLIS} later.
+ * If the buffer fills, further messages are dropped, and the number dropped is written to the file.
+ *
+ * Alongside each log file, a file of structured records is written, one line of JSON per record, via
+ * {@link Log#toEventFile}. These records are not timestamped by this class.
+ *
+ * When done, call {@link Log#close} to write any buffered messages and release the log files.
  *
  * @author Michel Bartsch
  * @author Drew Noakes https://drewnoakes.com
  */
 public class Log
 {
-    /** The writer for normal log messages. */
+    /** The thread writing normal log messages. */
+    @Nullable
+    private static volatile WriterThread writer;
+    /** The thread writing structured records. */
     @Nullable
-    private static FileWriter file;
-    /** The writer for error messages. */
+    private static volatile WriterThread eventWriter;
+    /** The writer for error messages. Guarded by the class. */
     @Nullable
     private static FileWriter errorFile;
 
-    /** The format of timestamps. */
-    public static final SimpleDateFormat timestampFormat = new SimpleDateFormat("yyyy.M.dd-kk.mm.ss");
+    /** The pattern of timestamps prepended to log file entries. */
+    public static final String TIMESTAMP_PATTERN = "yyyy.M.dd-kk.mm.ss";
+
+    /** The extension of the file of structured records written alongside each log file. */
+    public static final String EVENT_FILE_EXTENSION = ".jsonl";
+
+    /** The format of timestamps. Not thread-safe. */
+    public static final SimpleDateFormat timestampFormat = new SimpleDateFormat(TIMESTAMP_PATTERN);
+
+    /** The format of timestamps written to the error file. Guarded by the class. */
+    private static final SimpleDateFormat errorTimestampFormat = new SimpleDateFormat(TIMESTAMP_PATTERN);
     
     private Log() {}
     
@@ -41,47 +65,82 @@ public class Log
      */
     public synchronized static void initialise()
     {
-        if (file != null) {
+        if (writer != null) {
             throw new IllegalStateException("Log already initialized");
         }
 
         final SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss-S");
         final String timestamp = df.format(new Date(System.currentTimeMillis()));
         final File logDir = new File(Config.LOG_DIRECTORY);
-        final String path;
+        final String basePath;
         if (!logDir.exists() && !logDir.mkdirs()) {
             // Attempting to create the log directory failed. Just log in the current folder.
-            path = "log_" + timestamp + ".txt";
+            basePath = "log_" + timestamp;
         } else {
             // Log directory existed, or was successfully created
-            File logFile = new File(logDir, "log_" + timestamp +".txt");
-            path = logFile.getPath();
+            File logFile = new File(logDir, "log_" + timestamp);
+            basePath = logFile.getPath();
         }
 
+        writer = startWriter(basePath + ".txt", true);
+        eventWriter = startWriter(basePath + EVENT_FILE_EXTENSION, false);
+
+        toFile(Main.version);
+    }
+
+    @NotNull
+    private static WriterThread startWriter(@NotNull String path, boolean isTimestamped)
+    {
+        Writer file = null;
         try {
-            file = new FileWriter(new File(path));
+            file = new BufferedWriter(new FileWriter(new File(path)));
         } catch (IOException e) {
             error("cannot write to logfile " + path);
         }
 
-        toFile(Main.version);
+        WriterThread thread = new WriterThread(file, isTimestamped);
+        thread.start();
+        return thread;
     }
     
     /**
      * Appends a line to the log file. Prepends the string with a timestamp.
+     * <p>
+     * May be called from any thread. The line is buffered, and written by a background thread, so this method
+     * never blocks on I/O.
      *
      * @param s the string to be written in the file.
      */
     public static void toFile(@NotNull String s)
     {
-        assert(file != null);
+        WriterThread thread = writer;
 
-        try {
-            file.write(createTimestamp() + ": " + s + '\n');
-            file.flush();
-        } catch (IOException e) {
-            error("cannot write to logfile!");
-        }
+        assert(thread != null);
+
+        if (thread != null)
+            thread.offer(System.currentTimeMillis(), s);
+    }
+
+    /**
+     * Appends a structured record to the event file, as a single line. Like {@link Log#toFile}, never blocks on I/O.
+     *
+     * @param record the record, which must not contain a line break.
+     */
+    public static void toEventFile(@NotNull String record)
+    {
+        WriterThread thread = eventWriter;
+
+        assert(thread != null);
+
+        if (thread != null)
+            thread.offer(System.currentTimeMillis(), record);
+    }
+
+    /** Gets the number of messages dropped from the current log file because its buffer was full. */
+    public static long getDroppedCount()
+    {
+        WriterThread thread = writer;
+        return thread == null ? 0 : thread.droppedCount.get();
     }
 
     /**
@@ -93,41 +152,190 @@ public class Log
      * 
      * @param s the string to be written to the error log file.
      */
-    public static void error(@NotNull String s)
+    public synchronized static void error(@NotNull String s)
     {
         System.err.println(s);
         try {
             if (errorFile == null) {
                 errorFile = new FileWriter(new File("error.txt"));
             }
-            errorFile.write(createTimestamp() + ": " + s + '\n');
+            errorFile.write(errorTimestampFormat.format(new Date(System.currentTimeMillis())) + ": " + s + '\n');
             errorFile.flush();
         } catch (IOException e) {
              System.err.println("cannot write to error file!");
         }
     }
 
-    /** Produces a uniformly formatted string representing the current time to be prepended to log file entries. */
-    @NotNull
-    private static String createTimestamp()
-    {
-        return timestampFormat.format(new Date(System.currentTimeMillis()));
-    }
-
     /**
-     * Closes the Log file(s).
+     * Closes the Log file(s). All messages logged before this call are written to the file first.
      *
      * @throws IOException if an error occurred while trying to close the FileWriters
      */
     public static void close() throws IOException
     {
-        if (errorFile != null) {
-            errorFile.close();
-            errorFile = null;
+        synchronized (Log.class) {
+            if (errorFile != null) {
+                errorFile.close();
+                errorFile = null;
+            }
+        }
+
+        WriterThread thread = writer;
+        WriterThread events = eventWriter;
+        assert(thread != null && events != null);
+        writer = null;
+        eventWriter = null;
+
+        thread.close();
+        events.close();
+    }
+
+    /** Drains the buffer of log messages to the log file. */
+    private static class WriterThread extends Thread
+    {
+        /** The file to write to, or <code>null</code> if it could not be opened, in which case messages are discarded. */
+        @Nullable private final Writer file;
+        /** Whether each line is prefixed with the time at which it was logged. */
+        private final boolean isTimestamped;
+        @NotNull private final LogBuffer buffer = new LogBuffer(Config.LOG_BUFFER_CAPACITY);
+        @NotNull private final AtomicLong droppedCount = new AtomicLong();
+        volatile boolean stopRequested;
+
+        /** Only used by this thread, as {@link SimpleDateFormat} is not thread-safe. */
+        @NotNull private final SimpleDateFormat format = new SimpleDateFormat(TIMESTAMP_PATTERN);
+        /** The timestamp last formatted, and the second it represents. Timestamps have a resolution of one second. */
+        private String formattedTimestamp = "";
+        private long formattedSecond = -1;
+
+        private long reportedDroppedCount;
+        private int maxSize;
+
+        WriterThread(@Nullable Writer file, boolean isTimestamped)
+        {
+            this.file = file;
+            this.isTimestamped = isTimestamped;
+            setName("Log Writer");
+            setDaemon(true);
+        }
+
+        void offer(long time, @NotNull String message)
+        {
+            if (!buffer.offer(time, message)) {
+                droppedCount.incrementAndGet();
+                return;
+            }
+
+            // Wake the writer early if the buffer is filling, rather than waiting for the flush period to elapse
+            if (buffer.size() > buffer.getCapacity() / 2)
+                LockSupport.unpark(this);
+        }
+
+        /** Writes all messages offered so far, then stops the thread and closes the file. */
+        void close() throws IOException
+        {
+            stopRequested = true;
+            LockSupport.unpark(this);
+            try {
+                join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (file != null)
+                file.close();
+        }
+
+        @Override
+        public void run()
+        {
+            long periodNanos = TimeUnit.MILLISECONDS.toNanos(Config.LOG_FLUSH_PERIOD_MILLIS);
+
+            while (true) {
+                // Read the flag before draining, so that messages logged before close are always written
+                boolean isStopping = stopRequested;
+
+                maxSize = Math.max(maxSize, buffer.size());
+
+                if (drain() || reportDropped())
+                    flush();
+
+                if (isStopping)
+                    break;
+
+                LockSupport.parkNanos(this, periodNanos);
+            }
+
+            if (isTimestamped && (droppedCount.get() != 0 || maxSize > buffer.getCapacity() / 2)) {
+                write(System.currentTimeMillis(), String.format("Log buffer: dropped=%d maxDepth=%d capacity=%d",
+                        droppedCount.get(), maxSize, buffer.getCapacity()));
+                flush();
+            }
+        }
+
+        /** Writes all buffered messages, returning whether there were any. */
+        private boolean drain()
+        {
+            boolean any = false;
+            String message;
+            while ((message = buffer.poll()) != null) {
+                write(buffer.getPolledTime(), message);
+                any = true;
+            }
+            return any;
         }
 
-        assert(file != null);
-        file.close();
-        file = null;
+        /** Writes the number of messages dropped since last reported, returning whether there were any. */
+        private boolean reportDropped()
+        {
+            long dropped = droppedCount.get();
+            if (dropped == reportedDroppedCount)
+                return false;
+
+            if (!isTimestamped) {
+                // Structured files hold only records, so report to the error log instead
+                error("Event log buffer full. Dropped " + (dropped - reportedDroppedCount) + " records.");
+                reportedDroppedCount = dropped;
+                return false;
+            }
+
+            write(System.currentTimeMillis(), "Log buffer full. Dropped " + (dropped - reportedDroppedCount) + " messages.");
+            reportedDroppedCount = dropped;
+            return true;
+        }
+
+        private void write(long time, @NotNull String message)
+        {
+            if (file == null)
+                return;
+
+            try {
+                if (isTimestamped) {
+                    long second = time / 1000;
+                    if (second != formattedSecond) {
+                        formattedTimestamp = format.format(new Date(time));
+                        formattedSecond = second;
+                    }
+
+                    file.write(formattedTimestamp);
+                    file.write(": ");
+                }
+                file.write(message);
+                file.write('\n');
+            } catch (IOException e) {
+                error("cannot write to logfile!");
+            }
+        }
+
+        private void flush()
+        {
+            if (file == null)
+                return;
+
+            try {
+                file.flush();
+            } catch (IOException e) {
+                error("cannot write to logfile!");
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package common;
+
+import common.annotations.NotNull;
+import common.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded ring buffer of log messages, into which any number of threads may write without locking or blocking,
+ * and from which a single thread reads.
+ * <p>
+ * Each slot carries a sequence number, which tells writers whether the slot is free and tells the reader whether
+ * it has been filled. Writers claim positions by incrementing a shared counter. When the buffer is full, writes
+ * fail rather than wait.
+ */
+class LogBuffer
+{
+    private final int capacity;
+    private final int mask;
+
+    /**
+     * For each slot, the position at which it may next be written, or that position plus one once it has been
+     * written. Publishing via this array orders the writes of {@link #times} and {@link #messages}.
+     */
+    @NotNull private final AtomicLongArray sequences;
+    @NotNull private final long[] times;
+    @NotNull private final String[] messages;
+
+    /** The next position to be claimed by a writer. */
+    @NotNull private final AtomicLong tail = new AtomicLong();
+    /** The next position to be read. Only accessed by the reader. */
+    private long head;
+
+    /** The time of the message most recently returned by {@link #poll}. */
+    private long polledTime;
+
+    /**
+     * Initialises an empty buffer.
+     *
+     * @param capacity the number of messages the buffer may hold. Must be a power of two.
+     */
+    LogBuffer(int capacity)
+    {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0)
+            throw new IllegalArgumentException("Capacity must be a positive power of two.");
+
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++)
+            sequences.set(i, i);
+        times = new long[capacity];
+        messages = new String[capacity];
+    }
+
+    /**
+     * Adds a message to the buffer. May be called from any thread, and never blocks.
+     *
+     * @param time the time at which the message was logged, as per {@link System#currentTimeMillis()}.
+     * @return <code>true</code> if the message was added, or <code>false</code> if the buffer is full.
+     */
+    boolean offer(long time, @NotNull String message)
+    {
+        long position = tail.get();
+
+        while (true) {
+            int index = (int)position & mask;
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    times[index] = time;
+                    messages[index] = message;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The slot still holds the message written one lap ago
+                return false;
+            } else {
+                // Another writer claimed this position
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest message from the buffer. Must only be called by the reading thread.
+     *
+     * @return the message, or <code>null</code> if the buffer is empty. Its time is then available via {@link #getPolledTime()}.
+     */
+    @Nullable
+    String poll()
+    {
+        int index = (int)head & mask;
+
+        if (sequences.get(index) != head + 1)
+            return null;
+
+        String message = messages[index];
+        polledTime = times[index];
+        messages[index] = null;
+        sequences.set(index, head + capacity);
+        head++;
+        return message;
+    }
+
+    /** Gets the time of the message most recently returned by {@link #poll}. */
+    long getPolledTime()
+    {
+        return polledTime;
+    }
+
+    /** Gets the approximate number of messages in the buffer. */
+    int size()
+    {
+        long size = tail.get() - head;
+        return size < 0 ? 0 : (int)Math.min(size, capacity);
+    }
+
+    int getCapacity()
+    {
+        return capacity;
+    }
+}
@@ -0,0 +1,159 @@
+package controller;
+
+import common.annotations.NotNull;
+import controller.action.ActionTrigger;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded queue of actions awaiting application to a {@link Game}.
+ * <p>
+ * Any number of threads (such as network receivers) may enqueue actions without blocking. A single thread,
+ * the game thread, drains the queue and applies the actions in the order they were enqueued. This keeps
+ * slow listeners of {@link Game#gameStateChanged} from stalling the threads that produce actions.
+ * <p>
+ * When the queue is full, newly offered actions are dropped and counted.
+ */
+public class ActionQueue
+{
+    private final int capacity;
+    private final ConcurrentLinkedQueue<Entry> entries = new ConcurrentLinkedQueue<Entry>();
+
+    /** The number of actions enqueued but not yet drained. */
+    private final AtomicInteger depth = new AtomicInteger();
+    /** The largest value {@link #depth} has reached. */
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong appliedCount = new AtomicLong();
+
+    /** The thread waiting in {@link #await}, if any. */
+    private volatile Thread consumer;
+
+    /**
+     * Initialises an empty queue.
+     *
+     * @param capacity the maximum number of actions that may be waiting at any time.
+     */
+    public ActionQueue(int capacity)
+    {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive.");
+
+        this.capacity = capacity;
+    }
+
+    /**
+     * Enqueues an action to be applied by the game thread. May be called from any thread, and never blocks.
+     *
+     * @param action the action to apply.
+     * @param trigger an indication of what triggered this action.
+     * @return <code>true</code> if the action was enqueued, or <code>false</code> if it was dropped as the queue is full.
+     */
+    public boolean offer(@NotNull Action action, @NotNull ActionTrigger trigger)
+    {
+        int newDepth = depth.incrementAndGet();
+
+        if (newDepth > capacity) {
+            depth.decrementAndGet();
+            droppedCount.incrementAndGet();
+            return false;
+        }
+
+        int max;
+        while (newDepth > (max = maxDepth.get()) && !maxDepth.compareAndSet(max, newDepth)) {}
+
+        entries.add(new Entry(action, trigger));
+
+        Thread waiting = consumer;
+        if (waiting != null)
+            LockSupport.unpark(waiting);
+
+        return true;
+    }
+
+    /**
+     * Applies all enqueued actions to the game, in the order they were enqueued. Must only be called by the game thread.
+     *
+     * @param game the game to apply the actions to.
+     * @return the number of actions drained.
+     */
+    public int drainTo(@NotNull Game game)
+    {
+        int count = 0;
+
+        Entry entry;
+        while ((entry = entries.poll()) != null) {
+            depth.decrementAndGet();
+            game.apply(entry.action, entry.trigger);
+            count++;
+        }
+
+        if (count != 0)
+            appliedCount.addAndGet(count);
+
+        return count;
+    }
+
+    /**
+     * Parks the calling thread until an action is enqueued, the timeout elapses, or the thread is interrupted.
+     * Returns immediately if actions are already waiting. Must only be called by the game thread.
+     *
+     * @param nanos the maximum time to wait, in nanoseconds.
+     */
+    public void await(long nanos)
+    {
+        consumer = Thread.currentThread();
+
+        // Check again after publishing the consumer, so that an offer made in between is not missed
+        if (entries.isEmpty())
+            LockSupport.parkNanos(this, nanos);
+
+        consumer = null;
+    }
+
+    /** Gets the number of actions currently waiting to be applied. */
+    public int getDepth()
+    {
+        return depth.get();
+    }
+
+    /** Gets the largest number of actions that have been waiting at any one time. */
+    public int getMaxDepth()
+    {
+        return maxDepth.get();
+    }
+
+    /** Gets the number of actions dropped because the queue was full. */
+    public long getDroppedCount()
+    {
+        return droppedCount.get();
+    }
+
+    /** Gets the number of actions drained from the queue and applied. */
+    public long getAppliedCount()
+    {
+        return appliedCount.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("Action queue: applied=%d dropped=%d depth=%d maxDepth=%d capacity=%d",
+                getAppliedCount(), getDroppedCount(), getDepth(), getMaxDepth(), capacity);
+    }
+
+    private static class Entry
+    {
+        @NotNull final Action action;
+        @NotNull final ActionTrigger trigger;
+
+        Entry(@NotNull Action action, @NotNull ActionTrigger trigger)
+        {
+            this.action = action;
+            this.trigger = trigger;
+        }
+    }
+}
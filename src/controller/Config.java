@@ -21,15 +21,54 @@ public class Config
     public static final int GAME_STATE_PORT = 3838;
 
     /**
-     * The number of milliseconds between broadcasts of game state.
+     * The minimum number of milliseconds between broadcasts of game state made in response to changes.
+     * Changes that occur within this period of the last broadcast are coalesced into a single packet.
      */
-    public static final int GAME_STATE_SEND_PERIOD_MILLIS = 500;
+    public static final int GAME_STATE_MIN_PUSH_PERIOD_MILLIS = 20;
+
+    /**
+     * The number of game state messages of version 10 from one keyframe to the next, with deltas sent in between.
+     * A receiver that misses a message waits for the next keyframe, so at 10 Hz this bounds the wait to half a second.
+     */
+    public static final int GAME_STATE_KEYFRAME_INTERVAL = 5;
+
+    /**
+     * The number of milliseconds between executions of the game clock.
+     */
+    public static final int CLOCK_TICK_PERIOD_MILLIS = 500;
+
+    /**
+     * The maximum number of actions received from the network that may await application by the game thread.
+     * Further actions are dropped until the queue drains.
+     */
+    public static final int ACTION_QUEUE_CAPACITY = 256;
+
+    /**
+     * The number of actions recorded in a game's journal between checkpoints of the game's complete state.
+     * Bounds the number of actions replayed when a game is resumed.
+     */
+    public static final int JOURNAL_CHECKPOINT_INTERVAL = 64;
+
+    /**
+     * When the game's journal is forced to the storage device. The journal survives a crash of the application
+     * regardless, so this only determines what is lost should the operating system crash or power fail.
+     */
+    public static final GameJournal.SyncPolicy JOURNAL_SYNC_POLICY = GameJournal.SyncPolicy.EachCheckpoint;
 
     /**
      * UDP port that SPL coach messages are broadcast upon.
      */
     public static final int SPL_COACH_MESSAGE_PORT = 3839;
 
+    /**
+     * The number of log messages that may await writing to the log file. Must be a power of two.
+     * Further messages are dropped until the log writer catches up.
+     */
+    public static final int LOG_BUFFER_CAPACITY = 4096;
+
+    /** The maximum number of milliseconds between a message being logged and its being flushed to the log file. */
+    public static final int LOG_FLUSH_PERIOD_MILLIS = 100;
+
     /** Relative directory of where logs are stored */
     public final static String LOG_DIRECTORY = "logs";
 
@@ -0,0 +1,128 @@
+package controller;
+
+import common.Log;
+import common.annotations.NotNull;
+import common.annotations.Nullable;
+import data.TeamColor;
+import data.UISide;
+
+/**
+ * Writes structured records of a game's events to the event file, alongside the text log.
+ * <p>
+ * Each record is a single line holding a flat JSON object. Its <code>type</code> is one of:
+ * <ul>
+ *     <li><code>game</code>: written once as the game starts. Holds <code>version</code>, <code>league</code>
+ *         (its directory name), <code>left</code>, <code>leftName</code>, <code>right</code>,
+ *         <code>rightName</code>, <code>playOff</code> and <code>colourChange</code>.</li>
+ *     <li><code>action</code>: written for each state pushed onto the timeline. Holds <code>action</code>,
+ *         then <code>team</code>, <code>colour</code> and <code>player</code> where the action concerns a
+ *         team or player.</li>
+ *     <li><code>undo</code>: written when states are undone. Holds <code>count</code>, the number of preceding
+ *         <code>action</code> records undone.</li>
+ * </ul>
+ * All records hold <code>t</code>, the time in milliseconds since the epoch. Other than <code>game</code>
+ * records, they also hold the <code>period</code>, <code>playMode</code>, the number of the team currently
+ * playing as <code>blue</code>, and the <code>title</code> as written to the text log. Team and uniform
+ * numbers are integers, flags are booleans and all other values are strings.
+ * <p>
+ * See <code>analyzer.EventLogReader</code>.
+ */
+final class EventLog
+{
+    private EventLog() {}
+
+    static void game(@NotNull Game game)
+    {
+        StringBuilder record = begin("game", game.currentTimeMillis());
+        putString(record, "version", Main.version);
+        putString(record, "league", game.league().getDirectoryName());
+        putInt(record, "left", game.teams().get(UISide.Left).getNumber());
+        putString(record, "leftName", game.teams().get(UISide.Left).getName());
+        putInt(record, "right", game.teams().get(UISide.Right).getNumber());
+        putString(record, "rightName", game.teams().get(UISide.Right).getName());
+        putBoolean(record, "playOff", game.isPlayOff());
+        putBoolean(record, "colourChange", game.changeColoursEachPeriod());
+        end(record);
+    }
+
+    static void action(@NotNull Game game, @NotNull ReadOnlyGameState state, @NotNull String title,
+                       @NotNull String action, @Nullable ReadOnlyTeamState team, int uniformNumber)
+    {
+        StringBuilder record = begin("action", game.currentTimeMillis());
+        putString(record, "action", action);
+        if (team != null) {
+            putInt(record, "team", team.getTeamNumber());
+            putString(record, "colour", team.getTeamColor().name());
+            if (uniformNumber != -1)
+                putInt(record, "player", uniformNumber);
+        }
+        putState(record, state, title);
+        end(record);
+    }
+
+    static void undo(@NotNull Game game, @NotNull ReadOnlyGameState state, @NotNull String title, int count)
+    {
+        StringBuilder record = begin("undo", game.currentTimeMillis());
+        putInt(record, "count", count);
+        putState(record, state, title);
+        end(record);
+    }
+
+    private static void putState(@NotNull StringBuilder record, @NotNull ReadOnlyGameState state, @NotNull String title)
+    {
+        putString(record, "period", state.getPeriod().name());
+        putString(record, "playMode", state.getPlayMode().name());
+        // Take the colour from the team itself, as in titles, rather than via the UI orientation
+        ReadOnlyTeamState left = state.getTeam(UISide.Left);
+        ReadOnlyTeamState blue = left.getTeamColor() == TeamColor.Blue ? left : state.getTeam(UISide.Right);
+        putInt(record, "blue", blue.getTeamNumber());
+        putString(record, "title", title);
+    }
+
+    @NotNull
+    private static StringBuilder begin(@NotNull String type, long time)
+    {
+        StringBuilder record = new StringBuilder(192);
+        record.append("{\"type\":\"").append(type).append("\",\"t\":").append(time);
+        return record;
+    }
+
+    private static void end(@NotNull StringBuilder record)
+    {
+        record.append('}');
+        Log.toEventFile(record.toString());
+    }
+
+    private static void putInt(@NotNull StringBuilder record, @NotNull String key, long value)
+    {
+        record.append(",\"").append(key).append("\":").append(value);
+    }
+
+    private static void putBoolean(@NotNull StringBuilder record, @NotNull String key, boolean value)
+    {
+        record.append(",\"").append(key).append("\":").append(value);
+    }
+
+    private static void putString(@NotNull StringBuilder record, @NotNull String key, @NotNull String value)
+    {
+        record.append(",\"").append(key).append("\":\"");
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': record.append("\\\""); break;
+                case '\\': record.append("\\\\"); break;
+                case '\n': record.append("\\n"); break;
+                case '\r': record.append("\\r"); break;
+                case '\t': record.append("\\t"); break;
+                default:
+                    if (c < 0x20)
+                        record.append(String.format("\\u%04x", (int)c));
+                    else
+                        record.append(c);
+            }
+        }
+
+        record.append('"');
+    }
+}
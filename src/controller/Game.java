@@ -4,10 +4,12 @@ import common.Event;
 import common.Log;
 import common.annotations.NotNull;
 import common.annotations.Nullable;
+import controller.action.ActionBoard;
 import controller.action.ActionTrigger;
 import data.*;
 import leagues.LeagueRules;
 
+import java.nio.ByteBuffer;
 import java.util.Random;
 import java.util.Stack;
 
@@ -27,6 +29,14 @@ public class Game
      */
     private final Stack<TimelineEntry> timeline = new Stack<TimelineEntry>();
 
+    /**
+     * The amount to add to the stored {@link GameState#getWhenCurrentPlayModeBegan()} of every state on the
+     * timeline to obtain its actual value. Entries store that time relative to this offset, so that
+     * {@link Game#undo(int)} may move the whole remaining timeline into a new time frame by adjusting this
+     * single value, regardless of the timeline's length.
+     */
+    private long timelineTimeOffset;
+
     /**
      * Fires when the game state changed.
      * <p>
@@ -34,6 +44,9 @@ public class Game
      */
     public final Event<ReadOnlyGameState> gameStateChanged;
 
+    /** Actions from other threads (such as network receivers) awaiting application by the game thread. */
+    private final ActionQueue actionQueue = new ActionQueue(Config.ACTION_QUEUE_CAPACITY);
+
     private final League league;
     private final ReadOnlyPair<Team> teams;
     private final UIOrientation uiOrientation;
@@ -44,22 +57,56 @@ public class Game
     private final String broadcastAddress;
     private final int gameId;
 
-    /** The golden record of the game's current state. */
+    /** The golden record of the game's current state. Only accessed by the game thread, once there is one. */
     private GameState gameState;
 
+    /**
+     * A copy of the game state as of the last completed action, for threads other than the game thread to read.
+     * Never modified once published, and replaced with a single write.
+     */
+    private volatile ReadOnlyGameState snapshot;
+
+    /**
+     * The thread that owns the game state, set via {@link Game#runOnCurrentThread}. Until then, actions are
+     * applied on whichever thread requests them.
+     */
+    private volatile Thread gameThread;
+
+    /** The number of {@link Action#execute} calls in progress on the game thread, as actions may apply further actions. */
+    private int applyDepth;
+
     /** The last {@link Action} that was executed with trigger {@link ActionTrigger#User}. */
-    private Action lastUserAction;
+    private volatile Action lastUserAction;
     private boolean skipStoringLastUserAction;
 
+    /** The journal to which applied actions are recorded, or <code>null</code> if actions are not being recorded. */
+    @Nullable private GameJournal journal;
+
+    /** Whether {@link Game#undo} has been called since the journal last recorded a checkpoint. */
+    private boolean isTimelineRewound;
+
+    /**
+     * The thread applying an action, if any, and the wall-clock time against which that action is evaluated.
+     * See {@link Game#currentTimeMillis()}.
+     */
+    private Thread clockThread;
+    private long clockMillis;
+
     /** When set to true, the game will stop and the game controller window close. */
     private boolean shutdownRequested = false;
 
     /** Create a new Game with the specified options. */
     public Game(@NotNull GameOptions options)
+    {
+        this(options, new Random().nextInt());
+    }
+
+    /** Create a Game with the specified options and game ID, such as when resuming a game from its journal. */
+    Game(@NotNull GameOptions options, int gameId)
     {
         assert(options.isPlayOff != null);
 
-        this.gameId = new Random().nextInt();
+        this.gameId = gameId;
 
         this.league = options.league;
         this.teams = options.teams;
@@ -75,7 +122,10 @@ public class Game
         gameState = new GameState(this);
         gameState.setNextKickOffColor(options.initialKickOffColor);
 
+        EventLog.game(this);
         pushState(teams.get(UISide.Left).getName() + " vs " + teams.get(UISide.Right).getName());
+
+        snapshot = gameState.clone();
     }
 
     /** Gets the league this game is being played in. */
@@ -131,59 +181,226 @@ public class Game
         return broadcastAddress;
     }
 
+    /**
+     * Makes the calling thread the game thread, which from now on owns the game's state.
+     * <p>
+     * Subsequently, actions requested by any other thread are passed to the game thread via {@link Game#actionQueue()},
+     * so that all state changes happen on one thread in a well-defined order. The game thread must regularly drain
+     * that queue. Other threads read the state via immutable snapshots, published after each action completes.
+     */
+    public void runOnCurrentThread()
+    {
+        assert(gameThread == null);
+
+        gameThread = Thread.currentThread();
+    }
+
+    /**
+     * Gets the wall-clock time, as per {@link System#currentTimeMillis()}, against which game state is evaluated.
+     * <p>
+     * While an action is applied, the clock is fixed for the applying thread at the moment the outermost action
+     * began, so that the action sees a single instant. When the game is resumed from its {@link GameJournal},
+     * that is the instant at which the action was originally applied, so that replaying the action reproduces
+     * its original effect.
+     */
+    long currentTimeMillis()
+    {
+        return clockThread == Thread.currentThread() ? clockMillis : System.currentTimeMillis();
+    }
+
     /**
      * Attempt to apply the specified {@link Action} the the game's state.
      * <p>
      * If the action's {@link Action#canExecute} method returns <code>false</code>, this
      * method returns and the game state is unchanged.
      * <p>
-     * When the state is successfully changed, the {@link Game#gameStateChanged} event is fired.
+     * When the state is successfully changed, a snapshot of it is published and the {@link Game#gameStateChanged}
+     * event is fired. If the action applies further actions while executing, the event fires only once, after the
+     * outermost action completes.
      * <p>
-     * This method is <code>synchronized</code> so that concurrent requests are handled serially.
+     * If there is a game thread and this method is called from any other thread, the action is enqueued for the
+     * game thread and this method returns immediately.
      *
      * @param action the action to attempt to apply to the game's state.
      * @param trigger an indication of what triggered this action to be attempted.
      */
-    public synchronized void apply(@NotNull Action action, ActionTrigger trigger)
+    public void apply(@NotNull Action action, ActionTrigger trigger)
     {
-        if (!action.canExecute(this, gameState))
+        Thread owner = gameThread;
+
+        if (owner != null && owner != Thread.currentThread()) {
+            if (!actionQueue.offer(action, trigger))
+                Log.error("Action queue is full. Dropping action " + action.getClass().getSimpleName() + ".");
             return;
+        }
 
-        assert(!skipStoringLastUserAction);
+        applyNow(action, trigger, System.currentTimeMillis());
+    }
 
-        action.execute(this, gameState);
+    /**
+     * Applies an action recorded in the game's journal, as though at the time it was originally applied.
+     * Must be called before there is a game thread.
+     *
+     * @param wallMillis the wall-clock time at which the action was originally applied.
+     */
+    void replay(@NotNull Action action, ActionTrigger trigger, long wallMillis)
+    {
+        assert(gameThread == null && journal == null);
 
-        if (trigger == ActionTrigger.User && !skipStoringLastUserAction)
-            lastUserAction = action;
+        applyNow(action, trigger, wallMillis);
+    }
 
-        skipStoringLastUserAction = false;
+    /**
+     * Applies an action on the calling thread. This method is <code>synchronized</code> so that, before
+     * there is a game thread, concurrent requests are handled serially.
+     *
+     * @param wallMillis the wall-clock time against which to evaluate the action, if it is not nested in another.
+     */
+    private synchronized void applyNow(@NotNull Action action, ActionTrigger trigger, long wallMillis)
+    {
+        boolean isOutermost = applyDepth == 0;
 
-        gameStateChanged.fire(gameState);
+        if (isOutermost) {
+            clockMillis = wallMillis;
+            clockThread = Thread.currentThread();
+        }
+
+        try {
+            if (!action.canExecute(this, gameState))
+                return;
+
+            assert(!skipStoringLastUserAction);
+
+            applyDepth++;
+            try {
+                action.execute(this, gameState);
+            } finally {
+                applyDepth--;
+            }
+
+            if (trigger == ActionTrigger.User && !skipStoringLastUserAction)
+                lastUserAction = action;
+
+            skipStoringLastUserAction = false;
+
+            if (isOutermost) {
+                if (journal != null) {
+                    journal.recordAction(action, trigger, wallMillis);
+                    if (isTimelineRewound || journal.isCheckpointDue()) {
+                        journal.recordCheckpoint(this);
+                        isTimelineRewound = false;
+                    }
+                }
+
+                GameState published = gameState.clone();
+                snapshot = published;
+                gameStateChanged.fire(published);
+            }
+        } finally {
+            if (isOutermost)
+                clockThread = null;
+        }
+    }
+
+    /**
+     * Starts recording all subsequently applied actions to a journal.
+     * Must be called before there is a game thread.
+     */
+    void setJournal(@NotNull GameJournal journal)
+    {
+        assert(gameThread == null);
+
+        this.journal = journal;
+    }
+
+    /**
+     * Gets the queue via which threads other than the game thread should submit actions.
+     * <p>
+     * Unlike {@link Game#apply}, enqueueing an action never blocks, so receiving threads are not
+     * stalled by listeners of {@link Game#gameStateChanged}.
+     */
+    @NotNull
+    public ActionQueue actionQueue()
+    {
+        return actionQueue;
     }
 
     /**
      * Pushes the current game state onto the timeline for visibility.
      * <p>
      * States on the timeline provide visibility of past actions, and allow erroneous
-     * actions to be undone.
+     * actions to be undone. Each entry shares team and player state that is unchanged with
+     * the entry before it, so only changed state is stored.
      *
      * @param title the text to appear on the timeline for this persisted state.
      */
     public void pushState(@NotNull String title)
     {
-        timeline.add(new TimelineEntry(gameState.clone(), title));
+        pushState(title, title, null, -1);
+    }
+
+    /**
+     * Pushes the current game state onto the timeline, following an action concerning a team.
+     * The timeline's title is the action followed by the team's colour.
+     *
+     * @param action the name of the action, such as "Goal for".
+     * @param team the team concerned.
+     */
+    public void pushState(@NotNull String action, @NotNull ReadOnlyTeamState team)
+    {
+        pushState(action + " " + team.getTeamColor(), action, team, -1);
+    }
+
+    /**
+     * Pushes the current game state onto the timeline, following an action concerning a player.
+     * The timeline's title is the action followed by the team's colour and the player's uniform number.
+     *
+     * @param action the name of the action, such as "Player Pushing".
+     * @param team the player's team.
+     * @param uniformNumber the player's uniform number.
+     */
+    public void pushState(@NotNull String action, @NotNull ReadOnlyTeamState team, int uniformNumber)
+    {
+        pushState(action + " " + team.getTeamColor() + " " + uniformNumber, action, team, uniformNumber);
+    }
+
+    private void pushState(@NotNull String title, @NotNull String action, @Nullable ReadOnlyTeamState team, int uniformNumber)
+    {
+        GameState previous = timeline.isEmpty() ? null : timeline.peek().getState();
+        GameState state = gameState.cloneForTimeline(previous);
+        state.setWhenCurrentPlayModeBegan(state.getWhenCurrentPlayModeBegan() - timelineTimeOffset);
+        timeline.add(new TimelineEntry(state, title));
 
         Log.toFile(title);
+        EventLog.action(this, gameState, title, action, team, uniformNumber);
     }
 
     /**
      * Gets the current game state. Note that changes to the returned object will have no
      * lasting effect.
+     * <p>
+     * Threads other than the game thread receive the snapshot published after the most recent action,
+     * which is never modified.
      */
     @NotNull
     public ReadOnlyGameState getGameState()
     {
-        return gameState;
+        Thread owner = gameThread;
+
+        return owner == null || owner == Thread.currentThread() ? gameState : snapshot;
+    }
+
+    /**
+     * Gets the snapshot of the game state published after the most recently completed action.
+     * <p>
+     * The snapshot is never modified, so all values read from it are mutually consistent, even while further
+     * actions are being applied. Readers on other threads (such as the network sender and UI) should prefer this
+     * over {@link Game#getGameState()}.
+     */
+    @NotNull
+    public ReadOnlyGameState getSnapshot()
+    {
+        return snapshot;
     }
 
     /**
@@ -241,7 +458,7 @@ public class Game
         // Don't allow undoing the first state
         stateCount = Math.min(stateCount, timeline.size() - 1);
 
-        long latestTimestamp = timeline.peek().getState().getWhenCurrentPlayModeBegan();
+        long latestTimestamp = getWhenCurrentPlayModeBegan(timeline.peek());
         long timeInCurrentState = timeline.peek().getState().getTime() - latestTimestamp;
 
         // Pop the specified number of states, and keep the oldest removed state
@@ -250,20 +467,88 @@ public class Game
             oldestRemoved = timeline.pop();
         }
         assert(oldestRemoved != null);
-        long earliestTimestamp = oldestRemoved.getState().getWhenCurrentPlayModeBegan();
+        long earliestTimestamp = getWhenCurrentPlayModeBegan(oldestRemoved);
 
-        if (latestTimestamp != timeline.peek().getState().getWhenCurrentPlayModeBegan()) {
-            long timeOffset = latestTimestamp - earliestTimestamp + timeInCurrentState;
-            for (TimelineEntry entry : timeline) {
-                entry.getState().setWhenCurrentPlayModeBegan(entry.getState().getWhenCurrentPlayModeBegan() + timeOffset);
-            }
+        if (latestTimestamp != getWhenCurrentPlayModeBegan(timeline.peek())) {
+            // Shift all remaining states at once
+            timelineTimeOffset += latestTimestamp - earliestTimestamp + timeInCurrentState;
         }
 
-        GameState state = timeline.peek().getState();
+        TimelineEntry entry = timeline.peek();
+
+        this.gameState = entry.getState().clone();
+        this.gameState.setWhenCurrentPlayModeBegan(getWhenCurrentPlayModeBegan(entry));
+
+        // As the timeline has shrunk, a checkpoint is needed to replay any further undo after resuming
+        isTimelineRewound = true;
+
+        String title = "Undo " + stateCount + " States to " + timeline.peek().getTitle();
+        Log.toFile(title);
+        EventLog.undo(this, gameState, title, stateCount);
+    }
+
+    /** Gets the actual time at which the play mode of a state on the timeline began. */
+    private long getWhenCurrentPlayModeBegan(@NotNull TimelineEntry entry)
+    {
+        return entry.getState().getWhenCurrentPlayModeBegan() + timelineTimeOffset;
+    }
+
+    /**
+     * The number of timeline entries included in a checkpoint. Sufficient for the largest undo that may be
+     * replayed before the next checkpoint, as a checkpoint follows every undo.
+     */
+    private static final int CHECKPOINT_TIMELINE_LENGTH = ActionBoard.MAX_NUM_UNDOS_AT_ONCE + 1;
+
+    /**
+     * Writes the game's state, and the most recent entries of its timeline, to a buffer in the form read by
+     * {@link Game#restoreCheckpoint}. Must only be called by the thread applying actions.
+     */
+    void writeCheckpoint(@NotNull ByteBuffer buffer)
+    {
+        GameJournal.putBoolean(buffer, uiOrientation.isFlipped());
+        buffer.putLong(timelineTimeOffset);
+        Action lastUserAction = this.lastUserAction;
+        buffer.putShort((short)(lastUserAction == null ? -1 : ActionBoard.getId(lastUserAction)));
+        gameState.writeTo(buffer);
+
+        int first = Math.max(0, timeline.size() - CHECKPOINT_TIMELINE_LENGTH);
+        buffer.put((byte)(timeline.size() - first));
+        for (int i = first; i < timeline.size(); i++) {
+            TimelineEntry entry = timeline.get(i);
+            GameJournal.putString(buffer, entry.getTitle());
+            entry.getState().writeTo(buffer);
+        }
+    }
+
+    /**
+     * Replaces the game's state and timeline with those read from a buffer, as written by
+     * {@link Game#writeCheckpoint}. Must be called before there is a game thread.
+     *
+     * @throws IllegalArgumentException if the data is invalid, or was written for a different game.
+     */
+    void restoreCheckpoint(@NotNull ByteBuffer buffer)
+    {
+        assert(gameThread == null);
+
+        if (GameJournal.getBoolean(buffer) != uiOrientation.isFlipped())
+            uiOrientation.flip();
+        timelineTimeOffset = buffer.getLong();
+        lastUserAction = ActionBoard.getAction(buffer.getShort());
+        gameState.readFrom(buffer);
+
+        timeline.clear();
+        int entryCount = buffer.get() & 0xFF;
+        for (int i = 0; i < entryCount; i++) {
+            String title = GameJournal.getString(buffer);
+            GameState state = new GameState(this);
+            state.readFrom(buffer);
+            timeline.add(new TimelineEntry(state, title));
+        }
 
-        this.gameState = state.clone();
+        if (timeline.isEmpty())
+            throw new IllegalArgumentException("Checkpoint has no timeline.");
 
-        Log.toFile("Undo " + stateCount + " States to " + timeline.peek().getTitle());
+        snapshot = gameState.clone();
     }
 
     /**
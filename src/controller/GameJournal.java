@@ -0,0 +1,606 @@
+package controller;
+
+import common.Log;
+import common.annotations.NotNull;
+import common.annotations.Nullable;
+import controller.action.ActionBoard;
+import controller.action.ActionTrigger;
+import controller.action.net.SPLCoachMessageReceived;
+import data.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * An append-only binary record of a game, from which the game may be resumed should the controller exit unexpectedly.
+ * <p>
+ * Every action applied to the game is recorded, along with its trigger and the time at which it was applied.
+ * Periodically, and after every undo, a checkpoint of the game's complete state is also recorded. A game is
+ * resumed by restoring its latest checkpoint, then replaying the actions recorded after it. As few actions follow
+ * any checkpoint, resuming takes milliseconds.
+ * <p>
+ * The file is written through a memory-mapped buffer, so recording an action makes no system call. Data written
+ * to the buffer survives a crash of the JVM. Surviving a crash of the operating system requires that data be
+ * forced to the storage device, as governed by {@link Config#JOURNAL_SYNC_POLICY}.
+ * <p>
+ * Actions are identified via {@link ActionBoard#getId}, so {@link ActionBoard#initialise} must be called for the
+ * game's league before a journal is created or resumed. Methods that record must be called by the thread applying
+ * actions, which {@link Game} does.
+ */
+public class GameJournal
+{
+    /** Specifies when data is forced to the storage device. */
+    public enum SyncPolicy
+    {
+        /** Data is never forced, and is written by the operating system at its discretion. */
+        Never,
+
+        /** Data is forced after each checkpoint. Actions applied since the last checkpoint may be lost. */
+        EachCheckpoint,
+
+        /** Data is forced after each action. No applied action is lost, at the cost of a system call per action. */
+        EachAction
+    }
+
+    private static final int MAGIC = 'G' | 'C' << 8 | 'J' << 16 | 'L' << 24;
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final String FILE_PREFIX = "journal_";
+    private static final String FILE_EXTENSION = ".bin";
+
+    // Record types. As the file is extended with zeroes, a zero type marks the end of the data written.
+    private static final byte RECORD_NONE = 0;
+    private static final byte RECORD_ACTION = 1;
+    private static final byte RECORD_COACH_MESSAGE = 2;
+    private static final byte RECORD_CHECKPOINT = 3;
+    private static final byte RECORD_END = 4;
+
+    /** The size of a record's type, body length, monotonic timestamp and wall-clock timestamp. */
+    private static final int RECORD_HEADER_SIZE = 1 + 4 + 8 + 8;
+
+    /** The space made available before each record is written. No record may exceed this size. */
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+
+    /** The number of bytes by which the file is extended when the mapped region is full. */
+    private static final int REGION_SIZE = 1024 * 1024;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @NotNull private final File file;
+    @NotNull private final Game game;
+    @NotNull private final RandomAccessFile randomAccessFile;
+    @NotNull private final FileChannel channel;
+
+    /** The mapped region of the file to which records are being written. */
+    @NotNull private MappedByteBuffer region;
+    /** The offset within the file at which {@link #region} begins. */
+    private long regionPosition;
+
+    private int actionsSinceCheckpoint;
+    private boolean isClosed;
+
+    private GameJournal(@NotNull File file, @NotNull Game game, long position) throws IOException
+    {
+        this.file = file;
+        this.game = game;
+
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        channel = randomAccessFile.getChannel();
+        region = map(position, REGION_SIZE);
+    }
+
+    /**
+     * Creates a new journal for a game which has not yet started, within {@link Config#LOG_DIRECTORY}.
+     * Subsequent actions applied to the game are recorded.
+     *
+     * @throws IOException if the journal could not be created.
+     */
+    @NotNull
+    public static GameJournal create(@NotNull Game game, @NotNull GameOptions options) throws IOException
+    {
+        final SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss-S");
+        final File directory = new File(Config.LOG_DIRECTORY);
+        if (!directory.exists() && !directory.mkdirs())
+            throw new IOException("Unable to create directory " + directory.getPath());
+
+        File file = new File(directory, FILE_PREFIX + df.format(new Date(System.currentTimeMillis())) + FILE_EXTENSION);
+
+        GameJournal journal = new GameJournal(file, game, 0);
+        journal.writeHeader(options);
+        journal.recordCheckpoint(game);
+        game.setJournal(journal);
+
+        Log.toFile("Recording journal to " + file.getPath());
+        return journal;
+    }
+
+    /**
+     * Finds the most recently written journal in {@link Config#LOG_DIRECTORY}, if it was never closed,
+     * indicating that its game did not finish.
+     *
+     * @return the journal's file, or <code>null</code> if the most recent journal is complete or there is none.
+     */
+    @Nullable
+    public static File findUnfinished()
+    {
+        File[] files = new File(Config.LOG_DIRECTORY).listFiles();
+        if (files == null)
+            return null;
+
+        File latest = null;
+        for (File file : files) {
+            if (file.getName().startsWith(FILE_PREFIX) && file.getName().endsWith(FILE_EXTENSION)
+                    && (latest == null || file.lastModified() > latest.lastModified()))
+                latest = file;
+        }
+
+        if (latest == null)
+            return null;
+
+        try {
+            ByteBuffer buffer = read(latest);
+            readHeader(buffer);
+            return scan(buffer).isFinished ? null : latest;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Rebuilds a game from its journal, by restoring the journal's latest checkpoint and replaying the actions
+     * recorded after it. Subsequent actions applied to the game are appended to the same journal.
+     * <p>
+     * Initialises {@link ActionBoard} for the game.
+     *
+     * @throws IOException if the journal could not be read, or is invalid.
+     */
+    @NotNull
+    public static GameJournal resume(@NotNull File file) throws IOException
+    {
+        long startNanos = System.nanoTime();
+
+        ByteBuffer buffer = read(file);
+        Header header = readHeader(buffer);
+        Scan scan = scan(buffer);
+
+        if (scan.checkpointPosition == -1)
+            throw new IOException("Journal contains no checkpoint: " + file.getPath());
+
+        Game game = new Game(header.options, header.gameId);
+        ActionBoard.initialise(game.league(), game.uiOrientation());
+
+        int replayCount = 0;
+        try {
+            buffer.position(scan.checkpointPosition + RECORD_HEADER_SIZE);
+            game.restoreCheckpoint(buffer);
+
+            int position = scan.checkpointPosition;
+            while (position < scan.endPosition) {
+                byte type = buffer.get(position);
+                int length = buffer.getInt(position + 1);
+                long wallMillis = buffer.getLong(position + 1 + 4 + 8);
+                buffer.position(position + RECORD_HEADER_SIZE);
+
+                if (type == RECORD_ACTION || type == RECORD_COACH_MESSAGE) {
+                    ActionTrigger trigger = getEnum(buffer, ActionTrigger.values(), true);
+                    Action action;
+                    if (type == RECORD_ACTION) {
+                        int id = buffer.getShort();
+                        action = ActionBoard.getAction(id);
+                        if (action == null)
+                            throw new IllegalArgumentException("Unknown action id: " + id);
+                    } else {
+                        action = new SPLCoachMessageReceived(getCoachMessage(buffer));
+                    }
+                    game.replay(action, trigger, wallMillis);
+                    replayCount++;
+                }
+
+                position += RECORD_HEADER_SIZE + length;
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Journal is invalid: " + e.getMessage(), e);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Journal is invalid: truncated record", e);
+        }
+
+        GameJournal journal = new GameJournal(file, game, scan.endPosition);
+        journal.erase();
+        journal.recordCheckpoint(game);
+        game.setJournal(journal);
+
+        Log.toFile(String.format("Resumed game from journal %s, replaying %d actions in %.1f ms",
+                file.getPath(), replayCount, (System.nanoTime() - startNanos) / 1e6));
+        return journal;
+    }
+
+    /** Gets the game recorded by this journal. */
+    @NotNull
+    public Game getGame()
+    {
+        return game;
+    }
+
+    /** Gets whether enough actions have been recorded since the last checkpoint that another is due. */
+    boolean isCheckpointDue()
+    {
+        return actionsSinceCheckpoint >= Config.JOURNAL_CHECKPOINT_INTERVAL;
+    }
+
+    /**
+     * Records an action applied to the game. Actions applied by other actions are not recorded, as they are
+     * applied again when the outer action is replayed.
+     *
+     * @param wallMillis the wall-clock time against which the action was evaluated.
+     */
+    void recordAction(@NotNull Action action, ActionTrigger trigger, long wallMillis)
+    {
+        int id = ActionBoard.getId(action);
+
+        if (id == -1 && !(action instanceof SPLCoachMessageReceived)) {
+            Log.error("Unable to journal action " + action.getClass().getSimpleName() + " as it has no id.");
+            return;
+        }
+
+        int start = beginRecord(wallMillis);
+        if (start == -1)
+            return;
+
+        putEnum(region, trigger);
+        if (id != -1)
+            region.putShort((short)id);
+        else
+            putCoachMessage(region, ((SPLCoachMessageReceived)action).getMessage());
+
+        endRecord(start, id != -1 ? RECORD_ACTION : RECORD_COACH_MESSAGE);
+
+        actionsSinceCheckpoint++;
+        if (Config.JOURNAL_SYNC_POLICY == SyncPolicy.EachAction)
+            region.force();
+    }
+
+    /** Records the complete state of the game. */
+    void recordCheckpoint(@NotNull Game game)
+    {
+        int start = beginRecord(game.currentTimeMillis());
+        if (start == -1)
+            return;
+
+        try {
+            game.writeCheckpoint(region);
+        } catch (BufferOverflowException e) {
+            Log.error("Unable to journal checkpoint as it exceeds " + MAX_RECORD_SIZE + " bytes.");
+            region.position(start);
+            return;
+        }
+
+        endRecord(start, RECORD_CHECKPOINT);
+
+        actionsSinceCheckpoint = 0;
+        if (Config.JOURNAL_SYNC_POLICY != SyncPolicy.Never)
+            region.force();
+    }
+
+    /**
+     * Records that the game finished, truncates the file after the last record, and releases the file. A journal
+     * that was closed is not offered for resumption by {@link GameJournal#findUnfinished}.
+     */
+    public void close()
+    {
+        if (isClosed)
+            return;
+
+        int start = beginRecord(System.currentTimeMillis());
+        if (start != -1) {
+            endRecord(start, RECORD_END);
+            region.force();
+        }
+
+        isClosed = true;
+
+        // Remove the zeroes beyond the last record, with which the file was extended
+        try {
+            channel.truncate(regionPosition + region.position());
+        } catch (IOException e) {
+            Log.error("Error truncating journal: " + e.getMessage());
+        }
+
+        try {
+            randomAccessFile.close();
+        } catch (IOException e) {
+            Log.error("Error closing journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the file of a closed journal. A game that finished is never resumed, so its journal is no longer
+     * needed once closed.
+     */
+    public void delete()
+    {
+        assert(isClosed);
+
+        if (file.exists() && !file.delete())
+            Log.error("Unable to delete journal " + file.getPath());
+    }
+
+    ////////////////////////// WRITING //////////////////////////
+
+    @NotNull
+    private MappedByteBuffer map(long position, int size) throws IOException
+    {
+        regionPosition = position;
+        return channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+    }
+
+    /**
+     * Zeroes the space in which the next record will be written, which may hold part of a record that was being
+     * written when the game was interrupted. Otherwise, that data might be mistaken for records written later.
+     */
+    private void erase()
+    {
+        int start = region.position();
+        for (int i = 0; i < MAX_RECORD_SIZE; i++)
+            region.put((byte)0);
+        region.position(start);
+    }
+
+    private void writeHeader(@NotNull GameOptions options)
+    {
+        region.putInt(MAGIC);
+        region.put(FORMAT_VERSION);
+        region.putInt(game.gameId());
+        putString(region, options.league.getDirectoryName());
+        region.putShort((short)options.teams.get(UISide.Left).getNumber());
+        region.putShort((short)options.teams.get(UISide.Right).getNumber());
+        putBoolean(region, options.orientation.isFlipped());
+        putBoolean(region, game.isPlayOff());
+        putEnum(region, options.initialKickOffColor);
+        putString(region, options.broadcastAddress);
+        putBoolean(region, options.isFullScreen);
+        putBoolean(region, options.changeColoursEachPeriod);
+    }
+
+    /**
+     * Begins a record, extending the file if needed, and positions the region at the start of the record's body.
+     *
+     * @return the position of the record within the region, or -1 if the record cannot be written.
+     */
+    private int beginRecord(long wallMillis)
+    {
+        if (isClosed)
+            return -1;
+
+        if (region.remaining() < MAX_RECORD_SIZE) {
+            try {
+                region = map(regionPosition + region.position(), REGION_SIZE);
+            } catch (IOException e) {
+                Log.error("Unable to extend journal " + file.getPath() + ": " + e.getMessage());
+                return -1;
+            }
+        }
+
+        int start = region.position();
+        region.position(start + 1 + 4);
+        region.putLong(System.nanoTime());
+        region.putLong(wallMillis);
+        return start;
+    }
+
+    /**
+     * Completes a record begun via {@link #beginRecord}. The type is written last, so that a partially written
+     * record is never read.
+     */
+    private void endRecord(int start, byte type)
+    {
+        region.putInt(start + 1, region.position() - start - RECORD_HEADER_SIZE);
+        region.put(start, type);
+    }
+
+    ////////////////////////// READING //////////////////////////
+
+    @NotNull
+    private static ByteBuffer read(@NotNull File file) throws IOException
+    {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static class Header
+    {
+        int gameId;
+        GameOptions options;
+    }
+
+    @NotNull
+    private static Header readHeader(@NotNull ByteBuffer buffer) throws IOException
+    {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.get() != FORMAT_VERSION)
+                throw new IOException("Not a journal, or written by an incompatible version.");
+
+            Header header = new Header();
+            header.gameId = buffer.getInt();
+
+            String leagueName = getString(buffer);
+            League league = League.findByDirectoryName(leagueName);
+            if (league == null)
+                throw new IOException("Unknown league: " + leagueName);
+
+            int leftTeamNumber = buffer.getShort();
+            int rightTeamNumber = buffer.getShort();
+            if (!league.hasTeamNumber(leftTeamNumber) || !league.hasTeamNumber(rightTeamNumber))
+                throw new IOException("Unknown team numbers: " + leftTeamNumber + ", " + rightTeamNumber);
+
+            UIOrientation orientation = new UIOrientation();
+            if (getBoolean(buffer))
+                orientation.flip();
+            Pair<Team> teams = new Pair<Team>(orientation, league.getTeam(leftTeamNumber), league.getTeam(rightTeamNumber));
+
+            boolean isPlayOff = getBoolean(buffer);
+            TeamColor initialKickOffColor = getEnum(buffer, TeamColor.values(), true);
+            String broadcastAddress = getString(buffer);
+            boolean isFullScreen = getBoolean(buffer);
+            boolean changeColoursEachPeriod = getBoolean(buffer);
+
+            header.options = new GameOptions(
+                    broadcastAddress, isFullScreen, league, isPlayOff, orientation,
+                    teams, initialKickOffColor, changeColoursEachPeriod);
+            return header;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Journal header is invalid: " + e.getMessage(), e);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Journal header is truncated.", e);
+        }
+    }
+
+    private static class Scan
+    {
+        /** The position of the latest checkpoint record, or -1 if there is none. */
+        int checkpointPosition = -1;
+        /** The position following the last complete record. */
+        int endPosition;
+        boolean isFinished;
+    }
+
+    /** Finds the records following the header, stopping at the first that is incomplete. */
+    @NotNull
+    private static Scan scan(@NotNull ByteBuffer buffer)
+    {
+        Scan scan = new Scan();
+
+        int position = buffer.position();
+        while (buffer.limit() - position >= RECORD_HEADER_SIZE) {
+            byte type = buffer.get(position);
+            int length = buffer.getInt(position + 1);
+
+            if (type == RECORD_NONE || type > RECORD_END || length < 0
+                    || length > buffer.limit() - position - RECORD_HEADER_SIZE)
+                break;
+
+            if (type == RECORD_CHECKPOINT)
+                scan.checkpointPosition = position;
+            else if (type == RECORD_END)
+                scan.isFinished = true;
+
+            position += RECORD_HEADER_SIZE + length;
+        }
+
+        scan.endPosition = position;
+        return scan;
+    }
+
+    ////////////////////////// ENCODING //////////////////////////
+
+    static void putBoolean(@NotNull ByteBuffer buffer, boolean value)
+    {
+        buffer.put(value ? (byte)1 : (byte)0);
+    }
+
+    static boolean getBoolean(@NotNull ByteBuffer buffer)
+    {
+        return buffer.get() != 0;
+    }
+
+    /** Writes an enum value's ordinal, or -1 for <code>null</code>. */
+    static void putEnum(@NotNull ByteBuffer buffer, @Nullable Enum<?> value)
+    {
+        buffer.put(value == null ? (byte)-1 : (byte)value.ordinal());
+    }
+
+    /**
+     * Reads an enum value written by {@link #putEnum}.
+     *
+     * @throws IllegalArgumentException if the ordinal is invalid, or is absent and <code>isNullable</code> is false.
+     */
+    @Nullable
+    static <T extends Enum<T>> T getEnum(@NotNull ByteBuffer buffer, @NotNull T[] values, boolean isNullable)
+    {
+        byte ordinal = buffer.get();
+
+        if (ordinal == -1 && isNullable)
+            return null;
+
+        if (ordinal < 0 || ordinal >= values.length)
+            throw new IllegalArgumentException("Invalid ordinal " + ordinal + " for " + values.getClass().getComponentType().getSimpleName());
+
+        return values[ordinal];
+    }
+
+    /** Writes a byte array prefixed by its length, or -1 for <code>null</code>. */
+    static void putBytes(@NotNull ByteBuffer buffer, @Nullable byte[] bytes)
+    {
+        if (bytes == null) {
+            buffer.putShort((short)-1);
+        } else {
+            buffer.putShort((short)bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    /** Reads a byte array written by {@link #putBytes}. */
+    @Nullable
+    static byte[] getBytes(@NotNull ByteBuffer buffer)
+    {
+        short length = buffer.getShort();
+
+        if (length == -1)
+            return null;
+
+        if (length < 0)
+            throw new IllegalArgumentException("Invalid length: " + length);
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    static void putString(@NotNull ByteBuffer buffer, @NotNull String value)
+    {
+        putBytes(buffer, value.getBytes(UTF8));
+    }
+
+    @NotNull
+    static String getString(@NotNull ByteBuffer buffer)
+    {
+        byte[] bytes = getBytes(buffer);
+
+        if (bytes == null)
+            throw new IllegalArgumentException("Missing string.");
+
+        return new String(bytes, UTF8);
+    }
+
+    static void putCoachMessage(@NotNull ByteBuffer buffer, @NotNull SPLCoachMessage message)
+    {
+        buffer.put(message.teamNumber);
+        buffer.putLong(message.getSendTime());
+        putBytes(buffer, message.bytes);
+    }
+
+    @NotNull
+    static SPLCoachMessage getCoachMessage(@NotNull ByteBuffer buffer)
+    {
+        byte teamNumber = buffer.get();
+        long sendTime = buffer.getLong();
+        byte[] bytes = getBytes(buffer);
+
+        if (bytes == null)
+            throw new IllegalArgumentException("Missing coach message.");
+
+        return new SPLCoachMessage(teamNumber, bytes, sendTime);
+    }
+}
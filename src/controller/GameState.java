@@ -5,6 +5,8 @@ import common.annotations.Nullable;
 import data.*;
 import leagues.LeagueRules;
 
+import java.nio.ByteBuffer;
+
 /**
  * Models the complete state of a game at a given moment in time.
  *
@@ -24,9 +26,18 @@ import leagues.LeagueRules;
 public class GameState implements WriteableGameState, ReadOnlyGameState
 {
     @NotNull private final Game game;
-    @NotNull private final ReadOnlyPair<TeamState> teams;
+    @NotNull private final Pair<TeamState> teams;
+
+    /** Sentinel used internally for an absent time value, to avoid boxing. */
+    static final int NO_TIME = Integer.MIN_VALUE;
+
+    /** Units in which the clock may be evaluated, given as their length in milliseconds. */
+    static final int SECONDS = 1000, MILLISECONDS = 1;
 
-    // NOTE if a new field is added here, be sure to include it in the copy constructor
+    /** The time reported as having passed since an event that has not occurred, in seconds. */
+    private static final int NEVER_SECONDS = 100000;
+
+    // NOTE if a new field is added here, be sure to include it in the copy constructor, isSameAs, writeTo and readFrom
 
     private long timeBeforeCurrentPlayMode;
     private long whenCurrentPlayModeBegan;
@@ -72,17 +83,25 @@ public class GameState implements WriteableGameState, ReadOnlyGameState
         previousPeriod = Period.Normal;
     }
 
-    /** Private copy constructor. */
-    private GameState(@NotNull GameState source)
+    /**
+     * Private copy constructor.
+     *
+     * @param source the state to copy.
+     * @param previous if non-null, the state of the previous timeline entry, with which unchanged team and
+     *                 player state is shared. See {@link GameState#cloneForTimeline}.
+     */
+    private GameState(@NotNull GameState source, @Nullable GameState previous)
     {
         // Note, we don't deep clone the game or coach message queues
         game = source.game;
 
-        // Deep clone the team states
+        // Deep clone the team states, or share them with the previous timeline entry where unchanged
+        TeamState blue = source.teams.get(TeamColor.Blue);
+        TeamState red = source.teams.get(TeamColor.Red);
         teams = new Pair<TeamState>(
                 source.game.uiOrientation(),
-                source.teams.get(TeamColor.Blue).clone(),
-                source.teams.get(TeamColor.Red).clone());
+                previous == null ? blue.clone() : blue.cloneForTimeline(previous.getTeam(blue.getTeamNumber())),
+                previous == null ? red.clone() : red.cloneForTimeline(previous.getTeam(red.getTeamNumber())));
 
         // Make copies of most field values
         timeBeforeCurrentPlayMode = source.timeBeforeCurrentPlayMode;
@@ -106,18 +125,35 @@ public class GameState implements WriteableGameState, ReadOnlyGameState
     @NotNull
     public GameState clone()
     {
-        return new GameState(this);
+        return new GameState(this, null);
+    }
+
+    /**
+     * Copies this state for storage in the game's timeline.
+     * <p>
+     * Team and player state that is unchanged since the previous entry is shared with it rather than copied,
+     * so that each entry only costs as much memory as the state that changed. As shared state may be
+     * referenced by several entries, the returned object must never be modified, other than via
+     * {@link GameState#setWhenCurrentPlayModeBegan}. Use {@link GameState#clone()} to obtain a state that may be
+     * modified.
+     *
+     * @param previous the state of the previous timeline entry, or <code>null</code> if there is none.
+     */
+    @NotNull
+    GameState cloneForTimeline(@Nullable GameState previous)
+    {
+        return new GameState(this, previous);
     }
 
     @Nullable
     @Override
-    public WriteableTeamState getTeam(int teamNumber)
+    public TeamState getTeam(int teamNumber)
     {
         TeamState left = teams.get(UISide.Left);
         if (left.getTeamNumber() == teamNumber)
             return left;
 
-        TeamState right = teams.get(UISide.Left);
+        TeamState right = teams.get(UISide.Right);
         if (right.getTeamNumber() == teamNumber)
             return right;
 
@@ -143,13 +179,38 @@ public class GameState implements WriteableGameState, ReadOnlyGameState
     @Override
     public long getTime()
     {
-        return isManPause() ? getManWhenClockChanged() : System.currentTimeMillis() + getManTimeOffset();
+        return getTime(game.currentTimeMillis());
+    }
+
+    /**
+     * Gets the game time corresponding to the specified wall-clock time.
+     *
+     * @param wallMillis a value of {@link System#currentTimeMillis()}.
+     */
+    long getTime(long wallMillis)
+    {
+        return isManPause() ? getManWhenClockChanged() : wallMillis + getManTimeOffset();
     }
 
     @Override
     public int getSecondsSince(long millis)
     {
-        return millis == 0 ? 100000 : (int) (getTime() - millis) / 1000;
+        return getSecondsSince(millis, game.currentTimeMillis());
+    }
+
+    private int getSecondsSince(long millis, long wallMillis)
+    {
+        return getTimeSince(millis, wallMillis, SECONDS);
+    }
+
+    /**
+     * Gets the time passed since a timestamp, truncated to whole units.
+     *
+     * @param unit {@link GameState#SECONDS} or {@link GameState#MILLISECONDS}.
+     */
+    private int getTimeSince(long millis, long wallMillis, int unit)
+    {
+        return millis == 0 ? NEVER_SECONDS * (SECONDS / unit) : (int) (getTime(wallMillis) - millis) / unit;
     }
     
     @Override
@@ -158,6 +219,59 @@ public class GameState implements WriteableGameState, ReadOnlyGameState
         return durationInSeconds - getSecondsSince(millis);
     }
 
+    /**
+     * Gets the time remaining of a duration that began at a timestamp, in whole units.
+     *
+     * @param unit {@link GameState#SECONDS} or {@link GameState#MILLISECONDS}.
+     */
+    private int getRemainingTime(long millis, int durationInSeconds, long wallMillis, int unit)
+    {
+        return durationInSeconds * (SECONDS / unit) - getTimeSince(millis, wallMillis, unit);
+    }
+
+    @NotNull
+    @Override
+    public GameTiming getTiming()
+    {
+        GameTiming timing = new GameTiming();
+        updateTiming(timing);
+        return timing;
+    }
+
+    @Override
+    public void updateTiming(@NotNull GameTiming timing)
+    {
+        timing.update(this, game.currentTimeMillis());
+    }
+
+    @Override
+    public boolean isSameAs(@NotNull ReadOnlyGameState other)
+    {
+        if (!(other instanceof GameState))
+            return false;
+
+        GameState state = (GameState)other;
+        return game == state.game
+            && timeBeforeCurrentPlayMode == state.timeBeforeCurrentPlayMode
+            && whenCurrentPlayModeBegan == state.whenCurrentPlayModeBegan
+            && whenDropIn == state.whenDropIn
+            && isRefereeTimeoutActive == state.isRefereeTimeoutActive
+            && isTestMode == state.isTestMode
+            && manPause == state.manPause
+            && manPlay == state.manPlay
+            && manWhenClockChanged == state.manWhenClockChanged
+            && manTimeOffset == state.manTimeOffset
+            && manRemainingGameTimeOffset == state.manRemainingGameTimeOffset
+            && previousPeriod == state.previousPeriod
+            && playMode == state.playMode
+            && isFirstHalf == state.isFirstHalf
+            && nextKickOffColor == state.nextKickOffColor
+            && period == state.period
+            && lastDropInColor == state.lastDropInColor
+            && teams.get(TeamColor.Blue).isSameAs(state.teams.get(TeamColor.Blue))
+            && teams.get(TeamColor.Red).isSameAs(state.teams.get(TeamColor.Red));
+    }
+
     ////////////////////////
     
     @Override
@@ -169,45 +283,87 @@ public class GameState implements WriteableGameState, ReadOnlyGameState
     @Override
     public int getSecsRemaining()
     {
-        int regularNumberOfPenaltyShots = game.isPlayOff()
-                ? game.rules().getNumberOfPenaltyShotsInPlayOffGame()
-                : game.rules().getNumberOfPenaltyShotsInNormalGame();
+        return computeTimeRemaining(game.currentTimeMillis(), SECONDS);
+    }
 
-        int duration = is(Period.Timeout)
-                ? getSecsRemaining() // TODO fix this infinite recursion bug -- should return last computed value (or something else)
-                : is(Period.Normal)
-                    ? game.rules().getNormalHalfDurationSeconds()
-                    : is(Period.Overtime)
-                        ? game.rules().getOvertimeHalfDurationSeconds()
-                        : Math.max(teams.get(UISide.Left).getPenaltyShotCount(), teams.get(UISide.Right).getPenaltyShotCount()) > regularNumberOfPenaltyShots
-                            ? game.rules().getPenaltyShotDurationSecondsInSuddenDeath()
-                            : game.rules().getPenaltyShotDurationSeconds();
+    @Override
+    public int getMillisRemaining()
+    {
+        return computeTimeRemaining(game.currentTimeMillis(), MILLISECONDS);
+    }
+
+    /**
+     * Computes the time remaining in the current period.
+     *
+     * @param wallMillis the wall-clock time at which to evaluate the clock.
+     * @param unit the unit of the result, {@link GameState#SECONDS} or {@link GameState#MILLISECONDS}.
+     *             The time played is truncated to whole units, so the time remaining is rounded up.
+     */
+    int computeTimeRemaining(long wallMillis, int unit)
+    {
+        int duration = getPeriodDurationSeconds(period == Period.Timeout ? previousPeriod : period);
 
         int timePlayed = playMode == PlayMode.Initial// during timeouts
                 || (playMode == PlayMode.Ready || playMode == PlayMode.Set)
                 && (game.isPlayOff() && game.rules().isPlayOffTimeStop() || getTimeBeforeCurrentPlayMode() == 0)
                 || playMode == PlayMode.Finished
-            ? (int) ((getTimeBeforeCurrentPlayMode() + getManRemainingGameTimeOffset() + (isManPlay() ? System.currentTimeMillis() - getManWhenClockChanged() : 0)) / 1000)
-            : getSecondsSince(getWhenCurrentPlayModeBegan() - getTimeBeforeCurrentPlayMode() - getManRemainingGameTimeOffset());
-
-        return duration - timePlayed;
+            ? (int) ((getTimeBeforeCurrentPlayMode() + getManRemainingGameTimeOffset() + (isManPlay() ? wallMillis - getManWhenClockChanged() : 0)) / unit)
+            : getTimeSince(getWhenCurrentPlayModeBegan() - getTimeBeforeCurrentPlayMode() - getManRemainingGameTimeOffset(), wallMillis, unit);
+
+        return duration * (SECONDS / unit) - timePlayed;
+    }
+
+    /**
+     * Gets the full duration of the specified period, in seconds.
+     * <p>
+     * A referee timeout interrupts another period, whose clock it leaves stopped, so callers pass that
+     * period (the previous period) instead of {@link Period#Timeout}.
+     */
+    private int getPeriodDurationSeconds(@NotNull Period period)
+    {
+        switch (period) {
+            case Overtime:
+                return game.rules().getOvertimeHalfDurationSeconds();
+            case PenaltyShootout:
+                int regularNumberOfPenaltyShots = game.isPlayOff()
+                        ? game.rules().getNumberOfPenaltyShotsInPlayOffGame()
+                        : game.rules().getNumberOfPenaltyShotsInNormalGame();
+                return Math.max(teams.get(UISide.Left).getPenaltyShotCount(), teams.get(UISide.Right).getPenaltyShotCount()) > regularNumberOfPenaltyShots
+                        ? game.rules().getPenaltyShotDurationSecondsInSuddenDeath()
+                        : game.rules().getPenaltyShotDurationSeconds();
+            default:
+                return game.rules().getNormalHalfDurationSeconds();
+        }
     }
 
     @Override
     public Integer getRemainingPauseTime()
+    {
+        int remainingPauseTime = computeRemainingPauseTime(game.currentTimeMillis(), SECONDS);
+        return remainingPauseTime == NO_TIME ? null : remainingPauseTime;
+    }
+
+    /**
+     * Computes the remaining pause time without boxing.
+     *
+     * @param wallMillis the wall-clock time at which to evaluate the clock.
+     * @param unit the unit of the result, {@link GameState#SECONDS} or {@link GameState#MILLISECONDS}.
+     * @return the remaining time of the game pause, or {@link GameState#NO_TIME} if there is no pause.
+     */
+    int computeRemainingPauseTime(long wallMillis, int unit)
     {
         if (period == Period.Normal
                 && (playMode == PlayMode.Initial && !isFirstHalf && !isTimeoutActive() || playMode == PlayMode.Finished && isFirstHalf)) {
-            return getRemainingSeconds(getWhenCurrentPlayModeBegan(), game.rules().getHalfTimeDurationSeconds());
+            return getRemainingTime(getWhenCurrentPlayModeBegan(), game.rules().getHalfTimeDurationSeconds(), wallMillis, unit);
         }
 
         if (game.rules().getDurationBeforePenaltyShootoutsStart() != 0 && game.isPlayOff() && areScoresLevel()
                 && (playMode == PlayMode.Initial && period == Period.PenaltyShootout && !isTimeoutActive()
                 || playMode == PlayMode.Finished && !isFirstHalf)) {
-            return getRemainingSeconds(getWhenCurrentPlayModeBegan(), game.rules().getDurationBeforePenaltyShootoutsStart());
+            return getRemainingTime(getWhenCurrentPlayModeBegan(), game.rules().getDurationBeforePenaltyShootoutsStart(), wallMillis, unit);
         }
 
-        return null;
+        return NO_TIME;
     }
 
     @Override
@@ -238,6 +394,16 @@ public class GameState implements WriteableGameState, ReadOnlyGameState
     
     @Override
     public int getRemainingPenaltyTime(@NotNull ReadOnlyPlayerState player)
+    {
+        return computeRemainingPenaltyTime(player, game.currentTimeMillis());
+    }
+
+    /**
+     * Computes the number of seconds remaining on a player's penalty.
+     *
+     * @param wallMillis the wall-clock time at which to evaluate the clock.
+     */
+    int computeRemainingPenaltyTime(@NotNull ReadOnlyPlayerState player, long wallMillis)
     {
         Penalty penalty = player.getPenalty();
 
@@ -252,43 +418,68 @@ public class GameState implements WriteableGameState, ReadOnlyGameState
         LeagueRules rules = game.rules();
 
         // TODO test this -- seems strange that the penalty should have to start after the current play mode began, when the current play mode is 'ready'
-        if (rules.arePenaltiesClearedDuringStoppages() && is(PlayMode.Ready) && player.getWhenPenalized() >= getWhenCurrentPlayModeBegan())
-            return rules.getReadyPlayModeDurationSeconds() - getSecondsSince(getWhenCurrentPlayModeBegan());
+        if (rules.arePenaltiesClearedDuringStoppages() && playMode == PlayMode.Ready && player.getWhenPenalized() >= getWhenCurrentPlayModeBegan())
+            return rules.getReadyPlayModeDurationSeconds() - getSecondsSince(getWhenCurrentPlayModeBegan(), wallMillis);
 
-        return Math.max(0, getRemainingSeconds(player.getWhenPenalized(), penalty.getDurationSeconds()));
+        return Math.max(0, getRemainingTime(player.getWhenPenalized(), penalty.getDurationSeconds(), wallMillis, SECONDS));
     }
     
     @Override
     public Integer getSecondaryTime(int timeKickOffBlockedOvertime)
     {
+        int secondaryTime = computeSecondaryTime(timeKickOffBlockedOvertime, game.currentTimeMillis(), SECONDS);
+        return secondaryTime == NO_TIME ? null : secondaryTime;
+    }
+
+    @Override
+    public int getSecondaryTime()
+    {
+        int secondaryTime = computeSecondaryTime(0, game.currentTimeMillis(), SECONDS);
+        return secondaryTime == NO_TIME ? 0 : secondaryTime;
+    }
+
+    @Override
+    public int getSecondaryTimeMillis()
+    {
+        int secondaryTime = computeSecondaryTime(0, game.currentTimeMillis(), MILLISECONDS);
+        return secondaryTime == NO_TIME ? 0 : secondaryTime;
+    }
+
+    /**
+     * Computes the secondary time without boxing, so that it may be called when encoding network
+     * messages without allocating.
+     *
+     * @param timeKickOffBlockedOvertime in seconds, see {@link #getSecondaryTime(int)}.
+     * @param wallMillis the wall-clock time at which to evaluate the clock.
+     * @param unit the unit of the result, {@link GameState#SECONDS} or {@link GameState#MILLISECONDS}.
+     * @return the secondary time, or {@link GameState#NO_TIME} if there currently is none.
+     */
+    int computeSecondaryTime(int timeKickOffBlockedOvertime, long wallMillis, int unit)
+    {
+        long whenBegan = getWhenCurrentPlayModeBegan();
+
         int timeKickOffBlocked = getNextKickOffColor() != null
-                ? getRemainingSeconds(getWhenCurrentPlayModeBegan(), game.rules().getKickOffDurationSeconds())
+                ? getRemainingTime(whenBegan, game.rules().getKickOffDurationSeconds(), wallMillis, unit)
                 : 0;
 
-        if (is(PlayMode.Initial) && isTimeoutActive()) {
-            return getRemainingSeconds(getWhenCurrentPlayModeBegan(), game.rules().getTimeoutDurationSeconds());
+        if (playMode == PlayMode.Initial && isTimeoutActive()) {
+            return getRemainingTime(whenBegan, game.rules().getTimeoutDurationSeconds(), wallMillis, unit);
         }
 
-        if (is(PlayMode.Initial) && isRefereeTimeoutActive()) {
-            return getRemainingSeconds(getWhenCurrentPlayModeBegan(), game.rules().getRefereeTimeoutDurationSeconds());
+        if (playMode == PlayMode.Initial && isRefereeTimeoutActive()) {
+            return getRemainingTime(whenBegan, game.rules().getRefereeTimeoutDurationSeconds(), wallMillis, unit);
         }
 
-        if (is(PlayMode.Ready)) {
-            return getRemainingSeconds(getWhenCurrentPlayModeBegan(), game.rules().getReadyPlayModeDurationSeconds());
+        if (playMode == PlayMode.Ready) {
+            return getRemainingTime(whenBegan, game.rules().getReadyPlayModeDurationSeconds(), wallMillis, unit);
         }
 
-        if (is(PlayMode.Playing) && getPeriod() != Period.PenaltyShootout && timeKickOffBlocked >= -timeKickOffBlockedOvertime) {
-            return timeKickOffBlocked > 0 ? timeKickOffBlocked : null;
+        if (playMode == PlayMode.Playing && getPeriod() != Period.PenaltyShootout
+                && timeKickOffBlocked >= -timeKickOffBlockedOvertime * (SECONDS / unit)) {
+            return timeKickOffBlocked > 0 ? timeKickOffBlocked : NO_TIME;
         }
 
-        return getRemainingPauseTime();
-    }
-
-    @Override
-    public int getSecondaryTime()
-    {
-        Integer secondaryTime = getSecondaryTime(0);
-        return secondaryTime == null ? 0 : secondaryTime;
+        return computeRemainingPauseTime(wallMillis, unit);
     }
 
     @Override
@@ -522,7 +713,17 @@ public class GameState implements WriteableGameState, ReadOnlyGameState
     @Override
     public int getDropInTime()
     {
-        return getWhenDropIn() == 0 ? -1 : getSecondsSince(getWhenDropIn());
+        return computeDropInTime(game.currentTimeMillis());
+    }
+
+    /**
+     * Computes the number of seconds since the last drop-in, or -1 if there has been none.
+     *
+     * @param wallMillis the wall-clock time at which to evaluate the clock.
+     */
+    int computeDropInTime(long wallMillis)
+    {
+        return getWhenDropIn() == 0 ? -1 : getSecondsSince(getWhenDropIn(), wallMillis);
     }
 
     @Override
@@ -536,4 +737,69 @@ public class GameState implements WriteableGameState, ReadOnlyGameState
     {
         return game.isPlayOff();
     }
+
+    //////////////////////// BINARY FORM
+
+    /**
+     * Writes this state, including that of both teams, to a buffer in the form read by {@link GameState#readFrom}.
+     * Used to checkpoint the game in its {@link GameJournal}.
+     */
+    void writeTo(@NotNull ByteBuffer buffer)
+    {
+        buffer.putLong(timeBeforeCurrentPlayMode);
+        buffer.putLong(whenCurrentPlayModeBegan);
+        buffer.putLong(whenDropIn);
+        GameJournal.putBoolean(buffer, isRefereeTimeoutActive);
+        GameJournal.putBoolean(buffer, isTestMode);
+        GameJournal.putBoolean(buffer, manPause);
+        GameJournal.putBoolean(buffer, manPlay);
+        buffer.putLong(manWhenClockChanged);
+        buffer.putLong(manTimeOffset);
+        buffer.putLong(manRemainingGameTimeOffset);
+        GameJournal.putEnum(buffer, previousPeriod);
+        GameJournal.putEnum(buffer, playMode);
+        GameJournal.putBoolean(buffer, isFirstHalf);
+        GameJournal.putEnum(buffer, nextKickOffColor);
+        GameJournal.putEnum(buffer, period);
+        GameJournal.putEnum(buffer, lastDropInColor);
+
+        teams.get(UISide.Left).writeTo(buffer);
+        teams.get(UISide.Right).writeTo(buffer);
+    }
+
+    /**
+     * Overwrites this state with one read from a buffer, as written by {@link GameState#writeTo}.
+     *
+     * @throws IllegalArgumentException if the data is invalid, or was written for a different game.
+     */
+    void readFrom(@NotNull ByteBuffer buffer)
+    {
+        timeBeforeCurrentPlayMode = buffer.getLong();
+        whenCurrentPlayModeBegan = buffer.getLong();
+        whenDropIn = buffer.getLong();
+        isRefereeTimeoutActive = GameJournal.getBoolean(buffer);
+        isTestMode = GameJournal.getBoolean(buffer);
+        manPause = GameJournal.getBoolean(buffer);
+        manPlay = GameJournal.getBoolean(buffer);
+        manWhenClockChanged = buffer.getLong();
+        manTimeOffset = buffer.getLong();
+        manRemainingGameTimeOffset = buffer.getLong();
+        previousPeriod = GameJournal.getEnum(buffer, Period.values(), false);
+        playMode = GameJournal.getEnum(buffer, PlayMode.values(), false);
+        isFirstHalf = GameJournal.getBoolean(buffer);
+        nextKickOffColor = GameJournal.getEnum(buffer, TeamColor.values(), true);
+        period = GameJournal.getEnum(buffer, Period.values(), false);
+        lastDropInColor = GameJournal.getEnum(buffer, TeamColor.values(), true);
+
+        // The teams may have been held on either side, so match the first by its team number, which leads its data
+        TeamState left = teams.get(UISide.Left);
+        TeamState right = teams.get(UISide.Right);
+        if (buffer.getShort(buffer.position()) != left.getTeamNumber()) {
+            teams.set(UISide.Left, right);
+            teams.set(UISide.Right, left);
+        }
+
+        teams.get(UISide.Left).readFrom(buffer);
+        teams.get(UISide.Right).readFrom(buffer);
+    }
 }
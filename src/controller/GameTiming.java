@@ -0,0 +1,119 @@
+package controller;
+
+import common.annotations.NotNull;
+import common.annotations.Nullable;
+
+/**
+ * The time-dependent values of a game state, all evaluated at a single instant.
+ * <p>
+ * Each of the corresponding methods on {@link ReadOnlyGameState} reads the clock anew, so values read
+ * one after another may straddle a second boundary. Instances of this class read the clock once, when
+ * created via {@link ReadOnlyGameState#getTiming()} or refreshed via {@link ReadOnlyGameState#updateTiming},
+ * and so are mutually consistent. Obtain one per packet or UI update and share it between all code that
+ * renders that state. Code that runs often, such as sending state, should refresh a single instance
+ * rather than obtain a new one each time, so as not to allocate.
+ * <p>
+ * Instances are not thread safe, and must not be refreshed while being read.
+ * <p>
+ * The clock values are computed eagerly, in seconds. Penalty times, and the clock values in milliseconds, are
+ * computed on request, against the same instant.
+ */
+public class GameTiming
+{
+    private GameState state;
+    private long wallMillis;
+
+    private int secsRemaining;
+    private int secondaryTime;
+    private int remainingPauseTime;
+    private int dropInTime;
+
+    /**
+     * Creates an instance holding no values, to be refreshed via {@link ReadOnlyGameState#updateTiming}
+     * before it is read.
+     */
+    public GameTiming()
+    {
+    }
+
+    /** Evaluates all values of the given state at the given instant, replacing those held. */
+    void update(@NotNull GameState state, long wallMillis)
+    {
+        this.state = state;
+        this.wallMillis = wallMillis;
+
+        secsRemaining = state.computeTimeRemaining(wallMillis, GameState.SECONDS);
+        secondaryTime = state.computeSecondaryTime(0, wallMillis, GameState.SECONDS);
+        remainingPauseTime = state.computeRemainingPauseTime(wallMillis, GameState.SECONDS);
+        dropInTime = state.computeDropInTime(wallMillis);
+    }
+
+    /** Gets the wall-clock time at which these values were evaluated, as per {@link System#currentTimeMillis()}. */
+    public long getWallMillis()
+    {
+        return wallMillis;
+    }
+
+    /** Gets the game time at which these values were evaluated. See {@link ReadOnlyGameState#getTime()}. */
+    public long getTime()
+    {
+        return state.getTime(wallMillis);
+    }
+
+    /** See {@link ReadOnlyGameState#getSecsRemaining()}. */
+    public int getSecsRemaining()
+    {
+        return secsRemaining;
+    }
+
+    /** See {@link ReadOnlyGameState#getMillisRemaining()}. */
+    public int getMillisRemaining()
+    {
+        return state.computeTimeRemaining(wallMillis, GameState.MILLISECONDS);
+    }
+
+    /** See {@link ReadOnlyGameState#getSecondaryTime()}. */
+    public int getSecondaryTime()
+    {
+        return secondaryTime == GameState.NO_TIME ? 0 : secondaryTime;
+    }
+
+    /** See {@link ReadOnlyGameState#getSecondaryTimeMillis()}. */
+    public int getSecondaryTimeMillis()
+    {
+        int time = state.computeSecondaryTime(0, wallMillis, GameState.MILLISECONDS);
+        return time == GameState.NO_TIME ? 0 : time;
+    }
+
+    /** See {@link ReadOnlyGameState#getSecondaryTime(int)}. */
+    @Nullable
+    public Integer getSecondaryTime(int timeKickOffBlockedOvertime)
+    {
+        int time = timeKickOffBlockedOvertime == 0
+                ? secondaryTime
+                : state.computeSecondaryTime(timeKickOffBlockedOvertime, wallMillis, GameState.SECONDS);
+        return time == GameState.NO_TIME ? null : time;
+    }
+
+    /** See {@link ReadOnlyGameState#getRemainingPauseTime()}. */
+    @Nullable
+    public Integer getRemainingPauseTime()
+    {
+        return remainingPauseTime == GameState.NO_TIME ? null : remainingPauseTime;
+    }
+
+    /** See {@link ReadOnlyGameState#getDropInTime()}. */
+    public int getDropInTime()
+    {
+        return dropInTime;
+    }
+
+    /**
+     * Gets a player's remaining penalty time, or zero if the player is not penalised.
+     * See {@link ReadOnlyGameState#getRemainingPenaltyTime}.
+     */
+    public int getRemainingPenaltyTime(@NotNull ReadOnlyPlayerState player)
+    {
+        return player.isPenalized() ? state.computeRemainingPenaltyTime(player, wallMillis) : 0;
+    }
+}
@@ -13,6 +13,7 @@ import controller.ui.GameOptionsUI;
 import controller.ui.KeyboardListener;
 import data.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.regex.Pattern;
@@ -38,6 +39,9 @@ public class Main
     @SuppressWarnings("FieldCanBeLocal")
     private static ApplicationLock applicationLock;
 
+    /** Whether an unfinished game should be resumed without asking, as specified on the command line. */
+    private static boolean isResumeRequested = false;
+
     private Main() {}
 
     /**
@@ -54,15 +58,41 @@ public class Main
         // Process command line input
         GameOptions options = parseCommandLineArguments(args);
 
+        boolean isFirstGame = true;
+
         //noinspection InfiniteLoopStatement
         while (true) {
             // Start a new log file for each game
             Log.initialise();
 
-            // Show UI to configure the starting parameters
-            options = GameOptionsUI.configure(options);
+            // If the previous run of the application ended mid-game, offer to resume that game
+            GameJournal journal = isFirstGame ? resumeUnfinishedGame() : null;
+            isFirstGame = false;
+
+            Game game;
+            if (journal != null) {
+                game = journal.getGame();
+            } else {
+                // Show UI to configure the starting parameters
+                options = GameOptionsUI.configure(options);
+
+                game = new Game(options);
+                ActionBoard.initialise(game.league(), game.uiOrientation());
+
+                try {
+                    journal = GameJournal.create(game, options);
+                } catch (IOException e) {
+                    Log.error("Unable to create game journal. The game cannot be resumed if interrupted. " + e.getMessage());
+                }
+            }
+
+            runGame(game);
 
-            runGame(new Game(options));
+            // The game finished, so need not be resumed
+            if (journal != null) {
+                journal.close();
+                journal.delete();
+            }
 
             try {
                 Log.close();
@@ -72,18 +102,57 @@ public class Main
         }
     }
 
+    /**
+     * Resumes the game recorded by the most recent journal, if that game did not finish. Unless requested via
+     * the command line, the user is asked first.
+     *
+     * @return the resumed game's journal, or <code>null</code> if no game was resumed.
+     */
+    private static GameJournal resumeUnfinishedGame()
+    {
+        File file = GameJournal.findUnfinished();
+
+        if (file == null)
+            return null;
+
+        if (!isResumeRequested) {
+            int choice = JOptionPane.showConfirmDialog(null,
+                    "The previous game did not finish. Resume it?",
+                    "RoboCup Game Controller",
+                    JOptionPane.YES_NO_OPTION);
+            if (choice != JOptionPane.YES_OPTION)
+                return null;
+        }
+
+        try {
+            return GameJournal.resume(file);
+        } catch (IOException e) {
+            Log.error("Unable to resume game from journal " + file.getPath() + ": " + e.getMessage());
+            JOptionPane.showMessageDialog(null,
+                    "Unable to resume the previous game.\n" + e.getMessage(),
+                    "Error resuming game",
+                    JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private static void runGame(final Game game)
     {
-        final RobotWatcher robotWatcher = new RobotWatcher(game.league());
+        final GameStateSendLog gameStateSendLog = new GameStateSendLog();
+        final RobotWatcher robotWatcher = new RobotWatcher(game.league(), gameStateSendLog);
         final GameStateSender gameStateSender;
         final MessageReceiver robotMessageReceiver;
         final MultipleInstanceWatcher multipleInstanceWatcher;
         MessageReceiver splReceiver = null;
 
         try {
-            gameStateSender = new GameStateSender(game, game.broadcastAddress());
+            gameStateSender = new GameStateSender(game, game.broadcastAddress(), gameStateSendLog);
             gameStateSender.addProtocol(new GameStateProtocol9(game.league(), game.gameId()));
+            if (game.rules().isGameStateVersion10Broadcast())
+                gameStateSender.addProtocol(new GameStateProtocol10(game.league(), game.gameId()));
+            if (game.rules().isGameStateVersion11Broadcast())
+                gameStateSender.addProtocol(new GameStateProtocol11(game.league(), game.gameId()));
             if (game.rules().isLegacyGameStateVersion8Broadcast())
                 gameStateSender.addProtocol(new GameStateProtocol8(game.league()));
             if (game.rules().isLegacyGameStateVersion7Broadcast())
@@ -92,7 +161,6 @@ public class Main
 
             robotMessageReceiver = new MessageReceiver<RobotMessage>(
                     Config.ROBOT_STATUS_PORT,
-                    500,
                     new MessageHandler<RobotMessage>()
                     {
                         @Override
@@ -100,6 +168,7 @@ public class Main
                     });
             robotMessageReceiver.addProtocol(new RobotStatusProtocol1());
             robotMessageReceiver.addProtocol(new RobotStatusProtocol2());
+            robotMessageReceiver.addProtocol(new RobotStatusProtocol3());
             robotMessageReceiver.start();
 
             multipleInstanceWatcher = new MultipleInstanceWatcher(game.league(), game.gameId());
@@ -107,14 +176,13 @@ public class Main
             if (game.league().isSPLFamily() && game.rules().isCoachAvailable()) {
                 splReceiver = new MessageReceiver<SPLCoachMessage>(
                         Config.SPL_COACH_MESSAGE_PORT,
-                        500,
                         new MessageHandler<SPLCoachMessage>()
                         {
                             @Override
                             public void handle(SPLCoachMessage message)
                             {
                                 robotWatcher.updateCoach(game, message.teamNumber);
-                                game.apply(new SPLCoachMessageReceived(message), ActionTrigger.Network);
+                                game.actionQueue().offer(new SPLCoachMessageReceived(message), ActionTrigger.Network);
                             }
                         });
                 splReceiver.addProtocol(new SPLCoachProtocol2(game.teams()));
@@ -134,26 +202,34 @@ public class Main
         Log.toFile("Auto color change = " + game.changeColoursEachPeriod());
         Log.toFile("Using broadcast address " + game.broadcastAddress());
 
-        ActionBoard.initialise(game.league(), game.uiOrientation());
-
         ControllerUI ui = new ControllerUI(game, game.isFullScreen(), robotWatcher, multipleInstanceWatcher);
 
         KeyboardListener keyboardListener = new KeyboardListener(game);
 
-        // Execute the clock until shutdown is requested
-        Interval interval = new Interval(500);
+        // Execute the clock until shutdown is requested. Between ticks, apply actions
+        // enqueued by the network threads as soon as they arrive.
+        // This thread becomes the game thread, on which all actions are applied.
+        game.runOnCurrentThread();
+        ActionQueue actionQueue = game.actionQueue();
+        Interval interval = new Interval(Config.CLOCK_TICK_PERIOD_MILLIS, Interval.CatchUpPolicy.Skip);
         while (!game.isShutdownRequested()) {
             game.apply(ActionBoard.clock, ActionTrigger.Clock);
-            try {
-                interval.sleep();
-            } catch (InterruptedException e) {
-                return;
+
+            long nanos;
+            while ((nanos = interval.getNanosUntilNext()) > 0 && !game.isShutdownRequested()) {
+                actionQueue.drainTo(game);
+                actionQueue.await(nanos);
+                if (Thread.interrupted())
+                    return;
             }
+            actionQueue.drainTo(game);
+            interval.advance();
         }
 
         // Stop game
 
         Log.toFile("Stopping game");
+        Log.toFile(actionQueue.toString());
 
         keyboardListener.close();
         ui.close();
@@ -248,6 +324,9 @@ public class Main
             } else if (args[i].equals("-w") || args[i].equals("--window")) {
                 isFullScreen = false;
                 continue;
+            } else if (args[i].equals("-r") || args[i].equals("--resume")) {
+                isResumeRequested = true;
+                continue;
             }
 
             printUsage();
@@ -280,6 +359,7 @@ public class Main
                 + "\n  (-k | --kickoff) <colour>       set kickoff team colour ('blue' or 'red')"
                 + "\n  (-l | --league) %s%sselect league (default is %s)"
                 + "\n  (-w | --window)                 set window mode (default is fullscreen)"
+                + "\n  (-r | --resume)                 resume an unfinished game without asking"
                 + "\n  (--knockout | --playoff) <val>  set whether knockout/playoff game (yes/no)"
                 + "\n";
 
@@ -8,7 +8,8 @@ import data.Penalty;
  *
  * <ul>
  *     <li>Implements both read-only and writeable interfaces.</li>
- *     <li>{@link PlayerState#clone()} produces an exact copy. This mechanism is used to enable 'undo' functionality.</li>
+ *     <li>Holds no state of its own. This is a view over the player's entry in the arrays of its {@link TeamState},
+ *         so changes via this object are changes to the team, and cloning the team copies the player.</li>
  * </ul>
  *
  * @author Michel Bartsch
@@ -16,99 +17,74 @@ import data.Penalty;
  */
 public class PlayerState implements WriteablePlayerState, ReadOnlyPlayerState
 {
-    // NOTE if a new field is added here, be sure to include it in the copy constructor
+    @NotNull private final TeamState team;
+    /** The index of this player's entry in the team's arrays. */
+    private final int index;
 
-    @NotNull private final Game game;
-    private final int uniformNumber;
-    private final boolean isCoach;
-    @NotNull private Penalty penalty;
-    private long whenPenalized;
-    private boolean isEjected;
-
-    public PlayerState(@NotNull Game game, int uniformNumber, boolean isCoach)
-    {
-        this.game = game;
-        this.uniformNumber = uniformNumber;
-        this.isCoach = isCoach;
-
-        this.penalty = Penalty.None;
-    }
-
-    /** Private copy constructor. */
-    private PlayerState(@NotNull PlayerState source)
+    PlayerState(@NotNull TeamState team, int index)
     {
-        game = source.game;
-        uniformNumber = source.uniformNumber;
-        isCoach = source.isCoach;
-        penalty = source.penalty;
-        whenPenalized = source.whenPenalized;
-        isEjected = source.isEjected;
+        this.team = team;
+        this.index = index;
     }
 
-    @NotNull
-    public PlayerState clone()
-    {
-        return new PlayerState(this);
-    }
-    
     @Override
     public int getUniformNumber()
     {
-        return uniformNumber;
+        return isCoach() ? -1 : index + 1;
     }
 
     @Override
     @NotNull
     public Penalty getPenalty()
     {
-        return penalty;
+        return team.getPenalty(index);
     }
 
     @Override
     public boolean isPenalized()
     {
-        return penalty != Penalty.None;
+        return getPenalty() != Penalty.None;
     }
 
     @Override
     public void setPenalty(@NotNull Penalty penalty)
     {
-        this.penalty = penalty;
+        team.setPenalty(index, penalty);
     }
 
     @Override
     public int getRemainingPenaltyTime()
     {
-        return game.getGameState().getRemainingPenaltyTime(this);
+        return team.getGame().getGameState().getRemainingPenaltyTime(this);
     }
 
     @Override
     public boolean isEjected()
     {
-        return isEjected;
+        return team.isEjected(index);
     }
 
     @Override
     public void setEjected(boolean isEjected)
     {
-        this.isEjected = isEjected;
+        team.setEjected(index, isEjected);
     }
 
     @Override
     public long getWhenPenalized()
     {
-        return whenPenalized;
+        return team.getWhenPenalized(index);
     }
 
     @Override
     public void setWhenPenalized(long whenPenalized)
     {
-        this.whenPenalized = whenPenalized;
+        team.setWhenPenalized(index, whenPenalized);
     }
 
     @Override
     public boolean isCoach()
     {
-        return isCoach;
+        return team.isCoachIndex(index);
     }
 }
@@ -55,6 +55,27 @@ public interface ReadOnlyGameState
      */
     long getTime();
 
+    /**
+     * Evaluates all time-dependent values of this state at the current instant, reading the clock once.
+     * <p>
+     * Prefer this over the individual timing methods when reading several values together, such as when
+     * encoding a message or updating the UI, so that all values are consistent with one another.
+     */
+    @NotNull
+    GameTiming getTiming();
+
+    /**
+     * Evaluates all time-dependent values of this state at the current instant, reading the clock once, and
+     * stores them in an existing instance. Unlike {@link #getTiming()}, this does not allocate.
+     */
+    void updateTiming(@NotNull GameTiming timing);
+
+    /**
+     * Gets whether this state holds the same values as another. As clocks are stored as the times at which
+     * they were started, states that differ only by time having passed are the same.
+     */
+    boolean isSameAs(@NotNull ReadOnlyGameState other);
+
     /**
      * Returns the number of seconds since a certain timestamp.
      *
@@ -131,6 +152,14 @@ public interface ReadOnlyGameState
      */
     int getSecsRemaining();
 
+    /**
+     * Calculates the remaining game time in the current phase of the game, in milliseconds.
+     * <p>
+     * Rounded up to whole seconds, equals {@link #getSecsRemaining()}, unless the clock has been set back
+     * in test mode to before the start of the period.
+     */
+    int getMillisRemaining();
+
     /**
      * Play-mode-specific sub-time in seconds.
      *
@@ -139,6 +168,11 @@ public interface ReadOnlyGameState
      */
     int getSecondaryTime();
 
+    /**
+     * Play-mode-specific sub-time in milliseconds. See {@link #getSecondaryTime()}.
+     */
+    int getSecondaryTimeMillis();
+
     ////////////////////////// MISCELLANEOUS
 
     /** The type of active game period (normal, overtime, penalties, timeout). */
@@ -5,6 +5,7 @@ import common.annotations.NotNull;
 import common.annotations.Nullable;
 import data.*;
 
+import java.nio.ByteBuffer;
 import java.util.*;
 
 /**
@@ -16,20 +17,38 @@ import java.util.*;
  *     <li>{@link TeamState#clone()} produces an exact copy. This mechanism is used to enable 'undo' functionality.</li>
  * </ul>
  *
+ * The mutable state of each player is packed into primitive arrays held by this object, indexed by uniform
+ * number minus one, with any coach at the last index. {@link PlayerState} objects are lightweight views over
+ * these arrays, created on demand, so cloning copies a few arrays rather than an object per player.
+ *
  * @author Michel Bartsch
  * @author Drew Noakes https://drewnoakes.com
  */
 public class TeamState implements WriteableTeamState, ReadOnlyTeamState, Iterable<PlayerState>
 {
-    // NOTE if a new field is added here, be sure to include it in the copy constructor
+    // NOTE if a new field is added here, be sure to include it in the copy constructor, writeTo and readFrom
 
     /** Immutable metadata about the team. */
     @NotNull private final Team team;
     @NotNull private TeamColor teamColor;
-    /** The list of players in this team. Does not include the coach. */
-    @NotNull private final List<PlayerState> players;
-    /** Data about the team's coach (only used in SPL). */
-    @Nullable private final PlayerState coach;
+    @NotNull private final Game game;
+    /** The number of players in this team. Does not include the coach. */
+    private final int playerCount;
+    /** Whether this team has a coach (only used in SPL). */
+    private final boolean hasCoach;
+
+    /** The ordinal of each player's {@link Penalty}. */
+    @NotNull private byte[] penalties;
+    /** When each player was penalised. */
+    @NotNull private long[] whenPenalized;
+    /** Whether each player has been ejected. */
+    @NotNull private boolean[] ejected;
+
+    /**
+     * Views over the player arrays, created on demand. Not copied by clones. As views hold no state of their own,
+     * threads that race to create one create equivalent views.
+     */
+    @Nullable private PlayerState[] views;
     /** Keeps the penalties for the players if there are substituted. */
     @NotNull
     private final Queue<QueuedPenalty> penaltyQueue;
@@ -56,38 +75,53 @@ public class TeamState implements WriteableTeamState, ReadOnlyTeamState, Iterabl
 
         League league = game.league();
 
-        List<PlayerState> players = new ArrayList<PlayerState>(league.rules().getTeamSize());
+        this.game = game;
+        this.playerCount = league.rules().getTeamSize();
+        this.hasCoach = league.isSPLFamily();
 
-        for (int uniformNumber = 1; uniformNumber <= league.rules().getTeamSize(); uniformNumber++) {
-            players.add(new PlayerState(game, uniformNumber, false));
-        }
+        int slots = playerCount + (hasCoach ? 1 : 0);
+        penalties = new byte[slots];
+        whenPenalized = new long[slots];
+        ejected = new boolean[slots];
 
-        this.players = Collections.unmodifiableList(players);
+        Arrays.fill(penalties, (byte)Penalty.None.ordinal());
 
-        if (league.isSPLFamily()) {
-            coach = new PlayerState(game, -1, true);
+        if (hasCoach)
             coachMessage = new byte[SPLCoachMessage.SIZE];
-        } else {
-            coach = null;
-        }
     }
 
-    /** Private copy constructor. */
-    private TeamState(@NotNull TeamState source)
+    /**
+     * Private copy constructor.
+     *
+     * @param source the state to copy.
+     * @param previous if non-null, a copy of an earlier state of the same team, which must never be modified.
+     *                 Player arrays and the penalty queue are shared with it where unchanged, rather than copied.
+     */
+    private TeamState(@NotNull TeamState source, @Nullable TeamState previous)
     {
         // Note, we don't deep clone the immutable team metadata object
         team = source.team;
-
-        // Deep clone the player states
-        players = new ArrayList<PlayerState>();
-        for (PlayerState player : source.players)
-            players.add(player.clone());
-
-        // Shallow clone the penalty queue (its items are immutable)
-        penaltyQueue = new ArrayDeque<QueuedPenalty>(source.penaltyQueue);
+        game = source.game;
+        playerCount = source.playerCount;
+        hasCoach = source.hasCoach;
+
+        // Copy the player arrays, unless shared with the previous copy
+        penalties = previous != null && Arrays.equals(source.penalties, previous.penalties)
+                ? previous.penalties
+                : source.penalties.clone();
+        whenPenalized = previous != null && Arrays.equals(source.whenPenalized, previous.whenPenalized)
+                ? previous.whenPenalized
+                : source.whenPenalized.clone();
+        ejected = previous != null && Arrays.equals(source.ejected, previous.ejected)
+                ? previous.ejected
+                : source.ejected.clone();
+
+        // Shallow clone the penalty queue (its items are immutable), unless shared with the previous copy
+        penaltyQueue = previous != null && isSameQueue(source.penaltyQueue, previous.penaltyQueue)
+                ? previous.penaltyQueue
+                : new ArrayDeque<QueuedPenalty>(source.penaltyQueue);
 
         // Make copies of most field values
-        coach = source.coach;
         teamColor = source.teamColor;
         score = source.score;
         penaltyShotCount = source.penaltyShotCount;
@@ -103,7 +137,56 @@ public class TeamState implements WriteableTeamState, ReadOnlyTeamState, Iterabl
     @Override
     public TeamState clone()
     {
-        return new TeamState(this);
+        return new TeamState(this, null);
+    }
+
+    /**
+     * Copies this state for storage in the game's timeline, sharing unchanged state with the team's copy in the
+     * previous timeline entry. If nothing has changed, that copy is returned. The result must never be modified.
+     *
+     * @param previous the team's state in the previous timeline entry, or <code>null</code> if there is none.
+     */
+    @NotNull
+    TeamState cloneForTimeline(@Nullable TeamState previous)
+    {
+        if (previous != null && isSameAs(previous))
+            return previous;
+
+        return new TeamState(this, previous);
+    }
+
+    /** Gets whether this team's state is identical to that of another team state object. */
+    boolean isSameAs(@NotNull TeamState other)
+    {
+        return team == other.team
+            && teamColor == other.teamColor
+            && score == other.score
+            && penaltyShotCount == other.penaltyShotCount
+            && penaltyShotFlags == other.penaltyShotFlags
+            && pushCount == other.pushCount
+            && isTimeoutActive == other.isTimeoutActive
+            && isTimeoutTaken == other.isTimeoutTaken
+            && coachMessage == other.coachMessage
+            && pendingSplCoachMessage == other.pendingSplCoachMessage
+            && lastCoachMessageReceiveTimeMillis == other.lastCoachMessageReceiveTimeMillis
+            && Arrays.equals(penalties, other.penalties)
+            && Arrays.equals(whenPenalized, other.whenPenalized)
+            && Arrays.equals(ejected, other.ejected)
+            && isSameQueue(penaltyQueue, other.penaltyQueue);
+    }
+
+    private static boolean isSameQueue(@NotNull Queue<QueuedPenalty> a, @NotNull Queue<QueuedPenalty> b)
+    {
+        if (a.size() != b.size())
+            return false;
+
+        Iterator<QueuedPenalty> ia = a.iterator();
+        Iterator<QueuedPenalty> ib = b.iterator();
+        while (ia.hasNext()) {
+            if (ia.next() != ib.next())
+                return false;
+        }
+        return true;
     }
 
     @Override
@@ -139,13 +222,13 @@ public class TeamState implements WriteableTeamState, ReadOnlyTeamState, Iterabl
         if (uniformNumber < 1 || uniformNumber > getPlayerCount())
             throw new IllegalArgumentException("Invalid player uniform number: " + uniformNumber);
 
-        return players.get(uniformNumber - 1);
+        return getView(uniformNumber - 1);
     }
 
     @Override
     public int getPlayerCount()
     {
-        return players.size();
+        return playerCount;
     }
 
     /**
@@ -159,8 +242,8 @@ public class TeamState implements WriteableTeamState, ReadOnlyTeamState, Iterabl
         // TODO shouldn't this always be equal to the number defined in the league config?
         int count = 0;
 
-        for (PlayerState player : players)
-            if (player.getPenalty() != Penalty.Substitute)
+        for (int i = 0; i < playerCount; i++)
+            if (penalties[i] != Penalty.Substitute.ordinal())
                 count++;
 
         return count;
@@ -251,10 +334,10 @@ public class TeamState implements WriteableTeamState, ReadOnlyTeamState, Iterabl
     @NotNull
     public PlayerState getCoach()
     {
-        if (coach == null)
+        if (!hasCoach)
             throw new AssertionError("Coach is only used in the SPL.");
 
-        return coach;
+        return getView(playerCount);
     }
 
     @Override
@@ -266,25 +349,35 @@ public class TeamState implements WriteableTeamState, ReadOnlyTeamState, Iterabl
         }
 
         // How long has it been since we last received a message from this team's coach?
-        long age = System.currentTimeMillis() - lastCoachMessageReceiveTimeMillis;
+        long now = game.currentTimeMillis();
+        long age = now - lastCoachMessageReceiveTimeMillis;
 
         if (age >= SPLCoachMessage.SPL_COACH_MESSAGE_RECEIVE_INTERVAL) {
-            // Enough time has passed
-            lastCoachMessageReceiveTimeMillis = System.currentTimeMillis();
+            // Enough time has passed. Don't let the new message displace one that is already due.
+            updateCoachMessage();
+            lastCoachMessageReceiveTimeMillis = now;
             pendingSplCoachMessage = message;
         }
     }
 
     @Override
-    @Nullable
-    public byte[] getCoachMessage()
+    public void updateCoachMessage()
     {
-        // First, see whether another coach message has become ready to send
-        if (pendingSplCoachMessage != null && pendingSplCoachMessage.getRemainingTimeToSend() == 0) {
+        if (pendingSplCoachMessage != null && pendingSplCoachMessage.getRemainingTimeToSend(game.currentTimeMillis()) == 0) {
             coachMessage = pendingSplCoachMessage.bytes;
             pendingSplCoachMessage = null;
             Log.toFile("Sending coach message (team " + teamColor + "): " + new String(coachMessage));
         }
+    }
+
+    @Override
+    @Nullable
+    public byte[] getCoachMessage()
+    {
+        // A pending message that has become ready to send takes effect immediately, without modifying
+        // this object, so that published snapshots are never changed by their readers
+        if (pendingSplCoachMessage != null && pendingSplCoachMessage.getRemainingTimeToSend(game.currentTimeMillis()) == 0)
+            return pendingSplCoachMessage.bytes;
 
         return coachMessage;
     }
@@ -356,6 +449,148 @@ public class TeamState implements WriteableTeamState, ReadOnlyTeamState, Iterabl
     @Override
     public Iterator<PlayerState> iterator()
     {
-        return players.iterator();
+        PlayerState[] players = new PlayerState[playerCount];
+        for (int i = 0; i < playerCount; i++)
+            players[i] = getView(i);
+        return Arrays.asList(players).iterator();
+    }
+
+    ////////////////////////// PACKED PLAYER DATA //////////////////////////
+
+    /** The penalty values, indexed by ordinal. Cached as {@link Penalty#values()} allocates on every call. */
+    private static final Penalty[] PENALTY_VALUES = Penalty.values();
+
+    @NotNull
+    private PlayerState getView(int index)
+    {
+        PlayerState[] views = this.views;
+        if (views == null)
+            this.views = views = new PlayerState[penalties.length];
+
+        PlayerState view = views[index];
+        if (view == null)
+            views[index] = view = new PlayerState(this, index);
+
+        return view;
+    }
+
+    @NotNull
+    Game getGame()
+    {
+        return game;
+    }
+
+    boolean isCoachIndex(int index)
+    {
+        return hasCoach && index == playerCount;
+    }
+
+    @NotNull
+    Penalty getPenalty(int index)
+    {
+        return PENALTY_VALUES[penalties[index]];
+    }
+
+    void setPenalty(int index, @NotNull Penalty penalty)
+    {
+        penalties[index] = (byte)penalty.ordinal();
+    }
+
+    long getWhenPenalized(int index)
+    {
+        return whenPenalized[index];
+    }
+
+    void setWhenPenalized(int index, long when)
+    {
+        whenPenalized[index] = when;
+    }
+
+    boolean isEjected(int index)
+    {
+        return ejected[index];
+    }
+
+    void setEjected(int index, boolean isEjected)
+    {
+        ejected[index] = isEjected;
+    }
+
+    ////////////////////////// BINARY FORM //////////////////////////
+
+    /** Writes this state to a buffer in the form read by {@link TeamState#readFrom}. See {@link GameState#writeTo}. */
+    void writeTo(@NotNull ByteBuffer buffer)
+    {
+        buffer.putShort((short)getTeamNumber());
+        buffer.put((byte)penalties.length);
+        buffer.put(penalties);
+        for (long when : whenPenalized)
+            buffer.putLong(when);
+        for (boolean isEjected : ejected)
+            GameJournal.putBoolean(buffer, isEjected);
+
+        buffer.put((byte)penaltyQueue.size());
+        for (QueuedPenalty queued : penaltyQueue) {
+            buffer.putLong(queued.getWhenPenalized());
+            GameJournal.putEnum(buffer, queued.getPenalty());
+        }
+
+        GameJournal.putEnum(buffer, teamColor);
+        buffer.putInt(score);
+        buffer.putInt(penaltyShotCount);
+        buffer.putShort(penaltyShotFlags);
+        buffer.putInt(pushCount);
+        GameJournal.putBoolean(buffer, isTimeoutActive);
+        GameJournal.putBoolean(buffer, isTimeoutTaken);
+
+        GameJournal.putBytes(buffer, coachMessage);
+        GameJournal.putBoolean(buffer, pendingSplCoachMessage != null);
+        if (pendingSplCoachMessage != null)
+            GameJournal.putCoachMessage(buffer, pendingSplCoachMessage);
+        buffer.putLong(lastCoachMessageReceiveTimeMillis);
+    }
+
+    /**
+     * Overwrites this state with one read from a buffer, as written by {@link TeamState#writeTo}.
+     *
+     * @throws IllegalArgumentException if the data is invalid, or was written for a different team.
+     */
+    void readFrom(@NotNull ByteBuffer buffer)
+    {
+        if (buffer.getShort() != getTeamNumber() || buffer.get() != penalties.length)
+            throw new IllegalArgumentException("State was written for a different team.");
+
+        // Fill new arrays, as the current ones may be shared with a timeline entry
+        penalties = new byte[penalties.length];
+        buffer.get(penalties);
+        for (byte penalty : penalties) {
+            if (penalty < 0 || penalty >= PENALTY_VALUES.length)
+                throw new IllegalArgumentException("Invalid penalty: " + penalty);
+        }
+        whenPenalized = new long[whenPenalized.length];
+        for (int i = 0; i < whenPenalized.length; i++)
+            whenPenalized[i] = buffer.getLong();
+        ejected = new boolean[ejected.length];
+        for (int i = 0; i < ejected.length; i++)
+            ejected[i] = GameJournal.getBoolean(buffer);
+
+        penaltyQueue.clear();
+        int queueSize = buffer.get() & 0xFF;
+        for (int i = 0; i < queueSize; i++) {
+            long when = buffer.getLong();
+            penaltyQueue.add(new QueuedPenalty(when, GameJournal.getEnum(buffer, PENALTY_VALUES, false)));
+        }
+
+        teamColor = GameJournal.getEnum(buffer, TeamColor.values(), false);
+        score = buffer.getInt();
+        penaltyShotCount = buffer.getInt();
+        penaltyShotFlags = buffer.getShort();
+        pushCount = buffer.getInt();
+        isTimeoutActive = GameJournal.getBoolean(buffer);
+        isTimeoutTaken = GameJournal.getBoolean(buffer);
+
+        coachMessage = GameJournal.getBytes(buffer);
+        pendingSplCoachMessage = GameJournal.getBoolean(buffer) ? GameJournal.getCoachMessage(buffer) : null;
+        lastCoachMessageReceiveTimeMillis = buffer.getLong();
     }
 }
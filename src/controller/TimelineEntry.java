@@ -17,6 +17,12 @@ public class TimelineEntry
         this.state = state;
     }
 
+    /**
+     * Gets the state recorded by this entry.
+     * <p>
+     * The state's {@link GameState#getWhenCurrentPlayModeBegan()} is stored relative to an offset held by the
+     * {@link Game}, which adds that offset when restoring the state.
+     */
     @NotNull
     public GameState getState()
     {
@@ -95,6 +95,9 @@ public interface WriteableTeamState extends ReadOnlyTeamState
      */
     void receiveSplCoachMessage(@NotNull SPLCoachMessage message);
 
+    /** Makes any pending coach message that has become ready to send the team's current coach message (SPL only). */
+    void updateCoachMessage();
+
     /** Sets the number of pushes called on this team (SPL only). */
     void setPushCount(int pushCount);
 }
@@ -1,6 +1,8 @@
 package controller.action;
 
 import common.annotations.NotNull;
+import common.annotations.Nullable;
+import controller.Action;
 import controller.action.clock.ClockTick;
 import controller.action.net.Manual;
 import controller.action.ui.*;
@@ -9,6 +11,11 @@ import controller.action.ui.period.*;
 import controller.action.ui.playmode.*;
 import data.*;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * This class holds global instances of most actions, for when you want to
  * execute or identify them.
@@ -75,6 +82,10 @@ public class ActionBoard
     public static ReadOnlyPair<Manual[]> manualPen;
     public static ReadOnlyPair<Manual[]> manualUnpen;
 
+    /** All of the above actions, indexed by id. */
+    private static List<Action> actions;
+    private static Map<Action, Integer> ids;
+
     private ActionBoard() {}
 
     /**
@@ -153,5 +164,52 @@ public class ActionBoard
                 manualUnpen.get(side)[j] = new Manual(side, j + 1, true);
             }
         }
+
+        // Number all actions. Ids depend only upon the league, so are the same each time a game is initialised.
+        actions = new ArrayList<Action>();
+        ids = new IdentityHashMap<Action, Integer>();
+
+        register(clock, quit, testmode, cancelUndo);
+        register(undo);
+        for (UISide side : UISide.both()) {
+            register(goalDec.get(side), goalInc.get(side), kickOff.get(side), timeout.get(side), stuck.get(side), out.get(side));
+            register(robotButton.get(side));
+            register(manualPen.get(side));
+            register(manualUnpen.get(side));
+        }
+        register(clockReset, clockPause, incGameClock, firstHalf, secondHalf, firstHalfOvertime, secondHalfOvertime,
+                penaltyShoot, refereeTimeout, initial, ready, set, play, finish);
+        register(pushing, leaving, fallen, inactive, defender, holding, hands, pickUpSPL, ballManipulation, attack,
+                defense, pickUpHL, service, coachMotion, teammatePushing, substitute, dropBall);
+    }
+
+    private static void register(@NotNull Action... newActions)
+    {
+        for (Action action : newActions) {
+            ids.put(action, actions.size());
+            actions.add(action);
+        }
+    }
+
+    /**
+     * Gets a number that identifies one of the actions held by this class, for use when recording actions.
+     *
+     * @return the action's id, or -1 if the action is not held by this class.
+     */
+    public static int getId(@NotNull Action action)
+    {
+        Integer id = ids.get(action);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gets the action with the specified id, as returned by {@link ActionBoard#getId}.
+     *
+     * @return the action, or <code>null</code> if the id is unknown.
+     */
+    @Nullable
+    public static Action getAction(int id)
+    {
+        return id >= 0 && id < actions.size() ? actions.get(id) : null;
     }
 }
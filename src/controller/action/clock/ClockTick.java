@@ -5,6 +5,7 @@ import controller.*;
 import controller.action.ActionBoard;
 import controller.action.ActionTrigger;
 import data.PlayMode;
+import data.TeamColor;
 
 /**
  * This action means that some time has passed.
@@ -16,6 +17,9 @@ public class ClockTick extends Action
     @Override
     public void execute(@NotNull Game game, @NotNull WriteableGameState state)
     {
+        for (TeamColor color : TeamColor.values())
+            state.getTeam(color).updateCoachMessage();
+
         if (state.is(PlayMode.Ready) && state.getSecondsSince(state.getWhenCurrentPlayModeBegan()) >= game.rules().getReadyPlayModeDurationSeconds()) {
             game.apply(ActionBoard.set, ActionTrigger.Clock);
         } else if (state.is(PlayMode.Finished)) {
@@ -43,13 +43,13 @@ public class Manual extends Action
             player.setWhenPenalized(state.getTime());
 
             if (!state.is(PlayMode.Initial) && !state.is(PlayMode.Finished)) {
-                game.pushState("Manually Penalised " + team.getTeamColor() + " " + uniformNumber);
+                game.pushState("Manually Penalised", team, uniformNumber);
             }
         } else {
             player.setPenalty(Penalty.None);
 
             if (!state.is(PlayMode.Initial) && !state.is(PlayMode.Finished)) {
-                game.pushState("Manually Unpenalised " + team.getTeamColor() + " " + uniformNumber);
+                game.pushState("Manually Unpenalised", team, uniformNumber);
             }
         }
     }
@@ -21,6 +21,13 @@ public class SPLCoachMessageReceived extends Action
     {
         this.message = message;
     }
+
+    /** Gets the message received. */
+    @NotNull
+    public SPLCoachMessage getMessage()
+    {
+        return message;
+    }
     
     @Override
     public void execute(@NotNull Game game, @NotNull WriteableGameState state)
@@ -35,7 +35,7 @@ public class GlobalStuck extends Action
         game.apply(ActionBoard.ready, ActionTrigger.User);
 
         if (state.getRemainingSeconds(state.getWhenCurrentPlayModeBegan(), game.rules().getKickOffDurationSeconds() + game.rules().getMinDurationBeforeStuckGameAllowed()) > 0) {
-            game.pushState("Kickoff Goal " + team.getTeamColor());
+            game.pushState("Kickoff Goal", team);
         } else {
             game.pushState("Global Game Stuck, Kickoff " + state.getNextKickOffColor());
         }
@@ -46,14 +46,14 @@ public class Goal extends Action
             if (!state.is(Period.PenaltyShootout)) {
                 state.setNextKickOffColor(team.getTeamColor().other());
                 ActionBoard.ready.forceExecute(game, state);
-                game.pushState("Goal for " + team.getTeamColor());
+                game.pushState("Goal for", team);
             } else {
                 team.addPenaltyGoal();
                 game.apply(ActionBoard.finish, ActionTrigger.User);
-                game.pushState("Goal for " + team.getTeamColor());
+                game.pushState("Goal for", team);
             }
         } else {
-            game.pushState("Goal decrease for " + team.getTeamColor());
+            game.pushState("Goal decrease for", team);
         }
     }
     
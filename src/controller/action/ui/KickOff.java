@@ -30,7 +30,7 @@ public class KickOff extends Action
 
         if (state.getNextKickOffColor() != team.getTeamColor()) {
             state.setNextKickOffColor(team.getTeamColor());
-            game.pushState("Kickoff " + team.getTeamColor());
+            game.pushState("Kickoff", team);
         }
     }
     
@@ -28,7 +28,7 @@ public class Out extends Action
     {
         state.setWhenDropIn(state.getTime());
         state.setLastDropInColor(state.getTeam(side).getTeamColor());
-        game.pushState("Out by " + state.getTeam(side).getTeamColor());
+        game.pushState("Out by", state.getTeam(side));
     }
     
     @Override
@@ -49,14 +49,14 @@ public class RobotButton extends Action
                 player.setPenalty(queuedPenalty.getPenalty());
                 player.setWhenPenalized(queuedPenalty.getWhenPenalized());
             }
-            game.pushState("Entering Player " + team.getTeamColor() + " " + uniformNumber);
+            game.pushState("Entering Player", team, uniformNumber);
         } else if (game.getLastUserAction() instanceof RobotAction) {
             RobotAction robotAction = (RobotAction)game.getLastUserAction();
             robotAction.executeForRobot(game, state, team, player);
         } else if (player.isPenalized()) {
             // Clear the robot's existing penalty
             player.setPenalty(Penalty.None);
-            game.pushState("Unpenalised " + team.getTeamColor() + " " + uniformNumber);
+            game.pushState("Unpenalised", team, uniformNumber);
         }
     }
     
@@ -16,6 +16,6 @@ public class Attack extends PenaltyAction
     {
         player.setPenalty(Penalty.HLIllegalAttack);
         player.setWhenPenalized(state.getTime());
-        game.pushState("Illegal Attack " + team.getTeamColor() + " " + player.getUniformNumber());
+        game.pushState("Illegal Attack", team, player.getUniformNumber());
     }
 }
@@ -20,6 +20,6 @@ public class BallManipulation extends PenaltyAction
     {
         player.setPenalty(Penalty.HLBallManipulation);
         player.setWhenPenalized(state.getTime());
-        game.pushState("Ball Manipulation " + team.getTeamColor() + " " + player.getUniformNumber());
+        game.pushState("Ball Manipulation", team, player.getUniformNumber());
     }
 }
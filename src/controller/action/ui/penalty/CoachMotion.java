@@ -13,7 +13,7 @@ public class CoachMotion extends PenaltyAction
         player.setPenalty(Penalty.SplCoachMotion);
         player.setWhenPenalized(state.getTime());
         player.setEjected(true);
-        game.pushState("Coach Motion " + team.getTeamColor() + " " + player.getUniformNumber());
+        game.pushState("Coach Motion", team, player.getUniformNumber());
     }
     
     @Override
@@ -17,6 +17,6 @@ public class Defender extends PenaltyAction
     {
         player.setPenalty(Penalty.SplIllegalDefender);
         player.setWhenPenalized(state.getTime());
-        game.pushState("Illegal Defender " + team.getTeamColor() + " " + player.getUniformNumber());
+        game.pushState("Illegal Defender", team, player.getUniformNumber());
     }
 }
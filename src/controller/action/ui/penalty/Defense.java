@@ -16,6 +16,6 @@ public class Defense extends PenaltyAction
     {
         player.setPenalty(Penalty.HLIllegalDefense);
         player.setWhenPenalized(state.getTime());
-        game.pushState("Illegal Defense " + team.getTeamColor() + " " + player.getUniformNumber());
+        game.pushState("Illegal Defense", team, player.getUniformNumber());
     }
 }
@@ -18,7 +18,7 @@ public class Fallen extends PenaltyAction
     {
         player.setPenalty(Penalty.SplObstruction);
         player.setWhenPenalized(state.getTime());
-        game.pushState("Fallen Robot " + team.getTeamColor() + " " + player.getUniformNumber());
+        game.pushState("Fallen Robot", team, player.getUniformNumber());
     }
     
     @Override
@@ -17,6 +17,6 @@ public class Hands extends PenaltyAction
     {
         player.setPenalty(Penalty.SplPlayingWithHands);
         player.setWhenPenalized(state.getTime());
-        game.pushState("Playing with Hands " + team.getTeamColor() + " " + player.getUniformNumber());
+        game.pushState("Playing with Hands", team, player.getUniformNumber());
     }
 }
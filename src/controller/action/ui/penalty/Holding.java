@@ -17,6 +17,6 @@ public class Holding extends PenaltyAction
     {
         player.setPenalty(Penalty.SplBallHolding);
         player.setWhenPenalized(state.getTime());
-        game.pushState("Ball Holding " + team.getTeamColor() + " " + player.getUniformNumber());
+        game.pushState("Ball Holding", team, player.getUniformNumber());
     }
 }
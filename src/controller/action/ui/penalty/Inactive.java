@@ -18,7 +18,7 @@ public class Inactive extends PenaltyAction
     {
         player.setPenalty(Penalty.SplInactivePlayer);
         player.setWhenPenalized(state.getTime());
-        game.pushState("Inactive Player " + team.getTeamColor() + " " + player.getUniformNumber());
+        game.pushState("Inactive Player", team, player.getUniformNumber());
     }
     
     @Override
@@ -18,7 +18,7 @@ public class Leaving extends PenaltyAction
     {
         player.setPenalty(Penalty.SplLeavingTheField);
         player.setWhenPenalized(state.getTime());
-        game.pushState("Leaving the Field " + team.getTeamColor() + " " + player.getUniformNumber());
+        game.pushState("Leaving the Field", team, player.getUniformNumber());
     }
 
     @Override
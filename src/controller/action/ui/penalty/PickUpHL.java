@@ -19,7 +19,7 @@ public class PickUpHL extends PenaltyAction
         }
 
         player.setPenalty(Penalty.HLPickupOrIncapable);
-        game.pushState("Request for PickUp / Incapable Player " + team.getTeamColor() + " " + player.getUniformNumber());
+        game.pushState("Request for PickUp / Incapable Player", team, player.getUniformNumber());
     }
 
     @Override
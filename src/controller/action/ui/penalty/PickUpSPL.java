@@ -20,7 +20,7 @@ public class PickUpSPL extends PenaltyAction
         }
 
         player.setPenalty(Penalty.SplRequestForPickup);
-        game.pushState("Request for PickUp " + team.getTeamColor() + " " + player.getUniformNumber());
+        game.pushState("Request for PickUp", team, player.getUniformNumber());
     }
 
     @Override
@@ -27,7 +27,7 @@ public class Pushing extends PenaltyAction
             }
         }
 
-        game.pushState("Player Pushing " + team.getTeamColor() + " " + player.getUniformNumber());
+        game.pushState("Player Pushing", team, player.getUniformNumber());
     }
     
     @Override
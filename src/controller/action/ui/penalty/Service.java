@@ -17,10 +17,10 @@ public class Service extends PenaltyAction
         if (!player.isPenalized()) {
             player.setWhenPenalized(state.getTime());
             player.setPenalty(Penalty.Service);
-            game.pushState("Request for Service " + team.getTeamColor() + " " + player.getUniformNumber());
+            game.pushState("Request for Service", team, player.getUniformNumber());
         } else {
             player.setPenalty(Penalty.Service);
-            game.pushState("Additional Request for Service " + team.getTeamColor() + " " + player.getUniformNumber());
+            game.pushState("Additional Request for Service", team, player.getUniformNumber());
         }
     }
 
@@ -22,7 +22,7 @@ public class Substitute extends PenaltyAction
 
         player.setPenalty(Penalty.Substitute);
         player.setWhenPenalized(state.getTime());
-        game.pushState("Leaving Player " + team.getTeamColor() + " " + player.getUniformNumber());
+        game.pushState("Leaving Player", team, player.getUniformNumber());
     }
     
     @Override
@@ -10,7 +10,7 @@ public class TeammatePushing extends PenaltyAction
     public void executeForRobot(@NotNull Game game, @NotNull WriteableGameState state, @NotNull WriteableTeamState team,
                                 @NotNull WriteablePlayerState player)
     {
-        game.pushState("Teammate Pushing " + team.getTeamColor() + " " + player.getUniformNumber());
+        game.pushState("Teammate Pushing", team, player.getUniformNumber());
     }
 
     @Override
@@ -46,7 +46,7 @@ public class Timeout extends Action
             }
 
             ActionBoard.initial.forceExecute(game, state);
-            game.pushState("Timeout " + team.getTeamColor());
+            game.pushState("Timeout", team);
         } else {
             // Completing a timeout
             state.setPeriod(state.getPreviousPeriod());
@@ -54,7 +54,7 @@ public class Timeout extends Action
             team.setTimeoutActive(false);
             if (!state.is(Period.PenaltyShootout)) {
                 ActionBoard.ready.forceExecute(game, state);
-                game.pushState("End of Timeout " + team.getTeamColor());
+                game.pushState("End of Timeout", team);
             }
         }
     }
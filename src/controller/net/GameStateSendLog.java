@@ -0,0 +1,109 @@
+package controller.net;
+
+/**
+ * Records when each game state message was sent, so that the messages robots acknowledge may be turned
+ * into measures of how far each robot's state is behind the controller's.
+ * <p>
+ * Messages are identified by their protocol version and 8-bit packet number. Only the last 256 messages
+ * of each version can be told apart, so a robot acknowledging an older message is taken to acknowledge
+ * the most recent message having the same packet number.
+ * <p>
+ * Written by the {@link GameStateSender}'s thread, and read by the threads handling robot messages and the UI.
+ */
+public class GameStateSendLog
+{
+    /** The log of each protocol version, indexed by version number, or <code>null</code> if not sent. */
+    private final VersionLog[] versions = new VersionLog[256];
+
+    /**
+     * Prepares to record messages of a protocol version, so that recording them does not allocate.
+     */
+    synchronized void addVersion(byte version)
+    {
+        if (versions[version & 0xFF] == null)
+            versions[version & 0xFF] = new VersionLog();
+    }
+
+    /**
+     * Records that a message was sent.
+     *
+     * @param isPlayModeChange whether the message is the first to carry the current play mode.
+     * @param nanos when the message was sent, from {@link System#nanoTime()}.
+     */
+    synchronized void recordSent(byte version, byte packetNumber, boolean isPlayModeChange, long nanos)
+    {
+        VersionLog log = versions[version & 0xFF];
+        assert(log != null) : "Version " + version + " was not added";
+
+        int index = packetNumber & 0xFF;
+        log.sentNanos[index] = nanos;
+        log.isSent[index] = true;
+        log.latest = index;
+        log.hasSent = true;
+
+        if (isPlayModeChange) {
+            log.playModeChange = index;
+            log.hasPlayModeChange = true;
+        }
+    }
+
+    /**
+     * Gets the number of messages sent since the acknowledged message.
+     *
+     * @return the number of messages, or -1 if the acknowledged message was never sent.
+     */
+    public synchronized int getPacketsBehind(byte version, byte packetNumber)
+    {
+        VersionLog log = versions[version & 0xFF];
+        if (log == null || !log.hasSent || !log.isSent[packetNumber & 0xFF])
+            return -1;
+
+        return (log.latest - packetNumber) & 0xFF;
+    }
+
+    /**
+     * Gets how long it is since the first message after the acknowledged message was sent, being the time
+     * for which the robot has lacked the controller's latest state.
+     *
+     * @param nowNanos the current time, from {@link System#nanoTime()}.
+     * @return the number of milliseconds, zero if the acknowledged message is the latest sent, or -1 if the
+     *         acknowledged message was never sent.
+     */
+    public synchronized long getMillisBehind(byte version, byte packetNumber, long nowNanos)
+    {
+        int packetsBehind = getPacketsBehind(version, packetNumber);
+        if (packetsBehind <= 0)
+            return packetsBehind;
+
+        VersionLog log = versions[version & 0xFF];
+        return (nowNanos - log.sentNanos[(packetNumber + 1) & 0xFF]) / 1000000;
+    }
+
+    /**
+     * Gets whether the latest change of play mode was sent after the acknowledged message, so that the robot
+     * is yet to act upon it.
+     */
+    public synchronized boolean isBehindPlayModeChange(byte version, byte packetNumber)
+    {
+        int packetsBehind = getPacketsBehind(version, packetNumber);
+        if (packetsBehind <= 0)
+            return false;
+
+        VersionLog log = versions[version & 0xFF];
+        return log.hasPlayModeChange && ((log.latest - log.playModeChange) & 0xFF) < packetsBehind;
+    }
+
+    private static class VersionLog
+    {
+        /** When each packet number was last sent, from {@link System#nanoTime()}. */
+        final long[] sentNanos = new long[256];
+        /** Whether each packet number has been sent. */
+        final boolean[] isSent = new boolean[256];
+        /** The packet number of the last message sent, if {@link #hasSent}. */
+        int latest;
+        boolean hasSent;
+        /** The packet number of the first message carrying the current play mode, if {@link #hasPlayModeChange}. */
+        int playModeChange;
+        boolean hasPlayModeChange;
+    }
+}
@@ -1,20 +1,38 @@
 package controller.net;
 
+import common.EventHandler;
 import common.Interval;
+import common.LatencyMetric;
 import common.Log;
 import common.annotations.NotNull;
 import controller.Config;
 import controller.ReadOnlyGameState;
 import controller.net.protocol.GameStateProtocol;
 import controller.Game;
+import controller.GameTiming;
+import data.PlayMode;
 
+import java.io.IOException;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
- * This class is used to send the current {@link controller.GameState} to all robots every 500 ms.
+ * This class is used to send the current {@link controller.GameState} to all robots.
  * The packet will be sent via UDP broadcast on port {@link Config#GAME_STATE_PORT}.
+ * <p>
+ * State is sent as soon as possible after it changes. Bursts of changes are coalesced, so that no more
+ * than one packet per protocol is sent within {@link Config#GAME_STATE_MIN_PUSH_PERIOD_MILLIS}. If the
+ * state does not change, a heartbeat packet is sent at a league- and play-mode-specific rate, as specified
+ * by {@link leagues.LeagueRules#getGameStateSendPeriodMillis}.
+ * <p>
+ * Each protocol is given a preallocated direct buffer into which messages are encoded, so that
+ * once started, sending state does not allocate.
+ * <p>
+ * Each message sent is recorded in a {@link GameStateSendLog}, against which robots' acknowledgements are measured.
  *
  * @author Marcel Steinbeck
  * @author Drew Noakes https://drewnoakes.com
@@ -24,39 +42,82 @@ public class GameStateSender
     /** The thread instance owned by this sender class. */
     private final SenderThread senderThread;
 
-    /** The socket, which is used to send the current game-state */
-    private final DatagramSocket datagramSocket;
+    /** The channel, which is used to send the current game-state */
+    private final DatagramChannel datagramChannel;
 
-    /** The used inet-address (the broadcast address). */
-    private final InetAddress group;
+    /** The destination of sent packets (the broadcast address and game state port). */
+    private final InetSocketAddress target;
 
-    private final List<GameStateProtocol> protocols = new ArrayList<GameStateProtocol>();
+    /** The protocols to send, each paired with the buffer it encodes into. */
+    private final List<Outbox> outboxes = new ArrayList<Outbox>();
 
     /** The game about which to publish state. */
     private final Game game;
 
+    /** Guards the fields that coordinate pushing state changes to the sender thread. */
+    private final Object pushLock = new Object();
+
+    /** The last state published that differed from the one before it. Only used by the game thread. */
+    private ReadOnlyGameState lastChangedState;
+
+    /** Whether the game state has changed since it was last sent. Guarded by {@link #pushLock}. */
+    private boolean isChangePending = false;
+
+    /** When the oldest unsent change occurred, from {@link System#nanoTime()}. Guarded by {@link #pushLock}. */
+    private long changePendingSinceNanos;
+
+    /** Measures the time between a game state change and the resulting packet being sent. */
+    private final LatencyMetric pushLatency = new LatencyMetric("Game state push latency");
+
+    /** Records when each message was sent. */
+    private final GameStateSendLog sendLog;
+
+    /** The play mode of the last state sent, or <code>null</code> before the first is sent. Only used by the sender thread. */
+    private PlayMode lastSentPlayMode;
+
+    /** The time-dependent values of the state being sent, refreshed for each send. Only used by the sender thread. */
+    private final GameTiming timing = new GameTiming();
+
     /**
      * Creates a new GameStateSender.
      *
-     * @throws SocketException      if an error occurs while creating the socket
+     * @throws IOException          if an error occurs while creating the channel
      * @throws UnknownHostException if the used inet-address is not valid
      */
-    public GameStateSender(@NotNull Game game, @NotNull String broadcastAddress) throws SocketException, UnknownHostException
+    public GameStateSender(@NotNull Game game, @NotNull String broadcastAddress, @NotNull GameStateSendLog sendLog) throws IOException
     {
         this.game = game;
-        datagramSocket = new DatagramSocket();
-        group = InetAddress.getByName(broadcastAddress);
+        this.sendLog = sendLog;
+        target = new InetSocketAddress(InetAddress.getByName(broadcastAddress), Config.GAME_STATE_PORT);
+        datagramChannel = DatagramChannel.open();
+        datagramChannel.socket().setBroadcast(true);
         senderThread = new SenderThread();
+        senderThread.setName("Game State Sender");
+
+        game.gameStateChanged.subscribe(new EventHandler<ReadOnlyGameState>()
+        {
+            @Override
+            public void handle(ReadOnlyGameState value)
+            {
+                // Some actions, such as clock ticks, often change nothing that robots can see, so need not be pushed
+                if (lastChangedState != null && value.isSameAs(lastChangedState))
+                    return;
+                lastChangedState = value;
+                onGameStateChanged();
+            }
+        });
     }
 
-    public void addProtocol(GameStateProtocol protocol)
+    public void addProtocol(@NotNull GameStateProtocol protocol)
     {
-        protocols.add(protocol);
+        assert(!senderThread.isAlive());
+        outboxes.add(new Outbox(protocol));
+        sendLog.addVersion(protocol.getVersionNumber());
     }
 
     public void start()
     {
-        assert(protocols.size() != 0);
+        assert(outboxes.size() != 0);
         assert(!senderThread.isAlive());
         senderThread.start();
     }
@@ -66,25 +127,81 @@ public class GameStateSender
         assert(senderThread.isAlive());
         senderThread.interrupt();
         senderThread.join();
-        datagramSocket.close();
+        try {
+            datagramChannel.close();
+        } catch (IOException e) {
+            Log.error("Error while closing game state channel");
+        }
+        Log.toFile(pushLatency.toString());
+    }
+
+    /**
+     * Gets a metric which tracks the time from a game state change being applied, until the
+     * corresponding packet was sent.
+     */
+    @NotNull
+    public LatencyMetric getPushLatency()
+    {
+        return pushLatency;
+    }
+
+    /** Signals the sender thread that new state is available. Does not block on the network. */
+    private void onGameStateChanged()
+    {
+        synchronized (pushLock) {
+            if (!isChangePending) {
+                isChangePending = true;
+                changePendingSinceNanos = System.nanoTime();
+                pushLock.notify();
+            }
+        }
     }
 
-    private void sendState()
+    /**
+     * Encodes the current state with each protocol, and sends the resulting messages. Called by the sender
+     * thread, or directly when the thread is not running, as by checks.
+     */
+    void sendState()
     {
-        ReadOnlyGameState state = game.getGameState();
+        ReadOnlyGameState state = game.getSnapshot();
+        // Read the clock once, so that all versions of the message agree
+        GameTiming timing = this.timing;
+        state.updateTiming(timing);
+        boolean isPlayModeChange = lastSentPlayMode != null && state.getPlayMode() != lastSentPlayMode;
 
-        for (GameStateProtocol version : protocols) {
+        // Index rather than iterate, to avoid allocating an iterator on every send
+        //noinspection ForLoopReplaceableByForEach
+        for (int i = 0; i < outboxes.size(); i++) {
+            Outbox outbox = outboxes.get(i);
             try {
-                byte[] bytes = version.toBytes(state);
-                assert(bytes.length == version.getMessageSize());
-                DatagramPacket packet = new DatagramPacket(bytes, bytes.length, group, Config.GAME_STATE_PORT);
-                datagramSocket.send(packet);
-                version.incrementPacketNumber();
+                outbox.buffer.clear();
+                outbox.protocol.encode(state, timing, outbox.buffer);
+                assert(outbox.buffer.position() <= outbox.protocol.getMessageSize());
+                outbox.buffer.flip();
+                datagramChannel.send(outbox.buffer, target);
+                sendLog.recordSent(outbox.protocol.getVersionNumber(), outbox.protocol.getNextPacketNumber(),
+                        isPlayModeChange, System.nanoTime());
+                outbox.protocol.incrementPacketNumber();
             } catch (Exception e) {
                 Log.error("Error while sending game state");
                 e.printStackTrace();
             }
         }
+
+        lastSentPlayMode = state.getPlayMode();
+    }
+
+    /** Pairs a protocol with the direct buffer that its messages are encoded into. */
+    private static class Outbox
+    {
+        @NotNull final GameStateProtocol protocol;
+        @NotNull final ByteBuffer buffer;
+
+        Outbox(@NotNull GameStateProtocol protocol)
+        {
+            this.protocol = protocol;
+            this.buffer = ByteBuffer.allocateDirect(protocol.getMessageSize());
+        }
     }
 
     private class SenderThread extends Thread
@@ -92,15 +209,57 @@ public class GameStateSender
         @Override
         public void run()
         {
-            Interval interval = new Interval(Config.GAME_STATE_SEND_PERIOD_MILLIS);
+            final long minPushPeriodNanos = TimeUnit.MILLISECONDS.toNanos(Config.GAME_STATE_MIN_PUSH_PERIOD_MILLIS);
+
+            // Re-phase after a stall, so that a heartbeat is never sent in a burst
+            Interval heartbeat = new Interval(
+                    game.rules().getGameStateSendPeriodMillis(game.getSnapshot().getPlayMode()),
+                    Interval.CatchUpPolicy.Rephase);
+
+            long lastSentNanos = System.nanoTime() - minPushPeriodNanos;
 
             while (!isInterrupted()) {
-                GameStateSender.this.sendState();
+                long changedNanos = 0;
+                boolean isPush = false;
 
+                // Wait until either a change is pending (and we have not sent too recently), or a heartbeat is due
                 try {
-                    interval.sleep();
+                    synchronized (pushLock) {
+                        while (true) {
+                            long waitNanos;
+                            if (isChangePending) {
+                                waitNanos = lastSentNanos + minPushPeriodNanos - System.nanoTime();
+                                if (waitNanos <= 0) {
+                                    isPush = true;
+                                    changedNanos = changePendingSinceNanos;
+                                    isChangePending = false;
+                                    break;
+                                }
+                            } else {
+                                waitNanos = heartbeat.getNanosUntilNext();
+                                if (waitNanos <= 0)
+                                    break;
+                            }
+                            TimeUnit.NANOSECONDS.timedWait(pushLock, waitNanos);
+                        }
+                    }
                 } catch (InterruptedException e) {
                     interrupt();
+                    break;
+                }
+
+                GameStateSender.this.sendState();
+                lastSentNanos = System.nanoTime();
+
+                // The heartbeat rate depends upon the play mode, which may have changed
+                heartbeat.setPeriodMillis(game.rules().getGameStateSendPeriodMillis(game.getSnapshot().getPlayMode()));
+
+                if (isPush) {
+                    pushLatency.record(lastSentNanos - changedNanos);
+                    // A heartbeat is only needed once a full period has passed without a push
+                    heartbeat.restart();
+                } else {
+                    heartbeat.advance();
                 }
             }
         }
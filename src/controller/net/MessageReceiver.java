@@ -1,14 +1,7 @@
 package controller.net;
 
-import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.InetSocketAddress;
 import java.net.SocketException;
-import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
 
 import common.Log;
 import common.annotations.NotNull;
@@ -16,7 +9,13 @@ import controller.net.protocol.ReceivingProtocol;
 
 /**
  * Asynchronously receives messages via UDP broadcast.
- *
+ * <p>
+ * All receivers in the process share a single receive thread, which multiplexes every bound port.
+ * Multiple receivers may listen on the same port, in which case each is offered every datagram.
+ * <p>
+ * Each datagram is routed to at most one protocol, chosen by its header and version number. Datagrams
+ * for which no protocol is registered are counted and dropped without being parsed.
+ * <p>
  * Client code must call {@link MessageReceiver#start}, then {@link MessageReceiver#stop} when no longer required.
  *
  * @author Marcel Steinbeck
@@ -25,87 +24,99 @@ import controller.net.protocol.ReceivingProtocol;
 public class MessageReceiver<T>
 {
     private final MessageHandler<T> handler;
-    /** The used socket to receive UDP packets. */
-    private final DatagramSocket datagramSocket;
-    /** The thread instance owned by this receiver class. */
-    private final ReceiverThread receiverThread;
-    /** The set of protocols supported by this receiver. */
-    private final List<ReceivingProtocol<T>> protocols = new ArrayList<ReceivingProtocol<T>>();
+    /** The port to receive UDP packets on. */
+    private final int port;
+    /** The protocols supported by this receiver, keyed by header and version number. */
+    private final ProtocolTable<T> protocols = new ProtocolTable<T>();
+    /** Whether received messages should be decoded and passed to the handler. */
+    private volatile boolean isStarted;
+    /** The number of datagrams dropped as no protocol matched them. Only written by the receive thread. */
+    private volatile long droppedCount;
+    /** The number of datagrams that matched a protocol, but could not be decoded. Only written by the receive thread. */
+    private volatile long invalidCount;
 
     /**
-     * Creates a new MessageReceiver.
+     * Creates a new MessageReceiver, binding to the specified port.
      *
      * @param udpPort the port number to listen on.
-     * @param timeoutMillis the number of milliseconds to wait for before timing out and trying again
      * @param handler an object to invoke when a message is successfully received
-     * @throws SocketException the an error occurs while creating the socket
+     * @throws SocketException the an error occurs while binding the port
      */
-    public MessageReceiver(int udpPort, int timeoutMillis, @NotNull MessageHandler<T> handler) throws SocketException
+    public MessageReceiver(int udpPort, @NotNull MessageHandler<T> handler) throws SocketException
     {
         this.handler = handler;
+        this.port = udpPort;
 
-        datagramSocket = new DatagramSocket(null);
-        datagramSocket.setReuseAddress(true);
-        datagramSocket.setSoTimeout(timeoutMillis);
-        datagramSocket.bind(new InetSocketAddress(udpPort));
-
-        receiverThread = new ReceiverThread();
-        receiverThread.setName("Message Receiver");
+        ReceiveEngine.getInstance().register(this);
     }
 
+    /**
+     * Adds a protocol with which to decode received messages.
+     *
+     * @throws IllegalArgumentException if a protocol with the same header and version number was already added.
+     */
     public void addProtocol(@NotNull ReceivingProtocol<T> protocol)
     {
+        assert(!isStarted);
         protocols.add(protocol);
     }
 
     public void start()
     {
-        receiverThread.start();
+        isStarted = true;
     }
 
     public void stop() throws InterruptedException
     {
-        receiverThread.interrupt();
-        receiverThread.join();
+        isStarted = false;
+        ReceiveEngine.getInstance().unregister(this);
+
+        if (droppedCount != 0 || invalidCount != 0)
+            Log.toFile("Port " + port + ": dropped " + droppedCount + " unrecognised and " + invalidCount + " invalid datagrams");
+    }
+
+    /** Gets the number of datagrams received that did not match the header and version of any protocol. */
+    public long getDroppedCount()
+    {
+        return droppedCount;
+    }
+
+    /** Gets the number of datagrams received that matched a protocol's header and version, but could not be decoded. */
+    public long getInvalidCount()
+    {
+        return invalidCount;
     }
 
-    private class ReceiverThread extends Thread
+    /** Gets the UDP port this receiver listens on. */
+    int getPort()
     {
-        @Override
-        public void run() {
-            // Find the maximum message size across protocols, so we can allocate
-            // a sufficient buffer for the largest possible message.
-            int bufferSize = 0;
-            for (ReceivingProtocol protocol : protocols)
-                bufferSize = Math.max(bufferSize, protocol.getMessageSize());
-
-            while (!isInterrupted()) {
-                final byte[] bytes = new byte[bufferSize];
-                final DatagramPacket packet = new DatagramPacket(bytes, bufferSize);
-                final ByteBuffer buffer = ByteBuffer.wrap(bytes);
-
-                try {
-                    // Block until a packet is received, or we time out
-                    datagramSocket.receive(packet);
-
-                    // Try to decode this message using all protocols
-                    for (ReceivingProtocol<T> protocol : protocols) {
-                        buffer.rewind();
-                        T message = protocol.fromBytes(buffer);
-                        if (message != null) {
-                            // Message decoded successfully.
-                            // Process and break.
-                            MessageReceiver.this.handler.handle(message);
-                            break;
-                        }
-                    }
-                } catch (SocketTimeoutException e) { // ignore, because we set a timeout
-                } catch (IOException e) {
-                    Log.error("something went wrong while receiving : " + e.getMessage());
-                }
-            }
-
-            datagramSocket.close();
+        return port;
+    }
+
+    /**
+     * Attempts to decode a received datagram and pass it to the handler. Called on the receive thread.
+     *
+     * @param buffer the datagram, between the buffer's position and limit.
+     */
+    void dispatch(@NotNull ByteBuffer buffer)
+    {
+        if (!isStarted)
+            return;
+
+        ReceivingProtocol<T> protocol = protocols.lookup(buffer);
+
+        if (protocol == null) {
+            droppedCount++;
+            return;
+        }
+
+        T message = protocol.getMinMessageSize() <= buffer.remaining() ? protocol.fromBytes(buffer) : null;
+
+        if (message == null) {
+            invalidCount++;
+            return;
         }
+
+        handler.handle(message);
     }
 }
@@ -2,8 +2,8 @@ package controller.net;
 
 import common.annotations.NotNull;
 import controller.Config;
-import controller.net.protocol.GameStateProtocol9;
-import data.GameStateSnapshot;
+import controller.net.protocol.GameStateView;
+import controller.net.protocol.GameStateViewProtocol;
 import data.League;
 
 import java.net.SocketException;
@@ -15,20 +15,20 @@ import java.net.SocketException;
  */
 public class MultipleInstanceWatcher
 {
-    private final MessageReceiver<GameStateSnapshot> receiver;
+    private final MessageReceiver<GameStateView> receiver;
     private long lastOtherGameSeenTime;
 
     public MultipleInstanceWatcher(@NotNull League league, final int gameId) throws SocketException
     {
         lastOtherGameSeenTime = -1;
 
-        receiver = new MessageReceiver<GameStateSnapshot>(
+        // Only the game ID is read from each message, so view the messages without decoding them
+        receiver = new MessageReceiver<GameStateView>(
             Config.GAME_STATE_PORT,
-            500,
-            new MessageHandler<GameStateSnapshot>()
+            new MessageHandler<GameStateView>()
             {
                 @Override
-                public void handle(GameStateSnapshot message)
+                public void handle(GameStateView message)
                 {
                     if (message.getGameId() != gameId)
                     {
@@ -36,7 +36,7 @@ public class MultipleInstanceWatcher
                     }
                 }
             });
-        receiver.addProtocol(new GameStateProtocol9(league, gameId));
+        receiver.addProtocol(new GameStateViewProtocol(league));
         receiver.start();
     }
 
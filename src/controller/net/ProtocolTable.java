@@ -0,0 +1,104 @@
+package controller.net;
+
+import common.annotations.NotNull;
+import common.annotations.Nullable;
+import controller.net.protocol.ReceivingProtocol;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Maps the header and version number at the start of a message to the protocol able to decode it.
+ * <p>
+ * Lookups do not allocate, and take constant time with respect to the number of versions per header.
+ * Only a handful of distinct headers are ever registered, so these are searched linearly.
+ *
+ * @param <T> the type of message decoded by the registered protocols.
+ */
+class ProtocolTable<T>
+{
+    /** The number of bytes a message must contain to hold a header and version number. */
+    static final int PREFIX_SIZE = 5;
+
+    /** The distinct headers registered so far. */
+    @NotNull private int[] headers = new int[0];
+
+    /** For each header, the protocol registered for each version number (as an unsigned byte), or null. */
+    @NotNull private ReceivingProtocol<T>[][] protocolsByVersion = newTable(0);
+
+    /**
+     * Registers a protocol, keyed by its header and version number.
+     *
+     * @throws IllegalArgumentException if a protocol is already registered with the same header and version.
+     */
+    void add(@NotNull ReceivingProtocol<T> protocol)
+    {
+        int headerIndex = indexOf(protocol.getHeader());
+
+        if (headerIndex == -1) {
+            headerIndex = headers.length;
+
+            int[] newHeaders = new int[headerIndex + 1];
+            System.arraycopy(headers, 0, newHeaders, 0, headerIndex);
+            newHeaders[headerIndex] = protocol.getHeader();
+
+            ReceivingProtocol<T>[][] newProtocols = newTable(headerIndex + 1);
+            System.arraycopy(protocolsByVersion, 0, newProtocols, 0, headerIndex);
+            newProtocols[headerIndex] = newVersions();
+
+            headers = newHeaders;
+            protocolsByVersion = newProtocols;
+        }
+
+        int version = protocol.getVersionNumber() & 0xFF;
+        if (protocolsByVersion[headerIndex][version] != null)
+            throw new IllegalArgumentException("A protocol is already registered for version " + version + " of this header.");
+
+        protocolsByVersion[headerIndex][version] = protocol;
+    }
+
+    /**
+     * Finds the protocol for the message between the buffer's position and limit, based upon its header and
+     * version number. Neither the buffer's position nor its byte order is modified.
+     *
+     * @return the matching protocol, or <code>null</code> if the message is too short or no protocol matches.
+     */
+    @Nullable
+    ReceivingProtocol<T> lookup(@NotNull ByteBuffer buffer)
+    {
+        if (buffer.remaining() < PREFIX_SIZE)
+            return null;
+
+        int position = buffer.position();
+        int header = buffer.getInt(position);
+        if (buffer.order() != ByteOrder.LITTLE_ENDIAN)
+            header = Integer.reverseBytes(header);
+        int headerIndex = indexOf(header);
+
+        if (headerIndex == -1)
+            return null;
+
+        return protocolsByVersion[headerIndex][buffer.get(position + 4) & 0xFF];
+    }
+
+    private int indexOf(int header)
+    {
+        for (int i = 0; i < headers.length; i++) {
+            if (headers[i] == header)
+                return i;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ReceivingProtocol<T>[][] newTable(int length)
+    {
+        return (ReceivingProtocol<T>[][])new ReceivingProtocol<?>[length][];
+    }
+
+    @SuppressWarnings("unchecked")
+    private ReceivingProtocol<T>[] newVersions()
+    {
+        return (ReceivingProtocol<T>[])new ReceivingProtocol<?>[256];
+    }
+}
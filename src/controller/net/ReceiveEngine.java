@@ -0,0 +1,285 @@
+package controller.net;
+
+import common.Log;
+import common.annotations.NotNull;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Receives UDP datagrams on any number of ports using a single thread.
+ * <p>
+ * Each port is served by one non-blocking {@link DatagramChannel}, and all channels are multiplexed by a
+ * single {@link Selector}. Datagrams are fanned out to every started {@link MessageReceiver} bound to the
+ * port on which they arrived.
+ * <p>
+ * The thread is started when the first port is bound, and stops when the last port is released. As the
+ * selector is woken explicitly, releasing a port does not wait for any timeout.
+ * <p>
+ * Client code should not use this class directly. Use {@link MessageReceiver} instead.
+ */
+class ReceiveEngine
+{
+    /** The maximum payload of a UDP datagram. Larger datagrams cannot occur. */
+    private static final int MAX_DATAGRAM_SIZE = 65507;
+
+    private static final ReceiveEngine instance = new ReceiveEngine();
+
+    /** Gets the engine shared by all receivers in this process. */
+    @NotNull
+    static ReceiveEngine getInstance()
+    {
+        return instance;
+    }
+
+    /** State about each bound port, keyed by port number. Guarded by <code>this</code>. */
+    private final Map<Integer, PortBinding> bindings = new HashMap<Integer, PortBinding>();
+
+    /** The values of {@link #bindings}, replaced on modification so the engine thread may read them without locking. */
+    private volatile PortBinding[] boundPorts = new PortBinding[0];
+
+    /**
+     * Taken before selecting, and while registering channels. Required as
+     * {@link java.nio.channels.SelectableChannel#register} blocks while another thread is in
+     * {@link Selector#select()}.
+     */
+    private final Object selectorGuard = new Object();
+
+    private Selector selector;
+    private Thread thread;
+
+    private ReceiveEngine() {}
+
+    /**
+     * Registers a receiver, binding its port if no other receiver is already bound to it.
+     *
+     * @throws SocketException if the port could not be bound.
+     */
+    synchronized void register(@NotNull MessageReceiver<?> receiver) throws SocketException
+    {
+        int port = receiver.getPort();
+        PortBinding binding = bindings.get(port);
+
+        if (binding == null) {
+            DatagramChannel channel = null;
+            try {
+                if (selector == null)
+                    selector = Selector.open();
+
+                channel = DatagramChannel.open();
+                channel.configureBlocking(false);
+                channel.socket().setReuseAddress(true);
+                channel.socket().bind(new InetSocketAddress(port));
+
+                binding = new PortBinding(port, channel);
+
+                synchronized (selectorGuard) {
+                    selector.wakeup();
+                    binding.key = channel.register(selector, SelectionKey.OP_READ, binding);
+                }
+            } catch (IOException e) {
+                if (channel != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException closeException) {
+                        Log.error("Error while closing UDP port " + port + ": " + closeException.getMessage());
+                    }
+                }
+                SocketException ex = new SocketException("Unable to bind UDP port " + port + ": " + e.getMessage());
+                ex.initCause(e);
+                throw ex;
+            }
+
+            bindings.put(port, binding);
+            boundPorts = bindings.values().toArray(new PortBinding[bindings.size()]);
+        }
+
+        binding.add(receiver);
+
+        if (thread == null) {
+            thread = new EngineThread(selector);
+            thread.start();
+        }
+    }
+
+    /**
+     * Unregisters a receiver. If no other receivers remain on its port, the port is released. If no ports
+     * remain bound, the engine's thread is stopped.
+     */
+    void unregister(@NotNull MessageReceiver<?> receiver) throws InterruptedException
+    {
+        Thread threadToJoin = null;
+
+        synchronized (this) {
+            PortBinding binding = bindings.get(receiver.getPort());
+
+            if (binding == null || !binding.remove(receiver))
+                return;
+
+            if (binding.isEmpty()) {
+                bindings.remove(binding.port);
+                boundPorts = bindings.values().toArray(new PortBinding[bindings.size()]);
+                synchronized (selectorGuard) {
+                    selector.wakeup();
+                    binding.key.cancel();
+                    close(binding.channel);
+                }
+            }
+
+            if (bindings.isEmpty()) {
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    Log.error("Error closing selector: " + e.getMessage());
+                }
+                selector = null;
+                threadToJoin = thread;
+                thread = null;
+            }
+        }
+
+        // A handler may stop its own receiver, in which case the engine thread exits once the handler returns
+        if (threadToJoin != null && threadToJoin != Thread.currentThread())
+            threadToJoin.join();
+    }
+
+    private static void close(@NotNull DatagramChannel channel)
+    {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Log.error("Error closing channel: " + e.getMessage());
+        }
+    }
+
+    /** The channel bound to a port, and the receivers to which its datagrams are dispatched. */
+    private static class PortBinding
+    {
+        final int port;
+        @NotNull final DatagramChannel channel;
+        SelectionKey key;
+
+        /** Replaced on modification so that the engine thread may dispatch without locking or allocating. */
+        @NotNull volatile MessageReceiver<?>[] receivers = new MessageReceiver<?>[0];
+
+        PortBinding(int port, @NotNull DatagramChannel channel)
+        {
+            this.port = port;
+            this.channel = channel;
+        }
+
+        synchronized void add(@NotNull MessageReceiver<?> receiver)
+        {
+            MessageReceiver<?>[] updated = new MessageReceiver<?>[receivers.length + 1];
+            System.arraycopy(receivers, 0, updated, 0, receivers.length);
+            updated[receivers.length] = receiver;
+            receivers = updated;
+        }
+
+        synchronized boolean remove(@NotNull MessageReceiver<?> receiver)
+        {
+            for (int i = 0; i < receivers.length; i++) {
+                if (receivers[i] == receiver) {
+                    MessageReceiver<?>[] updated = new MessageReceiver<?>[receivers.length - 1];
+                    System.arraycopy(receivers, 0, updated, 0, i);
+                    System.arraycopy(receivers, i + 1, updated, i, receivers.length - i - 1);
+                    receivers = updated;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean isEmpty()
+        {
+            return receivers.length == 0;
+        }
+    }
+
+    private class EngineThread extends Thread
+    {
+        @NotNull private final Selector selector;
+
+        /** The single buffer into which all datagrams are received. Reused for every datagram. */
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_SIZE);
+
+        EngineThread(@NotNull Selector selector)
+        {
+            this.selector = selector;
+            setName("Message Receiver");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run()
+        {
+            try {
+                while (selector.isOpen()) {
+                    // Wait for any in-progress registration to complete before selecting
+                    synchronized (selectorGuard) {}
+
+                    selector.select();
+
+                    // Visit the bound ports rather than iterating the selected key set, which would
+                    // allocate an iterator after every wakeup
+                    Set<SelectionKey> selectedKeys = selector.selectedKeys();
+                    for (PortBinding binding : boundPorts) {
+                        if (selectedKeys.contains(binding.key) && binding.key.isValid())
+                            drain(binding);
+                    }
+                    selectedKeys.clear();
+                }
+            } catch (ClosedSelectorException ignored) {
+                // The last port was released
+            } catch (IOException e) {
+                Log.error("something went wrong while receiving : " + e.getMessage());
+            }
+        }
+
+        /** Receives all datagrams queued on the binding's channel. */
+        private void drain(@NotNull PortBinding binding)
+        {
+            while (true) {
+                buffer.clear();
+
+                SocketAddress source;
+                try {
+                    source = binding.channel.receive(buffer);
+                } catch (IOException e) {
+                    // The channel may have been closed concurrently
+                    if (binding.channel.isOpen())
+                        Log.error("something went wrong while receiving : " + e.getMessage());
+                    return;
+                }
+
+                if (source == null)
+                    return;
+
+                buffer.flip();
+
+                MessageReceiver<?>[] receivers = binding.receivers;
+                for (MessageReceiver<?> receiver : receivers) {
+                    try {
+                        // Each receiver reads the datagram from its start
+                        buffer.rewind();
+                        receiver.dispatch(buffer);
+                    } catch (RuntimeException e) {
+                        Log.error("Error processing message received on port " + binding.port + ": " + e);
+                    } catch (AssertionError e) {
+                        Log.error("Invalid message received on port " + binding.port + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+}
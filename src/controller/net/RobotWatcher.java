@@ -11,6 +11,10 @@ import data.UISide;
 
 /**
  * Processes messages received from robots, triggering manual penalisation/unpenalisation and tracking who is online.
+ * <p>
+ * Robots that acknowledge the game state messages they apply are judged by how far behind the controller's state
+ * they are, as measured against the {@link GameStateSendLog}. Other robots are judged by how long ago they were last
+ * heard from.
  *
  * @author Marcel Steinbeck
  * @author Michel Bartsch
@@ -27,24 +31,50 @@ public class RobotWatcher
     /** Last status received from each robot. */
     private final RobotStatus[][] robotLastStatus;
 
+    /** The protocol version of the last game state message acknowledged by each robot, or 0 if none. */
+    private final byte[][] robotGameStateVersion;
+
+    /** The packet number of the last game state message acknowledged by each robot. */
+    private final byte[][] robotGameStatePacketNumber;
+
     /** The calculated information about the online-status. */
     private final RobotOnlineStatus[][] status;
 
+    /** The calculated number of game state messages sent since each robot's acknowledgement, or -1 if unknown. */
+    private final int[][] packetsBehind;
+
+    /** The calculated time for which each robot has lacked the latest game state, in milliseconds, or -1 if unknown. */
+    private final long[][] millisBehind;
+
+    /** Whether each robot is calculated to have not yet acknowledged the latest change of play mode. */
+    private final boolean[][] behindPlayModeChange;
+
+    @NotNull private final GameStateSendLog sendLog;
+
     private final static int MILLIS_UNTIL_ROBOT_IS_OFFLINE = 4*1000;
     private final static int MILLIS_UNTIL_ROBOT_HAS_HIGH_LATENCY = 2*1000;
+    private final static int MILLIS_BEHIND_UNTIL_ROBOT_HAS_HIGH_LATENCY = 1000;
 
-    public RobotWatcher(@NotNull League league)
+    public RobotWatcher(@NotNull League league, @NotNull GameStateSendLog sendLog)
     {
+        this.sendLog = sendLog;
         robotCount = league.rules().getTeamSize() + (league.rules().isCoachAvailable() ? 1 : 0);
         robotLastStatus = new RobotStatus[2][robotCount];
         status = new RobotOnlineStatus[2][robotCount];
         robotLastHeardTime = new long[2][robotCount];
+        robotGameStateVersion = new byte[2][robotCount];
+        robotGameStatePacketNumber = new byte[2][robotCount];
+        packetsBehind = new int[2][robotCount];
+        millisBehind = new long[2][robotCount];
+        behindPlayModeChange = new boolean[2][robotCount];
 
         // Initialise array structures
         for (int i  = 0; i < 2; i++) {
             for (int j = 0; j < robotCount; j++) {
                 robotLastStatus[i][j] = null;
                 status[i][j] = RobotOnlineStatus.UNKNOWN;
+                packetsBehind[i][j] = -1;
+                millisBehind[i][j] = -1;
             }
         }
     }
@@ -61,6 +91,9 @@ public class RobotWatcher
     /**
      * Integrates messages received from robots, updating corresponding timestamps and triggering
      * actions required by manual penalising/unpenalising of the robot.
+     * <p>
+     * Actions are enqueued for the game thread rather than applied directly, so this method never
+     * waits upon the game.
      *
      * @param game the active game
      * @param robotMessage a message received from a robot
@@ -81,12 +114,17 @@ public class RobotWatcher
 
         robotLastHeardTime[teamIndex][i] = System.currentTimeMillis();
 
+        if (robotMessage.hasAcknowledgement()) {
+            robotGameStateVersion[teamIndex][i] = robotMessage.getGameStateVersion();
+            robotGameStatePacketNumber[teamIndex][i] = robotMessage.getGameStatePacketNumber();
+        }
+
         if (robotLastStatus[teamIndex][i] == robotMessage.getStatus())
             return;
 
         robotLastStatus[teamIndex][i] = robotMessage.getStatus();
 
-        ReadOnlyTeamState team = game.getGameState().getTeam(robotMessage.getTeamNumber());
+        ReadOnlyTeamState team = game.getSnapshot().getTeam(robotMessage.getTeamNumber());
 
         assert(team != null);
 
@@ -95,10 +133,10 @@ public class RobotWatcher
 
         if (robotMessage.getStatus() == RobotStatus.ManuallyPenalised) {
             if (!team.getPlayer(number).isPenalized())
-                game.apply(ActionBoard.manualPen.get(side)[i], ActionTrigger.Network);
+                game.actionQueue().offer(ActionBoard.manualPen.get(side)[i], ActionTrigger.Network);
         } else if (robotMessage.getStatus() == RobotStatus.ManuallyUnpenalised) {
             if (team.getPlayer(number).isPenalized())
-                game.apply(ActionBoard.manualUnpen.get(side)[i], ActionTrigger.Network);
+                game.actionQueue().offer(ActionBoard.manualUnpen.get(side)[i], ActionTrigger.Network);
         }
     }
 
@@ -111,7 +149,7 @@ public class RobotWatcher
     }
 
     /**
-     * Calculates new online-status for each robot.
+     * Calculates new online-status for each robot, along with how far behind each robot is.
      * 
      * @return the updated online-status of each robot.
      */
@@ -119,11 +157,26 @@ public class RobotWatcher
     public synchronized RobotOnlineStatus[][] updateRobotOnlineStatus()
     {
         long currentTime = System.currentTimeMillis();
+        long currentNanos = System.nanoTime();
 
         for (int i=0; i<2; i++) {
             int robotsOffline = 0;
             for (int j=0; j < status[i].length; j++) {
+                byte version = robotGameStateVersion[i][j];
+                if (version != 0) {
+                    byte packetNumber = robotGameStatePacketNumber[i][j];
+                    packetsBehind[i][j] = sendLog.getPacketsBehind(version, packetNumber);
+                    millisBehind[i][j] = sendLog.getMillisBehind(version, packetNumber, currentNanos);
+                    behindPlayModeChange[i][j] = sendLog.isBehindPlayModeChange(version, packetNumber);
+                }
+
                 long age = currentTime - robotLastHeardTime[i][j];
+
+                // Robots whose acknowledgements can be measured are judged by them, others by when they were heard
+                boolean isLagging = packetsBehind[i][j] != -1
+                        ? millisBehind[i][j] > MILLIS_BEHIND_UNTIL_ROBOT_HAS_HIGH_LATENCY
+                        : age > MILLIS_UNTIL_ROBOT_HAS_HIGH_LATENCY;
+
                 if (age > MILLIS_UNTIL_ROBOT_IS_OFFLINE) {
                     status[i][j] = RobotOnlineStatus.OFFLINE;
                     // If the whole team is offline...
@@ -133,7 +186,7 @@ public class RobotWatcher
                             status[i][k] = RobotOnlineStatus.UNKNOWN;
                         }
                     }
-                } else if (age > MILLIS_UNTIL_ROBOT_HAS_HIGH_LATENCY) {
+                } else if (isLagging) {
                     status[i][j] = RobotOnlineStatus.HIGH_LATENCY;
                 } else {
                     status[i][j] = RobotOnlineStatus.ONLINE;
@@ -142,4 +195,35 @@ public class RobotWatcher
         }
         return status;
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the number of game state messages sent since each robot's last acknowledgement, as calculated by
+     * {@link #updateRobotOnlineStatus()}. Values are -1 for robots that do not acknowledge messages.
+     */
+    @NotNull
+    public synchronized int[][] getPacketsBehind()
+    {
+        return packetsBehind;
+    }
+
+    /**
+     * Gets the number of milliseconds for which each robot has lacked the latest game state, as calculated by
+     * {@link #updateRobotOnlineStatus()}. Values are zero for robots that are up to date, and -1 for robots that do
+     * not acknowledge messages.
+     */
+    @NotNull
+    public synchronized long[][] getMillisBehind()
+    {
+        return millisBehind;
+    }
+
+    /**
+     * Gets whether each robot has yet to acknowledge the latest change of play mode, such as from set to playing,
+     * as calculated by {@link #updateRobotOnlineStatus()}.
+     */
+    @NotNull
+    public synchronized boolean[][] getBehindPlayModeChange()
+    {
+        return behindPlayModeChange;
+    }
+}
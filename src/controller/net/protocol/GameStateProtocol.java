@@ -3,10 +3,12 @@ package controller.net.protocol;
 import common.annotations.NotNull;
 import common.annotations.Nullable;
 import controller.ReadOnlyGameState;
+import controller.GameTiming;
 import data.GameStateSnapshot;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 
 /**
  * Base class for game state network protocols. Subclasses implement specific versions.
@@ -15,7 +17,8 @@ import java.nio.ByteOrder;
  */
 public abstract class GameStateProtocol implements ReceivingProtocol<GameStateSnapshot>
 {
-    private static final String HEADER = "RGme";
+    /** The header "RGme", as read from the start of a message as a little-endian int. */
+    private static final int HEADER = 'R' | 'G' << 8 | 'm' << 16 | 'e' << 24;
 
     private final byte versionNumber;
 
@@ -26,6 +29,13 @@ public abstract class GameStateProtocol implements ReceivingProtocol<GameStateSn
         this.versionNumber = versionNumber;
     }
 
+    @Override
+    public int getHeader()
+    {
+        return HEADER;
+    }
+
+    @Override
     public byte getVersionNumber()
     {
         return versionNumber;
@@ -33,9 +43,16 @@ public abstract class GameStateProtocol implements ReceivingProtocol<GameStateSn
 
     /**
      * The size in bytes of each fixed-size network message, as formatted by this protocol version.
+     * For versions whose messages vary in size, the size of the largest message.
      */
     public abstract int getMessageSize();
 
+    @Override
+    public int getMinMessageSize()
+    {
+        return getMessageSize();
+    }
+
     /**
      * Attempts to parse the provided byte array as a message of this protocol version.
      *
@@ -47,12 +64,61 @@ public abstract class GameStateProtocol implements ReceivingProtocol<GameStateSn
 
     /**
      * Formats an instance of {@link controller.ReadOnlyGameState} for network transmission.
+     * <p>
+     * Allocates a new buffer for each call. Callers that send repeatedly should prefer
+     * {@link GameStateProtocol#encode}, which writes into a buffer that may be reused.
      *
      * @param state the source of data for the message.
      * @return the byte array to be sent via the network.
      */
     @NotNull
-    public abstract byte[] toBytes(@NotNull ReadOnlyGameState state);
+    public byte[] toBytes(@NotNull ReadOnlyGameState state)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(getMessageSize());
+        encode(state, buffer);
+        return buffer.position() == buffer.capacity() ? buffer.array() : Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Formats an instance of {@link controller.ReadOnlyGameState} for network transmission, writing
+     * the message into the provided buffer.
+     * <p>
+     * Time-dependent values are evaluated at the current instant. See {@link GameStateProtocol#encode(ReadOnlyGameState, GameTiming, ByteBuffer)}.
+     *
+     * @param state the source of data for the message.
+     * @param buffer the buffer to write into, having at least {@link GameStateProtocol#getMessageSize()} bytes remaining.
+     */
+    public void encode(@NotNull ReadOnlyGameState state, @NotNull ByteBuffer buffer)
+    {
+        encode(state, state.getTiming(), buffer);
+    }
+
+    /**
+     * Formats an instance of {@link controller.ReadOnlyGameState} for network transmission, writing
+     * the message into the provided buffer.
+     * <p>
+     * The message is written from the buffer's current position, and at most
+     * {@link GameStateProtocol#getMessageSize()} bytes are written (exactly that many, for versions whose
+     * messages are of fixed size). The buffer's byte order is set to little endian. No objects are allocated
+     * by this method.
+     * <p>
+     * All time-dependent values are taken from <code>timing</code>, so that they are consistent within the
+     * message, and across messages of different versions that share the same timing.
+     *
+     * @param state the source of data for the message.
+     * @param timing the state's time-dependent values, obtained via {@link ReadOnlyGameState#getTiming()}.
+     * @param buffer the buffer to write into, having at least {@link GameStateProtocol#getMessageSize()} bytes remaining.
+     */
+    public abstract void encode(@NotNull ReadOnlyGameState state, @NotNull GameTiming timing, @NotNull ByteBuffer buffer);
+
+    /**
+     * Gets the packet number of the next message to be encoded. Once that message has been sent, and until
+     * {@link #incrementPacketNumber()} is called, this is the packet number of the message sent.
+     */
+    public byte getNextPacketNumber()
+    {
+        return nextPacketNumber;
+    }
 
     /**
      * Increments the packet number, ready for the next message.
@@ -65,32 +131,16 @@ public abstract class GameStateProtocol implements ReceivingProtocol<GameStateSn
         nextPacketNumber++;
     }
 
-    /** Verifies the buffer starts with the expected header for this version of protocol. */
+    /**
+     * Verifies the buffer starts with the expected header for this version of protocol.
+     * <p>
+     * The header and version are each checked with a single primitive comparison, without allocating.
+     */
     protected boolean verifyHeader(ByteBuffer buffer)
     {
         buffer.order(ByteOrder.LITTLE_ENDIAN);
 
-        // Header
-        byte[] headerBytes = new byte[4];
-        buffer.get(headerBytes, 0, 4);
-        String header = new String(headerBytes);
-
-        if (!header.equals(HEADER))
-            return false;
-
-        // Version
-        byte version = buffer.get();
-        return version == getVersionNumber();
+        return buffer.getInt() == HEADER && buffer.get() == getVersionNumber();
     }
 
-    /** Create a new buffer and writes the correct header for this version of the protocol. */
-    protected ByteBuffer writeHeader()
-    {
-        ByteBuffer buffer = ByteBuffer.allocate(getMessageSize());
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
-
-        buffer.put(HEADER.getBytes(), 0, 4);
-
-        return buffer;
-    }
 }
@@ -0,0 +1,368 @@
+package controller.net.protocol;
+
+import common.annotations.NotNull;
+import common.annotations.Nullable;
+import controller.Config;
+import controller.GameTiming;
+import controller.ReadOnlyGameState;
+import controller.net.protocol.codec.GameControlData9Codec;
+import controller.net.protocol.codec.GameControlData9NoCoachCodec;
+import data.GameStateSnapshot;
+import data.League;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Implements game state network protocol, version 10.
+ * <p>
+ * Carries the same fields as version 9, but most messages only hold the fields that changed since the
+ * previous message.
+ *
+ * <ul>
+ *     <li>
+ *         Every {@link Config#GAME_STATE_KEYFRAME_INTERVAL}th message is a <em>keyframe</em>, holding
+ *         every field of a version 9 message.
+ *     </li>
+ *     <li>
+ *         The messages in between are <em>deltas</em>, holding a bit mask of the fields that changed
+ *         since the previous message, followed by the values of just those fields. A keyframe is sent
+ *         in place of a delta that would be no smaller, so no message is larger than a keyframe.
+ *     </li>
+ *     <li>
+ *         A receiver that misses a message, as seen by a gap in the packet numbers, cannot apply the
+ *         deltas that follow, and waits for the next keyframe.
+ *     </li>
+ *     <li>
+ *         Packet numbers repeat every 256 messages, so a receiver that misses exactly that many would
+ *         see no gap. As messages are sent at most once every {@link Config#GAME_STATE_MIN_PUSH_PERIOD_MILLIS},
+ *         a receiver also waits for the next keyframe if {@link #RECEIVE_TIMEOUT_MILLIS} have passed since
+ *         it applied a message. This is half the time in which 256 messages may be sent, allowing for
+ *         messages being delayed in delivery.
+ *     </li>
+ * </ul>
+ *
+ * Messages are laid out as follows:
+ *
+ * <pre>
+ *   offset  size  field
+ *        0     4  header, "RGme"
+ *        4     1  version, 10
+ *        5     1  kind, {@link #KEYFRAME} or {@link #DELTA}
+ *        6     1  packet number
+ *
+ *   keyframe:
+ *        7     *  a version 9 message, from its league number to its end
+ *
+ *   delta:
+ *        7     m  field mask, of one bit per field of the version 9 message; bit i is bit (i % 8) of byte (i / 8)
+ *      7+m     *  the value of each field whose bit is set, in order, laid out as in the version 9 message
+ * </pre>
+ *
+ * The fields are numbered as by {@link GameControlData9Codec#getFieldOffset}, or by
+ * {@link GameControlData9NoCoachCodec#getFieldOffset} for leagues without a coach.
+ *
+ * @see GameStateProtocol9
+ */
+public class GameStateProtocol10 extends GameStateProtocol
+{
+    /** The value of the kind byte of messages holding every field. */
+    public static final byte KEYFRAME = 0;
+    /** The value of the kind byte of messages holding only the fields changed since the previous message. */
+    public static final byte DELTA = 1;
+
+    /**
+     * The number of milliseconds after applying a message for which a receiver may apply a delta, before the
+     * packet numbers of later messages could have wrapped around.
+     */
+    public static final int RECEIVE_TIMEOUT_MILLIS = 128 * Config.GAME_STATE_MIN_PUSH_PERIOD_MILLIS;
+
+    private static final int KIND_OFFSET = 5;
+    private static final int PACKET_NUMBER_OFFSET = 6;
+    private static final int BODY_OFFSET = 7;
+
+    /** The offset within a version 9 message at which the body of a keyframe begins. */
+    private static final int IMAGE_BODY_OFFSET = GameControlData9Codec.LEAGUE_NUMBER;
+
+    private final League league;
+    private final int keyframeInterval;
+
+    /** Encodes each message's fields as a version 9 message, from which keyframes and deltas are taken. */
+    private final GameStateProtocol9 imageProtocol;
+    private final int imageSize;
+    private final int[] fieldOffsets;
+    private final int[] fieldSizes;
+    private final int maskSize;
+
+    /** The version 9 image of the message being sent. */
+    private ByteBuffer currentImage;
+    /** The version 9 image of the last message sent, or <code>null</code> before the first is sent. */
+    @Nullable private ByteBuffer previousImage;
+    /** The number of messages sent since the last keyframe. */
+    private int packetsSinceKeyframe;
+    /** Whether the message last encoded is a keyframe. */
+    private boolean isKeyframe;
+
+    /** The version 9 image of the state last received, maintained as keyframes and deltas arrive. */
+    private final ByteBuffer receivedImage;
+    private final GameStateView receivedView;
+    /** Whether {@link #receivedImage} holds a complete state, to which the next delta may be applied. */
+    private boolean hasReceivedImage;
+    private byte lastReceivedPacketNumber;
+    /** When the last message was applied to {@link #receivedImage}, from {@link System#nanoTime()}. */
+    private long lastReceivedNanos;
+
+    public GameStateProtocol10(@NotNull League league, int gameId)
+    {
+        this(league, gameId, Config.GAME_STATE_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * @param keyframeInterval the number of messages from one keyframe to the next. A value of 1 makes
+     *                         every message a keyframe.
+     */
+    public GameStateProtocol10(@NotNull League league, int gameId, int keyframeInterval)
+    {
+        super((byte) 10);
+
+        if (keyframeInterval < 1)
+            throw new IllegalArgumentException("Keyframe interval must be at least 1: " + keyframeInterval);
+
+        this.league = league;
+        this.keyframeInterval = keyframeInterval;
+        this.imageProtocol = new GameStateProtocol9(league, gameId);
+        this.imageSize = imageProtocol.getMessageSize();
+
+        int fieldCount = league.isSPLFamily() ? GameControlData9Codec.FIELD_COUNT : GameControlData9NoCoachCodec.FIELD_COUNT;
+        fieldOffsets = new int[fieldCount];
+        fieldSizes = new int[fieldCount];
+        for (int field = 0; field < fieldCount; field++) {
+            if (league.isSPLFamily()) {
+                fieldOffsets[field] = GameControlData9Codec.getFieldOffset(field);
+                fieldSizes[field] = GameControlData9Codec.getFieldSize(field);
+            } else {
+                fieldOffsets[field] = GameControlData9NoCoachCodec.getFieldOffset(field);
+                fieldSizes[field] = GameControlData9NoCoachCodec.getFieldSize(field);
+            }
+        }
+        maskSize = (fieldCount + 7) / 8;
+
+        currentImage = ByteBuffer.allocate(imageSize);
+        receivedImage = ByteBuffer.allocate(imageSize).order(ByteOrder.LITTLE_ENDIAN);
+        receivedView = new GameStateView(league);
+    }
+
+    /** The size of a keyframe, which is the largest message. */
+    @Override
+    public int getMessageSize()
+    {
+        return BODY_OFFSET + imageSize - IMAGE_BODY_OFFSET;
+    }
+
+    /** The size of a delta in which no field has changed. */
+    @Override
+    public int getMinMessageSize()
+    {
+        return BODY_OFFSET + maskSize;
+    }
+
+    @Override
+    public void encode(@NotNull ReadOnlyGameState state, @NotNull GameTiming timing, @NotNull ByteBuffer buffer)
+    {
+        ByteBuffer current = currentImage;
+        ByteBuffer previous = previousImage;
+
+        current.clear();
+        imageProtocol.encode(state, timing, current);
+
+        // Write the header a byte at a time, so as to leave the byte order of the caller's buffer unchanged
+        int start = buffer.position();
+        int header = getHeader();
+        for (int i = 0; i < 4; i++)
+            buffer.put(start + i, (byte) (header >> 8 * i));
+        buffer.put(start + 4, getVersionNumber());
+        buffer.put(start + PACKET_NUMBER_OFFSET, nextPacketNumber);
+
+        isKeyframe = previous == null
+                || packetsSinceKeyframe >= keyframeInterval - 1
+                || !putDelta(current, previous, buffer, start);
+
+        if (isKeyframe) {
+            buffer.put(start + KIND_OFFSET, KEYFRAME);
+            buffer.position(start + BODY_OFFSET);
+            current.limit(imageSize).position(IMAGE_BODY_OFFSET);
+            buffer.put(current);
+        }
+    }
+
+    /**
+     * Writes the body of a delta, holding the fields of the current image that differ from the previous one.
+     *
+     * @return whether the delta was written, being <code>false</code> if it would be no smaller than a keyframe.
+     */
+    private boolean putDelta(@NotNull ByteBuffer current, @NotNull ByteBuffer previous, @NotNull ByteBuffer buffer, int start)
+    {
+        buffer.put(start + KIND_OFFSET, DELTA);
+
+        int maskOffset = start + BODY_OFFSET;
+        for (int i = 0; i < maskSize; i++)
+            buffer.put(maskOffset + i, (byte) 0);
+
+        int position = maskOffset + maskSize;
+        int end = start + getMessageSize();
+        int[] offsets = fieldOffsets;
+        int[] sizes = fieldSizes;
+        for (int field = 0; field < offsets.length; field++) {
+            int offset = offsets[field];
+            int fieldEnd = offset + sizes[field];
+            if (!rangeEquals(current, previous, offset, fieldEnd)) {
+                if (position + sizes[field] >= end)
+                    return false;
+                int maskIndex = maskOffset + (field >> 3);
+                buffer.put(maskIndex, (byte) (buffer.get(maskIndex) | 1 << (field & 7)));
+                for (int i = offset; i < fieldEnd; i++)
+                    buffer.put(position++, current.get(i));
+            }
+        }
+        buffer.position(position);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Deltas are only sent relative to a message that was sent, so the next message is a delta against the
+     * message just encoded.
+     */
+    @Override
+    public void incrementPacketNumber()
+    {
+        super.incrementPacketNumber();
+
+        packetsSinceKeyframe = isKeyframe ? 0 : packetsSinceKeyframe + 1;
+
+        ByteBuffer sent = currentImage;
+        currentImage = previousImage == null ? ByteBuffer.allocate(imageSize) : previousImage;
+        previousImage = sent;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Keyframes replace the state held by this protocol, and deltas update it. Returns <code>null</code> for
+     * a delta that does not follow directly from the previous message, after which all deltas are discarded
+     * until the next keyframe arrives. The same happens if {@link #RECEIVE_TIMEOUT_MILLIS} have passed since the
+     * previous message was applied. See {@link #isWaitingForKeyframe()}.
+     * <p>
+     * This method is stateful, so each receiver must use its own instance.
+     */
+    @Nullable
+    @Override
+    public GameStateSnapshot fromBytes(@NotNull ByteBuffer buffer)
+    {
+        int start = buffer.position();
+        long nanos = System.nanoTime();
+
+        if (!verifyHeader(buffer))
+            return null;
+
+        int length = buffer.limit() - start;
+        if (length < BODY_OFFSET)
+            return null;
+
+        byte kind = buffer.get(start + KIND_OFFSET);
+        byte packetNumber = buffer.get(start + PACKET_NUMBER_OFFSET);
+        ByteBuffer image = receivedImage;
+
+        if (kind == KEYFRAME) {
+            if (length < getMessageSize())
+                return null;
+
+            // Ensure the message applies to the current league
+            if (buffer.get(start + BODY_OFFSET) != league.number())
+                return null;
+
+            for (int i = 0, count = imageSize - IMAGE_BODY_OFFSET; i < count; i++)
+                image.put(IMAGE_BODY_OFFSET + i, buffer.get(start + BODY_OFFSET + i));
+
+            buffer.position(start + getMessageSize());
+        } else if (kind == DELTA) {
+            if (!hasReceivedImage)
+                return null;
+
+            if (packetNumber == lastReceivedPacketNumber) {
+                // A duplicate of the message last applied, which it would not change
+                return null;
+            }
+
+            if (packetNumber != (byte) (lastReceivedPacketNumber + 1)
+                    || nanos - lastReceivedNanos >= RECEIVE_TIMEOUT_MILLIS * 1000000L) {
+                // A message was, or may have been, missed, so later deltas cannot be applied until the next keyframe
+                hasReceivedImage = false;
+                return null;
+            }
+
+            int maskOffset = start + BODY_OFFSET;
+            int position = maskOffset + maskSize;
+            int end = start + length;
+            if (position > end)
+                return null;
+
+            // Check the length before applying any field, so that a truncated message leaves the state intact
+            int[] sizes = fieldSizes;
+            int deltaSize = 0;
+            for (int field = 0; field < sizes.length; field++) {
+                if (isFieldSet(buffer, maskOffset, field))
+                    deltaSize += sizes[field];
+            }
+            if (position + deltaSize > end) {
+                hasReceivedImage = false;
+                return null;
+            }
+
+            int[] offsets = fieldOffsets;
+            for (int field = 0; field < offsets.length; field++) {
+                if (isFieldSet(buffer, maskOffset, field)) {
+                    for (int i = offsets[field], fieldEnd = i + sizes[field]; i < fieldEnd; i++)
+                        image.put(i, buffer.get(position++));
+                }
+            }
+
+            buffer.position(position);
+        } else {
+            return null;
+        }
+
+        image.putInt(0, getHeader());
+        image.put(4, (byte) 9);
+        image.put(GameControlData9Codec.PACKET_NUMBER, packetNumber);
+        hasReceivedImage = true;
+        lastReceivedPacketNumber = packetNumber;
+        lastReceivedNanos = nanos;
+
+        return receivedView.wrap(image, 0).toSnapshot();
+    }
+
+    /**
+     * Gets whether deltas are being discarded by {@link #fromBytes}, either because no keyframe has yet been
+     * received, or because a message was, or may have been, missed since the last keyframe.
+     */
+    public boolean isWaitingForKeyframe()
+    {
+        return !hasReceivedImage;
+    }
+
+    private static boolean isFieldSet(@NotNull ByteBuffer buffer, int maskOffset, int field)
+    {
+        return (buffer.get(maskOffset + (field >> 3)) & 1 << (field & 7)) != 0;
+    }
+
+    private static boolean rangeEquals(@NotNull ByteBuffer a, @NotNull ByteBuffer b, int start, int end)
+    {
+        for (int i = start; i < end; i++) {
+            if (a.get(i) != b.get(i))
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,172 @@
+package controller.net.protocol;
+
+import common.annotations.NotNull;
+import common.annotations.Nullable;
+import controller.*;
+import controller.net.protocol.codec.*;
+import data.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implements game state network protocol, version 11.
+ *
+ * <ul>
+ *     <li>
+ *         Replaces the whole seconds of 'secsRemaining' and 'secondaryTime' with milliseconds, in
+ *         'millisRemaining' and 'secondaryTimeMillis', so that robots may count down precisely between messages.
+ *     </li>
+ *     <li>
+ *         Adds field 'timestamp', the time at which the message was sent in milliseconds of the controller's
+ *         monotonic clock, so that robots may tell how stale each message is relative to the others. This is
+ *         an unsigned count of milliseconds modulo 2^32 since an unspecified origin, and so wraps around about
+ *         every 49.7 days. It is not comparable with wall-clock time, nor between runs of the controller, so
+ *         only differences between the timestamps of messages from one controller are meaningful.
+ *     </li>
+ * </ul>
+ *
+ * All other fields are as in version 9.
+ *
+ * @see GameStateProtocol9
+ */
+public class GameStateProtocol11 extends GameStateProtocol
+{
+    /** A number that uniquely identifies the game, as in version 9. */
+    private final int gameId;
+
+    private final League league;
+
+    /** Whether the league's teams have a coach, whose data is then included in messages. */
+    private final boolean hasCoach;
+
+    /** The values of the next message's fields, reused for each message. */
+    private final GameControlData11 data = new GameControlData11();
+
+    /** The values of the last message received, reused for each message. */
+    private final GameControlData11 receivedData = new GameControlData11();
+
+    public GameStateProtocol11(@NotNull League league, int gameId)
+    {
+        super((byte) 11);
+        this.league = league;
+        this.gameId = gameId;
+        this.hasCoach = league.isSPLFamily();
+    }
+
+    @Override
+    public int getMessageSize()
+    {
+        return hasCoach ? GameControlData11Codec.SIZE : GameControlData11NoCoachCodec.SIZE;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The message's timestamp is taken when this method is called, as it is sent immediately afterwards.
+     */
+    @Override
+    public void encode(@NotNull ReadOnlyGameState state, @NotNull GameTiming timing, @NotNull ByteBuffer buffer)
+    {
+        GameControlData11 data = this.data;
+        data.leagueNumber = league.number();
+        data.packetNumber = nextPacketNumber;
+        data.playersPerTeam = (byte)league.rules().getTeamSize();
+        data.gameId = gameId;
+        data.timestamp = (int)(System.nanoTime() / 1000000);
+        data.playMode = state.getPlayMode().getValue();
+        data.firstHalf = state.isFirstHalf() ? (byte)1 : 0;
+        data.kickOffTeam = state.getNextKickOffColor() == null ? 2 : state.getNextKickOffColor().getValue();
+        data.period = state.getPeriod().getValue();
+        data.dropInTeam = state.getLastDropInColor() == null ? 2 : state.getLastDropInColor().getValue();
+        data.isKnockOutGame = state.isPlayOff() ? (byte)1 : (byte)0;
+        data.dropInTime = (short)timing.getDropInTime();
+        data.millisRemaining = timing.getMillisRemaining();
+        data.secondaryTimeMillis = timing.getSecondaryTimeMillis();
+
+        GameStateProtocol9.setTeamInfo(data.teams[0], timing, state.getTeam(UISide.Left), hasCoach);
+        GameStateProtocol9.setTeamInfo(data.teams[1], timing, state.getTeam(UISide.Right), hasCoach);
+
+        int start = buffer.position();
+        if (hasCoach)
+            GameControlData11Codec.encode(data, buffer, start);
+        else
+            GameControlData11NoCoachCodec.encode(data, buffer, start);
+        buffer.position(start + getMessageSize());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The snapshot's times in seconds are derived from those in milliseconds, rounding up as the controller does.
+     * <p>
+     * Returns <code>null</code> for a message of a league other than this protocol's, whose layout may differ.
+     */
+    @Nullable
+    @Override
+    public GameStateSnapshot fromBytes(@NotNull ByteBuffer buffer)
+    {
+        int start = buffer.position();
+
+        if (!verifyHeader(buffer))
+            return null;
+
+        GameControlData11 data = receivedData;
+        if (hasCoach)
+            GameControlData11Codec.decode(buffer, start, data);
+        else
+            GameControlData11NoCoachCodec.decode(buffer, start, data);
+
+        // Ensure the message applies to the current league
+        if (data.leagueNumber != this.league.number())
+            return null;
+
+        buffer.position(start + getMessageSize());
+
+        return new GameStateSnapshot(
+                PlayMode.fromValue(data.playMode), data.firstHalf != 0, TeamColor.fromValue(data.kickOffTeam),
+                Period.fromValue(data.period), TeamColor.fromValue(data.dropInTeam), data.dropInTime,
+                (short)toSeconds(data.millisRemaining), toSnapshot(data.teams[0]), toSnapshot(data.teams[1]),
+                (short)toSeconds(data.secondaryTimeMillis), data.gameId, league, data.packetNumber,
+                data.playersPerTeam, data.isKnockOutGame != 0, data.millisRemaining, data.secondaryTimeMillis,
+                data.timestamp & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Converts a remaining time in milliseconds to seconds, rounding up as {@link ReadOnlyGameState#getSecsRemaining()}
+     * does, so that a clock shows its full duration until a whole second has passed.
+     * See {@link ReadOnlyGameState#getMillisRemaining()}.
+     */
+    private static int toSeconds(int millis)
+    {
+        return millis > 0 ? (millis + 999) / 1000 : millis / 1000;
+    }
+
+    @NotNull
+    private TeamStateSnapshot toSnapshot(@NotNull TeamInfo9 team)
+    {
+        byte[] coachMessage = null;
+        PlayerStateSnapshot coach = null;
+        if (hasCoach) {
+            coachMessage = team.coachMessage.clone();
+            coach = toSnapshot(-1, team.coach);
+        }
+
+        List<PlayerStateSnapshot> players = new ArrayList<PlayerStateSnapshot>(league.rules().getTeamSize());
+
+        // The message potentially contains data for more players than we are interested in -- ignore unused
+        for (int uniformNumber = 1; uniformNumber <= league.rules().getTeamSize(); uniformNumber++) {
+            players.add(toSnapshot(uniformNumber, team.players[uniformNumber - 1]));
+        }
+
+        return new TeamStateSnapshot(team.teamNumber, TeamColor.fromValue(team.teamColour), team.score,
+                team.penaltyShot, team.singleShots, players, coachMessage, coach);
+    }
+
+    @NotNull
+    private PlayerStateSnapshot toSnapshot(int uniformNumber, @NotNull RobotInfo9 robot)
+    {
+        return new PlayerStateSnapshot(uniformNumber, Penalty.fromValue(league, robot.penalty), robot.secsTillUnpenalised);
+    }
+}
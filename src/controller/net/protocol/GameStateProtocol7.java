@@ -2,9 +2,14 @@ package controller.net.protocol;
 
 import common.annotations.NotNull;
 import common.annotations.Nullable;
+import controller.GameTiming;
 import controller.ReadOnlyGameState;
 import controller.ReadOnlyPlayerState;
 import controller.ReadOnlyTeamState;
+import controller.net.protocol.codec.GameControlData7;
+import controller.net.protocol.codec.GameControlData7Codec;
+import controller.net.protocol.codec.RobotInfo7;
+import controller.net.protocol.codec.TeamInfo7;
 import data.GameStateSnapshot;
 import data.League;
 import data.TeamColor;
@@ -18,14 +23,11 @@ import java.nio.ByteBuffer;
  */
 public class GameStateProtocol7 extends GameStateProtocol
 {
-    /**
-     * The number of player entries in a game state message.
-     * This may be more than the number of players allowed by the rules.
-     */
-    private static final byte NUM_PLAYERS_IN_GAME_STATE_MESSAGE = 11;
-
     private final League league;
 
+    /** The values of the next message's fields, reused for each message. */
+    private final GameControlData7 data = new GameControlData7();
+
     public GameStateProtocol7(@NotNull League league)
     {
         super((byte)7);
@@ -36,52 +38,30 @@ public class GameStateProtocol7 extends GameStateProtocol
     @Override
     public int getMessageSize()
     {
-        final int playerSize =
-                2 + // penalty
-                2;  // secsToUnpenalize
-
-        final int teamSize =
-                1 + // teamNumber
-                1 + // teamColor
-                1 + // goal color
-                1 + // score
-                (NUM_PLAYERS_IN_GAME_STATE_MESSAGE) * playerSize;
-
-        return  4 + // header
-                4 + // version
-                1 + // numPlayers
-                1 + // playMode
-                1 + // firstHalf
-                1 + // nextKickOffColor
-                1 + // period
-                1 + // lastDropInColor
-                2 + // dropInTime
-                4 + // secsRemaining
-                2 * teamSize;
+        return GameControlData7Codec.SIZE;
     }
 
-    @NotNull
     @Override
-    public byte[] toBytes(@NotNull ReadOnlyGameState state)
+    public void encode(@NotNull ReadOnlyGameState state, @NotNull GameTiming timing, @NotNull ByteBuffer buffer)
     {
-        ByteBuffer buffer = writeHeader();
-
-        buffer.putInt(getVersionNumber());
-        buffer.put((byte)league.rules().getTeamSize());
-        buffer.put(state.getPlayMode().getValue());
-        buffer.put(state.isFirstHalf() ? (byte)1 : 0);
-        buffer.put(state.getNextKickOffColor() == null ? 2 : state.getNextKickOffColor().getValue());
-        buffer.put(state.getPeriod().getValue());
+        GameControlData7 data = this.data;
+        data.playersPerTeam = (byte)league.rules().getTeamSize();
+        data.playMode = state.getPlayMode().getValue();
+        data.firstHalf = state.isFirstHalf() ? (byte)1 : 0;
+        data.kickOffTeam = state.getNextKickOffColor() == null ? 2 : state.getNextKickOffColor().getValue();
+        data.period = state.getPeriod().getValue();
         // V7 sends '0' (blue) when no drop in has occurred. This is addressed in V9.
-        buffer.put(state.getLastDropInColor() == null ? 0 : state.getLastDropInColor().getValue());
-        buffer.putShort((short)state.getDropInTime());
-        buffer.putInt(state.getSecsRemaining());
+        data.dropInTeam = state.getLastDropInColor() == null ? 0 : state.getLastDropInColor().getValue();
+        data.dropInTime = (short)timing.getDropInTime();
+        data.secsRemaining = timing.getSecsRemaining();
 
         // In version 7, team data was sorted by team color
-        writeTeamInfo(buffer, state.getTeam(TeamColor.Blue));
-        writeTeamInfo(buffer, state.getTeam(TeamColor.Red));
+        setTeamInfo(data.teams[0], timing, state.getTeam(TeamColor.Blue));
+        setTeamInfo(data.teams[1], timing, state.getTeam(TeamColor.Red));
 
-        return buffer.array();
+        int start = buffer.position();
+        GameControlData7Codec.encode(data, buffer, start);
+        buffer.position(start + GameControlData7Codec.SIZE);
     }
 
     @Nullable
@@ -91,24 +71,24 @@ public class GameStateProtocol7 extends GameStateProtocol
         throw new AssertionError("Not implemented as no use for parsing version 7 messages is known of.");
     }
 
-    private static void writeTeamInfo(ByteBuffer buffer, ReadOnlyTeamState teamState)
+    private static void setTeamInfo(TeamInfo7 team, GameTiming timing, ReadOnlyTeamState teamState)
     {
-        buffer.put((byte)teamState.getTeamNumber());
-        buffer.put(teamState.getTeamColor().getValue());
-        // Goal color (always yellow). This carries over from a time when goals had different colours.
-        buffer.put((byte)1);
-        buffer.put((byte)teamState.getScore());
-
-        // Write player data
-        for (int uniformNumber = 1; uniformNumber <= NUM_PLAYERS_IN_GAME_STATE_MESSAGE; uniformNumber++) {
+        team.teamNumber = (byte)teamState.getTeamNumber();
+        team.teamColour = teamState.getTeamColor().getValue();
+        // The goal color (always yellow) is a constant of the message, from a time when goals had different colours
+        team.score = (byte)teamState.getScore();
+
+        // Set player data
+        for (int uniformNumber = 1; uniformNumber <= team.players.length; uniformNumber++) {
+            RobotInfo7 robot = team.players[uniformNumber - 1];
             if (uniformNumber <= teamState.getPlayerCount()) {
                 ReadOnlyPlayerState player = teamState.getPlayer(uniformNumber);
-                buffer.putShort(player.getPenalty().getValue());
-                buffer.putShort((short)player.getRemainingPenaltyTime());
+                robot.penalty = player.getPenalty().getValue();
+                robot.secsTillUnpenalised = (short)timing.getRemainingPenaltyTime(player);
             } else {
-                // Write blank data for unused players
-                buffer.putShort((short)0);
-                buffer.putShort((short)0);
+                // Blank data for unused players
+                robot.penalty = 0;
+                robot.secsTillUnpenalised = 0;
             }
         }
     }
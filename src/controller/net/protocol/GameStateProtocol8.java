@@ -3,6 +3,7 @@ package controller.net.protocol;
 import common.annotations.NotNull;
 import common.annotations.Nullable;
 import controller.*;
+import controller.net.protocol.codec.*;
 import data.*;
 
 import java.nio.ByteBuffer;
@@ -16,14 +17,14 @@ import java.util.List;
  */
 public class GameStateProtocol8 extends GameStateProtocol
 {
-    /**
-     * The number of player entries in a game state message.
-     * This may be more than the number of players allowed by the rules.
-     */
-    private static final byte NUM_PLAYERS_IN_GAME_STATE_MESSAGE = 11;
-
     private final League league;
 
+    /** The values of the next message's fields, reused for each message. */
+    private final GameControlData8 data = new GameControlData8();
+
+    /** The values of the last message received, reused for each message. */
+    private final GameControlData8 receivedData = new GameControlData8();
+
     public GameStateProtocol8(@NotNull League league)
     {
         super((byte) 8);
@@ -33,151 +34,107 @@ public class GameStateProtocol8 extends GameStateProtocol
     @Override
     public int getMessageSize()
     {
-        final int playerSize =
-                1 + // penalty
-                1;  // secsToUnpenalize
-
-        final int teamSize =
-                1 + // teamNumber
-                1 + // teamColor
-                1 + // score
-                1 + // penaltyShot
-                2 + // singleShots
-                SPLCoachMessage.SIZE + // coach's message
-                (NUM_PLAYERS_IN_GAME_STATE_MESSAGE + 1) * playerSize; // +1 for the coach
-
-        return  4 + // header
-                1 + // version
-                1 + // packet number
-                1 + // numPlayers
-                1 + // playMode
-                1 + // firstHalf
-                1 + // nextKickOffColor
-                1 + // period
-                1 + // lastDropInColor
-                2 + // dropInTime
-                2 + // secsRemaining
-                2 + // secondaryTime
-                2 * teamSize;
+        return GameControlData8Codec.SIZE;
     }
 
-    @NotNull
     @Override
-    public byte[] toBytes(@NotNull ReadOnlyGameState state)
+    public void encode(@NotNull ReadOnlyGameState state, @NotNull GameTiming timing, @NotNull ByteBuffer buffer)
     {
-        ByteBuffer buffer = writeHeader();
-
-        buffer.put(getVersionNumber());
-        buffer.put(nextPacketNumber);
-        buffer.put((byte)league.rules().getTeamSize());
-        buffer.put(state.getPlayMode().getValue());
-        buffer.put(state.isFirstHalf() ? (byte)1 : 0);
-        buffer.put(state.getNextKickOffColor() == null ? 2 : state.getNextKickOffColor().getValue());
-        buffer.put(state.getPeriod().getValue());
+        GameControlData8 data = this.data;
+        data.packetNumber = nextPacketNumber;
+        data.playersPerTeam = (byte)league.rules().getTeamSize();
+        data.playMode = state.getPlayMode().getValue();
+        data.firstHalf = state.isFirstHalf() ? (byte)1 : 0;
+        data.kickOffTeam = state.getNextKickOffColor() == null ? 2 : state.getNextKickOffColor().getValue();
+        data.period = state.getPeriod().getValue();
         // V8 sends '0' (blue) when no drop in has occurred. This is addressed in V9.
-        buffer.put(state.getLastDropInColor() == null ? 0 : state.getLastDropInColor().getValue());
-        buffer.putShort((short)state.getDropInTime());
-        buffer.putShort((short)state.getSecsRemaining());
-        buffer.putShort((short)state.getSecondaryTime());
+        data.dropInTeam = state.getLastDropInColor() == null ? 0 : state.getLastDropInColor().getValue();
+        data.dropInTime = (short)timing.getDropInTime();
+        data.secsRemaining = (short)timing.getSecsRemaining();
+        data.secondaryTime = (short)timing.getSecondaryTime();
 
-        writeTeamInfo(buffer, state.getTeam(UISide.Left));
-        writeTeamInfo(buffer, state.getTeam(UISide.Right));
+        setTeamInfo(data.teams[0], timing, state.getTeam(UISide.Left));
+        setTeamInfo(data.teams[1], timing, state.getTeam(UISide.Right));
 
-        return buffer.array();
+        int start = buffer.position();
+        GameControlData8Codec.encode(data, buffer, start);
+        buffer.position(start + GameControlData8Codec.SIZE);
     }
 
     @Nullable
     @Override
     public GameStateSnapshot fromBytes(@NotNull ByteBuffer buffer)
     {
+        int start = buffer.position();
+
         if (!verifyHeader(buffer))
             return null;
 
-        byte packetNumber = buffer.get();
-        byte playersPerTeam = buffer.get(); // should equal league.rules().teamSize
-        PlayMode playMode = PlayMode.fromValue(buffer.get());
-        boolean firstHalf = buffer.get() != 0;
-        TeamColor nextKickOffColor = TeamColor.fromValue(buffer.get());
-        Period period = Period.fromValue(buffer.get());
-        TeamColor lastDropInColor = TeamColor.fromValue(buffer.get());
-        short dropInTime = buffer.getShort();
-        short secsRemaining = buffer.getShort();
-        short secondaryTime = buffer.getShort();
-
-        TeamStateSnapshot team1 = teamFromBytes(buffer);
-        TeamStateSnapshot team2 = teamFromBytes(buffer);
+        GameControlData8 data = receivedData;
+        GameControlData8Codec.decode(buffer, start, data);
+        buffer.position(start + GameControlData8Codec.SIZE);
 
+        // data.playersPerTeam should equal league.rules().teamSize
         return new GameStateSnapshot(
-                playMode, firstHalf, nextKickOffColor, period, lastDropInColor, dropInTime,
-                secsRemaining, team1, team2, secondaryTime, -1, league, packetNumber, playersPerTeam, null);
+                PlayMode.fromValue(data.playMode), data.firstHalf != 0, TeamColor.fromValue(data.kickOffTeam),
+                Period.fromValue(data.period), TeamColor.fromValue(data.dropInTeam), data.dropInTime,
+                data.secsRemaining, toSnapshot(data.teams[0]), toSnapshot(data.teams[1]), data.secondaryTime, -1,
+                league, data.packetNumber, data.playersPerTeam, null);
     }
 
     @NotNull
-    private TeamStateSnapshot teamFromBytes(@NotNull ByteBuffer buffer)
+    private TeamStateSnapshot toSnapshot(@NotNull TeamInfo8 team)
     {
-        byte teamNumber = buffer.get();
-        TeamColor teamColor = TeamColor.fromValue(buffer.get());
-        byte score = buffer.get();
-        byte penaltyShot = buffer.get();
-        short singleShots = buffer.getShort();
-
-        byte[] coachMessage = new byte[SPLCoachMessage.SIZE];
-        buffer.get(coachMessage);
-        PlayerStateSnapshot coach = playerFromBytes(-1, buffer);
+        PlayerStateSnapshot coach = toSnapshot(-1, team.coach);
 
         List<PlayerStateSnapshot> players = new ArrayList<PlayerStateSnapshot>(league.rules().getTeamSize());
 
-        for (int uniformNumber = 1; uniformNumber <= NUM_PLAYERS_IN_GAME_STATE_MESSAGE; uniformNumber++) {
-            PlayerStateSnapshot player = playerFromBytes(uniformNumber, buffer);
-            // The buffer potentially contains data for more players than we are interested in -- ignore unused
-            if (uniformNumber <= league.rules().getTeamSize()) {
-                players.add(player);
-            }
+        // The message potentially contains data for more players than we are interested in -- ignore unused
+        for (int uniformNumber = 1; uniformNumber <= league.rules().getTeamSize(); uniformNumber++) {
+            players.add(toSnapshot(uniformNumber, team.players[uniformNumber - 1]));
         }
 
-        return new TeamStateSnapshot(teamNumber, teamColor, score, penaltyShot, singleShots, players, coachMessage, coach);
+        return new TeamStateSnapshot(team.teamNumber, TeamColor.fromValue(team.teamColour), team.score,
+                team.penaltyShot, team.singleShots, players, team.coachMessage.clone(), coach);
     }
 
-    private PlayerStateSnapshot playerFromBytes(int uniformNumber, ByteBuffer buffer)
+    @NotNull
+    private PlayerStateSnapshot toSnapshot(int uniformNumber, @NotNull RobotInfo8 robot)
     {
-        Penalty penalty = Penalty.fromValue(league, buffer.get());
-        byte secondsUntilUnpenalised = buffer.get();
-
-        return new PlayerStateSnapshot(uniformNumber, penalty, secondsUntilUnpenalised);
+        return new PlayerStateSnapshot(uniformNumber, Penalty.fromValue(league, robot.penalty), robot.secsTillUnpenalised);
     }
 
-    private void writeTeamInfo(ByteBuffer buffer, @NotNull ReadOnlyTeamState teamState)
+    private void setTeamInfo(@NotNull TeamInfo8 team, @NotNull GameTiming timing, @NotNull ReadOnlyTeamState teamState)
     {
-        buffer.put((byte)teamState.getTeamNumber());
-        buffer.put(teamState.getTeamColor().getValue());
-        buffer.put((byte)teamState.getScore());
-        buffer.put((byte)teamState.getPenaltyShotCount());
-        buffer.putShort(teamState.getPenaltyShotFlags());
+        team.teamNumber = (byte)teamState.getTeamNumber();
+        team.teamColour = teamState.getTeamColor().getValue();
+        team.score = (byte)teamState.getScore();
+        team.penaltyShot = (byte)teamState.getPenaltyShotCount();
+        team.singleShots = teamState.getPenaltyShotFlags();
 
+        // Leagues without a coach leave the coach's message and data blank
         if (league.rules().isCoachAvailable()) {
-            buffer.put(teamState.getCoachMessage());
-            writePlayerInfo(buffer, teamState.getCoach());
-        } else {
-            buffer.put(new byte[SPLCoachMessage.SIZE]);
-            writePlayerInfo(buffer, null);
+            System.arraycopy(teamState.getCoachMessage(), 0, team.coachMessage, 0, SPLCoachMessage.SIZE);
+            setRobotInfo(team.coach, timing, teamState.getCoach());
         }
 
-        for (int uniformNumber = 1; uniformNumber <= NUM_PLAYERS_IN_GAME_STATE_MESSAGE; uniformNumber++) {
-            writePlayerInfo(buffer,
+        // The message may hold more player entries than the number of players allowed by the rules
+        for (int uniformNumber = 1; uniformNumber <= team.players.length; uniformNumber++) {
+            setRobotInfo(team.players[uniformNumber - 1], timing,
                             uniformNumber <= teamState.getPlayerCount()
                                 ? teamState.getPlayer(uniformNumber)
                                 : null);
         }
     }
 
-    private static void writePlayerInfo(ByteBuffer buffer, @Nullable ReadOnlyPlayerState playerState)
+    private static void setRobotInfo(@NotNull RobotInfo8 robot, @NotNull GameTiming timing, @Nullable ReadOnlyPlayerState playerState)
     {
         if (playerState == null) {
-            buffer.put((byte)0);
-            buffer.put((byte)0);
+            robot.penalty = 0;
+            robot.secsTillUnpenalised = 0;
         } else {
-            buffer.put(playerState.getPenalty().getValue());
-            buffer.put((byte)playerState.getRemainingPenaltyTime());
+            robot.penalty = playerState.getPenalty().getValue();
+            robot.secsTillUnpenalised = (byte)timing.getRemainingPenaltyTime(playerState);
         }
     }
 }
@@ -3,11 +3,10 @@ package controller.net.protocol;
 import common.annotations.NotNull;
 import common.annotations.Nullable;
 import controller.*;
+import controller.net.protocol.codec.*;
 import data.*;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Implements game state network protocol, version 9.
@@ -32,12 +31,6 @@ import java.util.List;
  */
 public class GameStateProtocol9 extends GameStateProtocol
 {
-    /**
-     * The number of player entries in a game state message.
-     * This may be more than the number of players allowed by the rules.
-     */
-    private static final byte NUM_PLAYERS_IN_GAME_STATE_MESSAGE = 11;
-
     /**
      * A number that uniquely identifies the game.
      *
@@ -48,184 +41,118 @@ public class GameStateProtocol9 extends GameStateProtocol
 
     private final League league;
 
+    /** Whether the league's teams have a coach, whose data is then included in messages. */
+    private final boolean hasCoach;
+
+    /** The values of the next message's fields, reused for each message. */
+    private final GameControlData9 data = new GameControlData9();
+
     public GameStateProtocol9(@NotNull League league, int gameId)
     {
         super((byte) 9);
         this.league = league;
         this.gameId = gameId;
+        this.hasCoach = league.isSPLFamily();
     }
 
     @Override
     public int getMessageSize()
     {
-        final boolean hasCoach = this.league.isSPLFamily();
-
-        final int playerSize =
-                1 + // penalty
-                1;  // secsToUnpenalize
-
-        final int playerCount = NUM_PLAYERS_IN_GAME_STATE_MESSAGE + (hasCoach ? 1 : 0);
-
-        final int teamSize =
-                1 + // teamNumber
-                1 + // teamColor
-                1 + // score
-                1 + // penaltyShot
-                2 + // singleShots
-                (hasCoach ? SPLCoachMessage.SIZE : 0) + // coach's message
-                playerCount * playerSize; // player data
-
-        return  4 + // header
-                1 + // version
-                1 + // league number
-                1 + // packet number
-                4 + // game ID
-                1 + // numPlayers
-                1 + // playMode
-                1 + // firstHalf
-                1 + // nextKickOffColor
-                1 + // period
-                1 + // lastDropInColor
-                1 + // isKnockOutGame
-                2 + // dropInTime
-                2 + // secsRemaining
-                2 + // secondaryTime
-                2 * teamSize;
+        return hasCoach ? GameControlData9Codec.SIZE : GameControlData9NoCoachCodec.SIZE;
     }
 
-    @NotNull
     @Override
-    public byte[] toBytes(@NotNull ReadOnlyGameState state)
+    public void encode(@NotNull ReadOnlyGameState state, @NotNull GameTiming timing, @NotNull ByteBuffer buffer)
     {
-        ByteBuffer buffer = writeHeader();
-
-        buffer.put(getVersionNumber());
-        buffer.put(league.number());
-        buffer.put(nextPacketNumber);
-        buffer.put((byte)league.rules().getTeamSize());
-        buffer.putInt(gameId);
-        buffer.put(state.getPlayMode().getValue());
-        buffer.put(state.isFirstHalf() ? (byte)1 : 0);
-        buffer.put(state.getNextKickOffColor() == null ? 2 : state.getNextKickOffColor().getValue());
-        buffer.put(state.getPeriod().getValue());
-        buffer.put(state.getLastDropInColor() == null ? 2 : state.getLastDropInColor().getValue());
-        buffer.put(state.isPlayOff() ? (byte)1 : (byte)0);
-        buffer.putShort((short)state.getDropInTime());
-        buffer.putShort((short)state.getSecsRemaining());
-        buffer.putShort((short)state.getSecondaryTime());
-
-        writeTeamInfo(buffer, state.getTeam(UISide.Left));
-        writeTeamInfo(buffer, state.getTeam(UISide.Right));
-
-        return buffer.array();
+        GameControlData9 data = this.data;
+        data.leagueNumber = league.number();
+        data.packetNumber = nextPacketNumber;
+        data.playersPerTeam = (byte)league.rules().getTeamSize();
+        data.gameId = gameId;
+        data.playMode = state.getPlayMode().getValue();
+        data.firstHalf = state.isFirstHalf() ? (byte)1 : 0;
+        data.kickOffTeam = state.getNextKickOffColor() == null ? 2 : state.getNextKickOffColor().getValue();
+        data.period = state.getPeriod().getValue();
+        data.dropInTeam = state.getLastDropInColor() == null ? 2 : state.getLastDropInColor().getValue();
+        data.isKnockOutGame = state.isPlayOff() ? (byte)1 : (byte)0;
+        data.dropInTime = (short)timing.getDropInTime();
+        data.secsRemaining = (short)timing.getSecsRemaining();
+        data.secondaryTime = (short)timing.getSecondaryTime();
+
+        setTeamInfo(data.teams[0], timing, state.getTeam(UISide.Left), hasCoach);
+        setTeamInfo(data.teams[1], timing, state.getTeam(UISide.Right), hasCoach);
+
+        int start = buffer.position();
+        if (hasCoach)
+            GameControlData9Codec.encode(data, buffer, start);
+        else
+            GameControlData9NoCoachCodec.encode(data, buffer, start);
+        buffer.position(start + getMessageSize());
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Decodes the whole message, allocating objects for each team and player. Receivers that only read a few
+     * fields of each message should use {@link GameStateViewProtocol}, and decode just those fields.
+     */
     @Nullable
     @Override
     public GameStateSnapshot fromBytes(@NotNull ByteBuffer buffer)
     {
+        int start = buffer.position();
+
         if (!verifyHeader(buffer))
             return null;
 
-        League league = League.findByNumber(buffer.get());
+        GameStateView view = new GameStateView(league).wrap(buffer, start);
 
         // Ensure the message applies to the current league
         // TODO don't return null, and decode the message according to the advertised league
-        if (league != this.league)
+        if (view.getLeagueNumber() != this.league.number())
             return null;
 
-        byte packetNumber = buffer.get();
-        byte playersPerTeam = buffer.get();
-        int gameId = buffer.getInt();
-        PlayMode playMode = PlayMode.fromValue(buffer.get());
-        boolean firstHalf = buffer.get() != 0;
-        TeamColor nextKickOffColor = TeamColor.fromValue(buffer.get());
-        Period period = Period.fromValue(buffer.get());
-        TeamColor lastDropInColor = TeamColor.fromValue(buffer.get());
-        boolean isDropInGame = buffer.get() != 0;
-        short dropInTime = buffer.getShort();
-        short secsRemaining = buffer.getShort();
-        short secondaryTime = buffer.getShort();
-
-        TeamStateSnapshot team1 = teamFromBytes(buffer);
-        TeamStateSnapshot team2 = teamFromBytes(buffer);
-
-        return new GameStateSnapshot(
-                playMode, firstHalf, nextKickOffColor, period, lastDropInColor, dropInTime,
-                secsRemaining, team1, team2, secondaryTime, gameId, league, packetNumber, playersPerTeam, isDropInGame);
-    }
-
-    @NotNull
-    private TeamStateSnapshot teamFromBytes(@NotNull ByteBuffer buffer)
-    {
-        final boolean hasCoach = this.league.isSPLFamily();
-
-        byte teamNumber = buffer.get();
-        TeamColor teamColor = TeamColor.fromValue(buffer.get());
-        byte score = buffer.get();
-        byte penaltyShot = buffer.get();
-        short singleShots = buffer.getShort();
-
-        byte[] coachMessage = null;
-        PlayerStateSnapshot coach = null;
-        if (hasCoach) {
-            coachMessage = new byte[SPLCoachMessage.SIZE];
-            buffer.get(coachMessage);
-            coach = playerFromBytes(-1, buffer);
-        }
+        buffer.position(start + getMessageSize());
 
-        List<PlayerStateSnapshot> players = new ArrayList<PlayerStateSnapshot>(league.rules().getTeamSize());
-
-        for (int uniformNumber = 1; uniformNumber <= NUM_PLAYERS_IN_GAME_STATE_MESSAGE; uniformNumber++) {
-            PlayerStateSnapshot player = playerFromBytes(uniformNumber, buffer);
-            // The buffer potentially contains data for more players than we are interested in -- ignore unused
-            if (uniformNumber <= league.rules().getTeamSize()) {
-                players.add(player);
-            }
-        }
-
-        return new TeamStateSnapshot(teamNumber, teamColor, score, penaltyShot, singleShots, players, coachMessage, coach);
+        return view.toSnapshot();
     }
 
-    private PlayerStateSnapshot playerFromBytes(int uniformNumber, ByteBuffer buffer)
-    {
-        Penalty penalty = Penalty.fromValue(league, buffer.get());
-        byte secondsTillUnpenalised = buffer.get();
-
-        return new PlayerStateSnapshot(uniformNumber, penalty, secondsTillUnpenalised);
-    }
-
-    private void writeTeamInfo(@NotNull ByteBuffer buffer, @NotNull ReadOnlyTeamState teamState)
+    /**
+     * Sets the values of a team's fields, which are shared by later versions of the message.
+     *
+     * @param hasCoach whether the message includes coach data.
+     */
+    static void setTeamInfo(@NotNull TeamInfo9 team, @NotNull GameTiming timing, @NotNull ReadOnlyTeamState teamState,
+                            boolean hasCoach)
     {
-        buffer.put((byte)teamState.getTeamNumber());
-        buffer.put(teamState.getTeamColor().getValue());
-        buffer.put((byte)teamState.getScore());
-        buffer.put((byte)teamState.getPenaltyShotCount());
-        buffer.putShort(teamState.getPenaltyShotFlags());
-
-        final boolean hasCoach = this.league.isSPLFamily();
+        team.teamNumber = (byte)teamState.getTeamNumber();
+        team.teamColour = teamState.getTeamColor().getValue();
+        team.score = (byte)teamState.getScore();
+        team.penaltyShot = (byte)teamState.getPenaltyShotCount();
+        team.singleShots = teamState.getPenaltyShotFlags();
 
         if (hasCoach) {
-            buffer.put(teamState.getCoachMessage());
-            writePlayerInfo(buffer, teamState.getCoach());
+            System.arraycopy(teamState.getCoachMessage(), 0, team.coachMessage, 0, SPLCoachMessage.SIZE);
+            setRobotInfo(team.coach, timing, teamState.getCoach());
         }
 
-        for (int uniformNumber = 1; uniformNumber <= NUM_PLAYERS_IN_GAME_STATE_MESSAGE; uniformNumber++) {
-            writePlayerInfo(buffer,
+        // The message may hold more player entries than the number of players allowed by the rules
+        for (int uniformNumber = 1; uniformNumber <= team.players.length; uniformNumber++) {
+            setRobotInfo(team.players[uniformNumber - 1], timing,
                     uniformNumber <= teamState.getPlayerCount()
                             ? teamState.getPlayer(uniformNumber)
                             : null);
         }
     }
 
-    private static void writePlayerInfo(@NotNull ByteBuffer buffer, @Nullable ReadOnlyPlayerState playerState)
+    private static void setRobotInfo(@NotNull RobotInfo9 robot, @NotNull GameTiming timing, @Nullable ReadOnlyPlayerState playerState)
     {
         if (playerState == null) {
-            buffer.put((byte)0);
-            buffer.put((byte)0);
+            robot.penalty = 0;
+            robot.secsTillUnpenalised = 0;
         } else {
-            buffer.put(playerState.getPenalty().getValue());
-            buffer.put((byte)playerState.getRemainingPenaltyTime());
+            robot.penalty = playerState.getPenalty().getValue();
+            robot.secsTillUnpenalised = (byte)timing.getRemainingPenaltyTime(playerState);
         }
     }
 }
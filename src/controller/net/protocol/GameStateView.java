@@ -0,0 +1,356 @@
+package controller.net.protocol;
+
+import common.annotations.NotNull;
+import common.annotations.Nullable;
+import controller.net.protocol.codec.GameControlData9Codec;
+import controller.net.protocol.codec.GameControlData9NoCoachCodec;
+import data.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A read-only view over a game state message of protocol version 9, as held in a receive buffer.
+ * <p>
+ * Each accessor reads its field directly from the buffer, by offset, so reading a few fields of a message
+ * allocates nothing. The view does not copy the message: it is only valid until the buffer is reused, which
+ * for messages passed to a {@link controller.net.MessageHandler} means until the handler returns. A view may
+ * be rebound to each new message via {@link #wrap}.
+ * <p>
+ * Call {@link #toSnapshot()} to obtain an immutable copy of any message that must be retained.
+ *
+ * @see GameStateViewProtocol
+ * @see GameStateProtocol9
+ */
+public class GameStateView
+{
+    // The layout is the same with and without a coach, up to the teams
+    private static final int LEAGUE_OFFSET = GameControlData9Codec.LEAGUE_NUMBER;
+    private static final int PACKET_NUMBER_OFFSET = GameControlData9Codec.PACKET_NUMBER;
+    private static final int PLAYERS_PER_TEAM_OFFSET = GameControlData9Codec.PLAYERS_PER_TEAM;
+    private static final int GAME_ID_OFFSET = GameControlData9Codec.GAME_ID;
+    private static final int PLAY_MODE_OFFSET = GameControlData9Codec.PLAY_MODE;
+    private static final int FIRST_HALF_OFFSET = GameControlData9Codec.FIRST_HALF;
+    private static final int NEXT_KICK_OFF_COLOR_OFFSET = GameControlData9Codec.KICK_OFF_TEAM;
+    private static final int PERIOD_OFFSET = GameControlData9Codec.PERIOD;
+    private static final int LAST_DROP_IN_COLOR_OFFSET = GameControlData9Codec.DROP_IN_TEAM;
+    private static final int DROP_IN_GAME_OFFSET = GameControlData9Codec.IS_KNOCK_OUT_GAME;
+    private static final int DROP_IN_TIME_OFFSET = GameControlData9Codec.DROP_IN_TIME;
+    private static final int SECS_REMAINING_OFFSET = GameControlData9Codec.SECS_REMAINING;
+    private static final int SECONDARY_TIME_OFFSET = GameControlData9Codec.SECONDARY_TIME;
+    private static final int TEAMS_OFFSET = GameControlData9Codec.TEAMS;
+
+    @NotNull private final League league;
+    @NotNull private final TeamView team1;
+    @NotNull private final TeamView team2;
+
+    @Nullable private ByteBuffer buffer;
+    private int offset;
+
+    /**
+     * Creates a view for messages of the given league, which determines their layout.
+     * The view must be bound to a message via {@link #wrap} before use.
+     */
+    public GameStateView(@NotNull League league)
+    {
+        this.league = league;
+
+        int teamSize = league.isSPLFamily()
+                ? GameControlData9Codec.TeamInfo9.SIZE
+                : GameControlData9NoCoachCodec.TeamInfo9.SIZE;
+
+        team1 = new TeamView(TEAMS_OFFSET);
+        team2 = new TeamView(TEAMS_OFFSET + teamSize);
+    }
+
+    /**
+     * Binds this view to a message.
+     *
+     * @param buffer the buffer holding the message, in little-endian byte order.
+     * @param offset the index in the buffer at which the message begins.
+     * @return this view.
+     */
+    @NotNull
+    public GameStateView wrap(@NotNull ByteBuffer buffer, int offset)
+    {
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    @NotNull
+    private ByteBuffer buffer()
+    {
+        assert(buffer != null) : "View is not bound to a message";
+        return buffer;
+    }
+
+    private byte get(int index)
+    {
+        return buffer().get(offset + index);
+    }
+
+    private short getShort(int index)
+    {
+        return buffer().getShort(offset + index);
+    }
+
+    /**
+     * Gets the number of the league advertised in the message. The message is only laid out as this view
+     * expects if this is the number of {@link #getLeague()}.
+     */
+    public byte getLeagueNumber()
+    {
+        return get(LEAGUE_OFFSET);
+    }
+
+    /** See {@link GameStateSnapshot#getLeague()}. */
+    @NotNull
+    public League getLeague()
+    {
+        return league;
+    }
+
+    /** See {@link GameStateSnapshot#getPacketNumber()}. */
+    public byte getPacketNumber()
+    {
+        return get(PACKET_NUMBER_OFFSET);
+    }
+
+    /** See {@link GameStateSnapshot#getPlayersPerTeam()}. */
+    public byte getPlayersPerTeam()
+    {
+        return get(PLAYERS_PER_TEAM_OFFSET);
+    }
+
+    /** See {@link GameStateSnapshot#getGameId()}. */
+    public int getGameId()
+    {
+        return buffer().getInt(offset + GAME_ID_OFFSET);
+    }
+
+    /** See {@link GameStateSnapshot#getPlayMode()}. */
+    @NotNull
+    public PlayMode getPlayMode()
+    {
+        return PlayMode.fromValue(get(PLAY_MODE_OFFSET));
+    }
+
+    /** See {@link GameStateSnapshot#isFirstHalf()}. */
+    public boolean isFirstHalf()
+    {
+        return get(FIRST_HALF_OFFSET) != 0;
+    }
+
+    /** See {@link GameStateSnapshot#getNextKickOffColor()}. */
+    @Nullable
+    public TeamColor getNextKickOffColor()
+    {
+        return TeamColor.fromValue(get(NEXT_KICK_OFF_COLOR_OFFSET));
+    }
+
+    /** See {@link GameStateSnapshot#getPeriod()}. */
+    @NotNull
+    public Period getPeriod()
+    {
+        return Period.fromValue(get(PERIOD_OFFSET));
+    }
+
+    /** See {@link GameStateSnapshot#getLastDropInColor()}. */
+    @Nullable
+    public TeamColor getLastDropInColor()
+    {
+        return TeamColor.fromValue(get(LAST_DROP_IN_COLOR_OFFSET));
+    }
+
+    /** See {@link GameStateSnapshot#isDropInGame()}. */
+    public boolean isDropInGame()
+    {
+        return get(DROP_IN_GAME_OFFSET) != 0;
+    }
+
+    /** See {@link GameStateSnapshot#getDropInTime()}. */
+    public short getDropInTime()
+    {
+        return getShort(DROP_IN_TIME_OFFSET);
+    }
+
+    /** See {@link GameStateSnapshot#getSecsRemaining()}. */
+    public short getSecsRemaining()
+    {
+        return getShort(SECS_REMAINING_OFFSET);
+    }
+
+    /** See {@link GameStateSnapshot#getSecondaryTime()}. */
+    public short getSecondaryTime()
+    {
+        return getShort(SECONDARY_TIME_OFFSET);
+    }
+
+    /** Data about the first team in the message. Valid for as long as this view. */
+    @NotNull
+    public TeamView getTeam1()
+    {
+        return team1;
+    }
+
+    /** Data about the second team in the message. Valid for as long as this view. */
+    @NotNull
+    public TeamView getTeam2()
+    {
+        return team2;
+    }
+
+    /** See {@link GameStateSnapshot#getTeam(TeamColor)}. */
+    @NotNull
+    public TeamView getTeam(@NotNull TeamColor color)
+    {
+        return team1.getTeamColor() == color ? team1 : team2;
+    }
+
+    /**
+     * Copies the message into an immutable snapshot, which remains valid after the buffer is reused.
+     */
+    @NotNull
+    public GameStateSnapshot toSnapshot()
+    {
+        return new GameStateSnapshot(
+                getPlayMode(), isFirstHalf(), getNextKickOffColor(), getPeriod(), getLastDropInColor(),
+                getDropInTime(), getSecsRemaining(), team1.toSnapshot(), team2.toSnapshot(), getSecondaryTime(),
+                getGameId(), league, getPacketNumber(), getPlayersPerTeam(), isDropInGame());
+    }
+
+    /**
+     * A read-only view over one team's data within a game state message.
+     */
+    public class TeamView
+    {
+        private static final int TEAM_NUMBER_OFFSET = GameControlData9Codec.TeamInfo9.TEAM_NUMBER;
+        private static final int TEAM_COLOR_OFFSET = GameControlData9Codec.TeamInfo9.TEAM_COLOUR;
+        private static final int SCORE_OFFSET = GameControlData9Codec.TeamInfo9.SCORE;
+        private static final int PENALTY_SHOT_COUNT_OFFSET = GameControlData9Codec.TeamInfo9.PENALTY_SHOT;
+        private static final int PENALTY_SHOT_FLAGS_OFFSET = GameControlData9Codec.TeamInfo9.SINGLE_SHOTS;
+        private static final int COACH_MESSAGE_OFFSET = GameControlData9Codec.TeamInfo9.COACH_MESSAGE;
+        private static final int COACH_OFFSET = GameControlData9Codec.TeamInfo9.COACH;
+        private static final int PLAYER_SIZE = GameControlData9Codec.RobotInfo9.SIZE;
+
+        private final int teamOffset;
+        /** The offset of the first player's data. For SPL, preceded by the coach's message and data. */
+        private final int playersOffset;
+
+        private TeamView(int teamOffset)
+        {
+            this.teamOffset = teamOffset;
+            this.playersOffset = teamOffset + (league.isSPLFamily()
+                    ? GameControlData9Codec.TeamInfo9.PLAYERS
+                    : GameControlData9NoCoachCodec.TeamInfo9.PLAYERS);
+        }
+
+        /** See {@link TeamStateSnapshot#getTeamNumber()}. */
+        public int getTeamNumber()
+        {
+            return get(teamOffset + TEAM_NUMBER_OFFSET);
+        }
+
+        /** See {@link TeamStateSnapshot#getTeamColor()}. */
+        @NotNull
+        public TeamColor getTeamColor()
+        {
+            return TeamColor.fromValue(get(teamOffset + TEAM_COLOR_OFFSET));
+        }
+
+        /** See {@link TeamStateSnapshot#getScore()}. */
+        public byte getScore()
+        {
+            return get(teamOffset + SCORE_OFFSET);
+        }
+
+        /** See {@link TeamStateSnapshot#getPenaltyShotCount()}. */
+        public byte getPenaltyShotCount()
+        {
+            return get(teamOffset + PENALTY_SHOT_COUNT_OFFSET);
+        }
+
+        /** See {@link TeamStateSnapshot#getPenaltyShotFlags()}. */
+        public short getPenaltyShotFlags()
+        {
+            return getShort(teamOffset + PENALTY_SHOT_FLAGS_OFFSET);
+        }
+
+        /** Gets the number of players in the team, as per the league's rules. */
+        public int getPlayerCount()
+        {
+            return league.rules().getTeamSize();
+        }
+
+        /**
+         * Gets a player's penalty.
+         *
+         * @param uniformNumber the player's uniform number, from 1 to {@link #getPlayerCount()}.
+         */
+        @NotNull
+        public Penalty getPenalty(int uniformNumber)
+        {
+            return Penalty.fromValue(league, get(getPlayerOffset(uniformNumber)));
+        }
+
+        /**
+         * Gets a player's estimated remaining penalty time.
+         *
+         * @param uniformNumber the player's uniform number, from 1 to {@link #getPlayerCount()}.
+         */
+        public byte getSecondsTillUnpenalised(int uniformNumber)
+        {
+            return get(getPlayerOffset(uniformNumber) + 1);
+        }
+
+        private int getPlayerOffset(int uniformNumber)
+        {
+            assert(uniformNumber >= 1 && uniformNumber <= getPlayerCount());
+            return playersOffset + (uniformNumber - 1) * PLAYER_SIZE;
+        }
+
+        /**
+         * Copies the team's last coach message into an array (only used in SPL).
+         *
+         * @param message an array of at least {@link SPLCoachMessage#SIZE} bytes.
+         * @return <code>false</code> if the league has no coach, in which case nothing is copied.
+         */
+        public boolean getCoachMessage(@NotNull byte[] message)
+        {
+            if (!league.isSPLFamily())
+                return false;
+
+            ByteBuffer buffer = buffer();
+            int start = offset + teamOffset + COACH_MESSAGE_OFFSET;
+            for (int i = 0; i < SPLCoachMessage.SIZE; i++)
+                message[i] = buffer.get(start + i);
+            return true;
+        }
+
+        /**
+         * Copies the team's data into an immutable snapshot, which remains valid after the buffer is reused.
+         */
+        @NotNull
+        public TeamStateSnapshot toSnapshot()
+        {
+            byte[] coachMessage = null;
+            PlayerStateSnapshot coach = null;
+            if (league.isSPLFamily()) {
+                coachMessage = new byte[SPLCoachMessage.SIZE];
+                getCoachMessage(coachMessage);
+                int coachOffset = teamOffset + COACH_OFFSET;
+                coach = new PlayerStateSnapshot(-1, Penalty.fromValue(league, get(coachOffset)), get(coachOffset + 1));
+            }
+
+            int playerCount = getPlayerCount();
+            List<PlayerStateSnapshot> players = new ArrayList<PlayerStateSnapshot>(playerCount);
+            for (int uniformNumber = 1; uniformNumber <= playerCount; uniformNumber++)
+                players.add(new PlayerStateSnapshot(uniformNumber, getPenalty(uniformNumber), getSecondsTillUnpenalised(uniformNumber)));
+
+            return new TeamStateSnapshot(getTeamNumber(), getTeamColor(), getScore(), getPenaltyShotCount(),
+                    getPenaltyShotFlags(), players, coachMessage, coach);
+        }
+    }
+}
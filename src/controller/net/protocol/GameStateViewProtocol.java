@@ -0,0 +1,78 @@
+package controller.net.protocol;
+
+import common.annotations.NotNull;
+import common.annotations.Nullable;
+import data.League;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Receives game state messages of protocol version 9 as {@link GameStateView}s, without decoding them.
+ * <p>
+ * A single view is reused for every message, bound in turn to each received datagram. Handlers must
+ * therefore not retain the view, nor read from it after returning. Handlers needing to keep a message
+ * should call {@link GameStateView#toSnapshot()}.
+ *
+ * @see GameStateProtocol9#fromBytes
+ */
+public class GameStateViewProtocol implements ReceivingProtocol<GameStateView>
+{
+    @NotNull private final GameStateProtocol9 protocol;
+    @NotNull private final League league;
+    @NotNull private final GameStateView view;
+
+    public GameStateViewProtocol(@NotNull League league)
+    {
+        this.protocol = new GameStateProtocol9(league, -1);
+        this.league = league;
+        this.view = new GameStateView(league);
+    }
+
+    @Override
+    public int getHeader()
+    {
+        return protocol.getHeader();
+    }
+
+    @Override
+    public byte getVersionNumber()
+    {
+        return protocol.getVersionNumber();
+    }
+
+    @Override
+    public int getMessageSize()
+    {
+        return protocol.getMessageSize();
+    }
+
+    @Override
+    public int getMinMessageSize()
+    {
+        return protocol.getMinMessageSize();
+    }
+
+    /**
+     * Binds the view to a message, after checking its header and league.
+     *
+     * @param buffer the message, from the buffer's position. It must remain unchanged while the view is used.
+     * @return the view, or <code>null</code> if the message is not a game state message for this league.
+     */
+    @Nullable
+    @Override
+    public GameStateView fromBytes(@NotNull ByteBuffer buffer)
+    {
+        int start = buffer.position();
+
+        if (!protocol.verifyHeader(buffer))
+            return null;
+
+        view.wrap(buffer, start);
+
+        // Ensure the message applies to the current league
+        if (view.getLeagueNumber() != league.number())
+            return null;
+
+        return view;
+    }
+}
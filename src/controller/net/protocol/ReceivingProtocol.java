@@ -6,11 +6,30 @@ import java.nio.ByteBuffer;
 
 public interface ReceivingProtocol<T>
 {
+    /**
+     * The four bytes at the start of every message of this protocol, read as a little-endian int.
+     * <p>
+     * Together with {@link #getVersionNumber()}, identifies which protocol a received message belongs to.
+     */
+    int getHeader();
+
+    /**
+     * The version number of this protocol, which immediately follows the header in each message.
+     */
+    byte getVersionNumber();
+
     /**
      * The size in bytes of each fixed-size network message, as required by this protocol version.
+     * For protocols whose messages vary in size, the size of the largest message.
      */
     int getMessageSize();
 
+    /**
+     * The size in bytes of the smallest message of this protocol version. Shorter messages are discarded
+     * without being parsed. For protocols whose messages are of fixed size, equal to {@link #getMessageSize()}.
+     */
+    int getMinMessageSize();
+
     /**
      * Attempts to parse the provided byte array as a message of this protocol version.
      *
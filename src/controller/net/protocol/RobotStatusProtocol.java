@@ -12,7 +12,8 @@ import java.nio.ByteOrder;
  */
 public abstract class RobotStatusProtocol implements ReceivingProtocol<RobotMessage>
 {
-    private static final String HEADER = "RGrt";
+    /** The header "RGrt", as read from the start of a message as a little-endian int. */
+    private static final int HEADER = 'R' | 'G' << 8 | 'r' << 16 | 't' << 24;
 
     private final byte versionNumber;
 
@@ -21,26 +22,33 @@ public abstract class RobotStatusProtocol implements ReceivingProtocol<RobotMess
         this.versionNumber = versionNumber;
     }
 
+    @Override
+    public int getHeader()
+    {
+        return HEADER;
+    }
+
+    @Override
     public byte getVersionNumber()
     {
         return versionNumber;
     }
 
-    /** Verifies the buffer starts with the expected header for this version of protocol. */
+    @Override
+    public int getMinMessageSize()
+    {
+        return getMessageSize();
+    }
+
+    /**
+     * Verifies the buffer starts with the expected header for this version of protocol.
+     * <p>
+     * The header and version are each checked with a single primitive comparison, without allocating.
+     */
     protected boolean verifyHeader(ByteBuffer buffer)
     {
         buffer.order(ByteOrder.LITTLE_ENDIAN);
 
-        // Header
-        byte[] headerBytes = new byte[4];
-        buffer.get(headerBytes, 0, 4);
-        String header = new String(headerBytes);
-
-        if (!header.equals(HEADER))
-            return false;
-
-        // Version
-        byte version = buffer.get();
-        return version == getVersionNumber();
+        return buffer.getInt() == HEADER && buffer.get() == getVersionNumber();
     }
 }
@@ -2,6 +2,8 @@ package controller.net.protocol;
 
 import common.annotations.Nullable;
 import controller.net.RobotStatus;
+import controller.net.protocol.codec.GameControlReturnData1;
+import controller.net.protocol.codec.GameControlReturnData1Codec;
 import data.RobotMessage;
 
 import java.nio.ByteBuffer;
@@ -13,6 +15,9 @@ import java.nio.ByteBuffer;
  */
 public class RobotStatusProtocol1 extends RobotStatusProtocol
 {
+    /** The values of the last message received, reused for each message. */
+    private final GameControlReturnData1 data = new GameControlReturnData1();
+
     public RobotStatusProtocol1()
     {
         super((byte)1);
@@ -21,24 +26,25 @@ public class RobotStatusProtocol1 extends RobotStatusProtocol
     @Override
     public int getMessageSize()
     {
-        return
-            4 + // header
-            4 + // version
-            2 + // team
-            2 + // player
-            4;  // message
+        return GameControlReturnData1Codec.SIZE;
     }
 
     @Nullable
     @Override
     public RobotMessage fromBytes(ByteBuffer buffer)
     {
+        int start = buffer.position();
+
         if (!verifyHeader(buffer))
             return null;
 
-        byte team = (byte)buffer.getShort();
-        byte player = (byte)buffer.getShort();
-        byte statusByte = (byte)buffer.getInt();
+        GameControlReturnData1 data = this.data;
+        GameControlReturnData1Codec.decode(buffer, start, data);
+        buffer.position(start + GameControlReturnData1Codec.SIZE);
+
+        byte team = (byte)data.team;
+        byte player = (byte)data.player;
+        byte statusByte = (byte)data.message;
 
         RobotStatus status = RobotStatus.fromValue(statusByte);
 
@@ -2,6 +2,8 @@ package controller.net.protocol;
 
 import common.annotations.Nullable;
 import controller.net.RobotStatus;
+import controller.net.protocol.codec.GameControlReturnData2;
+import controller.net.protocol.codec.GameControlReturnData2Codec;
 import data.RobotMessage;
 
 import java.nio.ByteBuffer;
@@ -13,6 +15,9 @@ import java.nio.ByteBuffer;
  */
 public class RobotStatusProtocol2 extends RobotStatusProtocol
 {
+    /** The values of the last message received, reused for each message. */
+    private final GameControlReturnData2 data = new GameControlReturnData2();
+
     public RobotStatusProtocol2()
     {
         super((byte)2);
@@ -21,24 +26,25 @@ public class RobotStatusProtocol2 extends RobotStatusProtocol
     @Override
     public int getMessageSize()
     {
-        return
-            4 + // header
-            1 + // version
-            1 + // team
-            1 + // player
-            1;  // message
+        return GameControlReturnData2Codec.SIZE;
     }
 
     @Nullable
     @Override
     public RobotMessage fromBytes(ByteBuffer buffer)
     {
+        int start = buffer.position();
+
         if (!verifyHeader(buffer))
             return null;
 
-        byte team = buffer.get();
-        byte player = buffer.get();
-        byte statusByte = buffer.get();
+        GameControlReturnData2 data = this.data;
+        GameControlReturnData2Codec.decode(buffer, start, data);
+        buffer.position(start + GameControlReturnData2Codec.SIZE);
+
+        byte team = data.team;
+        byte player = data.player;
+        byte statusByte = data.message;
 
         RobotStatus status = RobotStatus.fromValue(statusByte);
 
@@ -0,0 +1,53 @@
+package controller.net.protocol;
+
+import common.annotations.Nullable;
+import controller.net.RobotStatus;
+import controller.net.protocol.codec.GameControlReturnData3;
+import controller.net.protocol.codec.GameControlReturnData3Codec;
+import data.RobotMessage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Implements robot status network protocol, version 3.
+ * <p>
+ * Adds the protocol version and packet number of the last game state message the robot applied, with
+ * which the controller measures how far each robot is behind. See {@link controller.net.GameStateSendLog}.
+ */
+public class RobotStatusProtocol3 extends RobotStatusProtocol
+{
+    /** The values of the last message received, reused for each message. */
+    private final GameControlReturnData3 data = new GameControlReturnData3();
+
+    public RobotStatusProtocol3()
+    {
+        super((byte)3);
+    }
+
+    @Override
+    public int getMessageSize()
+    {
+        return GameControlReturnData3Codec.SIZE;
+    }
+
+    @Nullable
+    @Override
+    public RobotMessage fromBytes(ByteBuffer buffer)
+    {
+        int start = buffer.position();
+
+        if (!verifyHeader(buffer))
+            return null;
+
+        GameControlReturnData3 data = this.data;
+        GameControlReturnData3Codec.decode(buffer, start, data);
+        buffer.position(start + GameControlReturnData3Codec.SIZE);
+
+        RobotStatus status = RobotStatus.fromValue(data.message);
+
+        if (status == null)
+            return null;
+
+        return new RobotMessage(data.team, data.player, status, data.gameStateVersion, data.gameStatePacketNumber);
+    }
+}
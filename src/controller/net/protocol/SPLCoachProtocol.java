@@ -13,7 +13,8 @@ import java.nio.ByteOrder;
  */
 public abstract class SPLCoachProtocol implements ReceivingProtocol<SPLCoachMessage>
 {
-    private static final String HEADER = "SPLC";
+    /** The header "SPLC", as read from the start of a message as a little-endian int. */
+    private static final int HEADER = 'S' | 'P' << 8 | 'L' << 16 | 'C' << 24;
 
     private final byte versionNumber;
 
@@ -22,6 +23,13 @@ public abstract class SPLCoachProtocol implements ReceivingProtocol<SPLCoachMess
         this.versionNumber = versionNumber;
     }
 
+    @Override
+    public int getHeader()
+    {
+        return HEADER;
+    }
+
+    @Override
     public byte getVersionNumber()
     {
         return versionNumber;
@@ -41,21 +49,21 @@ public abstract class SPLCoachProtocol implements ReceivingProtocol<SPLCoachMess
     @Nullable
     public abstract SPLCoachMessage fromBytes(ByteBuffer buffer);
 
-    /** Verifies the buffer starts with the expected header for this version of protocol. */
+    @Override
+    public int getMinMessageSize()
+    {
+        return getMessageSize();
+    }
+
+    /**
+     * Verifies the buffer starts with the expected header for this version of protocol.
+     * <p>
+     * The header and version are each checked with a single primitive comparison, without allocating.
+     */
     protected boolean verifyHeader(ByteBuffer buffer)
     {
         buffer.order(ByteOrder.LITTLE_ENDIAN);
 
-        // Header
-        byte[] headerBytes = new byte[4];
-        buffer.get(headerBytes, 0, 4);
-        String header = new String(headerBytes);
-
-        if (!header.equals(HEADER))
-            return false;
-
-        // Version
-        byte version = buffer.get();
-        return version == getVersionNumber();
+        return buffer.getInt() == HEADER && buffer.get() == getVersionNumber();
     }
 }
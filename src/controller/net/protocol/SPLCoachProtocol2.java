@@ -2,6 +2,8 @@ package controller.net.protocol;
 
 import common.annotations.NotNull;
 import common.annotations.Nullable;
+import controller.net.protocol.codec.CoachMessageData2;
+import controller.net.protocol.codec.CoachMessageData2Codec;
 import data.*;
 
 import java.nio.ByteBuffer;
@@ -16,6 +18,9 @@ public class SPLCoachProtocol2 extends SPLCoachProtocol
     @NotNull
     private final ReadOnlyPair<Team> teams;
 
+    /** The values of the last message received, reused for each message. */
+    private final CoachMessageData2 data = new CoachMessageData2();
+
     public SPLCoachProtocol2(@NotNull ReadOnlyPair<Team> teams)
     {
         super((byte)2);
@@ -26,27 +31,25 @@ public class SPLCoachProtocol2 extends SPLCoachProtocol
     @Override
     public int getMessageSize()
     {
-        return
-            4 + // header size
-            1 + // byte for the version
-            1 + // team number
-            SPLCoachMessage.SIZE;
+        return CoachMessageData2Codec.SIZE;
     }
 
     @Nullable
     @Override
     public SPLCoachMessage fromBytes(@NotNull ByteBuffer buffer)
     {
+        int start = buffer.position();
+
         if (!verifyHeader(buffer))
             return null;
 
-        byte team = buffer.get();
-        if (team != teams.get(TeamColor.Blue).getNumber() && team != teams.get(TeamColor.Red).getNumber())
-            return null;
+        CoachMessageData2 data = this.data;
+        CoachMessageData2Codec.decode(buffer, start, data);
+        buffer.position(start + CoachMessageData2Codec.SIZE);
 
-        byte[] message = new byte[SPLCoachMessage.SIZE];
-        buffer.get(message);
+        if (data.team != teams.get(TeamColor.Blue).getNumber() && data.team != teams.get(TeamColor.Red).getNumber())
+            return null;
 
-        return new SPLCoachMessage(team, message);
+        return new SPLCoachMessage(data.team, data.message.clone());
     }
 }
@@ -3,6 +3,7 @@ package controller.ui;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.swing.*;
 
 import common.EventHandler;
@@ -169,6 +170,21 @@ public class ControllerUI
 
     private boolean lastIsOtherGameControllerActive = false;
 
+    /** The latest state published but not yet shown, or <code>null</code> if no update is pending. */
+    private final AtomicReference<ReadOnlyGameState> pendingState = new AtomicReference<ReadOnlyGameState>();
+
+    /** Shows the pending state. Run on the event dispatch thread. */
+    private final Runnable showPendingState = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            ReadOnlyGameState state = pendingState.getAndSet(null);
+            if (state != null)
+                update(state);
+        }
+    };
+
     /**
      * Initialises and displays the GUI.
      *
@@ -183,15 +199,6 @@ public class ControllerUI
         this.robotWatcher = robotWatcher;
         this.multipleInstanceWatcher = multipleInstanceWatcher;
 
-        game.gameStateChanged.subscribe(new EventHandler<ReadOnlyGameState>()
-        {
-            @Override
-            public void handle(ReadOnlyGameState state)
-            {
-                ControllerUI.this.update(state);
-            }
-        });
-
         frame = new PaintableFrame(WINDOW_TITLE);
         ImageIcon img = new ImageIcon("~/rc/kid-size/game-controller/resources/icon.svg");
         frame.setIconImage(img.getImage());
@@ -254,7 +261,7 @@ public class ControllerUI
         for (UISide side : UISide.both()) {
             nameLabels.get(side).setText(game.teams().get(side).getName());
             nameLabels.get(side).setHorizontalAlignment(JLabel.CENTER);
-            nameLabels.get(side).setForeground(game.getGameState().getTeam(side).getTeamColor().getRgb(game.league()));
+            nameLabels.get(side).setForeground(game.getSnapshot().getTeam(side).getTeamColor().getRgb(game.league()));
 
             JRadioButton kickOffRadioButton = kickOffRadioButtons.get(side);
             kickOffRadioButton.setOpaque(false);
@@ -591,9 +598,32 @@ public class ControllerUI
         }
 
         // Populate the UI with the initial game state
-        update(game.getGameState());
+        update(game.getSnapshot());
 
         frame.setVisible(true);
+
+        // States are published on the game thread, so are shown via the event dispatch thread
+        game.gameStateChanged.subscribe(new EventHandler<ReadOnlyGameState>()
+        {
+            @Override
+            public void handle(ReadOnlyGameState state)
+            {
+                scheduleUpdate(state);
+            }
+        });
+        // Show any state published before subscribing
+        scheduleUpdate(game.getSnapshot());
+    }
+
+    /**
+     * Schedules the UI to be updated with a state on the event dispatch thread. If an update is already pending,
+     * it shows this state instead, so that states published faster than they can be shown do not queue up.
+     * May be called from any thread.
+     */
+    private void scheduleUpdate(@NotNull ReadOnlyGameState state)
+    {
+        if (pendingState.getAndSet(state) == null)
+            SwingUtilities.invokeLater(showPendingState);
     }
 
     private Image getBackgroundImage(@NotNull UISide side)
@@ -623,13 +653,16 @@ public class ControllerUI
      */
     private void update(@NotNull ReadOnlyGameState state)
     {
-        updateClock(state);
+        // Read the clock once, so that all times shown are consistent with one another
+        GameTiming timing = state.getTiming();
+
+        updateClock(state, timing);
         updateHalf(state);
         updateTeamColors(state);
-        updatePlayMode(state);
+        updatePlayMode(state, timing);
         updateGoal(state);
         updateKickoff(state);
-        updateRobots(state);
+        updateRobots(state, timing);
         updatePushes(state);
         updateTimeout(state);
         updateRefereeTimeout(state);
@@ -655,10 +688,10 @@ public class ControllerUI
         frame.dispose();
     }
 
-    private void updateClock(ReadOnlyGameState state)
+    private void updateClock(ReadOnlyGameState state, GameTiming timing)
     {
-        clockLabel.setText(formatTime(state.getSecsRemaining()));
-        Integer secondaryTime = state.getSecondaryTime(KICKOFF_BLOCKED_HIGHLIGHT_SECONDS - 1);
+        clockLabel.setText(formatTime(timing.getSecsRemaining()));
+        Integer secondaryTime = timing.getSecondaryTime(KICKOFF_BLOCKED_HIGHLIGHT_SECONDS - 1);
         if (secondaryTime != null) {
             if (state.is(PlayMode.Playing)) {
                 secondaryTimeLabel.setText(formatTime(Math.max(0, secondaryTime)));
@@ -721,7 +754,7 @@ public class ControllerUI
         }
     }
     
-    private void updatePlayMode(ReadOnlyGameState state)
+    private void updatePlayMode(ReadOnlyGameState state, GameTiming timing)
     {
         initialPlayModeButton.setEnabled(ActionBoard.initial.canExecute(game, state));
         readyPlayModeButton.setEnabled(ActionBoard.ready.canExecute(game, state));
@@ -743,7 +776,7 @@ public class ControllerUI
 
         highlight(finishPlayModeButton,
                 !state.is(PlayMode.Finished)
-                && state.getSecsRemaining() <= FINISH_HIGHLIGHT_SECONDS
+                && timing.getSecsRemaining() <= FINISH_HIGHLIGHT_SECONDS
                 && finishPlayModeButton.getBackground() != COLOR_HIGHLIGHT);
     }
     
@@ -797,9 +830,12 @@ public class ControllerUI
         }
     }
     
-    private void updateRobots(ReadOnlyGameState state)
+    private void updateRobots(ReadOnlyGameState state, GameTiming timing)
     {
         RobotOnlineStatus[][] onlineStatus = robotWatcher.updateRobotOnlineStatus();
+        int[][] packetsBehind = robotWatcher.getPacketsBehind();
+        long[][] millisBehind = robotWatcher.getMillisBehind();
+        boolean[][] behindPlayModeChange = robotWatcher.getBehindPlayModeChange();
 
         for (int i = 0; i < 2; i++) {
             // TODO remove last usage of 'i' and iterate UISide.both()
@@ -835,7 +871,7 @@ public class ControllerUI
                             boolean pickup = game.league().isSPLFamily()
                                 ? penalty == Penalty.SplRequestForPickup
                                 : penalty == Penalty.HLPickupOrIncapable || penalty == Penalty.Service;
-                            int seconds = state.getRemainingPenaltyTime(player);
+                            int seconds = timing.getRemainingPenaltyTime(player);
                             if (seconds == 0) {
                                 if (pickup) {
                                     text += " (Pick-Up)";
@@ -878,6 +914,17 @@ public class ControllerUI
                         : status == RobotOnlineStatus.OFFLINE
                         ? lanOffline
                         : lanUnknown);
+
+                // Describe how far behind the robot is, for robots that acknowledge the game states they apply
+                String lag = null;
+                if (packetsBehind[i][j] == 0) {
+                    lag = "Up to date";
+                } else if (packetsBehind[i][j] > 0) {
+                    lag = packetsBehind[i][j] + " messages (" + millisBehind[i][j] + " ms) behind";
+                    if (behindPlayModeChange[i][j])
+                        lag += ", yet to apply " + state.getPlayMode();
+                }
+                button.setToolTipText(lag);
             }
         }
     }
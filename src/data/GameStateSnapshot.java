@@ -3,7 +3,8 @@ package data;
 import common.annotations.NotNull;
 import common.annotations.Nullable;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -27,14 +28,29 @@ public class GameStateSnapshot
     private final byte packetNumber;
     private final byte playersPerTeam;
     @Nullable private final Boolean isDropInGame;
+    @Nullable private final Integer millisRemaining;
+    @Nullable private final Integer secondaryTimeMillis;
+    @Nullable private final Long timestamp;
     @NotNull private final TeamStateSnapshot team1;
     @NotNull private final TeamStateSnapshot team2;
+    @NotNull private final List<TeamStateSnapshot> teams;
 
     public GameStateSnapshot(@NotNull PlayMode playMode, boolean firstHalf, @Nullable TeamColor nextKickOffColor,
                              @NotNull Period period, @Nullable TeamColor lastDropInColor, short dropInTime,
                              short secsRemaining, @NotNull TeamStateSnapshot team1, @NotNull TeamStateSnapshot team2,
                              short secondaryTime, int gameId, @NotNull League league, byte packetNumber,
                              byte playersPerTeam, @Nullable Boolean isDropInGame)
+    {
+        this(playMode, firstHalf, nextKickOffColor, period, lastDropInColor, dropInTime, secsRemaining, team1, team2,
+                secondaryTime, gameId, league, packetNumber, playersPerTeam, isDropInGame, null, null, null);
+    }
+
+    public GameStateSnapshot(@NotNull PlayMode playMode, boolean firstHalf, @Nullable TeamColor nextKickOffColor,
+                             @NotNull Period period, @Nullable TeamColor lastDropInColor, short dropInTime,
+                             short secsRemaining, @NotNull TeamStateSnapshot team1, @NotNull TeamStateSnapshot team2,
+                             short secondaryTime, int gameId, @NotNull League league, byte packetNumber,
+                             byte playersPerTeam, @Nullable Boolean isDropInGame, @Nullable Integer millisRemaining,
+                             @Nullable Integer secondaryTimeMillis, @Nullable Long timestamp)
     {
         this.playMode = playMode;
         this.firstHalf = firstHalf;
@@ -51,13 +67,15 @@ public class GameStateSnapshot
         this.packetNumber = packetNumber;
         this.playersPerTeam = playersPerTeam;
         this.isDropInGame = isDropInGame;
+        this.millisRemaining = millisRemaining;
+        this.secondaryTimeMillis = secondaryTimeMillis;
+        this.timestamp = timestamp;
+        this.teams = Collections.unmodifiableList(Arrays.asList(team1, team2));
     }
 
+    /** Both teams, in the order they appear in the message. The same list is returned on every call. */
     public Iterable<TeamStateSnapshot> getTeams()
     {
-        List<TeamStateSnapshot> teams = new ArrayList<TeamStateSnapshot>();
-        teams.add(team1);
-        teams.add(team2);
         return teams;
     }
 
@@ -177,4 +195,44 @@ public class GameStateSnapshot
     {
         return isDropInGame;
     }
+
+    /**
+     * The number of milliseconds remaining in the current half. See {@link #getSecsRemaining()}.
+     * <p>
+     * Only supported from version 11 of the protocol. In snapshots received via earlier protocols, this value
+     * will be <code>null</code>.
+     */
+    @Nullable
+    public Integer getMillisRemaining()
+    {
+        return millisRemaining;
+    }
+
+    /**
+     * Play-mode-specific sub-time in milliseconds. See {@link #getSecondaryTime()}.
+     * <p>
+     * Only supported from version 11 of the protocol. In snapshots received via earlier protocols, this value
+     * will be <code>null</code>.
+     */
+    @Nullable
+    public Integer getSecondaryTimeMillis()
+    {
+        return secondaryTimeMillis;
+    }
+
+    /**
+     * The time at which the message was sent, in milliseconds of the controller's monotonic clock, modulo 2<sup>32</sup>.
+     * <p>
+     * The clock's origin is arbitrary, so only the differences between the timestamps of messages are meaningful.
+     * Compared with the times at which messages arrive, these show how stale each message is relative to the others,
+     * independent of any adjustment to the wall-clock of either machine.
+     * <p>
+     * Only supported from version 11 of the protocol. In snapshots received via earlier protocols, this value
+     * will be <code>null</code>.
+     */
+    @Nullable
+    public Long getTimestamp()
+    {
+        return timestamp;
+    }
 }
@@ -12,12 +12,21 @@ public class RobotMessage
     private final byte teamNumber;
     private final byte uniformNumber;
     private final RobotStatus status;
+    private final byte gameStateVersion;
+    private final byte gameStatePacketNumber;
 
     public RobotMessage(byte teamNumber, byte uniformNumber, RobotStatus status)
+    {
+        this(teamNumber, uniformNumber, status, (byte)0, (byte)0);
+    }
+
+    public RobotMessage(byte teamNumber, byte uniformNumber, RobotStatus status, byte gameStateVersion, byte gameStatePacketNumber)
     {
         this.teamNumber = teamNumber;
         this.uniformNumber = uniformNumber;
         this.status = status;
+        this.gameStateVersion = gameStateVersion;
+        this.gameStatePacketNumber = gameStatePacketNumber;
     }
 
     /** The number that uniquely identifies the team in this tournament. */
@@ -37,4 +46,26 @@ public class RobotMessage
     {
         return status;
     }
+
+    /**
+     * Whether the robot acknowledged the last game state message it applied.
+     * <p>
+     * Only supported from version 3 of the robot status protocol, and only once the robot has applied a game state.
+     */
+    public boolean hasAcknowledgement()
+    {
+        return gameStateVersion != 0;
+    }
+
+    /** The protocol version of the last game state message the robot applied, if {@link #hasAcknowledgement()}. */
+    public byte getGameStateVersion()
+    {
+        return gameStateVersion;
+    }
+
+    /** The packet number of the last game state message the robot applied, if {@link #hasAcknowledgement()}. */
+    public byte getGameStatePacketNumber()
+    {
+        return gameStatePacketNumber;
+    }
 }
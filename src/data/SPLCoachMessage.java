@@ -29,6 +29,16 @@ public class SPLCoachMessage implements Serializable
     private final long sendTime;
 
     public SPLCoachMessage(byte teamNumber, @NotNull byte[] bytes)
+    {
+        this(teamNumber, bytes, generateSendIntervalForSPLCoachMessage() + System.currentTimeMillis());
+    }
+
+    /**
+     * Initialises a message that may be distributed to players at a specific time.
+     *
+     * @param sendTime the wall-clock time, as per {@link System#currentTimeMillis()}, before which the message is held back.
+     */
+    public SPLCoachMessage(byte teamNumber, @NotNull byte[] bytes, long sendTime)
     {
         // All chars after the first zero are zeroed
         int k = 0;
@@ -41,13 +51,29 @@ public class SPLCoachMessage implements Serializable
 
         this.teamNumber = teamNumber;
         this.bytes = bytes;
-        this.sendTime = generateSendIntervalForSPLCoachMessage() + System.currentTimeMillis();
+        this.sendTime = sendTime;
+    }
+
+    /** The wall-clock time before which the message is held back, as per {@link System#currentTimeMillis()}. */
+    public long getSendTime()
+    {
+        return sendTime;
     }
 
     /** The remaining period of time before the message may be distributed to players, in milliseconds. */
     public long getRemainingTimeToSend()
     {
-        long remainingTime = sendTime - System.currentTimeMillis();
+        return getRemainingTimeToSend(System.currentTimeMillis());
+    }
+
+    /**
+     * The remaining period of time before the message may be distributed to players, in milliseconds.
+     *
+     * @param wallMillis the current wall-clock time, as per {@link System#currentTimeMillis()}.
+     */
+    public long getRemainingTimeToSend(long wallMillis)
+    {
+        long remainingTime = sendTime - wallMillis;
         return remainingTime > 0 ? remainingTime : 0;
     }
 
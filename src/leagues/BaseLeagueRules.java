@@ -0,0 +1,19 @@
+package leagues;
+
+import data.PlayMode;
+
+/**
+ * Base class for league rules, holding defaults shared by all leagues. Leagues override these only where
+ * their rules differ.
+ */
+public abstract class BaseLeagueRules implements LeagueRules
+{
+    @Override
+    public int getGameStateSendPeriodMillis(PlayMode playMode)
+    {
+        // Send at 10 Hz while robots are acting on the state, otherwise at 2 Hz
+        return playMode == PlayMode.Ready || playMode == PlayMode.Set || playMode == PlayMode.Playing
+                ? 100
+                : 500;
+    }
+}
@@ -6,7 +6,7 @@ package leagues;
  * @author Michel-Zen
  * @author Drew Noakes https://drewnoakes.com
  */
-public abstract class HL implements LeagueRules
+public abstract class HL extends BaseLeagueRules
 {
     //
     // Values that differ across all humanoid leagues.
@@ -187,6 +187,18 @@ public abstract class HL implements LeagueRules
         return true;
     }
 
+    @Override
+    public boolean isGameStateVersion10Broadcast()
+    {
+        return false;
+    }
+
+    @Override
+    public boolean isGameStateVersion11Broadcast()
+    {
+        return false;
+    }
+
     @Override
     public boolean isDropInPlayerMode()
     {
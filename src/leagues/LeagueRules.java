@@ -1,5 +1,7 @@
 package leagues;
 
+import data.PlayMode;
+
 /**
  * Models game rules specific to a particular league.
  * <p>
@@ -109,6 +111,26 @@ public interface LeagueRules
     /** Gets whether to support legacy version 8 of the {@link controller.net.protocol.GameStateProtocol}. */
     boolean isLegacyGameStateVersion8Broadcast();
 
+    /**
+     * Gets whether to broadcast version 10 of the {@link controller.net.protocol.GameStateProtocol}, which sends
+     * deltas between keyframes, alongside version 9.
+     */
+    boolean isGameStateVersion10Broadcast();
+
+    /**
+     * Gets whether to broadcast version 11 of the {@link controller.net.protocol.GameStateProtocol}, which carries
+     * times in milliseconds, alongside version 9.
+     */
+    boolean isGameStateVersion11Broadcast();
+
+    /**
+     * Gets the number of milliseconds between broadcasts of game state during the specified play mode,
+     * when the state is not otherwise changing.
+     * <p>
+     * Changes to game state are always sent immediately, regardless of this value.
+     */
+    int getGameStateSendPeriodMillis(PlayMode playMode);
+
     /** If true, the drop-in player competition is active. */
     boolean isDropInPlayerMode();
 }
@@ -5,7 +5,7 @@ package leagues;
  *
  * @author Michel-Zen
  */
-public class SPL implements LeagueRules
+public class SPL extends BaseLeagueRules
 {
     @Override
     public int getTeamSize()
@@ -183,6 +183,18 @@ public class SPL implements LeagueRules
         return false;
     }
 
+    @Override
+    public boolean isGameStateVersion10Broadcast()
+    {
+        return false;
+    }
+
+    @Override
+    public boolean isGameStateVersion11Broadcast()
+    {
+        return false;
+    }
+
     @Override
     public boolean isDropInPlayerMode()
     {
@@ -136,7 +136,7 @@ public class VisualizerUI
         {
             @Override
             public void run() {
-                Interval interval = new Interval(DISPLAY_UPDATE_DELAY);
+                Interval interval = new Interval(DISPLAY_UPDATE_DELAY, Interval.CatchUpPolicy.Skip);
                 //noinspection InfiniteLoopStatement
                 while (true) {
                     update(state);
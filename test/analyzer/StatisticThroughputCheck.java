@@ -0,0 +1,184 @@
+package analyzer;
+
+import common.Log;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the throughput of the analyzer on a synthetic text log of 100,000 lines, with actions drawn at random
+ * from a fixed seed.
+ * <p>
+ * Statistics and basic information are each taken from the log a number of times, and the best time of the
+ * later runs is reported. The statistics must be taken at least twice as fast as by a reference, which does the
+ * work of the parser before its actions were matched with a trie: each line's timestamp is parsed and formatted
+ * by {@link SimpleDateFormat}, its action is found by a linear scan, and the player pattern is compiled anew.
+ */
+public class StatisticThroughputCheck
+{
+    private static final int LINES = 100000;
+    private static final int RUNS = 10;
+
+    /** The time of the log's first line, as per {@link System#currentTimeMillis()}. */
+    private static final long START_TIME = 1792310400000L;
+
+    private static final String[] TITLES = {
+        "Player Pushing Blue 3", "Fallen Robot Red 2", "Playing", "Ready", "Set", "Goal for Blue", "Out by Red",
+        "Illegal Defender Blue 4", "Request for PickUp Red 5", "Playing with Hands Blue 1", "Time manual paused",
+        "Coach Motion Red 4", "1st Half", "2nd Half", "Leaving the Field Blue 2", "Inactive Player Red 3",
+        "Undo 2 States to Ready", "Manually Penalised Blue 5", "Dropped Ball", "Finished"
+    };
+
+    public static void main(String[] args) throws IOException
+    {
+        Log.initialise();
+
+        File file = File.createTempFile("log_throughput", ".txt");
+        try {
+            write(file);
+            final LogInfo log = new LogInfo(file);
+
+            long statistic = best(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    Parser.statistic(log, new StringBuilder());
+                }
+            });
+            long reference = best(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    referenceStatistic(log, new StringBuilder());
+                }
+            });
+            long info = best(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    new LogInfo(log.file);
+                }
+            });
+
+            System.out.println("statistic: " + report(statistic) + ", against " + report(reference) + " for the reference");
+            System.out.println("info: " + report(info));
+
+            if (statistic * 2 > reference)
+                throw new AssertionError("statistics took " + statistic / 1000000 + " ms, not half of the reference's "
+                        + reference / 1000000 + " ms");
+        } finally {
+            if (!file.delete())
+                file.deleteOnExit();
+        }
+
+        System.out.println("StatisticThroughputCheck passed");
+    }
+
+    private static void write(File file) throws IOException
+    {
+        SimpleDateFormat format = new SimpleDateFormat(Log.TIMESTAMP_PATTERN);
+        Random random = new Random(1);
+        long time = START_TIME;
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try {
+            String start = format.format(new Date(time)) + ": ";
+            writer.write(start + "GC2 test\n");
+            writer.write(start + "League = SPL\n");
+            writer.write(start + "Auto color change = true\n");
+            writer.write(start + "Team A vs Team B\n");
+            for (int i = 4; i < LINES; i++) {
+                time += random.nextInt(3000);
+                writer.write(format.format(new Date(time)) + ": " + TITLES[random.nextInt(TITLES.length)] + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /** Runs a task a number of times, and gets the shortest time of the later half of the runs, in nanoseconds. */
+    private static long best(Runnable task)
+    {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            long time = System.nanoTime() - start;
+            if (i >= RUNS / 2)
+                best = Math.min(best, time);
+        }
+        return best;
+    }
+
+    private static String report(long nanos)
+    {
+        return nanos / 1000000 + " ms (" + LINES * 1000000L / nanos + " thousand lines/s)";
+    }
+
+    /** Takes statistics from a log as the parser did before its actions were matched with a trie. */
+    private static void referenceStatistic(LogInfo log, StringBuilder out)
+    {
+        SimpleDateFormat timestampFormat = new SimpleDateFormat(Log.TIMESTAMP_PATTERN);
+        SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd kk:mm:ss");
+        String[] teams = {log.team[0], log.team[1]};
+
+        BufferedReader br = null;
+        try {
+            br = log.open();
+            String line;
+            while ((line = br.readLine()) != null) {
+                int divPos = line.indexOf(": ") + 2;
+                String time = timeFormat.format(timestampFormat.parse(line.substring(0, divPos - 2)));
+                String raw = line.substring(divPos);
+
+                if (raw.startsWith("1st Half") || raw.startsWith("2nd Half")) {
+                    String tmp = teams[0];
+                    teams[0] = teams[1];
+                    teams[1] = tmp;
+                }
+
+                String action = null;
+                for (String title : TITLES) {
+                    if (raw.startsWith(title)) {
+                        action = title;
+                        break;
+                    }
+                }
+                if (action == null)
+                    continue;
+
+                String team = raw.contains("Blue") ? teams[0] : raw.contains("Red") ? teams[1] : "";
+                String player = "";
+                Matcher matcher = Pattern.compile("(Blue|Red)\\s*(\\d+)\\s*$").matcher(raw);
+                if (matcher.find())
+                    player = matcher.group(2);
+
+                out.append(time + "," + action + "," + team + "," + player + "," + teams[0] + "," + teams[1] + "\n");
+            }
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        } catch (ParseException e) {
+            throw new AssertionError(e);
+        } finally {
+            if (br != null) {
+                try {
+                    br.close();
+                } catch (IOException ignored) {}
+            }
+        }
+    }
+}
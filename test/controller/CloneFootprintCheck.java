@@ -0,0 +1,83 @@
+package controller;
+
+import common.Log;
+import data.League;
+import data.UISide;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Checks the cost of {@link GameState#clone()}, which copies each team's packed player state as a few arrays
+ * rather than one object per player.
+ * <p>
+ * The bytes allocated per clone are measured exactly, and the time per clone after warming up. Both are
+ * reported for each league. Between the leagues with the most and the fewest players per team, coach included,
+ * a clone may grow by at most {@link #MAX_BYTES_PER_PLAYER} for each player of each team: the elements of the
+ * packed arrays take a few bytes, whereas an object per player took over 40.
+ */
+public class CloneFootprintCheck
+{
+    private static final int MAX_BYTES_PER_PLAYER = 16;
+
+    private static final int WARM_UP_CLONES = 100000;
+    private static final int MEASURED_CLONES = 100000;
+
+    public static void main(String[] args)
+    {
+        Log.initialise();
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        League largest = null;
+        League smallest = null;
+        long largestBytes = 0;
+        long smallestBytes = 0;
+
+        for (League league : League.getAllLeagues()) {
+            GameState state = (GameState)TestGames.create(league).getGameState();
+
+            // Every clone is kept until the next, so that none can be optimised away
+            GameState clone = null;
+            for (int i = 0; i < WARM_UP_CLONES; i++)
+                clone = state.clone();
+
+            long before = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_CLONES; i++)
+                clone = state.clone();
+            long nanos = System.nanoTime() - start;
+            long bytes = (threads.getThreadAllocatedBytes(threadId) - before) / MEASURED_CLONES;
+
+            if (!clone.isSameAs(state))
+                throw new AssertionError(league.getName() + ": the clone differs from the game state");
+
+            System.out.println(league.getName() + ": " + bytes + " bytes and " + nanos / MEASURED_CLONES + " ns per clone");
+
+            if (largest == null || getPlayerCount(league) > getPlayerCount(largest)) {
+                largest = league;
+                largestBytes = bytes;
+            }
+            if (smallest == null || getPlayerCount(league) < getPlayerCount(smallest)) {
+                smallest = league;
+                smallestBytes = bytes;
+            }
+        }
+
+        assert(largest != null && smallest != null);
+        int extraPlayers = 2 * (getPlayerCount(largest) - getPlayerCount(smallest));
+        if (extraPlayers > 0 && largestBytes - smallestBytes > (long)extraPlayers * MAX_BYTES_PER_PLAYER)
+            throw new AssertionError("a clone allocated " + largestBytes + " bytes for " + largest.getName() + ", but "
+                    + smallestBytes + " for " + smallest.getName() + ", more than " + MAX_BYTES_PER_PLAYER
+                    + " bytes for each of the " + extraPlayers + " extra players");
+
+        System.out.println("CloneFootprintCheck passed");
+    }
+
+    /** Gets the number of players per team in a league, including any coach. */
+    private static int getPlayerCount(League league)
+    {
+        ReadOnlyTeamState team = TestGames.create(league).getGameState().getTeam(UISide.Left);
+        return team.getPlayerCount() + (league.rules().isCoachAvailable() ? 1 : 0);
+    }
+}
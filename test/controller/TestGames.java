@@ -0,0 +1,25 @@
+package controller;
+
+import common.annotations.NotNull;
+import data.League;
+import data.Pair;
+import data.Team;
+import data.TeamColor;
+import data.UIOrientation;
+
+/**
+ * Creates games for the checks run by the <code>test</code> target, between the first two teams of a league.
+ */
+public class TestGames
+{
+    private TestGames() {}
+
+    @NotNull
+    public static Game create(@NotNull League league)
+    {
+        UIOrientation orientation = new UIOrientation();
+        Pair<Team> teams = new Pair<Team>(orientation, league.teams().get(0), league.teams().get(1));
+        return new Game(new GameOptions("255.255.255.255", false, league, false, orientation, teams,
+                TeamColor.Blue, false));
+    }
+}
@@ -0,0 +1,99 @@
+package controller;
+
+import common.Log;
+import data.League;
+import data.Penalty;
+import data.TeamColor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks the memory retained by the undo timeline, against that of storing a full copy of the game state for
+ * each action, as the timeline did before it shared unchanged team and player state between its entries.
+ * <p>
+ * The same sequence of actions is applied to a game for each: each action penalises or unpenalises a player,
+ * or changes the clock. The heap in use is measured after garbage collection, before and after the actions, and
+ * reported per 1,000 actions. The timeline must retain less than half as much as the full copies.
+ */
+public class TimelineMemoryCheck
+{
+    private static final int ACTIONS = 10000;
+
+    public static void main(String[] args)
+    {
+        Log.initialise();
+
+        for (League league : League.getAllLeagues()) {
+            long shared = measureRetained(league, false);
+            long full = measureRetained(league, true);
+
+            System.out.println(league.getName() + ": " + shared * 1000 / ACTIONS / 1024 + " KiB per 1,000 actions, against "
+                    + full * 1000 / ACTIONS / 1024 + " KiB for full copies");
+
+            if (shared * 2 >= full)
+                throw new AssertionError(league.getName() + ": the timeline retained " + shared
+                        + " bytes, not less than half of the " + full + " bytes retained by full copies");
+        }
+
+        System.out.println("TimelineMemoryCheck passed");
+    }
+
+    /**
+     * Applies the actions to a new game, and measures the bytes retained by the entries stored for them.
+     *
+     * @param fullCopies whether to store a full copy of the game state for each action, rather than pushing it
+     *                   onto the game's timeline.
+     */
+    private static long measureRetained(League league, boolean fullCopies)
+    {
+        Game game = TestGames.create(league);
+        WriteableGameState state = (WriteableGameState)game.getGameState();
+        List<TimelineEntry> copies = new ArrayList<TimelineEntry>(fullCopies ? ACTIONS : 0);
+
+        long before = usedMemory();
+        for (int i = 0; i < ACTIONS; i++) {
+            WriteableTeamState team = state.getTeam(i % 2 == 0 ? TeamColor.Blue : TeamColor.Red);
+            WriteablePlayerState player = team.getPlayer(i / 2 % team.getPlayerCount() + 1);
+            switch (i % 3) {
+                case 0:
+                    player.setPenalty(Penalty.Manual);
+                    player.setWhenPenalized(i * 1000L);
+                    break;
+                case 1:
+                    player.setPenalty(Penalty.None);
+                    break;
+                default:
+                    state.setWhenCurrentPlayModeBegan(i * 1000L);
+                    break;
+            }
+
+            String title = "Action " + i;
+            if (fullCopies)
+                copies.add(new TimelineEntry(((GameState)state).clone(), title));
+            else
+                game.pushState(title);
+        }
+        long retained = usedMemory() - before;
+
+        // Keep the entries reachable until they are measured
+        if (copies.size() + game.getLastTimelineTitles(1).length == 0)
+            throw new AssertionError();
+
+        return retained;
+    }
+
+    private static long usedMemory()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
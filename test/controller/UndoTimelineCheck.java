@@ -0,0 +1,116 @@
+package controller;
+
+import common.Log;
+import data.League;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the time shift applied by {@link Game#undo(int)}: if a game state change is undone, the time when it
+ * was left is restored, and the whole remaining timeline is moved into the new time frame.
+ * <p>
+ * Random sequences of pushes and undos are compared against a model that shifts every entry of the timeline,
+ * as the controller did before the timeline stored its times relative to a single offset. The clock is
+ * paused throughout, so that game time is fully determined by the states pushed.
+ */
+public class UndoTimelineCheck
+{
+    private static final int STEPS = 2000;
+
+    public static void main(String[] args)
+    {
+        Log.initialise();
+
+        checkUndoneChangeRestoresTimeLeft();
+
+        for (League league : League.getAllLeagues()) {
+            checkAgainstModel(league, 42);
+        }
+
+        System.out.println("UndoTimelineCheck passed");
+    }
+
+    /** Undoing a play mode change restores when the previous play mode began, shifted by the time since. */
+    private static void checkUndoneChangeRestoresTimeLeft()
+    {
+        Game game = TestGames.create(League.getAllLeagues().iterator().next());
+
+        setTimes(game, 1000, 1000);
+        game.pushState("First");
+        setTimes(game, 5000, 7000);
+        game.pushState("Second");
+        game.undo(1);
+
+        // The two seconds spent in the undone play mode do not count as time spent in the first
+        check(game.getGameState().getWhenCurrentPlayModeBegan() == 3000,
+                "expected play mode to have begun at 3000, but was " + game.getGameState().getWhenCurrentPlayModeBegan());
+    }
+
+    private static void checkAgainstModel(League league, long seed)
+    {
+        Game game = TestGames.create(league);
+        Random random = new Random(seed);
+
+        List<long[]> model = new ArrayList<long[]>();
+        model.add(new long[] { game.getGameState().getWhenCurrentPlayModeBegan(), game.getGameState().getTime() });
+
+        long time = 1000000;
+        for (int step = 0; step < STEPS; step++) {
+            time += random.nextInt(5000);
+            long began = random.nextInt(3) == 0 ? time : game.getGameState().getWhenCurrentPlayModeBegan();
+            setTimes(game, began, time);
+
+            // As in the UI, only undo when there is a state to undo
+            if (model.size() == 1 || random.nextInt(4) < 3) {
+                game.pushState("Step " + step);
+                model.add(new long[] { began, time });
+            } else {
+                int stateCount = 1 + random.nextInt(3);
+                game.undo(stateCount);
+                undo(model, stateCount);
+            }
+
+            long actual = game.getGameState().getWhenCurrentPlayModeBegan();
+            long expected = model.get(model.size() - 1)[0];
+            check(actual == expected, league.getName() + ", step " + step + ": expected play mode to have begun at "
+                    + expected + ", but was " + actual);
+        }
+    }
+
+    /** Undoes states on the model timeline, each entry holding when its play mode began and its game time. */
+    private static void undo(List<long[]> model, int stateCount)
+    {
+        stateCount = Math.min(stateCount, model.size() - 1);
+
+        long[] latest = model.get(model.size() - 1);
+        long timeInCurrentState = latest[1] - latest[0];
+
+        long[] oldestRemoved = latest;
+        for (int i = 0; i < stateCount; i++) {
+            oldestRemoved = model.remove(model.size() - 1);
+        }
+
+        if (latest[0] != model.get(model.size() - 1)[0]) {
+            long timeOffset = latest[0] - oldestRemoved[0] + timeInCurrentState;
+            for (long[] entry : model) {
+                entry[0] += timeOffset;
+            }
+        }
+    }
+
+    private static void setTimes(Game game, long whenCurrentPlayModeBegan, long time)
+    {
+        WriteableGameState state = (WriteableGameState)game.getGameState();
+        state.setManPause(true);
+        state.setManWhenClockChanged(time);
+        state.setWhenCurrentPlayModeBegan(whenCurrentPlayModeBegan);
+    }
+
+    private static void check(boolean condition, String message)
+    {
+        if (!condition)
+            throw new AssertionError(message);
+    }
+}
@@ -0,0 +1,172 @@
+package controller.net;
+
+import common.Log;
+import controller.Game;
+import controller.TestGames;
+import controller.net.protocol.GameStateProtocol11;
+import controller.net.protocol.GameStateProtocol9;
+import controller.net.protocol.GameStateView;
+import controller.net.protocol.GameStateViewProtocol;
+import data.League;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Checks that the receive loop does not allocate once started, for datagrams that are viewed in place, as by
+ * {@link MultipleInstanceWatcher}, and for datagrams of an unregistered version, which are dropped.
+ * <p>
+ * Game state messages are sent to a receiver over the loopback interface, one at a time, so that none are
+ * lost. The bytes allocated by the receive thread are measured after a number of datagrams, by which buffers
+ * are allocated and code is compiled. As in {@link SendAllocationCheck}, the check passes if any of a few
+ * rounds is within bounds.
+ * <p>
+ * The only allocation allowed is made by the selector itself: each time it wakes, it adds the channel's key
+ * to its selected-key set, which is a {@link HashSet}, and so allocates an entry. As each datagram is sent
+ * once the previous one was handled, the selector wakes once per datagram, so the loop may allocate the size
+ * of one such entry per datagram. Any allocation by the engine, the receiver or the protocols would exceed that.
+ */
+public class ReceiveAllocationCheck
+{
+    /** A port away from those the controller uses, so that the check may run beside a controller. */
+    private static final int PORT = 38380;
+
+    private static final int WARM_UP_DATAGRAMS = 10000;
+    private static final int MEASURED_DATAGRAMS = 10000;
+    private static final int MEASURED_ROUNDS = 3;
+
+    /** How long to wait for a datagram to be received, in milliseconds. */
+    private static final long TIMEOUT = 5000;
+
+    public static void main(String[] args) throws Exception
+    {
+        Log.initialise();
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long allowed = MEASURED_DATAGRAMS * measureSetEntrySize(threads);
+
+        for (League league : League.getAllLeagues()) {
+            Game game = TestGames.create(league);
+            ByteBuffer viewed = ByteBuffer.wrap(new GameStateProtocol9(league, game.gameId()).toBytes(game.getGameState()));
+            ByteBuffer dropped = ByteBuffer.wrap(new GameStateProtocol11(league, game.gameId()).toBytes(game.getGameState()));
+
+            ViewCounter counter = new ViewCounter();
+            MessageReceiver<GameStateView> receiver = new MessageReceiver<GameStateView>(PORT, counter);
+            receiver.addProtocol(new GameStateViewProtocol(league));
+            receiver.start();
+
+            DatagramChannel channel = DatagramChannel.open();
+            try {
+                channel.connect(new InetSocketAddress("127.0.0.1", PORT));
+                Exchange exchange = new Exchange(channel, receiver, counter, viewed, dropped);
+
+                for (int i = 0; i < WARM_UP_DATAGRAMS / 2; i++)
+                    exchange.run();
+
+                StringBuilder allocations = new StringBuilder();
+                boolean isWithinBounds = false;
+                for (int round = 0; round < MEASURED_ROUNDS && !isWithinBounds; round++) {
+                    long before = threads.getThreadAllocatedBytes(counter.threadId);
+                    for (int i = 0; i < MEASURED_DATAGRAMS / 2; i++)
+                        exchange.run();
+                    long allocated = threads.getThreadAllocatedBytes(counter.threadId) - before;
+
+                    isWithinBounds = allocated <= allowed;
+                    allocations.append(round == 0 ? "" : ", ").append(allocated);
+                }
+
+                if (!isWithinBounds)
+                    throw new AssertionError(league.getName() + ": each round of " + MEASURED_DATAGRAMS
+                            + " datagrams allocated more than the selector's " + allowed
+                            + " bytes on the receive thread, in bytes: " + allocations);
+            } finally {
+                channel.close();
+                receiver.stop();
+            }
+        }
+
+        System.out.println("ReceiveAllocationCheck passed");
+    }
+
+    /** Measures the bytes allocated by adding an element to a {@link HashSet} whose table is already allocated. */
+    private static long measureSetEntrySize(com.sun.management.ThreadMXBean threads)
+    {
+        Set<Object> set = new HashSet<Object>();
+        Object element = new Object();
+        long threadId = Thread.currentThread().getId();
+
+        long before = 0;
+        for (int i = 0; i < 2 * MEASURED_DATAGRAMS; i++) {
+            if (i == MEASURED_DATAGRAMS)
+                before = threads.getThreadAllocatedBytes(threadId);
+            set.add(element);
+            set.clear();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / MEASURED_DATAGRAMS;
+    }
+
+    /** Counts the messages viewed, reading a field of each, and notes the thread on which they are received. */
+    private static class ViewCounter implements MessageHandler<GameStateView>
+    {
+        volatile long threadId = -1;
+        volatile int count;
+        long gameIds;
+
+        @Override
+        public void handle(GameStateView message)
+        {
+            threadId = Thread.currentThread().getId();
+            gameIds += message.getGameId();
+            count++;
+        }
+    }
+
+    /** Sends a datagram that is viewed and one that is dropped, each once the receiver has handled the last. */
+    private static class Exchange
+    {
+        private final DatagramChannel channel;
+        private final MessageReceiver<GameStateView> receiver;
+        private final ViewCounter counter;
+        private final ByteBuffer viewed;
+        private final ByteBuffer dropped;
+
+        Exchange(DatagramChannel channel, MessageReceiver<GameStateView> receiver, ViewCounter counter,
+                 ByteBuffer viewed, ByteBuffer dropped)
+        {
+            this.channel = channel;
+            this.receiver = receiver;
+            this.counter = counter;
+            this.viewed = viewed;
+            this.dropped = dropped;
+        }
+
+        void run() throws IOException
+        {
+            int count = counter.count;
+            viewed.rewind();
+            channel.write(viewed);
+            long deadline = System.currentTimeMillis() + TIMEOUT;
+            while (counter.count == count)
+                waitUntil(deadline);
+
+            long droppedCount = receiver.getDroppedCount();
+            dropped.rewind();
+            channel.write(dropped);
+            deadline = System.currentTimeMillis() + TIMEOUT;
+            while (receiver.getDroppedCount() == droppedCount)
+                waitUntil(deadline);
+        }
+
+        private static void waitUntil(long deadline)
+        {
+            if (System.currentTimeMillis() > deadline)
+                throw new AssertionError("a datagram sent to port " + PORT + " was not received");
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package controller.net;
+
+import common.Log;
+import controller.Game;
+import controller.TestGames;
+import controller.net.protocol.*;
+import data.League;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Checks that sending game state does not allocate once started, as claimed by {@link GameStateSender}.
+ * <p>
+ * Every protocol sends to the loopback address for a number of cycles, so that buffers are allocated and
+ * code is compiled, before the bytes allocated by this thread over further cycles are measured.
+ * <p>
+ * The JVM may occasionally allocate on the thread's behalf, such as when compiled code is deoptimised, so
+ * the check passes if any of a few rounds allocates nothing. An allocation made by sending itself would be
+ * seen in every round.
+ */
+public class SendAllocationCheck
+{
+    private static final int WARM_UP_CYCLES = 10000;
+    private static final int MEASURED_CYCLES = 10000;
+    private static final int MEASURED_ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception
+    {
+        Log.initialise();
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (League league : League.getAllLeagues()) {
+            Game game = TestGames.create(league);
+            GameStateSender sender = new GameStateSender(game, "127.0.0.1", new GameStateSendLog());
+            sender.addProtocol(new GameStateProtocol7(league));
+            sender.addProtocol(new GameStateProtocol8(league));
+            sender.addProtocol(new GameStateProtocol9(league, game.gameId()));
+            sender.addProtocol(new GameStateProtocol10(league, game.gameId()));
+            sender.addProtocol(new GameStateProtocol11(league, game.gameId()));
+
+            for (int i = 0; i < WARM_UP_CYCLES; i++)
+                sender.sendState();
+
+            StringBuilder allocations = new StringBuilder();
+            boolean isAllocationFree = false;
+            for (int round = 0; round < MEASURED_ROUNDS && !isAllocationFree; round++) {
+                long before = threads.getThreadAllocatedBytes(threadId);
+                for (int i = 0; i < MEASURED_CYCLES; i++)
+                    sender.sendState();
+                long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+                isAllocationFree = allocated == 0;
+                allocations.append(round == 0 ? "" : ", ").append(allocated);
+            }
+
+            if (!isAllocationFree)
+                throw new AssertionError(league.getName() + ": each round of " + MEASURED_CYCLES
+                        + " cycles allocated, in bytes: " + allocations);
+        }
+
+        System.out.println("SendAllocationCheck passed");
+    }
+}
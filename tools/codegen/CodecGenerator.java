@@ -0,0 +1,822 @@
+package codegen;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the Java codecs of network messages from a schema of their byte layouts.
+ * <p>
+ * For each struct of the schema, a class holding the values of its fields is generated. For each codec,
+ * a class is generated holding the offsets of all fields and the size of the message, together with an
+ * encoder and a decoder. These read and write every field at its absolute offset, in straight-line code:
+ * there are no loops or branches, and nothing is allocated. Byte arrays are copied as a whole, which is
+ * much faster than a byte at a time.
+ * <p>
+ * The syntax of schemas is described in <code>messages.schema</code>. Usage:
+ * <pre>java codegen.CodecGenerator &lt;schema file&gt; &lt;output directory&gt;</pre>
+ */
+public class CodecGenerator
+{
+    private static final String CHARSET = "UTF-8";
+    private static final String INDENT = "    ";
+
+    /** The types of primitive fields, by name, as {size, Java type, ByteBuffer method suffix}. */
+    private static final Map<String, String[]> PRIMITIVES = new LinkedHashMap<String, String[]>();
+
+    static {
+        PRIMITIVES.put("char", new String[] {"1", "byte", ""});
+        PRIMITIVES.put("int8", new String[] {"1", "byte", ""});
+        PRIMITIVES.put("uint8", new String[] {"1", "byte", ""});
+        PRIMITIVES.put("int16", new String[] {"2", "short", "Short"});
+        PRIMITIVES.put("uint16", new String[] {"2", "short", "Short"});
+        PRIMITIVES.put("int32", new String[] {"4", "int", "Int"});
+        PRIMITIVES.put("uint32", new String[] {"4", "int", "Int"});
+        PRIMITIVES.put("float", new String[] {"4", "float", "Float"});
+    }
+
+    private final String schemaName;
+    private String packageName;
+    private final Map<String, Long> constants = new LinkedHashMap<String, Long>();
+    private final Map<String, Struct> structs = new LinkedHashMap<String, Struct>();
+    private final Map<String, Codec> codecs = new LinkedHashMap<String, Codec>();
+
+    /* The tokens of the schema, and their line numbers. */
+    private final List<String> tokens = new ArrayList<String>();
+    private final List<Integer> lines = new ArrayList<Integer>();
+    private int pos;
+
+    private CodecGenerator(String schemaName)
+    {
+        this.schemaName = schemaName;
+    }
+
+    public static void main(String[] args)
+    {
+        if (args.length != 2) {
+            System.err.println("Usage: java codegen.CodecGenerator <schema file> <output directory>");
+            System.exit(2);
+        }
+
+        File schema = new File(args[0]);
+        File outputDir = new File(args[1]);
+        try {
+            CodecGenerator generator = new CodecGenerator(schema.getName());
+            generator.parse(read(schema));
+            int count = generator.generate(outputDir);
+            System.out.println("Generated " + count + " classes from " + schema);
+        } catch (SchemaException e) {
+            System.err.println(schema + ":" + e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Cannot generate codecs: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    ////////////////////////// PARSING //////////////////////////
+
+    private static String read(File file) throws IOException
+    {
+        StringBuilder text = new StringBuilder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), CHARSET));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null)
+                text.append(line).append('\n');
+        } finally {
+            reader.close();
+        }
+        return text.toString();
+    }
+
+    private void tokenize(String text) throws SchemaException
+    {
+        int line = 1;
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int start = i;
+            if (c == '\n') {
+                line++;
+                i++;
+                continue;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            } else if (c == '#') {
+                while (i < text.length() && text.charAt(i) != '\n')
+                    i++;
+                continue;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                while (i < text.length() && (Character.isJavaIdentifierPart(text.charAt(i)) || text.charAt(i) == '.'))
+                    i++;
+            } else if (Character.isDigit(c) || c == '-') {
+                i++;
+                while (i < text.length() && Character.isDigit(text.charAt(i)))
+                    i++;
+            } else if (c == '"') {
+                i++;
+                while (i < text.length() && text.charAt(i) != '"' && text.charAt(i) != '\n')
+                    i++;
+                if (i == text.length() || text.charAt(i) != '"')
+                    throw new SchemaException(line, "unterminated string");
+                i++;
+            } else if ("{}[];=,".indexOf(c) >= 0) {
+                i++;
+            } else {
+                throw new SchemaException(line, "unexpected character '" + c + "'");
+            }
+            tokens.add(text.substring(start, i));
+            lines.add(line);
+        }
+    }
+
+    private void parse(String text) throws SchemaException
+    {
+        tokenize(text);
+        while (pos < tokens.size()) {
+            String keyword = next();
+            if (keyword.equals("package")) {
+                packageName = next();
+                expect(";");
+            } else if (keyword.equals("const")) {
+                String name = identifier();
+                expect("=");
+                long value = number();
+                expect(";");
+                if (constants.put(name, value) != null)
+                    throw error("constant " + name + " is already declared");
+            } else if (keyword.equals("struct")) {
+                parseStruct();
+            } else if (keyword.equals("codec")) {
+                parseCodec();
+            } else {
+                throw error(pos - 1, "expected package, const, struct or codec, found '" + keyword + "'");
+            }
+        }
+        if (packageName == null)
+            throw new SchemaException(1, "no package declared");
+    }
+
+    private void parseStruct() throws SchemaException
+    {
+        Struct struct = new Struct(identifier());
+        if (structs.containsKey(struct.name))
+            throw error("struct " + struct.name + " is already declared");
+        expect("{");
+        Set<String> names = new HashSet<String>();
+        while (!peek().equals("}")) {
+            Field field = new Field(line());
+            if (peek().equals("if")) {
+                next();
+                field.flag = identifier();
+            }
+            field.type = identifier();
+            field.struct = structs.get(field.type);
+            if (field.struct == null && !PRIMITIVES.containsKey(field.type))
+                throw error(pos - 1, "unknown type " + field.type);
+            field.name = identifier();
+            if (!names.add(field.name))
+                throw error(pos - 1, "field " + field.name + " is already declared");
+            if (peek().equals("[")) {
+                next();
+                field.length = (int)(Character.isDigit(peek().charAt(0)) ? number() : constant(identifier()));
+                if (field.length <= 0)
+                    throw error(pos - 1, "array length must be positive");
+                expect("]");
+            }
+            if (peek().equals("=")) {
+                next();
+                parseValue(field);
+            }
+            expect(";");
+            struct.fields.add(field);
+        }
+        expect("}");
+        structs.put(struct.name, struct);
+    }
+
+    private void parseValue(Field field) throws SchemaException
+    {
+        if (field.struct != null || field.type.equals("float"))
+            throw error("only integer and char fields can have a constant value");
+
+        if (field.type.equals("char")) {
+            String token = next();
+            if (!token.startsWith("\""))
+                throw error(pos - 1, "expected a string");
+            field.text = token.substring(1, token.length() - 1);
+            if (field.text.length() != Math.max(field.length, 1))
+                throw error(pos - 1, "string must have exactly as many characters as the field");
+            return;
+        }
+
+        if (field.length >= 0)
+            throw error("array fields cannot have a constant value");
+        field.value = Character.isDigit(peek().charAt(0)) || peek().startsWith("-") ? number() : constant(identifier());
+        int bits = 8 * Integer.parseInt(PRIMITIVES.get(field.type)[0]);
+        long min = field.type.startsWith("u") ? 0 : -(1L << (bits - 1));
+        long max = field.type.startsWith("u") ? (1L << bits) - 1 : (1L << (bits - 1)) - 1;
+        if (field.value < min || field.value > max)
+            throw error(pos - 1, "value " + field.value + " does not fit in " + field.type);
+    }
+
+    private void parseCodec() throws SchemaException
+    {
+        Codec codec = new Codec(identifier());
+        if (codecs.containsKey(codec.name) || structs.containsKey(codec.name))
+            throw error(pos - 1, "name " + codec.name + " is already declared");
+        expect("=");
+        String structName = identifier();
+        codec.struct = structs.get(structName);
+        if (codec.struct == null)
+            throw error(pos - 1, "unknown struct " + structName);
+        if (peek().equals("with")) {
+            next();
+            codec.flags.add(identifier());
+            while (peek().equals(",")) {
+                next();
+                codec.flags.add(identifier());
+            }
+        }
+        expect(";");
+        codecs.put(codec.name, codec);
+    }
+
+    private long constant(String name) throws SchemaException
+    {
+        Long value = constants.get(name);
+        if (value == null)
+            throw error(pos - 1, "unknown constant " + name);
+        return value;
+    }
+
+    private String peek() throws SchemaException
+    {
+        if (pos >= tokens.size())
+            throw new SchemaException(lines.isEmpty() ? 1 : lines.get(lines.size() - 1), "unexpected end of schema");
+        return tokens.get(pos);
+    }
+
+    private String next() throws SchemaException
+    {
+        String token = peek();
+        pos++;
+        return token;
+    }
+
+    private int line()
+    {
+        return lines.get(Math.min(pos, lines.size() - 1));
+    }
+
+    private void expect(String expected) throws SchemaException
+    {
+        String token = next();
+        if (!token.equals(expected))
+            throw error(pos - 1, "expected '" + expected + "', found '" + token + "'");
+    }
+
+    private String identifier() throws SchemaException
+    {
+        String token = next();
+        if (!Character.isJavaIdentifierStart(token.charAt(0)) || token.indexOf('.') >= 0)
+            throw error(pos - 1, "expected a name, found '" + token + "'");
+        return token;
+    }
+
+    private long number() throws SchemaException
+    {
+        String token = next();
+        try {
+            return Long.parseLong(token);
+        } catch (NumberFormatException e) {
+            throw error(pos - 1, "expected a number, found '" + token + "'");
+        }
+    }
+
+    private SchemaException error(String message)
+    {
+        return error(pos - 1, message);
+    }
+
+    private SchemaException error(int tokenIndex, String message)
+    {
+        return new SchemaException(lines.get(tokenIndex), message);
+    }
+
+    ////////////////////////// GENERATION //////////////////////////
+
+    private int generate(File outputDir) throws IOException, SchemaException
+    {
+        File packageDir = new File(outputDir, packageName.replace('.', File.separatorChar));
+        if (!packageDir.isDirectory() && !packageDir.mkdirs())
+            throw new IOException("cannot create " + packageDir);
+
+        for (Struct struct : structs.values())
+            write(new File(packageDir, struct.name + ".java"), generateData(struct));
+        for (Codec codec : codecs.values())
+            write(new File(packageDir, codec.name + ".java"), generateCodec(codec));
+        write(new File(packageDir, "LittleEndian.java"), generateLittleEndian());
+        return structs.size() + codecs.size() + 1;
+    }
+
+    private static void write(File file, String text) throws IOException
+    {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), CHARSET);
+        try {
+            writer.write(text);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void appendHeader(StringBuilder out, String... imports)
+    {
+        out.append("// Generated by codegen.CodecGenerator from ").append(schemaName).append(". Do not edit.\n\n");
+        out.append("package ").append(packageName).append(";\n\n");
+        for (String name : imports)
+            out.append("import ").append(name).append(";\n");
+        if (imports.length > 0)
+            out.append('\n');
+    }
+
+    /** Generates the class holding the values of a struct's fields. */
+    private String generateData(Struct struct)
+    {
+        StringBuilder out = new StringBuilder();
+        appendHeader(out);
+        out.append("/**\n")
+           .append(" * The values of the fields of struct <code>").append(struct.name).append("</code>, as declared in ")
+           .append(schemaName).append(".\n")
+           .append(" * <p>\n")
+           .append(" * Unsigned fields hold the bits of their values, as in the message. Fields with constant\n")
+           .append(" * values are not held, as they are written by the encoder.\n")
+           .append(" */\n")
+           .append("public class ").append(struct.name).append("\n{\n");
+
+        List<Field> structArrays = new ArrayList<Field>();
+        for (Field field : struct.fields) {
+            if (field.isConstant())
+                continue;
+            if (field.flag != null)
+                out.append(INDENT).append("/** Only encoded by codecs with ").append(field.flag).append(". */\n");
+            String type = field.struct != null ? field.struct.name : PRIMITIVES.get(field.type)[1];
+            out.append(INDENT).append("public ");
+            if (field.length >= 0) {
+                out.append("final ").append(type).append("[] ").append(field.name)
+                   .append(" = new ").append(type).append('[').append(field.length).append("];\n");
+                if (field.struct != null)
+                    structArrays.add(field);
+            } else if (field.struct != null) {
+                out.append("final ").append(type).append(' ').append(field.name).append(" = new ").append(type).append("();\n");
+            } else {
+                out.append(type).append(' ').append(field.name).append(";\n");
+            }
+        }
+
+        if (!structArrays.isEmpty()) {
+            out.append('\n').append(INDENT).append("public ").append(struct.name).append("()\n")
+               .append(INDENT).append("{\n");
+            for (Field field : structArrays) {
+                out.append(INDENT).append(INDENT).append("for (int i = 0; i < ").append(field.name).append(".length; i++)\n")
+                   .append(INDENT).append(INDENT).append(INDENT).append(field.name).append("[i] = new ")
+                   .append(field.struct.name).append("();\n");
+            }
+            out.append(INDENT).append("}\n");
+        }
+
+        out.append("}\n");
+        return out.toString();
+    }
+
+    /**
+     * Generates the class through which the codecs read and write multi-byte values, one byte at a time,
+     * so that the byte order of the caller's buffer is neither relied upon nor changed.
+     */
+    private String generateLittleEndian()
+    {
+        StringBuilder out = new StringBuilder();
+        appendHeader(out, "java.nio.ByteBuffer");
+        out.append("/**\n")
+           .append(" * Reads and writes little-endian values at absolute indices, whatever the byte order of the buffer.\n")
+           .append(" */\n")
+           .append("final class LittleEndian\n{\n")
+           .append(INDENT).append("private LittleEndian() {}\n\n")
+           .append(INDENT).append("static short getShort(ByteBuffer buffer, int index)\n")
+           .append(INDENT).append("{\n")
+           .append(INDENT).append(INDENT).append("return (short)((buffer.get(index) & 0xFF) | buffer.get(index + 1) << 8);\n")
+           .append(INDENT).append("}\n\n")
+           .append(INDENT).append("static int getInt(ByteBuffer buffer, int index)\n")
+           .append(INDENT).append("{\n")
+           .append(INDENT).append(INDENT).append("return (buffer.get(index) & 0xFF) | (buffer.get(index + 1) & 0xFF) << 8\n")
+           .append(INDENT).append(INDENT).append(INDENT).append(INDENT).append("| (buffer.get(index + 2) & 0xFF) << 16 | buffer.get(index + 3) << 24;\n")
+           .append(INDENT).append("}\n\n")
+           .append(INDENT).append("static float getFloat(ByteBuffer buffer, int index)\n")
+           .append(INDENT).append("{\n")
+           .append(INDENT).append(INDENT).append("return Float.intBitsToFloat(getInt(buffer, index));\n")
+           .append(INDENT).append("}\n\n")
+           .append(INDENT).append("static void putShort(ByteBuffer buffer, int index, short value)\n")
+           .append(INDENT).append("{\n")
+           .append(INDENT).append(INDENT).append("buffer.put(index, (byte)value);\n")
+           .append(INDENT).append(INDENT).append("buffer.put(index + 1, (byte)(value >> 8));\n")
+           .append(INDENT).append("}\n\n")
+           .append(INDENT).append("static void putInt(ByteBuffer buffer, int index, int value)\n")
+           .append(INDENT).append("{\n")
+           .append(INDENT).append(INDENT).append("buffer.put(index, (byte)value);\n")
+           .append(INDENT).append(INDENT).append("buffer.put(index + 1, (byte)(value >> 8));\n")
+           .append(INDENT).append(INDENT).append("buffer.put(index + 2, (byte)(value >> 16));\n")
+           .append(INDENT).append(INDENT).append("buffer.put(index + 3, (byte)(value >> 24));\n")
+           .append(INDENT).append("}\n\n")
+           .append(INDENT).append("static void putFloat(ByteBuffer buffer, int index, float value)\n")
+           .append(INDENT).append("{\n")
+           .append(INDENT).append(INDENT).append("putInt(buffer, index, Float.floatToRawIntBits(value));\n")
+           .append(INDENT).append("}\n")
+           .append("}\n");
+        return out.toString();
+    }
+
+    /** Generates the class holding a codec's layout constants, encoder and decoder. */
+    private String generateCodec(Codec codec) throws SchemaException
+    {
+        Struct root = codec.struct;
+        String flags = codec.flags.isEmpty() ? "" : " with " + join(codec.flags);
+
+        StringBuilder out = new StringBuilder();
+        appendHeader(out, "common.annotations.NotNull", "java.nio.ByteBuffer");
+        out.append("/**\n")
+           .append(" * Encodes and decodes messages laid out as struct <code>").append(root.name).append("</code>")
+           .append(flags).append(", as declared in ").append(schemaName).append(".\n")
+           .append(" * <p>\n")
+           .append(" * The constants give the offset of each field within its struct, and the length of each array.\n")
+           .append(" * The offsets within nested structs are held by the nested classes of the same names.\n")
+           .append(" */\n")
+           .append("public final class ").append(codec.name).append("\n{\n");
+
+        out.append(INDENT).append("/** The size of a message, in bytes. */\n");
+        out.append(INDENT).append("public static final int SIZE = ").append(root.size(codec.flags)).append(";\n\n");
+        appendLayout(out, INDENT, root, codec.flags);
+
+        // The layouts of nested structs, in the order in which they are first used
+        Set<Struct> nested = new LinkedHashSet<Struct>();
+        root.collectNested(codec.flags, nested);
+        for (Struct struct : nested) {
+            out.append('\n')
+               .append(INDENT).append("/** The layout of struct <code>").append(struct.name).append("</code>").append(flags).append(". */\n")
+               .append(INDENT).append("public static final class ").append(struct.name).append("\n")
+               .append(INDENT).append("{\n")
+               .append(INDENT).append(INDENT).append("/** The size of the struct, in bytes. */\n")
+               .append(INDENT).append(INDENT).append("public static final int SIZE = ").append(struct.size(codec.flags)).append(";\n\n");
+            appendLayout(out, INDENT + INDENT, struct, codec.flags);
+            out.append('\n')
+               .append(INDENT).append(INDENT).append("private ").append(struct.name).append("() {}\n")
+               .append(INDENT).append("}\n");
+        }
+
+        // The table of fields, by which messages can be compared field by field
+        List<int[]> table = new ArrayList<int[]>();
+        collectFields(root, codec.flags, 0, table);
+        out.append('\n')
+           .append(INDENT).append("/**\n")
+           .append(INDENT).append(" * The number of fields with variable values. Each byte array counts as a single field, and each element\n")
+           .append(INDENT).append(" * of another array or an array of structs counts as a field of its own.\n")
+           .append(INDENT).append(" */\n")
+           .append(INDENT).append("public static final int FIELD_COUNT = ").append(table.size()).append(";\n\n");
+        appendTable(out, "FIELD_OFFSETS", table, 0);
+        appendTable(out, "FIELD_SIZES", table, 1);
+
+        out.append('\n').append(INDENT).append("private ").append(codec.name).append("() {}\n");
+
+        out.append('\n')
+           .append(INDENT).append("/** Gets the offset of a field within the message, as numbered from 0 to {@link #FIELD_COUNT} - 1. */\n")
+           .append(INDENT).append("public static int getFieldOffset(int field)\n")
+           .append(INDENT).append("{\n")
+           .append(INDENT).append(INDENT).append("return FIELD_OFFSETS[field];\n")
+           .append(INDENT).append("}\n")
+           .append('\n')
+           .append(INDENT).append("/** Gets the size in bytes of a field, as numbered from 0 to {@link #FIELD_COUNT} - 1. */\n")
+           .append(INDENT).append("public static int getFieldSize(int field)\n")
+           .append(INDENT).append("{\n")
+           .append(INDENT).append(INDENT).append("return FIELD_SIZES[field];\n")
+           .append(INDENT).append("}\n");
+
+        out.append('\n')
+           .append(INDENT).append("/**\n")
+           .append(INDENT).append(" * Writes a message into a buffer, in little-endian byte order. The buffer's position and byte order\n")
+           .append(INDENT).append(" * are not changed.\n")
+           .append(INDENT).append(" *\n")
+           .append(INDENT).append(" * @param data the values of the message's fields.\n")
+           .append(INDENT).append(" * @param buffer the buffer to write into, having at least {@link #SIZE} bytes from the offset.\n")
+           .append(INDENT).append(" * @param offset the index in the buffer at which the message begins.\n")
+           .append(INDENT).append(" */\n")
+           .append(INDENT).append("public static void encode(@NotNull ").append(root.name)
+           .append(" data, @NotNull ByteBuffer buffer, int offset)\n")
+           .append(INDENT).append("{\n");
+        appendBody(out, root, codec.flags, true);
+        out.append(INDENT).append("}\n");
+
+        out.append('\n')
+           .append(INDENT).append("/**\n")
+           .append(INDENT).append(" * Reads a message from a buffer, in little-endian byte order. The buffer's position and byte order\n")
+           .append(INDENT).append(" * are not changed. Fields with constant values, such as the header, are not checked.\n")
+           .append(INDENT).append(" *\n")
+           .append(INDENT).append(" * @param buffer the buffer to read from, having at least {@link #SIZE} bytes from the offset.\n")
+           .append(INDENT).append(" * @param offset the index in the buffer at which the message begins.\n")
+           .append(INDENT).append(" * @param data receives the values of the message's fields.\n")
+           .append(INDENT).append(" */\n")
+           .append(INDENT).append("public static void decode(@NotNull ByteBuffer buffer, int offset, @NotNull ")
+           .append(root.name).append(" data)\n")
+           .append(INDENT).append("{\n");
+        appendBody(out, root, codec.flags, false);
+        out.append(INDENT).append("}\n");
+
+        out.append("}\n");
+        return out.toString();
+    }
+
+    /** Appends the offset constants of a struct's fields. */
+    private void appendLayout(StringBuilder out, String indent, Struct struct, Set<String> flags) throws SchemaException
+    {
+        Set<String> names = new HashSet<String>(Arrays.asList("SIZE"));
+        int offset = 0;
+        for (Field field : struct.fields) {
+            if (!field.isIncluded(flags))
+                continue;
+            String name = constantName(field.name);
+            if (!names.add(name) || (field.length >= 0 && !names.add(name + "_LENGTH")))
+                throw new SchemaException(field.line, "field " + field.name + " clashes with another constant of struct " + struct.name);
+            out.append(indent).append("public static final int ").append(name).append(" = ").append(offset).append(";\n");
+            if (field.length >= 0)
+                out.append(indent).append("public static final int ").append(name).append("_LENGTH = ").append(field.length).append(";\n");
+            offset += field.size(flags);
+        }
+    }
+
+    /** Collects the offset and size of each field with variable values, in the order of the message. */
+    private void collectFields(Struct struct, Set<String> flags, int offset, List<int[]> table)
+    {
+        for (Field field : struct.fields) {
+            if (!field.isIncluded(flags))
+                continue;
+            int size = field.size(flags);
+            if (field.isBulk()) {
+                table.add(new int[] {offset, size});
+            } else if (!field.isConstant()) {
+                int count = Math.max(field.length, 1);
+                for (int i = 0; i < count; i++) {
+                    if (field.struct != null)
+                        collectFields(field.struct, flags, offset + i * size / count, table);
+                    else
+                        table.add(new int[] {offset + i * size / count, size / count});
+                }
+            }
+            offset += size;
+        }
+    }
+
+    private static void appendTable(StringBuilder out, String name, List<int[]> table, int column)
+    {
+        out.append(INDENT).append("private static final int[] ").append(name).append(" = {");
+        for (int i = 0; i < table.size(); i++) {
+            out.append(i % 16 == 0 ? "\n" + INDENT + INDENT : " ").append(table.get(i)[column]);
+            if (i < table.size() - 1)
+                out.append(',');
+        }
+        out.append('\n').append(INDENT).append("};\n");
+    }
+
+    /** Appends the statements of an encoder or decoder. */
+    private void appendBody(StringBuilder out, Struct root, Set<String> flags, boolean encode)
+    {
+        // Byte arrays are copied by the buffer's relative methods, so its position is restored afterwards
+        boolean hasBulk = root.hasBulk(flags);
+        if (hasBulk)
+            out.append(INDENT).append(INDENT).append("int position = buffer.position();\n");
+        appendCode(out, root, flags, "data", 0, encode);
+        if (hasBulk)
+            out.append(INDENT).append(INDENT).append("buffer.position(position);\n");
+    }
+
+    /**
+     * Appends the statements that encode or decode a struct, one for each primitive value or byte array,
+     * each at its absolute offset within the message.
+     */
+    private void appendCode(StringBuilder out, Struct struct, Set<String> flags, String path, int offset, boolean encode)
+    {
+        for (Field field : struct.fields) {
+            if (!field.isIncluded(flags))
+                continue;
+            if (field.isBulk()) {
+                out.append(INDENT).append(INDENT).append("buffer.position(").append(offsetExpression(offset)).append(");\n")
+                   .append(INDENT).append(INDENT).append("buffer.").append(encode ? "put" : "get").append('(')
+                   .append(path).append('.').append(field.name).append(");\n");
+                offset += field.size(flags);
+                continue;
+            }
+            int count = Math.max(field.length, 1);
+            int elementSize = field.size(flags) / count;
+            for (int i = 0; i < count; i++) {
+                String element = path + "." + field.name + (field.length >= 0 ? "[" + i + "]" : "");
+                int elementOffset = offset + i * elementSize;
+                if (field.struct != null) {
+                    // Each nested struct is held in a local, rather than looked up again for each of its fields
+                    String local = localName(path, field, i);
+                    out.append(INDENT).append(INDENT).append(packageName).append('.').append(field.struct.name)
+                       .append(' ').append(local).append(" = ").append(element).append(";\n");
+                    appendCode(out, field.struct, flags, local, elementOffset, encode);
+                }
+                else if (encode)
+                    appendPut(out, field, i, element, elementOffset);
+                else if (!field.isConstant())
+                    appendGet(out, field, element, elementOffset);
+            }
+            offset += field.size(flags);
+        }
+    }
+
+    private void appendPut(StringBuilder out, Field field, int index, String element, int offset)
+    {
+        String[] primitive = PRIMITIVES.get(field.type);
+        String value;
+        if (field.text != null)
+            value = "(byte)'" + field.text.charAt(index) + "'";
+        else if (field.value != null)
+            value = primitive[1].equals("int") ? String.valueOf((int)(long)field.value) : "(" + primitive[1] + ")" + field.value;
+        else
+            value = element;
+        // Multi-byte values are written through LittleEndian, leaving the buffer's byte order as it is
+        if (primitive[2].isEmpty())
+            out.append(INDENT).append(INDENT).append("buffer.put(");
+        else
+            out.append(INDENT).append(INDENT).append("LittleEndian.put").append(primitive[2]).append("(buffer, ");
+        out.append(offsetExpression(offset)).append(", ").append(value).append(");\n");
+    }
+
+    private void appendGet(StringBuilder out, Field field, String element, int offset)
+    {
+        String[] primitive = PRIMITIVES.get(field.type);
+        out.append(INDENT).append(INDENT).append(element);
+        if (primitive[2].isEmpty())
+            out.append(" = buffer.get(");
+        else
+            out.append(" = LittleEndian.get").append(primitive[2]).append("(buffer, ");
+        out.append(offsetExpression(offset)).append(");\n");
+    }
+
+    /** Gets the name of the local holding a nested struct, such as "teams0Players3" for data.teams[0].players[3]. */
+    private static String localName(String path, Field field, int index)
+    {
+        String name = path.equals("data") ? field.name
+                : path + Character.toUpperCase(field.name.charAt(0)) + field.name.substring(1);
+        return field.length >= 0 ? name + index : name;
+    }
+
+    private static String offsetExpression(int offset)
+    {
+        return offset == 0 ? "offset" : "offset + " + offset;
+    }
+
+    /** Converts a field name such as "secsRemaining" to a constant name such as "SECS_REMAINING". */
+    private static String constantName(String name)
+    {
+        StringBuilder constant = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c) && i > 0 && !Character.isUpperCase(name.charAt(i - 1)))
+                constant.append('_');
+            constant.append(Character.toUpperCase(c));
+        }
+        return constant.toString();
+    }
+
+    private static String join(Set<String> names)
+    {
+        StringBuilder joined = new StringBuilder();
+        for (String name : names) {
+            if (joined.length() > 0)
+                joined.append(", ");
+            joined.append(name);
+        }
+        return joined.toString();
+    }
+
+    ////////////////////////// SCHEMA MODEL //////////////////////////
+
+    private static class Struct
+    {
+        final String name;
+        final List<Field> fields = new ArrayList<Field>();
+
+        Struct(String name)
+        {
+            this.name = name;
+        }
+
+        int size(Set<String> flags)
+        {
+            int size = 0;
+            for (Field field : fields)
+                if (field.isIncluded(flags))
+                    size += field.size(flags);
+            return size;
+        }
+
+        boolean hasBulk(Set<String> flags)
+        {
+            for (Field field : fields) {
+                if (field.hasBulk(flags))
+                    return true;
+            }
+            return false;
+        }
+
+        void collectNested(Set<String> flags, Set<Struct> nested)
+        {
+            for (Field field : fields) {
+                if (field.struct != null && field.isIncluded(flags) && nested.add(field.struct))
+                    field.struct.collectNested(flags, nested);
+            }
+        }
+    }
+
+    private static class Field
+    {
+        final int line;
+        String flag;
+        String type;
+        Struct struct;
+        String name;
+        /** The number of elements, or -1 if the field is not an array. */
+        int length = -1;
+        /** The constant value of an integer field, if any. */
+        Long value;
+        /** The constant value of a char field, if any. */
+        String text;
+
+        Field(int line)
+        {
+            this.line = line;
+        }
+
+        /** Whether the field is a byte array, which is encoded and decoded as a whole. */
+        boolean isBulk()
+        {
+            return struct == null && length >= 0 && !isConstant() && PRIMITIVES.get(type)[0].equals("1");
+        }
+
+        boolean hasBulk(Set<String> flags)
+        {
+            return isIncluded(flags) && (isBulk() || (struct != null && struct.hasBulk(flags)));
+        }
+
+        boolean isConstant()
+        {
+            return value != null || text != null;
+        }
+
+        boolean isIncluded(Set<String> flags)
+        {
+            return flag == null || flags.contains(flag);
+        }
+
+        int size(Set<String> flags)
+        {
+            int elementSize = struct != null ? struct.size(flags) : Integer.parseInt(PRIMITIVES.get(type)[0]);
+            return elementSize * Math.max(length, 1);
+        }
+    }
+
+    private static class Codec
+    {
+        final String name;
+        Struct struct;
+        final Set<String> flags = new LinkedHashSet<String>();
+
+        Codec(String name)
+        {
+            this.name = name;
+        }
+    }
+
+    private static class SchemaException extends Exception
+    {
+        SchemaException(int line, String message)
+        {
+            super(line + ": " + message);
+        }
+    }
+}